@@ -0,0 +1,81 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.cdi.jsr107.impl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.*;
+
+/**
+ * Annotation to be applied to a method annotated with
+ * {@link javax.cache.annotation.CacheResult}, or to its class, to keep the
+ * results also in a near cache local to the instance, so that repeated calls
+ * do not read the clustered cache.
+ * <p>
+ * Entries are dropped from the near cache when a {@code CachePut},
+ * {@code CacheRemove} or {@code CacheRemoveAll} method of the same
+ * application updates the cache, and otherwise after the time to live, so a
+ * change made by another instance can be missed for up to that time.
+ * <p>
+ * Unlike the clustered cache, which stores values by value and hands every
+ * caller its own copy, the near cache keeps the result itself and returns the
+ * same instance to every caller. Only use it for methods whose results are
+ * immutable, or are never modified by callers.
+ *
+ * @since 5.2020.7
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({METHOD, TYPE})
+public @interface NearCache {
+
+    /**
+     * The time in milliseconds an entry is kept in the near cache
+     * @return
+     */
+    long timeToLiveMillis() default 1000;
+
+    /**
+     * The maximum number of entries kept in the near cache of a cache
+     * @return
+     */
+    int maxEntries() default 10000;
+}
@@ -1,5 +1,7 @@
 /*
- * Copyright (c) 2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -35,19 +37,20 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-package fish.payara.nucleus.requesttracing.store;
 
-import fish.payara.nucleus.requesttracing.store.strategy.ReservoirTraceStorageStrategy;
+package com.sun.appserv.connectors.internal.spi;
 
 /**
- * Tests correctness of the {@link LocalRequestTraceStore}.
- *  
- * @author Jan Bernitt
+ * Interface for RARs to implement to get notified when the connection pool of the MCF
+ * is flushed, to drop state derived from the flushed connections.
+ * <i>Custom api</i>
+ *
+ * @see MCFLifecycleListener
+ * @since 5.2020.7
  */
-public class LocalRequestTraceStoreTest extends AbstractRequestTraceStoreTest {
-
-    public LocalRequestTraceStoreTest() {
-        super(new LocalRequestTraceStore(new ReservoirTraceStorageStrategy()));
-    }
-
+public interface MCFPoolFlushListener {
+    /**
+     * pool-flushed event
+     */
+    void poolFlushed();
 }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.enterprise.resource;
 
@@ -51,6 +52,7 @@ import javax.resource.spi.ConnectionEventListener;
 import javax.security.auth.Subject;
 import javax.transaction.xa.XAResource;
 import javax.transaction.Transaction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -78,7 +80,11 @@ public class ResourceHandle implements
     private int shareCount;   // sharing within a component (XA only)
     private boolean supportsXAResource = false;
 
-    private volatile boolean busy;
+    private static final int FREE = 0;
+    private static final int BUSY = 1;
+    private static final int REMOVED = 2;
+
+    private final AtomicInteger busyState = new AtomicInteger(FREE);
 
     private Subject subject = null;
 
@@ -382,10 +388,49 @@ public class ResourceHandle implements
     }
 
     public void setBusy(boolean isBusy){
-        busy = isBusy;
+        int target = isBusy ? BUSY : FREE;
+        int current;
+        do {
+            current = busyState.get();
+            if (current == REMOVED) {
+                return;
+            }
+        } while (!busyState.compareAndSet(current, target));
     }
 
     public boolean isBusy(){
-        return busy;
+        return busyState.get() != FREE;
+    }
+
+    /**
+     * Atomically marks this handle as busy if it is currently free.
+     *
+     * @return true if the calling thread claimed the handle, false if it was already busy or removed
+     */
+    public boolean trySetBusy(){
+        return busyState.compareAndSet(FREE, BUSY);
+    }
+
+    /**
+     * Atomically marks this busy handle as free again.
+     *
+     * @return true if the handle was busy and is now free, false if it was already free or has been removed
+     */
+    public boolean tryReturn(){
+        return busyState.compareAndSet(BUSY, FREE);
+    }
+
+    /**
+     * Marks this handle as removed from its pool. A removed handle stays busy for good, so it can
+     * neither be claimed nor returned by threads still holding a reference to it.
+     *
+     * @return true if the handle was free when it was removed
+     */
+    public boolean markRemoved(){
+        return busyState.getAndSet(REMOVED) == FREE;
+    }
+
+    public boolean isRemoved(){
+        return busyState.get() == REMOVED;
     }
 }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.enterprise.resource.pool;
 
@@ -287,6 +288,15 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
         }
     }
 
+    /**
+     * Resources may still be associated with the thread that freed them, hence they are never
+     * handed over directly to a waiting thread.
+     */
+    @Override
+    protected boolean handOffToWaitingThread(ResourceHandle resourceHandle) {
+        return false;
+    }
+
     /**
      * destroys the resource
      * @param resourceHandle resource to be destroyed
@@ -37,13 +37,15 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.resource.pool;
 
 import com.sun.appserv.connectors.internal.api.PoolingException;
 import com.sun.appserv.connectors.internal.spi.BadConnectionEventListener;
+import com.sun.appserv.connectors.internal.spi.MCFPoolFlushListener;
 import com.sun.enterprise.connectors.ConnectorConnectionPool;
+import com.sun.enterprise.connectors.ConnectorRegistry;
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.connectors.service.ConnectorAdminServiceUtils;
 import com.sun.enterprise.resource.ResourceHandle;
@@ -54,6 +56,7 @@ import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.HandoffPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
@@ -64,6 +67,7 @@ import org.glassfish.resourcebase.resources.api.PoolInfo;
 
 import javax.naming.NamingException;
 import javax.resource.ResourceException;
+import javax.resource.spi.ManagedConnectionFactory;
 import javax.resource.spi.RetryableUnavailableException;
 import javax.transaction.Transaction;
 import java.util.*;
@@ -370,8 +374,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         long startTime = System.currentTimeMillis();
         long elapsedWaitTime;
         long remainingWaitTime = 0;
+        ResourceHandle handedOff = null;
 
         while (true) {
+            // a resource handed over by a releasing thread goes through the same checks as any other request
+            ResourceHandle candidate = handedOff;
+            handedOff = null;
             if (gateway.allowed()) {
                 //See comment #1 above
                 JavaEETransaction jtx = ((JavaEETransaction) txn);
@@ -383,12 +391,19 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                 //already obtained in the current transaction.
                 if (!blocked || (resourcesSet != null && resourcesSet.size() > 0)) {
                     try {
-                        result = internalGetResource(spec, alloc, txn);
+                        result = candidate == null
+                                ? internalGetResource(spec, alloc, txn)
+                                : internalGetResource(spec, alloc, txn, candidate);
+                        candidate = null;
                     } finally {
                         gateway.acquiredResource();
                     }
                 }
             }
+            if (candidate != null) {
+                // the gateway refused the request or the pool is being reconfigured
+                releaseHandedOffResource(candidate);
+            }
             if (result != null) {
                 // got one, return it
                 if (poolLifeCycleListener != null) {
@@ -425,7 +440,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     }
                 }
 
-                if (!blocked) {
+                if (!blocked && waitQueue instanceof HandoffPoolWaitQueue) {
+                    handedOff = waitForHandedOffResource((HandoffPoolWaitQueue) waitQueue, remainingWaitTime);
+                } else if (!blocked) {
                     //add to wait-queue
                     Object waitMonitor = new Object();
                     if (poolLifeCycleListener != null) {
@@ -438,13 +455,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                             waitMonitor.wait(remainingWaitTime);
 
                         } catch (InterruptedException ex) {
-                           if (Globals.getDefaultHabitat().getService(ServerEnvironment.class, new Annotation[0]).getStatus() == ServerEnvironment.Status.stopping) {
-                               String msg = localStrings.getStringWithDefault("poolmgr.interrupted.shutdown", "Server is shutting down, cannot get connection");
-                               throw new PoolingException(msg);
-                           } else {
-                               String msg = localStrings.getStringWithDefault("poolmgr.interrupted.notshutdown", "Resource Pool: Interrupted retrieving connection");
-                               throw new PoolingException(msg, ex);
-                           }          
+                            throw waitInterrupted(ex);
                         }
 
                         //try to remove in case that the monitor has timed
@@ -506,6 +517,84 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return result;
     }
 
+    /**
+     * Waits in the handoff wait-queue for a resource freed by another thread.
+     *
+     * @param queue             the handoff wait-queue of this pool
+     * @param remainingWaitTime maximum time to wait, 0 to wait indefinitely
+     * @return the resource handed over, or null if none was handed over
+     * @throws PoolingException when interrupted while waiting
+     */
+    private ResourceHandle waitForHandedOffResource(HandoffPoolWaitQueue queue, long remainingWaitTime)
+            throws PoolingException {
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionRequestQueued();
+        }
+        ResourceHandle handle;
+        try {
+            logFine("Resource Pool: getting on handoff wait queue");
+            handle = queue.awaitHandoff(remainingWaitTime);
+        } catch (InterruptedException ex) {
+            throw waitInterrupted(ex);
+        } finally {
+            if (poolLifeCycleListener != null) {
+                poolLifeCycleListener.connectionRequestDequeued();
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Applies the checks of {@link #getResourceFromPool(ResourceAllocator, ResourceSpec)} to a resource that
+     * was handed over directly by {@link #freeResource(ResourceHandle)}.
+     * A resource that cannot be used by this request is returned to the pool (or removed when invalid)
+     * so that the request falls back to the pool like any other.
+     */
+    private ResourceHandle acceptHandedOffResource(ResourceHandle handle, ResourceSpec spec, ResourceAllocator alloc) {
+        if (handle.isRemoved()) {
+            // removed from the pool (e.g. by a flush) after it was handed over
+            return null;
+        }
+        if (handle.hasConnectionErrorOccurred()) {
+            ds.removeResource(handle);
+            return null;
+        }
+        if (!matchConnection(handle, alloc)) {
+            releaseHandedOffResource(handle);
+            return null;
+        }
+        if (!isConnectionValid(handle, alloc) || handle.hasConnectionErrorOccurred()) {
+            ds.removeResource(handle);
+            return null;
+        }
+        if (handle.isShareable() != alloc.shareableWithinComponent()) {
+            releaseHandedOffResource(handle);
+            return null;
+        }
+        setResourceStateToBusy(handle);
+        return handle;
+    }
+
+    /**
+     * Gives a handed over resource that was not used back to the next waiting thread or the pool.
+     */
+    private void releaseHandedOffResource(ResourceHandle handle) {
+        if (handOffToWaitingThread(handle)) {
+            return;
+        }
+        ds.returnResource(handle);
+        notifyWaitingThreads();
+    }
+
+    private PoolingException waitInterrupted(InterruptedException ex) {
+        if (Globals.getDefaultHabitat().getService(ServerEnvironment.class, new Annotation[0]).getStatus() == ServerEnvironment.Status.stopping) {
+            String msg = localStrings.getStringWithDefault("poolmgr.interrupted.shutdown", "Server is shutting down, cannot get connection");
+            return new PoolingException(msg);
+        }
+        String msg = localStrings.getStringWithDefault("poolmgr.interrupted.notshutdown", "Resource Pool: Interrupted retrieving connection");
+        return new PoolingException(msg, ex);
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource
      * cached in the ThreadLocal
@@ -524,34 +613,57 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected ResourceHandle internalGetResource(ResourceSpec spec,
                                                  ResourceAllocator alloc,
                                                  Transaction tran) throws PoolingException {
-        if (!poolInitialized) {
-            initPool(alloc);
-        }
-        ResourceHandle result;
+        return internalGetResource(spec, alloc, tran, null);
+    }
 
-        result = getResourceFromTransaction(tran, alloc, spec);
-        if(result != null){
-            return result;
-        }
+    /**
+     * Same as {@link #internalGetResource(ResourceSpec, ResourceAllocator, Transaction)}, but tries the
+     * resource handed over by a releasing thread before searching the pool. The handed over resource is
+     * given back when the request is served otherwise or fails.
+     */
+    private ResourceHandle internalGetResource(ResourceSpec spec, ResourceAllocator alloc,
+                                               Transaction tran, ResourceHandle handedOff) throws PoolingException {
+        try {
+            if (!poolInitialized) {
+                initPool(alloc);
+            }
+            ResourceHandle result;
 
-        result = prefetch(spec, alloc, tran);
-        if (result != null) {
-            return result;
-        }
+            result = getResourceFromTransaction(tran, alloc, spec);
+            if(result != null){
+                return result;
+            }
 
-        // We didnt get a connection that is already enlisted in the current transaction (if any).
-        result = getUnenlistedResource(spec, alloc, tran);
-        if (result != null) {
-            if (maxConnectionUsage_ > 0) {
-                result.incrementUsageCount();
+            result = prefetch(spec, alloc, tran);
+            if (result != null) {
+                return result;
             }
-            if (poolLifeCycleListener != null) {
-                poolLifeCycleListener.connectionUsed(result.getId());
-                //Decrement numConnFree
-                poolLifeCycleListener.decrementNumConnFree();
+
+            if (handedOff != null) {
+                result = acceptHandedOffResource(handedOff, spec, alloc);
+                handedOff = null;
+            }
+
+            // We didnt get a connection that is already enlisted in the current transaction (if any).
+            if (result == null) {
+                result = getUnenlistedResource(spec, alloc, tran);
+            }
+            if (result != null) {
+                if (maxConnectionUsage_ > 0) {
+                    result.incrementUsageCount();
+                }
+                if (poolLifeCycleListener != null) {
+                    poolLifeCycleListener.connectionUsed(result.getId());
+                    //Decrement numConnFree
+                    poolLifeCycleListener.decrementNumConnFree();
+                }
+            }
+            return result;
+        } finally {
+            if (handedOff != null) {
+                releaseHandedOffResource(handedOff);
             }
         }
-        return result;
     }
 
     /**
@@ -968,6 +1080,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     }
 
     public void deleteResource(ResourceHandle resourceHandle) {
+        // no longer owned by the pool, must not be handed over or accepted from a handover anymore
+        resourceHandle.markRemoved();
         try {
             resourceHandle.getResourceAllocator().destroyResource(resourceHandle);
         } catch (Exception ex) {
@@ -1080,13 +1194,17 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                  performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                ds.returnResource(resourceHandle);
                 //update the monitoring data
                 if (poolLifeCycleListener != null) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
                     poolLifeCycleListener.incrementNumConnFree(false, steadyPoolSize);
                 }
+                if (handOffToWaitingThread(resourceHandle)) {
+                    //the oldest waiting thread took the resource, no one else needs to be notified
+                    return;
+                }
+                // Put it back to the free collection.
+                ds.returnResource(resourceHandle);
             }
             //for both the cases of free.add and maxConUsageOperation, a free resource is added.
             // Hence notify waiting threads
@@ -1094,6 +1212,18 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
     }
 
+    /**
+     * Hands a freed resource directly to the oldest waiting thread when the handoff wait-queue is used.
+     *
+     * @param resourceHandle freed resource
+     * @return true if a waiting thread took the resource
+     */
+    protected boolean handOffToWaitingThread(ResourceHandle resourceHandle) {
+        // only resources still owned by the pool may be handed over, not those removed by a flush meanwhile
+        return waitQueue instanceof HandoffPoolWaitQueue && !resourceHandle.isRemoved()
+                && ((HandoffPoolWaitQueue) waitQueue).offer(resourceHandle);
+    }
+
     protected boolean cleanupResource(ResourceHandle handle) {
         boolean cleanupSuccessful = true;
         // cleanup resource
@@ -1237,6 +1367,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
 
     protected void notifyWaitingThreads() {
+        if (waitQueue instanceof HandoffPoolWaitQueue) {
+            // waiting threads dequeue themselves and update the monitoring data
+            ((HandoffPoolWaitQueue) waitQueue).signal();
+            return;
+        }
         // notify the first thread in the waitqueue
         Object waitMonitor = null;
         synchronized (waitQueue) {
@@ -1356,6 +1491,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         try {
             cancelResizerTask();
             ds.removeAll();
+            notifyPoolFlushed();
             scheduleResizerTask();
             increaseSteadyPoolSize(steadyPoolSize);
         } catch(PoolingException ex) {
@@ -1368,6 +1504,13 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return true;
     }
 
+    private void notifyPoolFlushed() {
+        ManagedConnectionFactory mcf = ConnectorRegistry.getInstance().getManagedConnectionFactory(poolInfo);
+        if (mcf instanceof MCFPoolFlushListener) {
+            ((MCFPoolFlushListener) mcf).poolFlushed();
+        }
+    }
+
     /**
      * Reconfigure the Pool's properties. The reconfigConnectorConnectionPool
      * method in the ConnectorRuntime will use this method (through PoolManager)
@@ -0,0 +1,276 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free datastructure for the pool.
+ * <p>
+ * Handles are claimed with a compare-and-set on {@link ResourceHandle#trySetBusy()} instead of
+ * taking a lock, so concurrent {@link #getResource()} calls never block each other. Each thread
+ * remembers the handle it returned last and tries to reclaim it first, which keeps a connection on
+ * the same thread under steady load. Otherwise the handles are scanned starting at a random
+ * offset to spread concurrent claims over the pool.
+ * <p>
+ * Only adding and removing resources take a lock; both are rare compared to get/return.
+ * <p>
+ * Select it by setting the pool property {@code PoolDataStructure} to the fully qualified name of
+ * this class.
+ */
+public class ConcurrentBagDataStructure implements DataStructure {
+
+    protected final static Logger _logger =
+            LogDomains.getLogger(ConcurrentBagDataStructure.class, LogDomains.RSR_LOGGER);
+
+    private static final ResourceHandle[] EMPTY = new ResourceHandle[0];
+
+    private final ResourceHandler handler;
+    private volatile int maxSize;
+
+    /**
+     * All resources of the pool, replaced on every modification and read without locking
+     */
+    private volatile ResourceHandle[] resources = EMPTY;
+    private final Object resourcesLock = new Object();
+
+    /**
+     * Number of resources created or being created, used to bound {@link #addResource(ResourceAllocator, int)}
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger free = new AtomicInteger();
+
+    private final ThreadLocal<WeakReference<ResourceHandle>> lastReturned = new ThreadLocal<>();
+
+    public ConcurrentBagDataStructure(String parameters, int maxSize, ResourceHandler handler, String strategyClass) {
+        this.maxSize = maxSize;
+        this.handler = handler;
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "pool.datastructure.concurrentbagds.init");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count && reserveSlot(); i++) {
+            ResourceHandle handle;
+            try {
+                handle = handler.createResource(allocator);
+            } catch (Exception e) {
+                size.decrementAndGet();
+                PoolingException pe = new PoolingException(e.getMessage());
+                pe.initCause(e);
+                throw pe;
+            }
+            synchronized (resourcesLock) {
+                ResourceHandle[] current = resources;
+                ResourceHandle[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = handle;
+                resources = updated;
+            }
+            free.incrementAndGet();
+            numResAdded++;
+        }
+        return numResAdded;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResourceHandle getResource() {
+        WeakReference<ResourceHandle> ref = lastReturned.get();
+        if (ref != null) {
+            lastReturned.remove();
+            ResourceHandle handle = ref.get();
+            if (handle != null && handle.trySetBusy()) {
+                free.decrementAndGet();
+                return handle;
+            }
+        }
+        if (free.get() <= 0) {
+            return null;
+        }
+        ResourceHandle[] snapshot = resources;
+        int length = snapshot.length;
+        if (length == 0) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            ResourceHandle handle = snapshot[(start + i) % length];
+            if (!handle.isBusy() && handle.trySetBusy()) {
+                free.decrementAndGet();
+                return handle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeResource(ResourceHandle resource) {
+        boolean removed = false;
+        boolean wasFree = false;
+        synchronized (resourcesLock) {
+            ResourceHandle[] current = resources;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == resource) {
+                    // mark before unpublishing so that no thread can claim or return the handle in between
+                    wasFree = resource.markRemoved();
+                    ResourceHandle[] updated = new ResourceHandle[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    resources = updated;
+                    removed = true;
+                    break;
+                }
+            }
+        }
+        if (removed) {
+            size.decrementAndGet();
+            if (wasFree) {
+                free.decrementAndGet();
+            }
+            handler.deleteResource(resource);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void returnResource(ResourceHandle resource) {
+        // handles removed from the bag in the meantime are no longer members and must not be counted as free
+        if (resource.tryReturn()) {
+            free.incrementAndGet();
+            lastReturned.set(new WeakReference<>(resource));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFreeListSize() {
+        return Math.max(free.get(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAll() {
+        ResourceHandle[] removed;
+        boolean[] wasFree;
+        synchronized (resourcesLock) {
+            removed = resources;
+            wasFree = new boolean[removed.length];
+            for (int i = 0; i < removed.length; i++) {
+                wasFree[i] = removed[i].markRemoved();
+            }
+            resources = EMPTY;
+        }
+        for (int i = 0; i < removed.length; i++) {
+            size.decrementAndGet();
+            if (wasFree[i]) {
+                free.decrementAndGet();
+            }
+            handler.deleteResource(removed[i]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getResourcesSize() {
+        return resources.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<ResourceHandle> getAllResources() {
+        return new ArrayList<>(Arrays.asList(resources));
+    }
+}
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.enterprise.resource.pool.datastructure;
 
@@ -68,6 +69,8 @@ public class DataStructureFactory {
                 ds = new ListDataStructure(parameters, maxPoolSize, handler, strategyClass);
             }else if(className.equals(RWLockDataStructure.class.getName())){
                 ds = new RWLockDataStructure(parameters, maxPoolSize, handler, strategyClass);
+            }else if(className.equals(ConcurrentBagDataStructure.class.getName())){
+                ds = new ConcurrentBagDataStructure(parameters, maxPoolSize, handler, strategyClass);
             }else{
                 ds = initializeCustomDataStructureInPrivilegedMode(className, parameters, maxPoolSize, handler, strategyClass);
             }
@@ -38,7 +38,7 @@
  * holder.
  *
 */
-// Portions Copyright [2016-2019] [Payara Foundation]
+// Portions Copyright [2016-2020] [Payara Foundation]
 
 package com.sun.enterprise.resource.pool.monitor;
 
@@ -141,6 +141,16 @@ public class ConnectorConnPoolStatsProvider {
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private final ConnRequestWaitTimeHistogram connRequestWaitTimeHistogram = new ConnRequestWaitTimeHistogram();
+    private CountStatisticImpl connRequestWaitTime50thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime50thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate median wait time of successful connection requests");
+    private CountStatisticImpl connRequestWaitTime95thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime95thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate 95th percentile wait time of successful connection requests");
+    private CountStatisticImpl connRequestWaitTime99thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime99thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate 99th percentile wait time of successful connection requests");
     private static final String JCA_PROBE_LISTENER = "glassfish:jca:connection-pool:";
 
     public ConnectorConnPoolStatsProvider(PoolInfo poolInfo, Logger logger) {
@@ -373,6 +383,7 @@ public class ConnectorConnPoolStatsProvider {
             }
             connRequestWaitTime.setCurrent(timeTakenInMillis);
             totalConnRequestWaitTime.increment(timeTakenInMillis);
+            connRequestWaitTimeHistogram.record(timeTakenInMillis);
         }
     }
 
@@ -483,6 +494,10 @@ public class ConnectorConnPoolStatsProvider {
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();
+        connRequestWaitTimeHistogram.reset();
+        connRequestWaitTime50thPercentile.reset();
+        connRequestWaitTime95thPercentile.reset();
+        connRequestWaitTime99thPercentile.reset();
     }
 
     /**
@@ -710,4 +725,22 @@ public class ConnectorConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittime50thpercentile")
+    public CountStatistic getConnRequestWaitTime50thPercentile() {
+        connRequestWaitTime50thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(50));
+        return connRequestWaitTime50thPercentile;
+    }
+
+    @ManagedAttribute(id="connrequestwaittime95thpercentile")
+    public CountStatistic getConnRequestWaitTime95thPercentile() {
+        connRequestWaitTime95thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(95));
+        return connRequestWaitTime95thPercentile;
+    }
+
+    @ManagedAttribute(id="connrequestwaittime99thpercentile")
+    public CountStatistic getConnRequestWaitTime99thPercentile() {
+        connRequestWaitTime99thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(99));
+        return connRequestWaitTime99thPercentile;
+    }
 }
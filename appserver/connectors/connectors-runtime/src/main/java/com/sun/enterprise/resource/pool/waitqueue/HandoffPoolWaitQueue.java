@@ -0,0 +1,240 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.logging.LogDomains;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fair wait queue that hands a freed resource directly to the oldest waiting request.
+ * <p>
+ * Requests wait in {@link #awaitHandoff(long)} instead of on a monitor object. When a resource is
+ * freed the pool calls {@link #offer(ResourceHandle)} which passes the handle to exactly one waiter
+ * so that it does not have to search the pool datastructure again and no other waiter is woken up.
+ * {@link #signal()} wakes up the oldest waiter without a handle so it retries the pool, which is
+ * used when capacity was freed without a reusable handle (e.g. a destroyed connection).
+ * <p>
+ * Plain monitor objects added through {@link #addToQueue(Object)} are still supported and are
+ * notified in FIFO order like in {@link DefaultPoolWaitQueue}.
+ * <p>
+ * Select it by setting the pool property {@code PoolWaitQueue} to the fully qualified name of this
+ * class.
+ */
+public class HandoffPoolWaitQueue implements PoolWaitQueue {
+
+    protected final static Logger _logger = LogDomains.getLogger(HandoffPoolWaitQueue.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentLinkedDeque<Object> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger length = new AtomicInteger();
+
+    public HandoffPoolWaitQueue() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Initializing handoff Pool Wait Queue");
+        }
+    }
+
+    @Override
+    public int getQueueLength() {
+        return length.get();
+    }
+
+    @Override
+    public void addToQueue(Object o) {
+        queue.addLast(o);
+        length.incrementAndGet();
+    }
+
+    @Override
+    public boolean removeFromQueue(Object o) {
+        boolean removed = queue.remove(o);
+        if (removed) {
+            length.decrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    public Object remove() {
+        Object first = queue.pollFirst();
+        if (first != null) {
+            length.decrementAndGet();
+        }
+        return first;
+    }
+
+    @Override
+    public Object peek() {
+        return queue.peekFirst();
+    }
+
+    @Override
+    public Collection getQueueContents() {
+        return queue;
+    }
+
+    /**
+     * Waits until a resource is handed to the calling thread, the thread is signalled or the
+     * timeout expires.
+     *
+     * @param timeoutInMillis maximum time to wait, 0 waits without timeout
+     * @return the resource handed over or null when signalled without a resource or timed out
+     * @throws InterruptedException when interrupted before a resource was handed over
+     */
+    public ResourceHandle awaitHandoff(long timeoutInMillis) throws InterruptedException {
+        Waiter waiter = new Waiter();
+        addToQueue(waiter);
+        long deadline = timeoutInMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis) : 0L;
+        while (waiter.isWaiting()) {
+            if (Thread.interrupted()) {
+                if (waiter.cancel()) {
+                    removeFromQueue(waiter);
+                    throw new InterruptedException();
+                }
+                // completed concurrently, keep the resource and the interrupt status
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (timeoutInMillis > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    if (waiter.cancel()) {
+                        removeFromQueue(waiter);
+                        return null;
+                    }
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        return waiter.getResource();
+    }
+
+    /**
+     * Hands the given resource to the oldest waiting request.
+     *
+     * @param resource the freed resource
+     * @return true if a waiting request took the resource, false if the caller still owns it
+     */
+    public boolean offer(ResourceHandle resource) {
+        Object next;
+        while ((next = remove()) != null) {
+            if (next instanceof Waiter) {
+                if (((Waiter) next).complete(resource)) {
+                    return true;
+                }
+            } else {
+                notifyMonitor(next);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes up the oldest waiting request so that it retries to get a resource from the pool.
+     */
+    public void signal() {
+        Object next;
+        while ((next = remove()) != null) {
+            if (next instanceof Waiter) {
+                if (((Waiter) next).complete(Waiter.SIGNALLED)) {
+                    return;
+                }
+            } else {
+                notifyMonitor(next);
+                return;
+            }
+        }
+    }
+
+    private static void notifyMonitor(Object waitMonitor) {
+        synchronized (waitMonitor) {
+            waitMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * A request waiting for a resource. The state moves exactly once from waiting to either a
+     * resource, signalled or cancelled.
+     */
+    private static final class Waiter {
+
+        private static final Object WAITING = new Object();
+        private static final Object SIGNALLED = new Object();
+        private static final Object CANCELLED = new Object();
+
+        private final Thread thread = Thread.currentThread();
+        private final AtomicReference<Object> state = new AtomicReference<>(WAITING);
+
+        boolean isWaiting() {
+            return state.get() == WAITING;
+        }
+
+        boolean complete(Object result) {
+            if (state.compareAndSet(WAITING, result)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        ResourceHandle getResource() {
+            Object result = state.get();
+            return result instanceof ResourceHandle ? (ResourceHandle) result : null;
+        }
+    }
+}
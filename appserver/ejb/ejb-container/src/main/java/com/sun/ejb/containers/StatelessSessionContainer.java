@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.ejb.containers;
 
@@ -47,6 +47,7 @@ import com.sun.ejb.containers.util.pool.AbstractPool;
 import com.sun.ejb.containers.util.pool.BlockingPool;
 import com.sun.ejb.containers.util.pool.NonBlockingPool;
 import com.sun.ejb.containers.util.pool.ObjectFactory;
+import com.sun.ejb.containers.util.pool.StripedPool;
 import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
 import com.sun.ejb.monitoring.stats.EjbPoolStatsProvider;
 import com.sun.ejb.monitoring.stats.StatelessSessionBeanStatsProvider;
@@ -236,6 +237,11 @@ public class StatelessSessionContainer extends BaseContainer {
                 getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
                 poolProp.steadyPoolSize, poolProp.poolResizeQuantity, poolProp.maxPoolSize, //
                 poolProp.poolIdleTimeoutInSeconds, loader, Boolean.parseBoolean(val), poolProp.maxWaitTimeInMillis);
+        } else if (!Boolean.parseBoolean(val) && isConcurrentBeanPool()) {
+            pool = new StripedPool( //
+                getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
+                poolProp.steadyPoolSize, poolProp.poolResizeQuantity, poolProp.maxPoolSize, //
+                poolProp.poolIdleTimeoutInSeconds, loader);
         } else {
             pool = new NonBlockingPool( //
                 getContainerId(), ejbDescriptor.getName(), sessionCtxFactory, //
@@ -244,6 +250,29 @@ public class StatelessSessionContainer extends BaseContainer {
         }
     }
 
+    /**
+     * The lock-free {@link StripedPool} is used when the {@code concurrent-bean-pool} property of
+     * {@code <enterprise-beans>}, or else of the EJB container, is {@code true} or lists the name of this bean.
+     */
+    private boolean isConcurrentBeanPool() {
+        String val = ejbDescriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(CONCURRENT_BEAN_POOL_PROP);
+        if (val == null && ejbContainer != null) {
+            val = ejbContainer.getPropertyValue(CONCURRENT_BEAN_POOL_PROP);
+        }
+        if (val == null || val.trim().isEmpty()) {
+            return false;
+        }
+        if (Boolean.parseBoolean(val.trim())) {
+            return true;
+        }
+        for (String name : val.split(",")) {
+            if (name.trim().equals(ejbDescriptor.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void registerMonitorableComponents() {
         super.registerMonitorableComponents();
@@ -0,0 +1,497 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.containers.EJBContextImpl;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.enterprise.util.Utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * <p>StripedPool is a lock-free alternative to {@link NonBlockingPool}. The
+ * available objects are spread over a number of concurrent stacks, one per
+ * processor core, so that threads invoking the same bean do not contend on a
+ * single pool monitor. A thread takes and returns objects on its own stripe,
+ * most recently used first, and steals the least recently used object of
+ * another stripe when its own stripe is empty.
+ * <p>Like NonBlockingPool it never blocks: if no object is available a new
+ * one is created, and objects returned when the pool already holds
+ * maxPoolSize objects are destroyed. The pool is refilled to steadyPoolSize
+ * and objects idle for longer than idleTimeoutInSeconds are removed, at most
+ * resizeQuantity at a time, in the background.
+ */
+public class StripedPool
+    extends AbstractPool
+{
+
+    private static final int MAX_STRIPES = 64;
+
+    private final ConcurrentLinkedDeque<Object>[] stripes;
+    private final int stripeMask;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicInteger returned = new AtomicInteger();
+
+    private final AtomicBoolean resizeScheduled = new AtomicBoolean();
+    private final AtomicBoolean resizing = new AtomicBoolean();
+    private final boolean maintainSteadySize;
+    private TimerTask poolTimerTask;
+    private volatile boolean poolClosed;
+
+    @SuppressWarnings("unchecked")
+    public StripedPool(long beanId, String poolName, ObjectFactory factory,
+        int steadyPoolSize, int resizeQuantity,
+        int maxPoolSize, int idleTimeoutInSeconds,
+        ClassLoader loader)
+    {
+        this.poolName = poolName;
+        this.beanId = beanId;
+        this.factory = factory;
+        this.steadyPoolSize = (steadyPoolSize <= 0) ? 0 : steadyPoolSize;
+        this.resizeQuantity = (resizeQuantity <= 0) ? 0 : resizeQuantity;
+        this.maxPoolSize = (maxPoolSize <= 0)
+            ? Integer.MAX_VALUE : maxPoolSize;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+        this.idleTimeoutInSeconds =
+            (idleTimeoutInSeconds <= 0) ? 0 : idleTimeoutInSeconds;
+        this.containerClassLoader = loader;
+        this.maintainSteadySize = this.steadyPoolSize > 0;
+
+        int stripeCount = 1;
+        int cores = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+        while (stripeCount < cores) {
+            stripeCount <<= 1;
+        }
+        stripes = new ConcurrentLinkedDeque[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ConcurrentLinkedDeque<>();
+        }
+        stripeMask = stripeCount - 1;
+
+        if ((this.idleTimeoutInSeconds > 0) && (this.resizeQuantity > 0)) {
+            try {
+                this.poolTimerTask = new PoolResizeTimerTask();
+                EjbContainerUtilImpl.getInstance().getTimer().scheduleAtFixedRate
+                    (poolTimerTask, idleTimeoutInSeconds*1000L,
+                     idleTimeoutInSeconds*1000L);
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "[Pool-{0}]: Added PoolResizeTimerTask...", poolName);
+                }
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,"[Pool-" +
+                            poolName + "]: Could not add"
+                            + " PoolTimerTask. Continuing anyway...", th);
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(Object param)
+    {
+        Object obj = poll();
+        if (obj != null) {
+            successes.incrementAndGet();
+            if (maintainSteadySize && size.get() < steadyPoolSize) {
+                scheduleResize();
+            }
+            return obj;
+        }
+
+        poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+        created.incrementAndGet();
+        if (maintainSteadySize) {
+            scheduleResize();
+        }
+        try {
+            return factory.create(param);
+        } catch (RuntimeException th) {
+            poolProbeNotifier.ejbObjectAddFailedEvent(beanId, appName, modName, ejbName);
+            created.decrementAndGet();
+            throw th;
+        }
+    }
+
+    /**
+     * Return an object back to the pool. An object that is obtained through
+     *	getObject() must always be returned back to the pool using either
+     *	returnObject(obj) or through destroyObject(obj).
+     * @param object
+     */
+    @Override
+    public void returnObject(Object object) {
+        if (!poolClosed) {
+            if (size.incrementAndGet() <= maxPoolSize) {
+                stripes[stripeIndex()].offerLast(object);
+                returned.incrementAndGet();
+                return;
+            }
+            size.decrementAndGet();
+        }
+        destroyObject(object);
+    }
+
+    /**
+     * Destroys an Object. Note that applications should not ignore
+     * the reference to the object that they got from getObject(). An object
+     * that is obtained through getObject() must always be returned back to
+     * the pool using either returnObject(obj) or through destroyObject(obj).
+     * This method tells that the object should be destroyed and cannot
+     * be reused.
+     * @param object Object to be destroyed.
+     */
+    @Override
+    public void destroyObject(Object object) {
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+        try {
+            factory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "exception in destroyObject", ex);
+        }
+    }
+
+    /**
+     * Takes the most recently used object of the current thread's stripe, or
+     * steals the least recently used object of another stripe.
+     */
+    private Object poll() {
+        int home = stripeIndex();
+        Object obj = stripes[home].pollLast();
+        for (int i = 1; (obj == null) && (i <= stripeMask); i++) {
+            obj = stripes[(home + i) & stripeMask].pollFirst();
+        }
+        if (obj != null) {
+            size.decrementAndGet();
+        }
+        return obj;
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id ^ (id >>> 32)) & stripeMask;
+    }
+
+    /**
+    * Preload the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    protected void preload(int count) {
+        List<Object> instances = new ArrayList<>(count);
+        try {
+            for (int i=0; i<count; i++) {
+                instances.add(factory.create(null));
+            }
+        } catch (Exception ex) {
+            //Need not throw this exception up since we are pre-populating
+        }
+        created.addAndGet(instances.size());
+
+        for (int i = 0; i < instances.size(); i++) {
+            Object obj = instances.get(i);
+            if (!poolClosed && size.incrementAndGet() <= maxPoolSize) {
+                stripes[i & stripeMask].offerLast(obj);
+            } else {
+                size.decrementAndGet();
+                destroyObject(obj);
+            }
+        }
+    }
+
+    /**
+    * Prepopulate the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    public void prepopulate(int count) {
+        this.steadyPoolSize = (count <= 0) ? 0 : count;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+
+        if (this.steadyPoolSize > 0) {
+            preload(this.steadyPoolSize);
+        }
+    }
+
+    /**
+    * Close the pool
+    */
+    @Override
+    public void close() {
+        poolClosed = true;
+        if (poolTimerTask != null) {
+            try {
+                poolTimerTask.cancel();
+            } catch (Throwable th) {
+                //Can safely ignore this!!
+            }
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "[Pool-{0}]: Destroying {1} beans from the pool...", new Object[]{poolName, size.get()});
+        }
+
+        // since we're calling into ejb code, we need to set context
+        // class loader
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            for (ConcurrentLinkedDeque<Object> stripe : stripes) {
+                Object obj;
+                while ((obj = stripe.pollFirst()) != null) {
+                    size.decrementAndGet();
+                    try {
+                        destroyObject(obj);
+                    } catch (Throwable th) {
+                        _logger.log(Level.WARNING,
+                                "[Pool-"+poolName+"]: Error while destroying", th);
+                    }
+                }
+            }
+        } finally {
+            Utility.setContextClassLoader(origLoader);
+        }
+        unregisterProbeProvider();
+
+        this.poolTimerTask         = null;
+        this.containerClassLoader  = null;
+    }
+
+    @Override
+    protected void removeIdleObjects() {
+        doResize();
+    }
+
+    /**
+     * Removes idle objects above steadyPoolSize, or refills the pool to
+     * steadyPoolSize.
+     */
+    protected void doResize() {
+        if (poolClosed || !resizing.compareAndSet(false, true)) {
+            return;
+        }
+
+        //We need to set the context class loader for this (deamon) thread!!
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+        try {
+            int curSize = size.get();
+            if (curSize > steadyPoolSize) {
+                //possible to reduce pool size....
+                if ((idleTimeoutInSeconds <= 0) || (resizeQuantity <= 0)) {
+                    return;
+                }
+                int victimCount = Math.min(resizeQuantity, curSize - steadyPoolSize);
+                long allowedIdleTime = System.currentTimeMillis() -
+                    idleTimeoutInSeconds*1000L;
+                for (Object victim : takeIdleObjects(victimCount, allowedIdleTime)) {
+                    destroyObject(victim);
+                }
+            } else if ((curSize < steadyPoolSize) && maintainSteadySize) {
+                //Need to populate....
+                int populateCount = 0;
+                if (resizeQuantity <= 0) {
+                    populateCount = steadyPoolSize - curSize;
+                } else {
+                    while ((curSize + populateCount) < steadyPoolSize) {
+                        populateCount += resizeQuantity;
+                    }
+                    if ((curSize + populateCount) > maxPoolSize) {
+                        populateCount -= (curSize + populateCount) - maxPoolSize;
+                    }
+                }
+                if (populateCount > 0) {
+                    preload(populateCount);
+                }
+            }
+        } catch (Throwable th) {
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Exception during reSize", th);
+        } finally {
+            Utility.setContextClassLoader(origLoader);
+            resizing.set(false);
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "[Pool-{0}]: Resize completed at: {1}; after reSize: {2}",
+                    new Object[]{poolName, new java.util.Date(), getAllAttrValues()});
+        }
+    }
+
+    /**
+     * Takes up to count objects that have not been used since the given
+     * time. Each stripe holds its least recently used objects at its head.
+     */
+    private List<Object> takeIdleObjects(int count, long allowedIdleTime) {
+        List<Object> idle = new ArrayList<>(count);
+        for (ConcurrentLinkedDeque<Object> stripe : stripes) {
+            while (idle.size() < count) {
+                Object obj = stripe.pollFirst();
+                if (obj == null) {
+                    break;
+                }
+                if ((obj instanceof EJBContextImpl)
+                        && ((EJBContextImpl) obj).getLastTimeUsed() > allowedIdleTime) {
+                    stripe.offerFirst(obj);
+                    break;
+                }
+                size.decrementAndGet();
+                idle.add(obj);
+            }
+        }
+        return idle;
+    }
+
+    private void scheduleResize() {
+        if (poolClosed || !resizeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            EjbContainerUtilImpl.getInstance().addWork(() -> {
+                try {
+                    doResize();
+                } finally {
+                    resizeScheduled.set(false);
+                }
+            });
+        } catch (Exception ex) {
+            resizeScheduled.set(false);
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Cannot perform "
+                        + " pool resize task", ex);
+        }
+    }
+
+    /* *************** For Monitoring ***********************/
+    /* ******************************************************/
+
+    @Override
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    @Override
+    public int getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    @Override
+    public int getPoolSuccess() {
+        return successes.get();
+    }
+
+    @Override
+    public int getSize() {
+        return size.get();
+    }
+
+    @Override
+    public int getNumBeansInPool() {
+        return size.get();
+    }
+
+    @Override
+    public int getTotalBeansCreated() {
+        return created.get();
+    }
+
+    @Override
+    public int getTotalBeansDestroyed() {
+        return destroyed.get();
+    }
+
+    @Override
+    public void appendStats(StringBuilder sbuf) {
+        sbuf.append("[Pool: ")
+            .append("SZ=").append(size.get()).append("; ")
+            .append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("WC=0; ")
+            .append("MSG=0");
+        if (configData != null) {
+            sbuf.append(configData);
+        }
+        sbuf.append("]");
+    }
+
+    @Override
+    public String getAllMonitoredAttrbuteValues() {
+        StringBuilder sbuf = new StringBuilder();
+        sbuf.append("createdCount=").append(created.get()).append(";")
+            .append("destroyedCount=").append(destroyed.get()).append(";")
+            .append("waitCount=0;")
+            .append("size=").append(size.get()).append(";")
+            .append("maxPoolSize=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    @Override
+    public String getAllAttrValues() {
+        StringBuilder sbuf = new StringBuilder("[Pool-"+poolName+"] ");
+        sbuf.append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("PR=").append(returned.get()).append("; ")
+            .append("CS=").append(size.get()).append("; ")
+            .append("SS=").append(steadyPoolSize).append("; ")
+            .append("MS=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    private class PoolResizeTimerTask
+        extends java.util.TimerTask
+    {
+        PoolResizeTimerTask() {}
+
+        @Override
+        public void run() {
+            scheduleResize();
+        }
+    } // End of class PoolResizeTimerTask
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.monitoring.probes.EjbPoolProbeProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StripedPoolTest {
+
+    private final AtomicInteger live = new AtomicInteger();
+    private StripedPool pool;
+
+    @Before
+    public void setUp() {
+        pool = newPool(4);
+    }
+
+    private StripedPool newPool(int maxPoolSize) {
+        ObjectFactory factory = new ObjectFactory() {
+            @Override
+            public Object create(Object param) {
+                live.incrementAndGet();
+                return new Object();
+            }
+
+            @Override
+            public void destroy(Object object) {
+                live.decrementAndGet();
+            }
+        };
+        StripedPool striped = new StripedPool(1L, "test", factory, 0, 0, maxPoolSize, 0, getClass().getClassLoader());
+        striped.poolProbeNotifier = new EjbPoolProbeProvider();
+        return striped;
+    }
+
+    @Test
+    public void returnedObjectIsReused() throws Exception {
+        Object first = pool.getObject(null);
+        pool.returnObject(first);
+        assertSame(first, pool.getObject(null));
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getPoolSuccess());
+    }
+
+    @Test
+    public void objectsAboveMaxPoolSizeAreDestroyed() throws Exception {
+        List<Object> taken = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            taken.add(pool.getObject(null));
+        }
+        for (Object obj : taken) {
+            pool.returnObject(obj);
+        }
+        assertEquals(4, pool.getSize());
+        assertEquals(2, pool.getDestroyedCount());
+        assertEquals(4, live.get());
+    }
+
+    @Test
+    public void closeDestroysPooledObjects() throws Exception {
+        Object obj = pool.getObject(null);
+        pool.returnObject(pool.getObject(null));
+        pool.close();
+        assertEquals(0, pool.getSize());
+        pool.returnObject(obj);
+        assertEquals(0, pool.getSize());
+        assertEquals(0, live.get());
+    }
+
+    @Test
+    public void concurrentUseKeepsCountsConsistent() throws Exception {
+        pool = newPool(16);
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        pool.returnObject(pool.getObject(null));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertTrue(pool.getSize() <= 16);
+        assertEquals(pool.getSize(), live.get());
+        assertEquals(pool.getCreatedCount() - pool.getDestroyedCount(), pool.getSize());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ha.hazelcast.store;
+
+import fish.payara.nucleus.store.ClusteredStoreEntryUpdater;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
+
+/**
+ * Merges the attributes changed by a request into the session stored by the
+ * member owning it, so that only the changed attributes are replicated.
+ * The update fails, leaving the entry unchanged, when the session is not
+ * stored and none of the deltas carries its trunk.
+ */
+public class CompositeMetadataMerger extends ClusteredStoreEntryUpdater<CompositeMetadata> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<CompositeMetadata> deltas;
+
+    public CompositeMetadataMerger(CompositeMetadata delta) {
+        this.deltas = Collections.singletonList(delta);
+    }
+
+    /**
+     * Merges several deltas of the same session in a single update.
+     * @param deltas the deltas in the order they were saved
+     */
+    public CompositeMetadataMerger(List<CompositeMetadata> deltas) {
+        this.deltas = new ArrayList<>(deltas);
+    }
+
+    @Override
+    protected CompositeMetadata update(CompositeMetadata current) {
+        CompositeMetadata merged = current == null ? new CompositeMetadata() : current;
+        for (CompositeMetadata delta : deltas) {
+            merged.applyDelta(delta);
+        }
+        // without a trunk the session cannot be restored: it is not stored (anymore)
+        // and the deltas do not carry it, so the saving member has to send the full session
+        return merged.getState() == null ? null : merged;
+    }
+}
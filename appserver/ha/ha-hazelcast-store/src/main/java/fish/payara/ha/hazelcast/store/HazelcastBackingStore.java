@@ -39,31 +39,135 @@
  */
 package fish.payara.ha.hazelcast.store;
 
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryMergedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+import fish.payara.nucleus.executorservice.PayaraExecutorService;
 import fish.payara.nucleus.store.ClusteredStore;
 import org.glassfish.ha.store.api.BackingStore;
 import org.glassfish.ha.store.api.BackingStoreException;
 import org.glassfish.ha.store.api.BackingStoreFactory;
+import org.glassfish.ha.store.api.Storeable;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Stores sessions in Hazelcast through the {@link ClusteredStore}.
+ * <p>
+ * With a near cache, the sessions loaded or saved by this member are also kept
+ * locally and only read from the cluster again once another member changes
+ * them, so that sticky load balancing does not pay a round trip per request.
+ * The near cache holds at most its maximum size of sessions, further sessions
+ * replace arbitrary cached ones.
+ * <p>
+ * With write behind, saves and timestamp updates are queued and sent every
+ * write behind delay, coalescing repeated writes of the same session into one
+ * update. A load of a session with queued writes sends them first.
  *
  * @author steve
  */
 public class HazelcastBackingStore<K extends Serializable, V extends Serializable>
         extends BackingStore<K, V> {
 
+    private static final Logger logger = Logger.getLogger(HazelcastBackingStore.class.getName());
+
     private final BackingStoreFactory factory;
     private final String storeName;
     private String instanceName;
     private ClusteredStore clusteredStore;
 
+    private final boolean nearCacheEnabled;
+    private final int nearCacheMaxSize;
+    /**
+     * The cached sessions, or the {@link LoadReservation} of a load in progress
+     */
+    private final ConcurrentMap<K, Object> nearCache = new ConcurrentHashMap<>();
+    private final LongAdder nearCacheHits = new LongAdder();
+    private final LongAdder nearCacheMisses = new LongAdder();
+    private String nearCacheListenerId;
+
+    private final int writeBehindDelay;
+    private final int writeBehindQueueSize;
+    private final ConcurrentMap<K, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> writeBehindTask;
+
+    /**
+     * Sessions whose queued changes could not be merged because they were not
+     * stored, the next save of their changes fails so that the full session is sent
+     */
+    private final Set<K> unmergedSessions = ConcurrentHashMap.newKeySet();
+
     public HazelcastBackingStore(BackingStoreFactory factory, String storeName, ClusteredStore clusteredStore) {
+        this(factory, storeName, clusteredStore, false, 0, 0, 0);
+    }
+
+    /**
+     * @param nearCacheEnabled whether sessions are also kept in a local near cache
+     * @param nearCacheMaxSize the maximum number of sessions kept in the near cache
+     * @param writeBehindDelay the milliseconds writes are queued for, 0 to write through
+     * @param writeBehindQueueSize the number of sessions with queued writes above
+     * which further sessions are written through
+     */
+    public HazelcastBackingStore(BackingStoreFactory factory, String storeName, ClusteredStore clusteredStore,
+            boolean nearCacheEnabled, int nearCacheMaxSize, int writeBehindDelay, int writeBehindQueueSize) {
         this.factory = factory;
         this.storeName = storeName;
         this.clusteredStore = clusteredStore;
+        this.nearCacheEnabled = nearCacheEnabled && nearCacheMaxSize > 0;
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        this.writeBehindDelay = writeBehindDelay;
+        this.writeBehindQueueSize = writeBehindQueueSize;
+    }
+
+    /**
+     * Starts sending the queued writes if write behind is enabled.
+     * @param executor the executor sending the queued writes
+     */
+    void startWriteBehind(PayaraExecutorService executor) {
+        if (writeBehindDelay > 0 && writeBehindTask == null) {
+            writeBehindTask = executor.scheduleWithFixedDelay(this::flush,
+                    writeBehindDelay, writeBehindDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public long getNearCacheHits() {
+        return nearCacheHits.sum();
+    }
+
+    public long getNearCacheMisses() {
+        return nearCacheMisses.sum();
+    }
+
+    public int getNearCacheSize() {
+        return nearCache.size();
+    }
+
+    public int getWriteBehindQueueSize() {
+        return pendingWrites.size();
     }
 
     @Override
@@ -74,26 +178,91 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
     @Override
     public V load(K k, String string) throws BackingStoreException {
         init();
+        LoadReservation reservation = null;
+        if (nearCacheEnabled) {
+            Object cached = nearCache.get(k);
+            if (cached != null && !(cached instanceof LoadReservation)) {
+                nearCacheHits.increment();
+                return (V) cached;
+            }
+            nearCacheMisses.increment();
+            // an invalidation while loading drops the reservation, so that the loaded session is not cached
+            reservation = new LoadReservation();
+            if (nearCache.putIfAbsent(k, reservation) != null) {
+                reservation = null;
+            }
+        }
+        V value = null;
         try {
-            return (V) clusteredStore.get(storeName, k);
+            PendingWrite pending = pendingWrites.get(k);
+            if (pending != null) {
+                pending.flush(k);
+            }
+            value = (V) clusteredStore.get(storeName, k);
+            return value;
         } catch (ClassCastException cce) {
-            Logger.getLogger(HazelcastBackingStore.class.getName()).log(Level.WARNING,
-                    "ClassCastException when reading value from store", cce);
+            logger.log(Level.WARNING, "ClassCastException when reading value from store", cce);
             throw new BackingStoreException(cce.getMessage());
+        } finally {
+            if (reservation != null) {
+                if (value == null) {
+                    nearCache.remove(k, reservation);
+                } else if (nearCache.replace(k, reservation, value)) {
+                    evictFromNearCache(k);
+                }
+            }
         }
     }
 
     @Override
     public String save(K k, V v, boolean bln) throws BackingStoreException {
         init();
-        clusteredStore.set(storeName, k, v);
-        
+        if (v instanceof CompositeMetadata && ((CompositeMetadata) v).getState() == null) {
+            if (unmergedSessions.remove(k)) {
+                throw sessionNotStored(k);
+            }
+        } else {
+            unmergedSessions.remove(k);
+        }
+        if (nearCacheEnabled) {
+            if (v instanceof CompositeMetadata) {
+                // a delta, the merged session is loaded again on next use
+                nearCache.remove(k);
+            } else {
+                nearCache.put(k, v);
+                evictFromNearCache(k);
+            }
+        }
+        if (!queue(k, v, null)) {
+            write(k, v);
+        }
+        return instanceName;
+    }
+
+    @Override
+    public String updateTimestamp(K k, String version, Long accessTime) throws BackingStoreException {
+        init();
+        if (nearCacheEnabled) {
+            Object cached = nearCache.get(k);
+            if (cached instanceof Storeable) {
+                ((Storeable) cached)._storeable_setLastAccessTime(accessTime);
+            }
+        }
+        if (!queue(k, null, accessTime)) {
+            writeTimestamp(k, accessTime);
+        }
         return instanceName;
     }
 
     @Override
     public void remove(K k) throws BackingStoreException {
         init();
+        nearCache.remove(k);
+        unmergedSessions.remove(k);
+        PendingWrite pending = pendingWrites.get(k);
+        if (pending != null) {
+            pending.discard(k);
+        }
         clusteredStore.remove(storeName, k);
     }
 
@@ -103,6 +272,27 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
         return clusteredStore.getMap(storeName).size();
     }
 
+    /**
+     * Sends the queued writes and releases the near cache. The sessions stay in
+     * Hazelcast for the other members.
+     */
+    @Override
+    public void destroy() throws BackingStoreException {
+        if (writeBehindTask != null) {
+            writeBehindTask.cancel(false);
+            writeBehindTask = null;
+        }
+        flush();
+        if (nearCacheListenerId != null) {
+            clusteredStore.removeEntryListener(storeName, nearCacheListenerId);
+            nearCacheListenerId = null;
+        }
+        nearCache.clear();
+        if (factory instanceof HazelcastBackingStoreFactory) {
+            ((HazelcastBackingStoreFactory) factory).storeDestroyed(this);
+        }
+    }
+
     private void init() throws BackingStoreException {
         if(instanceName != null) {
             return;
@@ -113,6 +303,226 @@ public class HazelcastBackingStore<K extends Serializable, V extends Serializabl
         if (!clusteredStore.isEnabled()) {
             throw new BackingStoreException("Hazelcast is not enabled, please enable Hazelcast");
         }
+        synchronized (this) {
+            if (nearCacheEnabled && nearCacheListenerId == null) {
+                nearCacheListenerId = clusteredStore.addEntryListener(storeName, new NearCacheInvalidator());
+            }
+        }
         instanceName = clusteredStore.getInstanceId();
     }
+
+    /**
+     * Drops arbitrary sessions other than the given one while the near cache
+     * holds more than its maximum size.
+     */
+    private void evictFromNearCache(K added) {
+        if (nearCache.size() <= nearCacheMaxSize) {
+            return;
+        }
+        Iterator<K> keys = nearCache.keySet().iterator();
+        while (nearCache.size() > nearCacheMaxSize && keys.hasNext()) {
+            if (!added.equals(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Queues a save or a timestamp update when write behind is enabled.
+     * @return false if the write has to be sent now
+     */
+    private boolean queue(K k, V v, Long accessTime) {
+        if (writeBehindTask == null) {
+            return false;
+        }
+        while (true) {
+            PendingWrite pending = pendingWrites.get(k);
+            if (pending == null) {
+                if (pendingWrites.size() >= writeBehindQueueSize) {
+                    return false;
+                }
+                PendingWrite created = new PendingWrite();
+                pending = pendingWrites.putIfAbsent(k, created);
+                if (pending == null) {
+                    pending = created;
+                }
+            }
+            if (pending.add(v, accessTime)) {
+                return true;
+            }
+            // that write was sent meanwhile, queue a new one
+        }
+    }
+
+    private void flush() {
+        for (Map.Entry<K, PendingWrite> entry : pendingWrites.entrySet()) {
+            try {
+                entry.getValue().flush(entry.getKey());
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Failed to write session " + entry.getKey() + " to store " + storeName, ex);
+            }
+        }
+    }
+
+    private void write(K k, V v) throws BackingStoreException {
+        if (v instanceof CompositeMetadata) {
+            // only carries the changed attributes, which the owner merges into the stored session
+            if (!clusteredStore.update(storeName, k, new CompositeMetadataMerger((CompositeMetadata) v))) {
+                throw sessionNotStored(k);
+            }
+        } else {
+            clusteredStore.set(storeName, k, v);
+        }
+    }
+
+    private BackingStoreException sessionNotStored(K k) {
+        return new BackingStoreException("Session " + k + " is not stored in " + storeName
+                + ", the changed attributes cannot be merged");
+    }
+
+    private void writeTimestamp(K k, long accessTime) {
+        clusteredStore.update(storeName, k, new StoreableTimestampUpdater(accessTime));
+    }
+
+    /**
+     * The writes of one session waiting to be sent. It stays mapped to its
+     * session while its writes are sent, and writes queued meanwhile are sent
+     * by the same flush, so that the writes of a session are always sent in
+     * order. Once it has no writes left or is discarded it no longer accepts
+     * writes, which then go to a new one.
+     */
+    private final class PendingWrite {
+
+        private final Object flushLock = new Object();
+        private V value;
+        private final List<CompositeMetadata> deltas = new ArrayList<>();
+        private Long accessTime;
+        private boolean done;
+
+        synchronized boolean add(V v, Long time) {
+            if (done) {
+                return false;
+            }
+            if (v instanceof CompositeMetadata) {
+                deltas.add((CompositeMetadata) v);
+                accessTime = null;
+            } else if (v != null) {
+                value = v;
+                accessTime = null;
+            } else {
+                accessTime = time;
+            }
+            return true;
+        }
+
+        void flush(K k) {
+            synchronized (flushLock) {
+                while (true) {
+                    V flushedValue;
+                    List<CompositeMetadata> flushedDeltas;
+                    Long flushedAccessTime;
+                    synchronized (this) {
+                        if (done) {
+                            return;
+                        }
+                        if (value == null && deltas.isEmpty() && accessTime == null) {
+                            done = true;
+                            pendingWrites.remove(k, this);
+                            return;
+                        }
+                        flushedValue = value;
+                        flushedDeltas = new ArrayList<>(deltas);
+                        flushedAccessTime = accessTime;
+                        value = null;
+                        deltas.clear();
+                        accessTime = null;
+                    }
+                    if (flushedValue != null) {
+                        clusteredStore.set(storeName, k, flushedValue);
+                    }
+                    if (!flushedDeltas.isEmpty()
+                            && !clusteredStore.update(storeName, k, new CompositeMetadataMerger(flushedDeltas))) {
+                        unmergedSessions.add(k);
+                    }
+                    if (flushedAccessTime != null) {
+                        writeTimestamp(k, flushedAccessTime);
+                    }
+                }
+            }
+        }
+
+        void discard(K k) {
+            // waits for writes being sent, which must not recreate the removed session
+            synchronized (flushLock) {
+                synchronized (this) {
+                    done = true;
+                    value = null;
+                    deltas.clear();
+                    accessTime = null;
+                    pendingWrites.remove(k, this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a session being loaded into the near cache.
+     */
+    private static final class LoadReservation {
+    }
+
+    /**
+     * Drops the near cached sessions changed by other members. Changes made by
+     * this member are already reflected in the near cache.
+     */
+    private final class NearCacheInvalidator implements EntryAddedListener<K, V>, EntryUpdatedListener<K, V>,
+            EntryRemovedListener<K, V>, EntryEvictedListener<K, V>, EntryExpiredListener<K, V>,
+            EntryMergedListener<K, V>, MapClearedListener, MapEvictedListener {
+
+        @Override
+        public void entryAdded(EntryEvent<K, V> event) {
+            invalidateIfRemote(event);
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, V> event) {
+            invalidateIfRemote(event);
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, V> event) {
+            invalidateIfRemote(event);
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<K, V> event) {
+            nearCache.remove(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<K, V> event) {
+            nearCache.remove(event.getKey());
+        }
+
+        @Override
+        public void entryMerged(EntryEvent<K, V> event) {
+            nearCache.remove(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            nearCache.clear();
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            nearCache.clear();
+        }
+
+        private void invalidateIfRemote(EntryEvent<K, V> event) {
+            if (event.getMember() == null || !event.getMember().localMember()) {
+                nearCache.remove(event.getKey());
+            }
+        }
+    }
 }
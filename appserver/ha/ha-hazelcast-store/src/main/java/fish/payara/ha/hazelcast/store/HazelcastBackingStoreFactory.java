@@ -39,8 +39,14 @@
  */
 package fish.payara.ha.hazelcast.store;
 
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
+import fish.payara.nucleus.executorservice.PayaraExecutorService;
 import fish.payara.nucleus.hazelcast.HazelcastCore;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 
 import fish.payara.nucleus.store.ClusteredStore;
@@ -56,16 +62,88 @@ import org.jvnet.hk2.annotations.Service;
  * @author steve
  */
 @Service(name = "hazelcast-factory")
-public class HazelcastBackingStoreFactory implements BackingStoreFactory {
+public class HazelcastBackingStoreFactory implements BackingStoreFactory, MonitoringDataSource {
+
+    /**
+     * Vendor specific setting enabling the near cache of a store
+     */
+    public static final String NEAR_CACHE_ENABLED = "near.cache.enabled";
+
+    /**
+     * Vendor specific setting for the maximum number of sessions in the near cache of a store
+     */
+    public static final String NEAR_CACHE_MAX_SIZE = "near.cache.max.size";
+
+    /**
+     * Vendor specific setting for the milliseconds writes are queued for, 0 writes through
+     */
+    public static final String WRITE_BEHIND_DELAY_MILLIS = "write.behind.delay.millis";
+
+    /**
+     * Vendor specific setting for the number of sessions that can have queued writes
+     */
+    public static final String WRITE_BEHIND_QUEUE_SIZE = "write.behind.queue.size";
+
+    private static final int DEFAULT_NEAR_CACHE_MAX_SIZE = 10000;
+
+    private static final int DEFAULT_WRITE_BEHIND_QUEUE_SIZE = 10000;
+
     @Inject
     HazelcastCore core;
 
     @Inject
     ClusteredStore clusteredStore;
 
+    @Inject
+    PayaraExecutorService executor;
+
+    private final Set<HazelcastBackingStore<?, ?>> stores = ConcurrentHashMap.newKeySet();
+
     @Override
     public <K extends Serializable, V extends Serializable> BackingStore<K, V> createBackingStore(BackingStoreConfiguration<K, V> bsc) throws BackingStoreException {
-        return new HazelcastBackingStore<>(this, bsc.getStoreName(), clusteredStore);
+        Map<String, Object> settings = bsc.getVendorSpecificSettings();
+        boolean nearCacheEnabled = Boolean.parseBoolean(String.valueOf(settings.get(NEAR_CACHE_ENABLED)));
+        int nearCacheMaxSize = getIntSetting(settings, NEAR_CACHE_MAX_SIZE, DEFAULT_NEAR_CACHE_MAX_SIZE);
+        int writeBehindDelay = getIntSetting(settings, WRITE_BEHIND_DELAY_MILLIS, 0);
+        int writeBehindQueueSize = getIntSetting(settings, WRITE_BEHIND_QUEUE_SIZE, DEFAULT_WRITE_BEHIND_QUEUE_SIZE);
+        HazelcastBackingStore<K, V> store = new HazelcastBackingStore<>(this, bsc.getStoreName(), clusteredStore,
+                nearCacheEnabled, nearCacheMaxSize, writeBehindDelay, writeBehindQueueSize);
+        store.startWriteBehind(executor);
+        stores.add(store);
+        return store;
+    }
+
+    void storeDestroyed(HazelcastBackingStore<?, ?> store) {
+        stores.remove(store);
+    }
+
+    @Override
+    public void collect(MonitoringDataCollector collector) {
+        for (HazelcastBackingStore<?, ?> store : stores) {
+            long hits = store.getNearCacheHits();
+            long loads = hits + store.getNearCacheMisses();
+            collector.in("session-store").group(store.getStoreName())
+                .collect("NearCacheHits", hits)
+                .collect("NearCacheMisses", loads - hits)
+                .collect("NearCacheHitPercentage", loads == 0 ? 0 : hits * 100 / loads)
+                .collect("NearCacheSize", store.getNearCacheSize())
+                .collect("WriteBehindQueueSize", store.getWriteBehindQueueSize());
+        }
+    }
+
+    private static int getIntSetting(Map<String, Object> settings, String name, int defaultValue) {
+        Object value = settings.get(name);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString());
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return defaultValue;
     }
 
     @Override
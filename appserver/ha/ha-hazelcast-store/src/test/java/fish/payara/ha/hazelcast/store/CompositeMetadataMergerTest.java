@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ha.hazelcast.store;
+
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.ADD;
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.DELETE;
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.UPDATE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata;
+import org.junit.Test;
+
+/**
+ * Tests merging session deltas into the stored session with {@link CompositeMetadataMerger}.
+ */
+public class CompositeMetadataMergerTest {
+
+    private static final byte[] TRUNK = { 1, 2, 3 };
+
+    @Test
+    public void deltaWithoutTrunkIsNotStoredForMissingSession() {
+        CompositeMetadataMerger merger = new CompositeMetadataMerger(delta(2, null, attribute("a", ADD, "a2")));
+
+        assertNull(merger.update(null));
+    }
+
+    @Test
+    public void deltaWithoutTrunkIsNotStoredForSessionWithoutTrunk() {
+        CompositeMetadataMerger merger = new CompositeMetadataMerger(delta(2, null, attribute("a", ADD, "a2")));
+
+        assertNull(merger.update(new CompositeMetadata()));
+    }
+
+    @Test
+    public void deltaCarryingTrunkCreatesSession() {
+        CompositeMetadataMerger merger = new CompositeMetadataMerger(delta(1, TRUNK, attribute("a", ADD, "a1")));
+
+        CompositeMetadata merged = merger.update(null);
+
+        assertArrayEquals(TRUNK, merged.getState());
+        assertEquals("a1", valueOf(merged, "a"));
+    }
+
+    @Test
+    public void deltaIsMergedIntoStoredSession() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+
+        CompositeMetadata merged = new CompositeMetadataMerger(delta(2, null, attribute("b", ADD, "b2"))).update(stored);
+
+        assertSame(stored, merged);
+        assertEquals("a1", valueOf(merged, "a"));
+        assertEquals("b2", valueOf(merged, "b"));
+    }
+
+    @Test
+    public void severalDeltasAreMergedInOrder() {
+        CompositeMetadataMerger merger = new CompositeMetadataMerger(Arrays.asList(
+                delta(1, TRUNK, attribute("a", ADD, "a1"), attribute("b", ADD, "b1")),
+                delta(2, null, attribute("a", UPDATE, "a2")),
+                delta(3, null, attribute("b", DELETE, null), attribute("c", ADD, "c3")),
+                delta(4, null, attribute("a", UPDATE, "a4"))));
+
+        CompositeMetadata merged = merger.update(null);
+
+        assertEquals(4, merged.getVersion());
+        assertEquals(4000, merged.getLastAccessTime());
+        assertArrayEquals(TRUNK, merged.getState());
+        assertEquals(2, merged.getEntries().size());
+        assertEquals("a4", valueOf(merged, "a"));
+        assertNull(valueOf(merged, "b"));
+        assertEquals("c3", valueOf(merged, "c"));
+    }
+
+    private static CompositeMetadata delta(long version, byte[] trunk, SessionAttributeMetadata... attributes) {
+        return new CompositeMetadata(version, version * 1000, 1800000, Arrays.asList(attributes), trunk, null);
+    }
+
+    private static SessionAttributeMetadata attribute(String name, SessionAttributeMetadata.Operation operation, String value) {
+        return new SessionAttributeMetadata(name, operation, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String valueOf(CompositeMetadata metadata, String attributeName) {
+        for (SessionAttributeMetadata attribute : metadata.getEntries()) {
+            if (attribute.getAttributeName().equals(attributeName)) {
+                return new String(attribute.getState(), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ha.hazelcast.store;
+
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.ADD;
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.UPDATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryEventType;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapListener;
+import fish.payara.nucleus.executorservice.PayaraExecutorService;
+import fish.payara.nucleus.store.ClusteredStore;
+import fish.payara.nucleus.store.ClusteredStoreEntryUpdater;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.glassfish.ha.store.api.BackingStoreException;
+import org.glassfish.web.ha.session.management.CompositeMetadata;
+import org.glassfish.web.ha.session.management.SessionAttributeMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the near cache and write behind of {@link HazelcastBackingStore} against an in-memory
+ * {@link ClusteredStore}. Write behind is flushed by running the scheduled task directly.
+ */
+public class HazelcastBackingStoreTest {
+
+    private static final String STORE = "sessions";
+    private static final String SESSION = "session";
+    private static final byte[] TRUNK = { 1, 2, 3 };
+
+    private InMemoryClusteredStore clusteredStore;
+    private ManualExecutorService executor;
+
+    @Before
+    public void setUp() {
+        clusteredStore = new InMemoryClusteredStore();
+        executor = new ManualExecutorService();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void queuedDeltasAreMergedInOrderByOneUpdate() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = writeBehindStore();
+        store.save(SESSION, delta(1, TRUNK, attribute("a", ADD, "a1")), true);
+        store.save(SESSION, delta(2, null, attribute("a", UPDATE, "a2"), attribute("b", ADD, "b2")), false);
+        store.save(SESSION, delta(3, null, attribute("a", UPDATE, "a3")), false);
+
+        assertNull(clusteredStore.values.get(SESSION));
+        assertEquals(1, store.getWriteBehindQueueSize());
+
+        executor.runScheduledTask();
+
+        assertEquals(1, clusteredStore.updates.get());
+        CompositeMetadata stored = (CompositeMetadata) clusteredStore.values.get(SESSION);
+        assertEquals(3, stored.getVersion());
+        assertEquals("a3", valueOf(stored, "a"));
+        assertEquals("b2", valueOf(stored, "b"));
+        assertEquals(0, store.getWriteBehindQueueSize());
+    }
+
+    @Test
+    public void loadSendsQueuedWritesFirst() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = writeBehindStore();
+        store.save(SESSION, delta(1, TRUNK, attribute("a", ADD, "a1")), true);
+
+        CompositeMetadata loaded = (CompositeMetadata) store.load(SESSION, null);
+
+        assertNotNull(loaded);
+        assertEquals("a1", valueOf(loaded, "a"));
+        assertEquals(0, store.getWriteBehindQueueSize());
+    }
+
+    @Test
+    public void removedSessionIsNotWrittenByQueuedWrites() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = writeBehindStore();
+        store.save(SESSION, delta(1, TRUNK, attribute("a", ADD, "a1")), true);
+
+        store.remove(SESSION);
+        executor.runScheduledTask();
+
+        assertFalse(clusteredStore.values.containsKey(SESSION));
+        assertEquals(0, clusteredStore.updates.get());
+    }
+
+    @Test
+    public void removedSessionIsNotRecreatedByConcurrentFlush() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = writeBehindStore();
+        store.save(SESSION, delta(1, TRUNK, attribute("a", ADD, "a1")), true);
+        CountDownLatch updating = new CountDownLatch(1);
+        CountDownLatch releaseUpdate = new CountDownLatch(1);
+        clusteredStore.beforeUpdate = () -> {
+            updating.countDown();
+            await(releaseUpdate);
+        };
+
+        Thread flush = new Thread(executor::runScheduledTask);
+        flush.start();
+        assertTrue(updating.await(10, TimeUnit.SECONDS));
+        clusteredStore.beforeUpdate = null;
+        store.save(SESSION, delta(2, null, attribute("b", ADD, "b2")), false);
+        AtomicReference<Exception> removeFailure = new AtomicReference<>();
+        Thread remove = new Thread(() -> {
+            try {
+                store.remove(SESSION);
+            } catch (BackingStoreException ex) {
+                removeFailure.set(ex);
+            }
+        });
+        remove.start();
+        remove.join(200);
+        assertTrue("remove waits for the session being written", remove.isAlive());
+
+        releaseUpdate.countDown();
+        flush.join(10000);
+        remove.join(10000);
+
+        assertNull(removeFailure.get());
+        assertFalse(clusteredStore.values.containsKey(SESSION));
+        executor.runScheduledTask();
+        assertFalse(clusteredStore.values.containsKey(SESSION));
+        assertEquals(0, store.getWriteBehindQueueSize());
+    }
+
+    @Test
+    public void invalidationDuringLoadPreventsCaching() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = nearCacheStore(10);
+        clusteredStore.values.put(SESSION, "v1");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        clusteredStore.beforeGet = () -> {
+            loading.countDown();
+            await(releaseLoad);
+        };
+        AtomicReference<Object> loaded = new AtomicReference<>();
+        Thread load = new Thread(() -> {
+            try {
+                loaded.set(store.load(SESSION, null));
+            } catch (BackingStoreException ex) {
+                loaded.set(ex);
+            }
+        });
+        load.start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        clusteredStore.values.put(SESSION, "v2");
+        clusteredStore.fireRemoteUpdate(SESSION, "v2");
+        releaseLoad.countDown();
+        load.join(10000);
+        clusteredStore.beforeGet = null;
+
+        assertEquals("v1", loaded.get());
+        assertEquals(0, store.getNearCacheSize());
+        assertEquals("v2", store.load(SESSION, null));
+        assertEquals(2, clusteredStore.gets.get());
+    }
+
+    @Test
+    public void loadedSessionIsServedFromNearCacheUntilChangedRemotely() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = nearCacheStore(10);
+        clusteredStore.values.put(SESSION, "v1");
+
+        assertEquals("v1", store.load(SESSION, null));
+        assertEquals("v1", store.load(SESSION, null));
+        assertEquals(1, clusteredStore.gets.get());
+        assertEquals(1, store.getNearCacheHits());
+
+        clusteredStore.values.put(SESSION, "v2");
+        clusteredStore.fireRemoteUpdate(SESSION, "v2");
+
+        assertEquals("v2", store.load(SESSION, null));
+        assertEquals(2, clusteredStore.gets.get());
+    }
+
+    @Test
+    public void nearCacheHoldsAtMostItsMaximumSize() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = nearCacheStore(3);
+        for (int i = 0; i < 10; i++) {
+            store.save("session" + i, "value" + i, true);
+            assertTrue(store.getNearCacheSize() <= 3);
+        }
+        for (int i = 10; i < 20; i++) {
+            clusteredStore.values.put("session" + i, "value" + i);
+            store.load("session" + i, null);
+            assertTrue(store.getNearCacheSize() <= 3);
+        }
+
+        int gets = clusteredStore.gets.get();
+        assertEquals("the last loaded session stays cached", "value19", store.load("session19", null));
+        assertEquals(gets, clusteredStore.gets.get());
+    }
+
+    @Test
+    public void deltaOfUnmergedSessionFailsUntilFullSessionIsSaved() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = writeBehindStore();
+        store.save(SESSION, delta(2, null, attribute("a", UPDATE, "a2")), false);
+        executor.runScheduledTask();
+        assertFalse(clusteredStore.values.containsKey(SESSION));
+
+        try {
+            store.save(SESSION, delta(3, null, attribute("a", UPDATE, "a3")), false);
+            fail("the delta of a session that is not stored must fail");
+        } catch (BackingStoreException expected) {
+            // the caller sends the full session instead
+        }
+        store.save(SESSION, delta(3, TRUNK, attribute("a", UPDATE, "a3")), true);
+        store.save(SESSION, delta(4, null, attribute("a", UPDATE, "a4")), false);
+        executor.runScheduledTask();
+
+        assertEquals("a4", valueOf((CompositeMetadata) clusteredStore.values.get(SESSION), "a"));
+    }
+
+    @Test(expected = BackingStoreException.class)
+    public void deltaOfMissingSessionFailsWhenWrittenThrough() throws Exception {
+        HazelcastBackingStore<String, Serializable> store = new HazelcastBackingStore<>(null, STORE, clusteredStore);
+        store.save(SESSION, delta(2, null, attribute("a", UPDATE, "a2")), false);
+    }
+
+    private HazelcastBackingStore<String, Serializable> writeBehindStore() {
+        HazelcastBackingStore<String, Serializable> store
+                = new HazelcastBackingStore<>(null, STORE, clusteredStore, false, 0, 1000, 100);
+        store.startWriteBehind(executor);
+        return store;
+    }
+
+    private HazelcastBackingStore<String, Serializable> nearCacheStore(int maxSize) {
+        return new HazelcastBackingStore<>(null, STORE, clusteredStore, true, maxSize, 0, 0);
+    }
+
+    private static CompositeMetadata delta(long version, byte[] trunk, SessionAttributeMetadata... attributes) {
+        return new CompositeMetadata(version, version * 1000, 1800000, Arrays.asList(attributes), trunk, null);
+    }
+
+    private static SessionAttributeMetadata attribute(String name, SessionAttributeMetadata.Operation operation, String value) {
+        return new SessionAttributeMetadata(name, operation, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String valueOf(CompositeMetadata metadata, String attributeName) {
+        for (SessionAttributeMetadata attribute : metadata.getEntries()) {
+            if (attribute.getAttributeName().equals(attributeName)) {
+                return new String(attribute.getState(), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A single member store keeping the values of one map, applying updates like Hazelcast
+     * applies entry processors.
+     */
+    private static final class InMemoryClusteredStore extends ClusteredStore {
+
+        final Map<Serializable, Serializable> values = new ConcurrentHashMap<>();
+        final AtomicInteger gets = new AtomicInteger();
+        final AtomicInteger updates = new AtomicInteger();
+        volatile Runnable beforeGet;
+        volatile Runnable beforeUpdate;
+        private volatile MapListener listener;
+
+        @Override
+        public String getInstanceId() {
+            return "member";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public Serializable get(String storeName, Serializable key) {
+            gets.incrementAndGet();
+            Serializable value = values.get(key);
+            Runnable hook = beforeGet;
+            if (hook != null) {
+                // the value read may be changed meanwhile
+                hook.run();
+            }
+            return value;
+        }
+
+        @Override
+        public boolean set(String storeName, Serializable key, Serializable value) {
+            values.put(key, value);
+            return true;
+        }
+
+        @Override
+        public boolean update(String storeName, Serializable key, ClusteredStoreEntryUpdater<?> updater) {
+            updates.incrementAndGet();
+            Runnable hook = beforeUpdate;
+            if (hook != null) {
+                hook.run();
+            }
+            Map.Entry<Serializable, Serializable> entry = new AbstractMap.SimpleEntry<Serializable, Serializable>(key, values.get(key)) {
+                @Override
+                public Serializable setValue(Serializable value) {
+                    values.put(key, value);
+                    return super.setValue(value);
+                }
+            };
+            return (Boolean) updater.process(entry);
+        }
+
+        @Override
+        public boolean remove(String storeName, Serializable key) {
+            return values.remove(key) != null;
+        }
+
+        @Override
+        public String addEntryListener(String storeName, MapListener listener) {
+            this.listener = listener;
+            return "listener";
+        }
+
+        @Override
+        public boolean removeEntryListener(String storeName, String registrationId) {
+            listener = null;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        void fireRemoteUpdate(String key, Serializable value) {
+            ((EntryUpdatedListener<String, Serializable>) listener).entryUpdated(
+                    new EntryEvent<>(STORE, null, EntryEventType.UPDATED.getType(), key, value));
+        }
+    }
+
+    /**
+     * Schedules nothing, the test runs the write behind task itself.
+     */
+    private static final class ManualExecutorService extends PayaraExecutorService {
+
+        private final ScheduledExecutorService idle = new ScheduledThreadPoolExecutor(1);
+        private volatile Runnable scheduledTask;
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            scheduledTask = command;
+            return idle.schedule(() -> { }, 1, TimeUnit.DAYS);
+        }
+
+        void runScheduledTask() {
+            scheduledTask.run();
+        }
+
+        void shutdown() {
+            idle.shutdownNow();
+        }
+    }
+}
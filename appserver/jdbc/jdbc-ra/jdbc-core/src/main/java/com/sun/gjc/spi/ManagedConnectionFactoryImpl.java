@@ -42,10 +42,12 @@
 package com.sun.gjc.spi;
 
 import com.sun.appserv.connectors.internal.spi.MCFLifecycleListener;
+import com.sun.appserv.connectors.internal.spi.MCFPoolFlushListener;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.common.DataSourceSpec;
 import com.sun.gjc.monitoring.JdbcStatsProvider;
+import com.sun.gjc.spi.base.StatementMetaDataCache;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.SQLTraceLogger;
 import com.sun.gjc.util.SecurityUtils;
@@ -84,7 +86,7 @@ import org.glassfish.resourcebase.resources.api.PoolInfo;
 
 public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi.ManagedConnectionFactory,
         javax.resource.spi.ValidatingManagedConnectionFactory, 
-        MCFLifecycleListener, ResourceAdapterAssociation,
+        MCFLifecycleListener, MCFPoolFlushListener, ResourceAdapterAssociation,
         java.io.Serializable, Externalizable {
 
     protected DataSourceSpec spec = new DataSourceSpec();
@@ -109,6 +111,8 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
     private String statementCacheType = null;
     private long statementLeakTimeout = 0;
     private boolean statementLeakReclaim = false;
+    private int statementMetaDataCacheSize = 0;
+    private volatile StatementMetaDataCache statementMetaDataCache;
 
     //Jdbc Stats provider that is created
     private JdbcStatsProvider jdbcStatsProvider = null;
@@ -1130,6 +1134,57 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         }
     }
     
+    public void setStatementMetaDataCacheSize(String value){
+        spec.setDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE, value);
+        detectStatementMetaDataCachingSupport();
+    }
+
+    public String getStatementMetaDataCacheSize(){
+        return spec.getDetail(DataSourceSpec.STATEMENTMETADATACACHESIZE);
+    }
+
+    private void detectStatementMetaDataCachingSupport() {
+        String cacheSize = getStatementMetaDataCacheSize();
+        if(cacheSize != null){
+            try{
+                statementMetaDataCacheSize = Integer.parseInt(cacheSize);
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "StatementMetaDataCaching Size : " + statementMetaDataCacheSize);
+                }
+            }catch(NumberFormatException nfe){
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.fine("Exception while setting StatementMetaDataCacheSize : " +
+                        nfe.getMessage());
+                }
+                //ignore
+            }
+        }
+    }
+
+    /**
+     * Returns the prepared statement metadata cache shared by all connections
+     * created by this factory. Only statements taken from the statement cache
+     * use it, so it has no effect unless statement caching is enabled too.
+     *
+     * @return the shared metadata cache or <code>null</code> if it is disabled
+     */
+    public StatementMetaDataCache getStatementMetaDataCache() {
+        if (statementMetaDataCacheSize <= 0) {
+            return null;
+        }
+        StatementMetaDataCache cache = statementMetaDataCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = statementMetaDataCache;
+                if (cache == null) {
+                    cache = new StatementMetaDataCache(getPoolInfo(), statementMetaDataCacheSize);
+                    statementMetaDataCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     public String getMaxCacheSize(){
         return spec.getDetail(DataSourceSpec.MAXCACHESIZE);
     }
@@ -1528,11 +1583,27 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         }
     }
 
+    /**
+     * Drops the statement metadata of the flushed connections, tables may have
+     * been altered since it was described.
+     */
+    @Override
+    public void poolFlushed() {
+        StatementMetaDataCache cache = statementMetaDataCache;
+        if(cache != null) {
+            cache.clearCache();
+        }
+    }
+
     @Override
     public void mcfDestroyed() {
         if(_logger.isLoggable(Level.FINEST)) {
             _logger.finest("MCF Destroyed");
         }
+        if(statementMetaDataCache != null) {
+            statementMetaDataCache.clearCache();
+            statementMetaDataCache = null;
+        }
         if(jdbcStatsProvider != null) {
             if(jdbcStatsProvider.getFreqSqlTraceCache() != null) {
                 if(_logger.isLoggable(Level.FINEST)) {
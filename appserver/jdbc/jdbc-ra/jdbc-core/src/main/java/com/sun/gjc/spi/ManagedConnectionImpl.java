@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates.]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates.]
 
 package com.sun.gjc.spi;
 
@@ -1075,7 +1075,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                 statementCache.addToCache(key, ps, false);
 
             }
-            return ps;
+            return bindMetaDataCache(ps, key);
         } else
             return conWrapper.prepareCachedStatement(sql, resultSetType, 
                     resultSetConcurrency, false);
@@ -1119,7 +1119,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                 statementCache.addToCache(key, ps, false);
                 ps.setBusy(true);
             }
-            return ps;
+            return bindMetaDataCache(ps, key);
         } else
             return conWrapper.prepareCachedStatement(sql, resultSetType, 
                     resultSetConcurrency, resultSetHoldability, false);
@@ -1160,7 +1160,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                 statementCache.addToCache(key, ps, false);
                 ps.setBusy(true);
             }
-            return ps;
+            return bindMetaDataCache(ps, key);
         } else
             return conWrapper.prepareCachedStatement(sql, columnNames, false);
     }
@@ -1200,7 +1200,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                 statementCache.addToCache(key, ps, false);
                 ps.setBusy(true);
             }
-            return ps;
+            return bindMetaDataCache(ps, key);
         } else
             return conWrapper.prepareCachedStatement(sql, columnIndexes, false);
     }
@@ -1240,11 +1240,45 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
                 statementCache.addToCache(key, ps, false);
                 ps.setBusy(true);
             }
-            return ps;
+            return bindMetaDataCache(ps, key);
         } else
             return conWrapper.prepareCachedStatement(sql, autoGeneratedKeys, false);
     }
 
+    /**
+     * Lets a statement from the statement cache share the metadata cached for
+     * its SQL by the other connections of the pool that prepared it as the same
+     * user in the same schema. The schema is looked up once, when the statement
+     * is first bound, as that is the schema the statement was prepared in.
+     */
+    private PreparedStatementWrapper bindMetaDataCache(PreparedStatementWrapper ps,
+            CacheObjectKey key) {
+        StatementMetaDataCache metaDataCache =
+                ((ManagedConnectionFactoryImpl) mcf).getStatementMetaDataCache();
+        if (metaDataCache != null) {
+            StatementMetaDataCache.Key metaDataKey = ps.getMetaDataKey();
+            if (metaDataKey == null) {
+                String user = passwdCredential == null ? null : passwdCredential.getUserName();
+                metaDataKey = new StatementMetaDataCache.Key(key, user, getSchema());
+            }
+            ps.setMetaDataCache(metaDataCache, metaDataKey);
+        }
+        return ps;
+    }
+
+    private String getSchema() {
+        try {
+            return actualConnection.getSchema();
+        } catch (SQLException | AbstractMethodError | UnsupportedOperationException e) {
+            // Drivers predating JDBC 4.1 can not tell, statements are then
+            // shared by every connection of the same user
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.log(Level.FINEST, "Unable to get the schema of the connection", e);
+            }
+            return null;
+        }
+    }
+
     public CallableStatement prepareCachedCallableStatement(
            ConnectionWrapper conWrapper, String sql, int resultSetType, 
            int resultSetConcurrency) throws SQLException {
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.gjc.spi.base;
 
@@ -59,6 +60,12 @@ public class CacheObjectKey {
     protected int[] columnIndexes;
     protected String[] columnNames;
 
+    /**
+     * Memoized hash code, the key is hashed on every statement cache lookup.
+     * Reset to 0 by the setters so that it is recomputed after a change.
+     */
+    private int hash;
+
     /**
      * Get the value of columnNames
      *
@@ -75,6 +82,7 @@ public class CacheObjectKey {
      */
     public void setColumnNames(String[] columnNames) {
         this.columnNames = columnNames;
+        this.hash = 0;
     }
 
     /**
@@ -93,6 +101,7 @@ public class CacheObjectKey {
      */
     public void setColumnIndexes(int[] columnIndexes) {
         this.columnIndexes = columnIndexes;
+        this.hash = 0;
     }
 
     public CacheObjectKey(String sql, String statementType, 
@@ -140,6 +149,7 @@ public class CacheObjectKey {
 
     public void setAutoGeneratedKeys(int autoGeneratedKeys) {
         this.autoGeneratedKeys = autoGeneratedKeys;
+        this.hash = 0;
     }
 
     /**
@@ -158,6 +168,7 @@ public class CacheObjectKey {
      */
     public void setResultSetConcurrency(int resultSetConcurrency) {
         this.resultSetConcurrency = resultSetConcurrency;
+        this.hash = 0;
     }
 
     /**
@@ -176,6 +187,7 @@ public class CacheObjectKey {
      */
     public void setResultSetType(int resultSetType) {
         this.resultSetType = resultSetType;
+        this.hash = 0;
     }
     /**
      * Get the value of resultSetHoldability
@@ -193,6 +205,7 @@ public class CacheObjectKey {
      */
     public void setResultSetHoldability(int resultSetHoldability) {
         this.resultSetHoldability = resultSetHoldability;
+        this.hash = 0;
     }
 
     public CacheObjectKey() {
@@ -256,6 +269,10 @@ public class CacheObjectKey {
      */    
     @Override
     public int hashCode() {
+        int h = this.hash;
+        if (h != 0) {
+            return h;
+        }
         int hash = 7;
         hash = 41 * hash + (this.sql != null ? this.sql.hashCode() : 0);
         hash = 41 * hash + (this.statementType != null ? this.statementType.hashCode() : 0);
@@ -275,6 +292,7 @@ public class CacheObjectKey {
                 }
             }
         }
+        this.hash = hash;
         return hash;
     }
 
@@ -294,6 +312,7 @@ public class CacheObjectKey {
      */
     public void setStatementType(String statementType) {
         this.statementType = statementType;
+        this.hash = 0;
     }
 
     /**
@@ -312,5 +331,6 @@ public class CacheObjectKey {
      */
     public void setSql(String sql) {
         this.sql = sql;
+        this.hash = 0;
     }    
 }
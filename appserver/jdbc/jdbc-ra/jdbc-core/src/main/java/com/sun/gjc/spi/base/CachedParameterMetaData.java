@@ -0,0 +1,163 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.gjc.spi.base;
+
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+
+/**
+ * Detached, immutable copy of the parameter description of a <code>PreparedStatement</code>,
+ * shared by all connections of a pool through the {@link StatementMetaDataCache}. The driver's
+ * metadata object is only kept to serve {@link #unwrap(Class)} for vendor interfaces.
+ *
+ * @see CachedResultSetMetaData
+ */
+class CachedParameterMetaData implements ParameterMetaData {
+
+    private final ParameterMetaData delegate;
+    private final int parameterCount;
+    private final int[] nullable;
+    private final boolean[] signed;
+    private final int[] precision;
+    private final int[] scale;
+    private final int[] parameterType;
+    private final String[] parameterTypeName;
+    private final String[] parameterClassName;
+    private final int[] parameterMode;
+
+    /**
+     * Copies every parameter attribute of the given metadata.
+     *
+     * @param metaData metadata obtained from the driver
+     * @throws SQLException if the driver fails to describe any of the parameters, in which case
+     * the metadata is not suitable for sharing
+     */
+    CachedParameterMetaData(ParameterMetaData metaData) throws SQLException {
+        delegate = metaData;
+        parameterCount = metaData.getParameterCount();
+        nullable = new int[parameterCount];
+        signed = new boolean[parameterCount];
+        precision = new int[parameterCount];
+        scale = new int[parameterCount];
+        parameterType = new int[parameterCount];
+        parameterTypeName = new String[parameterCount];
+        parameterClassName = new String[parameterCount];
+        parameterMode = new int[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            int param = i + 1;
+            nullable[i] = metaData.isNullable(param);
+            signed[i] = metaData.isSigned(param);
+            precision[i] = metaData.getPrecision(param);
+            scale[i] = metaData.getScale(param);
+            parameterType[i] = metaData.getParameterType(param);
+            parameterTypeName[i] = metaData.getParameterTypeName(param);
+            parameterClassName[i] = metaData.getParameterClassName(param);
+            parameterMode[i] = metaData.getParameterMode(param);
+        }
+    }
+
+    private int index(int param) throws SQLException {
+        if (param < 1 || param > parameterCount) {
+            throw new SQLException("Invalid parameter index : " + param);
+        }
+        return param - 1;
+    }
+
+    @Override
+    public int getParameterCount() throws SQLException {
+        return parameterCount;
+    }
+
+    @Override
+    public int isNullable(int param) throws SQLException {
+        return nullable[index(param)];
+    }
+
+    @Override
+    public boolean isSigned(int param) throws SQLException {
+        return signed[index(param)];
+    }
+
+    @Override
+    public int getPrecision(int param) throws SQLException {
+        return precision[index(param)];
+    }
+
+    @Override
+    public int getScale(int param) throws SQLException {
+        return scale[index(param)];
+    }
+
+    @Override
+    public int getParameterType(int param) throws SQLException {
+        return parameterType[index(param)];
+    }
+
+    @Override
+    public String getParameterTypeName(int param) throws SQLException {
+        return parameterTypeName[index(param)];
+    }
+
+    @Override
+    public String getParameterClassName(int param) throws SQLException {
+        return parameterClassName[index(param)];
+    }
+
+    @Override
+    public int getParameterMode(int param) throws SQLException {
+        return parameterMode[index(param)];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.gjc.spi.base;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Detached, immutable copy of the column description of a <code>ResultSet</code>.
+ * <p>
+ * Column attributes are answered from the copy, so one instance can be shared by all connections
+ * of a pool through the {@link StatementMetaDataCache}. The driver's metadata object is only kept
+ * to serve {@link #unwrap(Class)} and {@link #isWrapperFor(Class)} for vendor interfaces.
+ */
+class CachedResultSetMetaData implements ResultSetMetaData {
+
+    private final ResultSetMetaData delegate;
+    private final int columnCount;
+    private final boolean[] autoIncrement;
+    private final boolean[] caseSensitive;
+    private final boolean[] searchable;
+    private final boolean[] currency;
+    private final int[] nullable;
+    private final boolean[] signed;
+    private final int[] columnDisplaySize;
+    private final String[] columnLabel;
+    private final String[] columnName;
+    private final String[] schemaName;
+    private final int[] precision;
+    private final int[] scale;
+    private final String[] tableName;
+    private final String[] catalogName;
+    private final int[] columnType;
+    private final String[] columnTypeName;
+    private final boolean[] readOnly;
+    private final boolean[] writable;
+    private final boolean[] definitelyWritable;
+    private final String[] columnClassName;
+
+    /**
+     * Copies every column attribute of the given metadata.
+     *
+     * @param metaData metadata obtained from the driver
+     * @throws SQLException if the driver fails to describe any of the columns, in which case
+     * the metadata is not suitable for sharing
+     */
+    CachedResultSetMetaData(ResultSetMetaData metaData) throws SQLException {
+        delegate = metaData;
+        columnCount = metaData.getColumnCount();
+        autoIncrement = new boolean[columnCount];
+        caseSensitive = new boolean[columnCount];
+        searchable = new boolean[columnCount];
+        currency = new boolean[columnCount];
+        nullable = new int[columnCount];
+        signed = new boolean[columnCount];
+        columnDisplaySize = new int[columnCount];
+        columnLabel = new String[columnCount];
+        columnName = new String[columnCount];
+        schemaName = new String[columnCount];
+        precision = new int[columnCount];
+        scale = new int[columnCount];
+        tableName = new String[columnCount];
+        catalogName = new String[columnCount];
+        columnType = new int[columnCount];
+        columnTypeName = new String[columnCount];
+        readOnly = new boolean[columnCount];
+        writable = new boolean[columnCount];
+        definitelyWritable = new boolean[columnCount];
+        columnClassName = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            int column = i + 1;
+            autoIncrement[i] = metaData.isAutoIncrement(column);
+            caseSensitive[i] = metaData.isCaseSensitive(column);
+            searchable[i] = metaData.isSearchable(column);
+            currency[i] = metaData.isCurrency(column);
+            nullable[i] = metaData.isNullable(column);
+            signed[i] = metaData.isSigned(column);
+            columnDisplaySize[i] = metaData.getColumnDisplaySize(column);
+            columnLabel[i] = metaData.getColumnLabel(column);
+            columnName[i] = metaData.getColumnName(column);
+            schemaName[i] = metaData.getSchemaName(column);
+            precision[i] = metaData.getPrecision(column);
+            scale[i] = metaData.getScale(column);
+            tableName[i] = metaData.getTableName(column);
+            catalogName[i] = metaData.getCatalogName(column);
+            columnType[i] = metaData.getColumnType(column);
+            columnTypeName[i] = metaData.getColumnTypeName(column);
+            readOnly[i] = metaData.isReadOnly(column);
+            writable[i] = metaData.isWritable(column);
+            definitelyWritable[i] = metaData.isDefinitelyWritable(column);
+            columnClassName[i] = metaData.getColumnClassName(column);
+        }
+    }
+
+    private int index(int column) throws SQLException {
+        if (column < 1 || column > columnCount) {
+            throw new SQLException("Invalid column index : " + column);
+        }
+        return column - 1;
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return columnCount;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return autoIncrement[index(column)];
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return caseSensitive[index(column)];
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return searchable[index(column)];
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return currency[index(column)];
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return nullable[index(column)];
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return signed[index(column)];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return columnDisplaySize[index(column)];
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return columnLabel[index(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return columnName[index(column)];
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return schemaName[index(column)];
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return precision[index(column)];
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return scale[index(column)];
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return tableName[index(column)];
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return catalogName[index(column)];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return columnType[index(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return columnTypeName[index(column)];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        return readOnly[index(column)];
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        return writable[index(column)];
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        return definitelyWritable[index(column)];
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return columnClassName[index(column)];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2020] Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.base;
 
@@ -71,6 +71,8 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     private int currentFetchDirection;
     private int currentFetchSize;
     private boolean valid = true;
+    private StatementMetaDataCache metaDataCache;
+    private StatementMetaDataCache.Key metaDataKey;
 
     /**
      * Abstract class for wrapping PreparedStatement <br>
@@ -656,6 +658,9 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getResultSetMetaData(metaDataKey, preparedStatement);
+        }
         return preparedStatement.getMetaData();
     }
 
@@ -785,9 +790,44 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      */
     @Override
     public ParameterMetaData getParameterMetaData() throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getParameterMetaData(metaDataKey, preparedStatement);
+        }
         return preparedStatement.getParameterMetaData();
     }
 
+    /**
+     * Makes this statement use the pool wide metadata cache.
+     *
+     * @param metaDataCache metadata cache of the pool
+     * @param key metadata cache key this statement was prepared for
+     */
+    public void setMetaDataCache(StatementMetaDataCache metaDataCache, StatementMetaDataCache.Key key) {
+        this.metaDataCache = metaDataCache;
+        this.metaDataKey = key;
+    }
+
+    /**
+     * @return the metadata cache key this statement was bound with, or <code>null</code>
+     */
+    public StatementMetaDataCache.Key getMetaDataKey() {
+        return metaDataKey;
+    }
+
+    /**
+     * Lets a result set produced by executing this statement share the column
+     * description cached for the statement.
+     *
+     * @param resultSet wrapped result set of <code>executeQuery()</code>
+     * @return the same result set
+     */
+    protected ResultSetWrapper bindMetaDataCache(ResultSetWrapper resultSet) {
+        if (metaDataCache != null) {
+            resultSet.setMetaDataCache(metaDataCache, metaDataKey);
+        }
+        return resultSet;
+    }
+
     public boolean isBusy() {
         return busy;
     }
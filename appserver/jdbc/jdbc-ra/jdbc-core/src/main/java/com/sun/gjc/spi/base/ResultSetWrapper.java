@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2020] Payara Foundation and/or affiliates
 
 package com.sun.gjc.spi.base;
 
@@ -64,6 +64,8 @@ public abstract class ResultSetWrapper implements ResultSet {
     private MethodExecutor executor = null;
     protected final static Logger _logger;
     private ResultSetClosedEventListener eventListener = null;
+    private StatementMetaDataCache metaDataCache;
+    private StatementMetaDataCache.Key metaDataKey;
 
     static {
         _logger = LogDomains.getLogger(MethodExecutor.class, LogDomains.RSR_LOGGER);
@@ -796,9 +798,24 @@ public abstract class ResultSetWrapper implements ResultSet {
      */
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if (metaDataCache != null) {
+            return metaDataCache.getResultSetMetaData(metaDataKey, resultSet);
+        }
         return resultSet.getMetaData();
     }
 
+    /**
+     * Makes this result set use the column description cached for the
+     * prepared statement that produced it.
+     *
+     * @param metaDataCache metadata cache of the pool
+     * @param key metadata cache key of the producing statement
+     */
+    void setMetaDataCache(StatementMetaDataCache metaDataCache, StatementMetaDataCache.Key key) {
+        this.metaDataCache = metaDataCache;
+        this.metaDataKey = key;
+    }
+
     /**
      * <p>Gets the value of the designated column in the current row
      * of this <code>ResultSet</code> object as
@@ -0,0 +1,252 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.gjc.spi.base;
+
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool wide cache of prepared statement metadata.
+ * <p>
+ * The statement cache of each {@link com.sun.gjc.spi.ManagedConnectionImpl} holds the driver's
+ * statements and can not be shared, but the parameter and result set column descriptions of a
+ * given SQL are the same on every connection of the pool that prepared it as the same user in the
+ * same schema. They are kept here, keyed on the {@link CacheObjectKey} of the statement cache
+ * (SQL text and statement type) together with that user and schema, so that after a pool resize a
+ * new connection does not have to ask the database to describe statements again.
+ * <p>
+ * Entries are detached copies of the driver metadata. Metadata the driver fails to describe
+ * completely is not cached and is always read from the statement. The cache is bounded, once
+ * full an arbitrary entry is evicted for each new statement. It is cleared when the pool is
+ * flushed, so that metadata of altered tables is described again.
+ */
+public class StatementMetaDataCache {
+
+    protected static final Logger _logger = LogDomains.getLogger(StatementMetaDataCache.class, LogDomains.RSR_LOGGER);
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final PoolInfo poolInfo;
+    private final int maxSize;
+
+    public StatementMetaDataCache(PoolInfo poolInfo, int maxSize) {
+        this.poolInfo = poolInfo;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the column description of the result set the statement produces.
+     *
+     * @param key cache key of the statement
+     * @param statement driver statement used to describe the statement on a cache miss
+     * @return shared metadata, or the driver's own metadata when it can not be shared
+     * @throws SQLException if the driver fails to provide the metadata
+     */
+    public ResultSetMetaData getResultSetMetaData(Key key, PreparedStatement statement)
+            throws SQLException {
+        Entry entry = getEntry(key);
+        if (entry != null && entry.resultSetMetaData != null) {
+            return entry.resultSetMetaData;
+        }
+        ResultSetMetaData metaData = statement.getMetaData();
+        if (entry == null || entry.resultSetMetaDataUnshareable || metaData == null) {
+            return metaData;
+        }
+        return share(entry, metaData);
+    }
+
+    /**
+     * Returns the column description of a result set produced by the statement.
+     *
+     * @param key cache key of the statement that produced the result set
+     * @param resultSet driver result set used to describe the columns on a cache miss
+     * @return shared metadata, or the driver's own metadata when it can not be shared
+     * @throws SQLException if the driver fails to provide the metadata
+     */
+    public ResultSetMetaData getResultSetMetaData(Key key, ResultSet resultSet)
+            throws SQLException {
+        Entry entry = getEntry(key);
+        if (entry != null && entry.resultSetMetaData != null) {
+            return entry.resultSetMetaData;
+        }
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        if (entry == null || entry.resultSetMetaDataUnshareable || metaData == null) {
+            return metaData;
+        }
+        return share(entry, metaData);
+    }
+
+    /**
+     * Returns the parameter description of the statement.
+     *
+     * @param key cache key of the statement
+     * @param statement driver statement used to describe the parameters on a cache miss
+     * @return shared metadata, or the driver's own metadata when it can not be shared
+     * @throws SQLException if the driver fails to provide the metadata
+     */
+    public ParameterMetaData getParameterMetaData(Key key, PreparedStatement statement)
+            throws SQLException {
+        Entry entry = getEntry(key);
+        if (entry != null && entry.parameterMetaData != null) {
+            return entry.parameterMetaData;
+        }
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        if (entry == null || entry.parameterMetaDataUnshareable || metaData == null) {
+            return metaData;
+        }
+        try {
+            entry.parameterMetaData = new CachedParameterMetaData(metaData);
+            return entry.parameterMetaData;
+        } catch (SQLException | RuntimeException ex) {
+            entry.parameterMetaDataUnshareable = true;
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Parameter metadata of [" + key.getSql()
+                        + "] can not be cached for pool " + poolInfo, ex);
+            }
+            return metaData;
+        }
+    }
+
+    private ResultSetMetaData share(Entry entry, ResultSetMetaData metaData) {
+        try {
+            entry.resultSetMetaData = new CachedResultSetMetaData(metaData);
+            return entry.resultSetMetaData;
+        } catch (SQLException | RuntimeException ex) {
+            entry.resultSetMetaDataUnshareable = true;
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Result set metadata can not be cached for pool " + poolInfo, ex);
+            }
+            return metaData;
+        }
+    }
+
+    /**
+     * @return the entry of the key, created and making room for it if necessary
+     */
+    private Entry getEntry(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            evictIfFull();
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        return entry;
+    }
+
+    private void evictIfFull() {
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public void clearCache() {
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.finest("Clearing statement metadata cache of pool " + poolInfo);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Identifies the statements sharing the same metadata: the statement cache key of the SQL
+     * and the user and schema it was prepared with.
+     */
+    public static final class Key {
+        private final CacheObjectKey statementKey;
+        private final String user;
+        private final String schema;
+        private final int hashCode;
+
+        public Key(CacheObjectKey statementKey, String user, String schema) {
+            this.statementKey = statementKey;
+            this.user = user;
+            this.schema = schema;
+            this.hashCode = Objects.hash(statementKey, user, schema);
+        }
+
+        public String getSql() {
+            return statementKey.getSql();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return statementKey.equals(other.statementKey)
+                    && Objects.equals(user, other.user)
+                    && Objects.equals(schema, other.schema);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+        volatile ResultSetMetaData resultSetMetaData;
+        volatile ParameterMetaData parameterMetaData;
+        volatile boolean resultSetMetaDataUnshareable;
+        volatile boolean parameterMetaDataUnshareable;
+    }
+}
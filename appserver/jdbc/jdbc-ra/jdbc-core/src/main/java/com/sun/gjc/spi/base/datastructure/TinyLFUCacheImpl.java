@@ -0,0 +1,386 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ * 
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ * 
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ * 
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ * 
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ * 
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Concurrent statement cache with access ordered eviction and frequency based admission.
+ * <p>
+ * The cache is split into segments, each an access ordered {@link LinkedHashMap} guarded by its own
+ * lock, so lookups for different statements do not contend with each other. Every segment keeps a
+ * small count-min sketch of how often keys were requested. When a segment is full a new statement
+ * only replaces the least recently used one if it was requested more often, so a burst of one-off
+ * SQL does not evict the prepared statements that are hot.
+ * <p>
+ * Selected with the statement cache type {@code TINYLFU}.
+ *
+ * @see LRUCacheImpl
+ */
+public class TinyLFUCacheImpl implements Cache {
+
+    protected static final Logger _logger = LogDomains.getLogger(TinyLFUCacheImpl.class, LogDomains.RSR_LOGGER);
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 8;
+
+    private final Segment[] segments;
+    private final int maxSize;
+    private final PoolInfo poolInfo;
+    private StatementCacheProbeProvider probeProvider;
+
+    public TinyLFUCacheImpl(PoolInfo poolInfo, int maxSize) {
+        this.poolInfo = poolInfo;
+        this.maxSize = maxSize;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MIN_SEGMENT_SIZE <= maxSize) {
+            segmentCount *= 2;
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // spread the remainder so that the segment capacities add up to maxSize
+            segments[i] = new Segment(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+        }
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "Unable to create statement cache probe provider", ex);
+        }
+    }
+
+    private Segment segmentFor(CacheObjectKey key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    @Override
+    public Object checkAndUpdateCache(CacheObjectKey key) {
+        Object result = segmentFor(key).get(key);
+        if (probeProvider != null) {
+            if (result != null) {
+                probeProvider.statementCacheHitEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+            } else {
+                probeProvider.statementCacheMissEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.finest(result != null ? "Cache Hit" : "Cache Miss");
+        }
+        return result;
+    }
+
+    @Override
+    public void addToCache(CacheObjectKey key, Object entry, boolean force) {
+        Object evicted = segmentFor(key).put(key, entry, force);
+        if (evicted != null) {
+            closeStatement(evicted);
+            if (probeProvider != null) {
+                probeProvider.statementCacheEvictionEvent(poolInfo.getName(), poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("clearing objects in cache");
+        }
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Removes and closes the least recently used statement of the largest segment.
+     */
+    @Override
+    public void purge() {
+        Segment largest = segments[0];
+        for (Segment segment : segments) {
+            if (segment.size() > largest.size()) {
+                largest = segment;
+            }
+        }
+        Object evicted = largest.removeEldest();
+        if (evicted != null) {
+            closeStatement(evicted);
+        }
+    }
+
+    @Override
+    public void purge(Object entry) {
+        for (Segment segment : segments) {
+            if (segment.remove(entry)) {
+                if (_logger.isLoggable(Level.FINEST)) {
+                    _logger.log(Level.FINEST, "Purging an entry from cache");
+                }
+                closeStatement(entry);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void flushCache() {
+        for (Segment segment : segments) {
+            Object evicted;
+            while ((evicted = segment.removeEldest()) != null) {
+                closeStatement(evicted);
+            }
+        }
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+
+    private static void closeStatement(Object entry) {
+        try {
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) entry;
+            ps.setCached(false);
+            ps.close();
+        } catch (SQLException e) {
+            //ignore
+        }
+    }
+
+    /**
+     * Part of the cache guarded by its own lock.
+     */
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<CacheObjectKey, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        Object get(CacheObjectKey key) {
+            lock.lock();
+            try {
+                sketch.increment(key);
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the entry that was evicted or rejected and needs to be closed, or null
+         */
+        Object put(CacheObjectKey key, Object entry, boolean force) {
+            lock.lock();
+            try {
+                if (entries.containsKey(key)) {
+                    if (force) {
+                        entries.put(key, entry);
+                    }
+                    return null;
+                }
+                if (capacity <= 0) {
+                    return rejected(entry);
+                }
+                if (entries.size() < capacity) {
+                    entries.put(key, entry);
+                    return null;
+                }
+                Map.Entry<CacheObjectKey, Object> eldest = entries.entrySet().iterator().next();
+                if (!force && sketch.frequency(key) <= sketch.frequency(eldest.getKey())) {
+                    return rejected(entry);
+                }
+                entries.remove(eldest.getKey());
+                entries.put(key, entry);
+                return eldest.getValue();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * A rejected statement is still used by the caller, hence it is only marked as not cached so
+         * that it gets closed when the application closes it.
+         */
+        private static Object rejected(Object entry) {
+            if (entry instanceof PreparedStatementWrapper) {
+                ((PreparedStatementWrapper) entry).setCached(false);
+            }
+            return null;
+        }
+
+        Object removeEldest() {
+            lock.lock();
+            try {
+                Iterator<Object> values = entries.values().iterator();
+                if (!values.hasNext()) {
+                    return null;
+                }
+                Object eldest = values.next();
+                values.remove();
+                return eldest;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(Object entry) {
+            lock.lock();
+            try {
+                return entries.values().remove(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch with 4-bit counters that halves all counters after a sample period, so that
+     * the frequencies reflect recent usage.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final long[] table;
+        private final int mask;
+        private final int samplePeriod;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(4, capacity) - 1) << 1;
+            // 16 counters of 4 bits per long
+            table = new long[Math.max(1, size / 4)];
+            mask = table.length * 16 - 1;
+            samplePeriod = Math.max(10, capacity * 10);
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < DEPTH; i++) {
+                int counter = indexOf(hash, i);
+                int slot = counter >>> 4;
+                int shift = (counter & 15) << 2;
+                if (((table[slot] >>> shift) & 0xFL) < 15) {
+                    table[slot] += 1L << shift;
+                }
+            }
+            if (++additions >= samplePeriod) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                int counter = indexOf(hash, i);
+                int count = (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xFL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int i) {
+            int h = (hash ^ (hash >>> 16)) * SEEDS[i];
+            h ^= h >>> 15;
+            return h & mask;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                // halve every 4-bit counter
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.gjc.spi.jdbc30;
 
@@ -75,7 +76,7 @@ public class PreparedStatementWrapper30 extends PreparedStatementWrapper {
      */
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
         ResultSet rs = preparedStatement.executeQuery();
-        return new ResultSetWrapper30(this, rs);
+        return bindMetaDataCache(new ResultSetWrapper30(this, rs));
     }
 
     /**
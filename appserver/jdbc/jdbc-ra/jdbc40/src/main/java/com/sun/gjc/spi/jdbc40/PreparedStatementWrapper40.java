@@ -657,7 +657,7 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
         ResultSet rs = preparedStatement.executeQuery();
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        return bindMetaDataCache(new ResultSetWrapper40(this, rs));
     }
 
     /**
@@ -550,6 +550,11 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     propList.add(new ConnectorConfigProperty("MaxCacheSize",
                             rp.getValue(), "MaxCacheSize", "java.lang.String"));
                     
+                } else if ("STATEMENTMETADATACACHESIZE".equals(name.toUpperCase(Locale.getDefault())) || "STATEMENT-METADATA-CACHE-SIZE".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("StatementMetaDataCacheSize",
+                            rp.getValue(), "StatementMetaDataCacheSize", "java.lang.String"));
+
                 } else if (mcfConPropKeys.containsKey(name.toUpperCase(Locale.getDefault()))) {
 
                     propList.add(new ConnectorConfigProperty(
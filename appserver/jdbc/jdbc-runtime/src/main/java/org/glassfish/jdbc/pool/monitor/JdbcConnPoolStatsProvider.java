@@ -37,13 +37,14 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-//Portions Copyright [2016-2019] [Payara Foundation]
+//Portions Copyright [2016-2020] [Payara Foundation]
 
 package org.glassfish.jdbc.pool.monitor;
 
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
 import com.sun.enterprise.resource.pool.PoolStatus;
+import com.sun.enterprise.resource.pool.monitor.ConnRequestWaitTimeHistogram;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
@@ -138,6 +139,16 @@ public class JdbcConnPoolStatsProvider {
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT,
             "Number of connection requests in the queue waiting to be serviced.");
+    private final ConnRequestWaitTimeHistogram connRequestWaitTimeHistogram = new ConnRequestWaitTimeHistogram();
+    private CountStatisticImpl connRequestWaitTime50thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime50thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate median wait time of successful connection requests");
+    private CountStatisticImpl connRequestWaitTime95thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime95thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate 95th percentile wait time of successful connection requests");
+    private CountStatisticImpl connRequestWaitTime99thPercentile = new CountStatisticImpl(
+            "ConnRequestWaitTime99thPercentile", StatisticImpl.UNIT_MILLISECOND,
+            "Approximate 99th percentile wait time of successful connection requests");
     private static final String JDBC_PROBE_LISTENER = "glassfish:jdbc:connection-pool:";
 
 
@@ -373,6 +384,7 @@ public class JdbcConnPoolStatsProvider {
             }
             connRequestWaitTime.setCurrent(timeTakenInMillis);
             totalConnRequestWaitTime.increment(timeTakenInMillis);
+            connRequestWaitTimeHistogram.record(timeTakenInMillis);
         }
     }
 
@@ -483,6 +495,10 @@ public class JdbcConnPoolStatsProvider {
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
         waitQueueLength.reset();
+        connRequestWaitTimeHistogram.reset();
+        connRequestWaitTime50thPercentile.reset();
+        connRequestWaitTime95thPercentile.reset();
+        connRequestWaitTime99thPercentile.reset();
     }
 
     /**
@@ -711,4 +727,22 @@ public class JdbcConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittime50thpercentile")
+    public CountStatistic getConnRequestWaitTime50thPercentile() {
+        connRequestWaitTime50thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(50));
+        return connRequestWaitTime50thPercentile;
+    }
+
+    @ManagedAttribute(id="connrequestwaittime95thpercentile")
+    public CountStatistic getConnRequestWaitTime95thPercentile() {
+        connRequestWaitTime95thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(95));
+        return connRequestWaitTime95thPercentile;
+    }
+
+    @ManagedAttribute(id="connrequestwaittime99thpercentile")
+    public CountStatistic getConnRequestWaitTime99thPercentile() {
+        connRequestWaitTime99thPercentile.setCount(connRequestWaitTimeHistogram.getPercentile(99));
+        return connRequestWaitTime99thPercentile;
+    }
 }
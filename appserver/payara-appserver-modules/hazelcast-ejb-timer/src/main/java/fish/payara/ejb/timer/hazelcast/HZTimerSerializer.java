@@ -0,0 +1,110 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.ejb.timer.hazelcast;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.sun.ejb.containers.EJBTimerSchedule;
+import com.sun.ejb.containers.TimerPrimaryKey;
+import fish.payara.nucleus.hazelcast.PayaraCompactSerializer;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Date;
+import javax.ejb.TimerConfig;
+import org.jvnet.hk2.annotations.Service;
+
+/**
+ * Writes the EJB timers stored in the Hazelcast timer maps field by field rather than with Java
+ * serialization. Only used when compact serialization is enabled; {@link HZTimer} itself stays
+ * {@link Serializable} so that the default format is unchanged.
+ */
+@Service
+public class HZTimerSerializer implements PayaraCompactSerializer<HZTimer> {
+
+    static final int HZTIMER_TYPE_ID = PAYARA_TYPE_ID_BASE;
+
+    @Override
+    public Class<HZTimer> getTypeClass() {
+        return HZTimer.class;
+    }
+
+    @Override
+    public int getTypeId() {
+        return HZTIMER_TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, HZTimer timer) throws IOException {
+        out.writeUTF(timer.getKey().timerId);
+        out.writeUTF(timer.getMemberName());
+        out.writeUTF(timer.getOwnerId());
+        out.writeLong(timer.getContainerId());
+        out.writeLong(timer.getApplicationId());
+        out.writeObject(timer.getTimedObjectPk());
+        out.writeObject(timer.getInitialExpiration());
+        out.writeLong(timer.getIntervalDuration());
+        out.writeObject(timer.getSchedule());
+        out.writeObject(timer.getTimerConfig().getInfo());
+        out.writeObject(timer.getLastExpiration());
+    }
+
+    @Override
+    public HZTimer read(ObjectDataInput in) throws IOException {
+        TimerPrimaryKey key = new TimerPrimaryKey(in.readUTF());
+        String memberName = in.readUTF();
+        String ownerId = in.readUTF();
+        long containerId = in.readLong();
+        long applicationId = in.readLong();
+        Object timedObjectPk = in.readObject();
+        Date initialExpiration = in.readObject();
+        long intervalDuration = in.readLong();
+        EJBTimerSchedule schedule = in.readObject();
+        Serializable info = in.readObject();
+        HZTimer timer = new HZTimer(key, containerId, applicationId, timedObjectPk, memberName, ownerId,
+                initialExpiration, intervalDuration, schedule, new TimerConfig(info, true));
+        timer.setLastExpiration(in.readObject());
+        return timer;
+    }
+
+    @Override
+    public void destroy() {
+        // stateless
+    }
+}
@@ -39,9 +39,11 @@
  */
 package fish.payara.ejb.timer.hazelcast;
 
+import com.hazelcast.aggregation.Aggregators;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.ILock;
 import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicates;
 import com.sun.ejb.containers.BaseContainer;
 import com.sun.ejb.containers.EJBTimerSchedule;
 import com.sun.ejb.containers.EJBTimerService;
@@ -87,6 +89,13 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     private static final String EJB_TIMER_CONTAINER_CACHE_NAME = "HZEjbTmerContainerCache";
     private static final String EJB_TIMER_APPLICAION_CACHE_NAME = "HZEjbTmerApplicationCache";
 
+    /**
+     * Indexed attributes of {@link HZTimer}, so that the timers of one server
+     * are found by the members owning them instead of iterating all timers
+     */
+    static final String MEMBER_NAME_ATTRIBUTE = "memberName";
+    static final String OWNER_ID_ATTRIBUTE = "ownerId";
+
     private final IMap<String, HZTimer> pkCache;
     private final IMap<Long, Set<TimerPrimaryKey>> containerCache;
     private final IMap<Long, Set<TimerPrimaryKey>> applicationCache;
@@ -115,6 +124,8 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         pkCache = hazelcast.getMap(EJB_TIMER_CACHE_NAME);
         containerCache = hazelcast.getMap(EJB_TIMER_CONTAINER_CACHE_NAME);
         applicationCache = hazelcast.getMap(EJB_TIMER_APPLICAION_CACHE_NAME);
+        pkCache.addIndex(MEMBER_NAME_ATTRIBUTE, false);
+        pkCache.addIndex(OWNER_ID_ATTRIBUTE, false);
         serverName = hazelcast.getCluster().getLocalMember().getStringAttribute(HazelcastCore.INSTANCE_ATTRIBUTE);
         this.ownerIdOfThisServer_ = serverName;
         this.domainName_ = core.getInstance().getConfig().getGroupConfig().getName();
@@ -480,37 +491,19 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         return result;
     }
 
-    static String [] listTimers(Collection<HZTimer> timers, String[] serverIds) {
-        String result[] = new String[serverIds.length];
-
-        // count all server ids
-        HashMap<String, Long> counts = new HashMap<>();
-        for (HZTimer timer : timers) {
-            String serverName = timer.getMemberName();
-            Long val = counts.get(serverName);
-            if (val == null) {
-                val = new Long(0);
-            }
-            counts.put(serverName, new Long(val.intValue() + 1));
-        }
+    @Override
+    public String[] listTimers(String[] serverIds) {
+        return listTimers(pkCache, serverIds);
+    }
 
-        // copy counts into the strings
+    static String[] listTimers(IMap<String, HZTimer> timers, String[] serverIds) {
+        String[] result = new String[serverIds.length];
         for (int i = 0; i < serverIds.length; i++) {
-            Long count = counts.get(serverIds[i]);
-            if (count != null) {
-                result[i] = counts.get(serverIds[i]).toString();
-            } else {
-                result[i] = "0";
-            }
+            result[i] = Long.toString(countTimersOfMember(timers, serverIds[i]));
         }
         return result;
     }
 
-    @Override
-    public String[] listTimers(String[] serverIds) {
-        return listTimers(pkCache.values(), serverIds);
-    }
-
     @Override
     public int migrateTimers(String fromOwnerId) {
         String ownerIdOfThisServer = getOwnerIdOfThisServer();
@@ -529,22 +522,8 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
 
         TransactionManager tm = ejbContainerUtil.getTransactionManager();
 
-        HashMap<String, HZTimer> toRestore = new HashMap<>();
-        int totalTimersMigrated = 0;
-
-        for (String pk : pkCache.keySet()) {
-            HZTimer hZTimer = pkCache.get(pk);
-            if (hZTimer.getOwnerId().equals(fromOwnerId)) {
-                toRestore.put(pk, hZTimer);
-                hZTimer.setOwnerId(ownerIdOfThisServer);
-                hZTimer.setMemberName(serverName);
-            }
-        }
-
-        for (Entry<String, HZTimer> entry : toRestore.entrySet()) {
-            pkCache.put(entry.getKey(), entry.getValue());
-            totalTimersMigrated++;
-        }
+        Map<String, HZTimer> toRestore = changeOwner(pkCache, fromOwnerId, ownerIdOfThisServer, serverName);
+        int totalTimersMigrated = toRestore.size();
 
 // XXX if( totalTimersMigrated  == toRestore.size() ) { XXX ???
         if (totalTimersMigrated > 0) {
@@ -1127,13 +1106,38 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
     }
 
     private Collection<HZTimer> findActiveTimersOwnedByThisServer() {
-        HashSet<HZTimer> result = new HashSet<>();
-        for (HZTimer timer : pkCache.values()) {
-            if (timer.getMemberName().equals(this.serverName)) {
-                result.add(timer);
-            }
+        return findTimersOfMember(serverName);
+    }
+
+    private Collection<HZTimer> findTimersOfMember(String memberName) {
+        return findTimersOfMember(pkCache, memberName);
+    }
+
+    static Collection<HZTimer> findTimersOfMember(IMap<String, HZTimer> timers, String memberName) {
+        return new HashSet<>(timers.values(Predicates.equal(MEMBER_NAME_ATTRIBUTE, memberName)));
+    }
+
+    static long countTimersOfMember(IMap<String, HZTimer> timers, String memberName) {
+        Long count = timers.aggregate(Aggregators.count(), Predicates.equal(MEMBER_NAME_ATTRIBUTE, memberName));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Moves the timers of one owner to another member with a single bulk update of the map.
+     *
+     * @return the moved timers by their key
+     */
+    static Map<String, HZTimer> changeOwner(IMap<String, HZTimer> timers, String fromOwnerId, String toOwnerId,
+            String toMemberName) {
+        Map<String, HZTimer> changed = new HashMap<>();
+        for (Entry<String, HZTimer> entry : timers.entrySet(Predicates.equal(OWNER_ID_ATTRIBUTE, fromOwnerId))) {
+            HZTimer timer = entry.getValue();
+            timer.setOwnerId(toOwnerId);
+            timer.setMemberName(toMemberName);
+            changed.put(entry.getKey(), timer);
         }
-        return result;
+        timers.putAll(changed);
+        return changed;
     }
 
     private boolean restoreEJBTimers() {
@@ -1143,7 +1147,7 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
                 restoreTimers();
                 rc = true;
             } else {
-                int s = (findActiveTimersOwnedByThisServer()).size();
+                long s = countTimersOfMember(pkCache, serverName);
                 if (s > 0) {
                     logger.log(Level.INFO, "[{0}] EJB Timers owned by this server will be restored when timeout beans are loaded", s);
                 } else {
@@ -1171,22 +1175,15 @@ public class HazelcastTimerStore extends NonPersistentEJBTimerService implements
         ILock hazelcastLock = hazelcast.getLock("EJB-TIMER-LOCK");
         hazelcastLock.lock();
         try {
-            Collection<HZTimer> allTimers = pkCache.values();
-            Collection<HZTimer> removedTimers = new HashSet<>();
-            for (HZTimer timer : allTimers) {
-                if (timer.getMemberName().equals(event.getServer())) {
-                    removedTimers.add(timer);
-                }
-            }
-            
-            
-            
+            Collection<HZTimer> removedTimers = findTimersOfMember(event.getServer());
             if (!removedTimers.isEmpty()) {
                 logger.log(Level.INFO, "==> Restoring Timers ... ");
                 Collection<HZTimer> restored = _restoreTimers(removedTimers);
+                Map<String, HZTimer> restoredByKey = new HashMap<>();
                 for (HZTimer timer : restored) {
-                    pkCache.put(timer.getKey().getTimerId(), timer);
+                    restoredByKey.put(timer.getKey().getTimerId(), timer);
                 }
+                pkCache.putAll(restoredByKey);
                 logger.log(Level.INFO, "<== ... Timers Restored.");
             }
         } finally {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,28 +39,34 @@
  */
 package fish.payara.ejb.timer.hazelcast;
 
-import java.util.Collection;
-import java.util.Collections;
-
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class HazelcastTimerStoreEmptyTimersTest extends HazelcastTimerStoreTestBase {
-  private Collection<HZTimer> timers = Collections.emptyList();
 
   @Test
   public void emptyTimersShallResultInZeroTimersCountedForServer() {
-    String [] counts = callListTimers(timers, "a");
+    String [] counts = callListTimers("a");
 
     assertEquals("With no timers defined, zero timers is expected for given server id", "0", counts[0]);
   }
 
   @Test
   public void emptyTimersShallResultInArrayOfTheSameSizeAsServerIds() {
-    String [] counts = callListTimers(timers, "a", "b", "c", "d");
+    String [] counts = callListTimers("a", "b", "c", "d");
 
     assertEquals("Size of counters array shall match the size of server ids array", 4, counts.length);
   }
-}
 
+  @Test
+  public void emptyTimersShallResultInNoTimersFoundForMember() {
+    assertTrue(HazelcastTimerStore.findTimersOfMember(timers, "a").isEmpty());
+  }
+
+  @Test
+  public void emptyTimersShallResultInNoTimersMigrated() {
+    assertTrue(HazelcastTimerStore.changeOwner(timers, "a", "b", "b").isEmpty());
+  }
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,52 +40,45 @@
 package fish.payara.ejb.timer.hazelcast;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
 
 import static java.util.Arrays.asList;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.when;
 
-@RunWith(MockitoJUnitRunner.class)
 public class HazelcastTimerStoreTest extends HazelcastTimerStoreTestBase {
-  @Mock
   private HZTimer timer1, timer2, timer3;
 
-  private Collection<HZTimer> timers;
-
   @Before
   public void setUpTimers() {
-    timers = asList(timer1, timer2, timer3);
-    when(timer1.getMemberName()).thenReturn("jb");
-    when(timer2.getMemberName()).thenReturn("hz");
-    when(timer3.getMemberName()).thenReturn("jb");
+    timer1 = addTimer("jb");
+    timer2 = addTimer("hz");
+    timer3 = addTimer("jb");
   }
 
 
   @Test
   public void twoTimersForTheSameMemberNameShallBeCountedForTheSameServerId() {
-    String [] counts = callListTimers(timers, "jb");
+    String [] counts = callListTimers("jb");
 
     assertEquals("2", counts[0]);
   }
 
   @Test
   public void countOneTimer() {
-    String [] counts = callListTimers(timers, "hz");
+    String [] counts = callListTimers("hz");
 
     assertEquals("1", counts[0]);
   }
 
   @Test
   public void noNullsExpectedInCountsForMissingTimers() {
-    String [] counts = callListTimers(timers, "jb", "ltd", "hz");
+    String [] counts = callListTimers("jb", "ltd", "hz");
 
     for (String count : counts) {
       assertNotNull("Even for missing timers/server ids no null is expected but rather some representation of zero", count);
@@ -94,11 +87,48 @@ public class HazelcastTimerStoreTest extends HazelcastTimerStoreTestBase {
 
   @Test
   public void countersShallFollowServerIdOrder() {
-    String [] counts = callListTimers(timers, "hz", "ltd", "jb");
+    String [] counts = callListTimers("hz", "ltd", "jb");
 
     assertEquals("1", counts[0]);
     assertEquals("0", counts[1]);
     assertEquals("2", counts[2]);
   }
-}
 
+  @Test
+  public void countTimersOfMember() {
+    assertEquals(2, HazelcastTimerStore.countTimersOfMember(timers, "jb"));
+    assertEquals(0, HazelcastTimerStore.countTimersOfMember(timers, "ltd"));
+  }
+
+  @Test
+  public void findTimersOfMemberReturnsOnlyTheTimersOfThatMember() {
+    Collection<HZTimer> found = HazelcastTimerStore.findTimersOfMember(timers, "jb");
+
+    assertEquals(timerIds(timer1, timer3), timerIds(found.toArray(new HZTimer[0])));
+  }
+
+  @Test
+  public void migratedTimersAreStoredWithTheirNewOwner() {
+    HZTimer otherOwner = addTimer("jb", "old");
+
+    Map<String, HZTimer> migrated = HazelcastTimerStore.changeOwner(timers, "jb", "new", "ltd");
+
+    assertEquals(timerIds(timer1, timer3), new HashSet<>(migrated.keySet()));
+    for (String timerId : migrated.keySet()) {
+      HZTimer stored = timers.get(timerId);
+      assertEquals("new", stored.getOwnerId());
+      assertEquals("ltd", stored.getMemberName());
+    }
+    assertEquals("old", timers.get(otherOwner.getKey().timerId).getOwnerId());
+    assertEquals(2, HazelcastTimerStore.countTimersOfMember(timers, "ltd"));
+    assertEquals(1, HazelcastTimerStore.countTimersOfMember(timers, "jb"));
+  }
+
+  private static HashSet<String> timerIds(HZTimer... timers) {
+    HashSet<String> ids = new HashSet<>();
+    for (HZTimer timer : asList(timers)) {
+      ids.add(timer.getKey().timerId);
+    }
+    return ids;
+  }
+}
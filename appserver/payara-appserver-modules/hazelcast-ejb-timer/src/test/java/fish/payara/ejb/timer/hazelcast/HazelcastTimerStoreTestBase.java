@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2019 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019-2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,11 +39,72 @@
  */
 package fish.payara.ejb.timer.hazelcast;
 
-import java.util.Collection;
+import static fish.payara.ejb.timer.hazelcast.HazelcastTimerStore.MEMBER_NAME_ATTRIBUTE;
+import static fish.payara.ejb.timer.hazelcast.HazelcastTimerStore.OWNER_ID_ATTRIBUTE;
 
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.sun.ejb.containers.TimerPrimaryKey;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ejb.TimerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the timer queries of the {@link HazelcastTimerStore} against a map of an embedded, single member Hazelcast
+ * instance, indexed as the store does.
+ */
 public abstract class HazelcastTimerStoreTestBase {
-  public String[] callListTimers(Collection<HZTimer> timers, String... serverIds) {
+  private static final AtomicInteger timerIds = new AtomicInteger();
+
+  private static HazelcastInstance hazelcast;
+
+  protected IMap<String, HZTimer> timers;
+
+  @BeforeClass
+  public static void startHazelcast() {
+    Config config = new Config();
+    config.setProperty("hazelcast.phone.home.enabled", "false");
+    config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+    config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+    hazelcast = Hazelcast.newHazelcastInstance(config);
+  }
+
+  @AfterClass
+  public static void stopHazelcast() {
+    hazelcast.shutdown();
+  }
+
+  @Before
+  public void createTimerMap() {
+    timers = hazelcast.getMap(getClass().getSimpleName());
+    timers.addIndex(MEMBER_NAME_ATTRIBUTE, false);
+    timers.addIndex(OWNER_ID_ATTRIBUTE, false);
+  }
+
+  @After
+  public void destroyTimerMap() {
+    timers.destroy();
+  }
+
+  protected HZTimer addTimer(String memberName) {
+    return addTimer(memberName, memberName);
+  }
+
+  protected HZTimer addTimer(String memberName, String ownerId) {
+    String timerId = "timer-" + timerIds.incrementAndGet();
+    HZTimer timer = new HZTimer(new TimerPrimaryKey(timerId), 1L, 2L, null, memberName, ownerId,
+        new Date(), 0L, null, new TimerConfig("info", true));
+    timers.put(timerId, timer);
+    return timer;
+  }
+
+  public String[] callListTimers(String... serverIds) {
     return HazelcastTimerStore.listTimers(timers, serverIds);
   }
 }
-
@@ -40,7 +40,6 @@
 package fish.payara.microprofile.faulttolerance;
 
 import java.lang.reflect.Method;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -50,6 +49,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.microprofile.faulttolerance.FallbackHandler;
 
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 
 public interface FaultToleranceMethodContext {
@@ -75,12 +75,12 @@ public interface FaultToleranceMethodContext {
     CircuitBreakerState getState(int requestVolumeThreshold);
 
     /**
-     * Get or create the {@link BlockingQueue} for bulkhead.
+     * Get or create the {@link BulkheadSemaphore} for bulkhead.
      * 
-     * @param maxConcurrentThreads when negative no queue is created if it does not already exist
-     * @return the created or existing queue, or null if non existed and requestVolumeThreshold was null
+     * @param maxConcurrentThreads when negative no semaphore is created if it does not already exist
+     * @return the created or existing semaphore, or null if non existed and maxConcurrentThreads was negative
      */
-    BlockingQueue<Thread> getConcurrentExecutions(int maxConcurrentThreads);
+    BulkheadSemaphore getConcurrentExecutions(int maxConcurrentThreads);
 
     /**
      * Get the bulkhead thread count.
@@ -44,7 +44,6 @@ import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -69,6 +68,7 @@ import fish.payara.microprofile.faulttolerance.FaultToleranceConfig;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext;
 import fish.payara.microprofile.faulttolerance.FaultToleranceService;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMetrics;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 
 /**
@@ -122,8 +122,17 @@ public final class FaultTolerancePolicy implements Serializable {
      */
     public static FaultTolerancePolicy get(InvocationContext context, Supplier<FaultToleranceConfig> configSpplier)
             throws FaultToleranceDefinitionException {
-        return POLICY_BY_METHOD.computeIfAbsent(context.getTarget().getClass(), target -> new ConcurrentHashMap<>())
-                .compute(context.getMethod(), (method, policy) -> 
+        Class<?> targetClass = context.getTarget().getClass();
+        Map<Method, FaultTolerancePolicy> policyByMethod = POLICY_BY_METHOD.get(targetClass);
+        if (policyByMethod == null) {
+            policyByMethod = POLICY_BY_METHOD.computeIfAbsent(targetClass, target -> new ConcurrentHashMap<>());
+        }
+        // most calls find a policy that is still valid, these should not need to lock the map entry
+        FaultTolerancePolicy existing = policyByMethod.get(context.getMethod());
+        if (existing != null && !existing.isExpired()) {
+            return existing;
+        }
+        return policyByMethod.compute(context.getMethod(), (method, policy) -> 
                     policy != null && !policy.isExpired() ? policy : create(context, configSpplier.get()));
     }
 
@@ -580,17 +589,16 @@ public final class FaultTolerancePolicy implements Serializable {
                 // we are in the queue, yeah
                 try {
                     logger.log(Level.FINE, "Entered bulkhead queue.");
-                    BlockingQueue<Thread> running = invocation.context.getConcurrentExecutions(runCapacity);
+                    BulkheadSemaphore running = invocation.context.getConcurrentExecutions(runCapacity);
                     if (isMetricsEnabled) {
                         invocation.metrics.incrementBulkheadCallsAcceptedTotal();
-                        invocation.metrics.linkBulkheadConcurrentExecutions(running::size);
+                        invocation.metrics.linkBulkheadConcurrentExecutions(running::acquiredPermits);
                     }
                     logger.log(Level.FINER, "Attempting to enter bulkhead execution.");
                     long waitingSince = System.nanoTime();
-                    final Thread currentThread = Thread.currentThread();
                     try {
                         // can we run now?
-                        running.put(currentThread);
+                        running.acquire();
                     } finally {
                         if (async) {
                             invocation.metrics.addBulkheadWaitingDuration(Math.max(1, System.nanoTime() - waitingSince));
@@ -608,14 +616,14 @@ public final class FaultTolerancePolicy implements Serializable {
                         return ((CompletionStage<?>) res).whenComplete((value, exception) -> {
                             invocation.metrics.addBulkheadExecutionDuration(Math.max(1, System.nanoTime() - executionSince));
                             // successful or not, we are out...
-                            running.remove(currentThread);
+                            running.release();
                             queuingOrRunning.decrementAndGet();
                         });
                     } finally {
                         if (!exitOnCompletion) {
                             invocation.metrics.addBulkheadExecutionDuration(Math.max(1, System.nanoTime() - executionSince));
                             // successful or not, we are out...
-                            running.remove(currentThread);
+                            running.release();
                         }
                     }
                 } finally {
@@ -44,8 +44,6 @@ import static java.lang.System.currentTimeMillis;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -70,6 +68,7 @@ import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMetrics;
 import fish.payara.microprofile.faulttolerance.policy.AsynchronousPolicy;
 import fish.payara.microprofile.faulttolerance.policy.FaultTolerancePolicy;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState.CircuitState;
 import fish.payara.notification.requesttracing.RequestTraceSpan;
@@ -101,7 +100,7 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
         final ScheduledExecutorService delayedExecution;
         final WeakReference<Object> target;
         final AtomicReference<CircuitBreakerState> circuitBreakerState = new AtomicReference<>();
-        final AtomicReference<BlockingQueue<Thread>> concurrentExecutions = new AtomicReference<>();
+        final AtomicReference<BulkheadSemaphore> concurrentExecutions = new AtomicReference<>();
         final AtomicInteger queuingOrRunningPopulation = new AtomicInteger();
         final AtomicInteger executingThreadCount = new AtomicInteger();
         final AtomicLong lastUsed = new AtomicLong(currentTimeMillis());
@@ -188,16 +187,18 @@ public final class FaultToleranceMethodContextImpl implements FaultToleranceMeth
 
     @Override
     public CircuitBreakerState getState(int requestVolumeThreshold) {
-        return requestVolumeThreshold < 0 
-                ? shared.circuitBreakerState.get()
+        CircuitBreakerState state = shared.circuitBreakerState.get();
+        return state != null || requestVolumeThreshold < 0
+                ? state
                 : shared.circuitBreakerState.updateAndGet(value -> value != null ? value : new CircuitBreakerState(requestVolumeThreshold));
     }
 
     @Override
-    public BlockingQueue<Thread> getConcurrentExecutions(int maxConcurrentThreads) {
-        return maxConcurrentThreads < 0
-                ? shared.concurrentExecutions.get()
-                : shared.concurrentExecutions.updateAndGet(value -> value != null ? value : new ArrayBlockingQueue<>(maxConcurrentThreads));
+    public BulkheadSemaphore getConcurrentExecutions(int maxConcurrentThreads) {
+        BulkheadSemaphore concurrentExecutions = shared.concurrentExecutions.get();
+        return concurrentExecutions != null || maxConcurrentThreads < 0
+                ? concurrentExecutions
+                : shared.concurrentExecutions.updateAndGet(value -> value != null ? value : new BulkheadSemaphore(maxConcurrentThreads));
     }
 
     @Override
@@ -45,6 +45,7 @@ import fish.payara.microprofile.faulttolerance.FaultToleranceMetrics;
 import fish.payara.microprofile.faulttolerance.FaultToleranceService;
 import fish.payara.microprofile.faulttolerance.FaultToleranceServiceConfiguration;
 import fish.payara.microprofile.faulttolerance.policy.FaultTolerancePolicy;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 import fish.payara.microprofile.metrics.MetricsService;
 import fish.payara.monitoring.collect.MonitoringData;
@@ -56,10 +57,10 @@ import fish.payara.nucleus.requesttracing.RequestTracingService;
 import static java.lang.Integer.parseInt;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
@@ -120,7 +121,7 @@ public class FaultToleranceServiceImpl
     @Inject
     private MetricsService metricsService;
 
-    private final ConcurrentMap<String, FaultToleranceMethodContextImpl> methodByTargetObjectAndName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TargetMethodKey, FaultToleranceMethodContextImpl> methodByTargetObjectAndName = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, BindableFaultToleranceConfig> configByApplication = new ConcurrentHashMap<>();
     private ThreadPoolExecutor asyncExecutorService;
     private ScheduledExecutorService delayExecutorService;
@@ -160,7 +161,7 @@ public class FaultToleranceServiceImpl
     private void cleanMethodContexts() {
         final long ttl = TimeUnit.MINUTES.toMillis(1);
         int cleaned = 0;
-        for (String key : new HashSet<>(methodByTargetObjectAndName.keySet())) {
+        for (TargetMethodKey key : new HashSet<>(methodByTargetObjectAndName.keySet())) {
             try {
                 Object newValue = methodByTargetObjectAndName.compute(key,
                         (k, methodContext) -> methodContext.isExpired(ttl) ? null : methodContext);
@@ -212,11 +213,11 @@ public class FaultToleranceServiceImpl
     @Override
     @MonitoringData(ns = "ft")
     public void collect(MonitoringDataCollector collector) {
-        for (Entry<String, FaultToleranceMethodContextImpl> methodValue : methodByTargetObjectAndName.entrySet()) {
-            String group = methodValue.getKey();
+        for (Entry<TargetMethodKey, FaultToleranceMethodContextImpl> methodValue : methodByTargetObjectAndName.entrySet()) {
+            String group = methodValue.getKey().toString();
             MonitoringDataCollector methodCollector = collector.group(group);
             FaultToleranceMethodContext context = methodValue.getValue();
-            BlockingQueue<Thread> concurrentExecutions = context.getConcurrentExecutions(-1);
+            BulkheadSemaphore concurrentExecutions = context.getConcurrentExecutions(-1);
             if (concurrentExecutions != null) {
                 collectBulkheadSemaphores(methodCollector, concurrentExecutions);
                 collectBulkheadSemaphores(methodCollector, concurrentExecutions, context.getQueuingOrRunningPopulation());
@@ -226,16 +227,16 @@ public class FaultToleranceServiceImpl
     }
 
     private static void collectBulkheadSemaphores(MonitoringDataCollector collector,
-            BlockingQueue<Thread> concurrentExecutions) {
+            BulkheadSemaphore concurrentExecutions) {
         collector
-            .collect("RemainingConcurrentExecutionsCapacity", concurrentExecutions.remainingCapacity())
-            .collect("ConcurrentExecutions", concurrentExecutions.size());
+            .collect("RemainingConcurrentExecutionsCapacity", concurrentExecutions.availablePermits())
+            .collect("ConcurrentExecutions", concurrentExecutions.acquiredPermits());
     }
 
     private static void collectBulkheadSemaphores(MonitoringDataCollector collector,
-            BlockingQueue<Thread> concurrentExecutions, AtomicInteger queuingOrRunningPopulation) {
+            BulkheadSemaphore concurrentExecutions, AtomicInteger queuingOrRunningPopulation) {
         collector
-            .collect("WaitingQueuePopulation", queuingOrRunningPopulation.get() - concurrentExecutions.size());
+            .collect("WaitingQueuePopulation", queuingOrRunningPopulation.get() - concurrentExecutions.acquiredPermits());
     }
 
     private static void collectCircuitBreakerState(MonitoringDataCollector collector, CircuitBreakerState state) {
@@ -310,13 +311,16 @@ public class FaultToleranceServiceImpl
     @Override
     public FaultToleranceMethodContext getMethodContext(InvocationContext context, FaultTolerancePolicy policy,
             RequestContextController requestContextController) {
-        FaultToleranceMethodContextImpl methodContext = methodByTargetObjectAndName //
-                .computeIfAbsent(getTargetMethodId(context),
-                        key -> createMethodContext(key, context, requestContextController));
+        TargetMethodKey key = new TargetMethodKey(context.getTarget(), context.getMethod());
+        FaultToleranceMethodContextImpl methodContext = methodByTargetObjectAndName.get(key);
+        if (methodContext == null) {
+            methodContext = methodByTargetObjectAndName.computeIfAbsent(key,
+                    methodId -> createMethodContext(methodId, context, requestContextController));
+        }
         return methodContext.in(context, policy);
     }
 
-    private FaultToleranceMethodContextImpl createMethodContext(String methodId, InvocationContext context,
+    private FaultToleranceMethodContextImpl createMethodContext(TargetMethodKey methodId, InvocationContext context,
             RequestContextController requestContextController) {
         MetricRegistry metricRegistry = getApplicationMetricRegistry();
         FaultToleranceMetrics metrics = metricRegistry == null
@@ -330,24 +334,65 @@ public class FaultToleranceServiceImpl
     }
 
     /**
-     * It is essential that the computed signature is referring to the {@link Method} as defined by the target
-     * {@link Object} class not its declaring {@link Class} as this could be different when called via an abstract
-     * {@link Method} implemented or overridden by the target {@link Class}.
+     * Identifies a {@link Method} invoked on a particular target {@link Object} without keeping the target from being
+     * garbage collected.
+     * 
+     * It is essential that the key is referring to the {@link Method} as defined by the target {@link Object} class not
+     * its declaring {@link Class} as this could be different when called via an abstract {@link Method} implemented or
+     * overridden by the target {@link Class}. Therefore methods are compared by name and parameter types only.
      */
-    private static String getTargetMethodId(InvocationContext context) {
-        Object target = context.getTarget();
-        Method method = context.getMethod();
-        StringBuilder methodId = new StringBuilder();
-        methodId.append(Integer.toHexString(System.identityHashCode(target))).append('@');
-        methodId.append(target.getClass().getName()).append('.').append(method.getName());
-        if (method.getParameterCount() > 0) {
-            methodId.append('(');
-            for (Class<?> param : method.getParameterTypes()) {
-                methodId.append(param.getName()).append(' ');
+    static final class TargetMethodKey {
+
+        private final int targetIdentity;
+        private final Class<?> targetClass;
+        private final Method method;
+        private final int hash;
+        private String methodId;
+
+        TargetMethodKey(Object target, Method method) {
+            this.targetIdentity = System.identityHashCode(target);
+            this.targetClass = target.getClass();
+            this.method = method;
+            this.hash = 31 * (31 * targetIdentity + targetClass.hashCode()) + method.getName().hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TargetMethodKey)) {
+                return false;
+            }
+            TargetMethodKey other = (TargetMethodKey) obj;
+            return targetIdentity == other.targetIdentity
+                    && targetClass == other.targetClass
+                    && (method.equals(other.method) || method.getName().equals(other.method.getName())
+                            && Arrays.equals(method.getParameterTypes(), other.method.getParameterTypes()));
+        }
+
+        @Override
+        public String toString() {
+            if (methodId == null) {
+                StringBuilder str = new StringBuilder();
+                str.append(Integer.toHexString(targetIdentity)).append('@');
+                str.append(targetClass.getName()).append('.').append(method.getName());
+                if (method.getParameterCount() > 0) {
+                    str.append('(');
+                    for (Class<?> param : method.getParameterTypes()) {
+                        str.append(param.getName()).append(' ');
+                    }
+                    str.append(')');
+                }
+                methodId = str.toString();
             }
-            methodId.append(')');
+            return methodId;
         }
-        return methodId.toString();
     }
 
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2017-2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2017-2020] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -41,9 +41,9 @@ package fish.payara.microprofile.faulttolerance.state;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,7 +60,16 @@ public class CircuitBreakerState {
         OPEN, CLOSED, HALF_OPEN
     }
 
-    private final BlockingQueue<Boolean> closedResultsQueue;
+    private static final int NO_OUTCOME = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    /**
+     * The rolling window of the last outcomes in closed state, used as a ring buffer indexed by the number of recorded
+     * outcomes so recording does not need to lock.
+     */
+    private final AtomicIntegerArray closedOutcomes;
+    private final AtomicLong closedOutcomesRecorded = new AtomicLong();
 
     private final AtomicInteger halfOpenSuccessfulResultsCounter = new AtomicInteger(0);
 
@@ -68,7 +77,7 @@ public class CircuitBreakerState {
     private volatile StateTime currentStateTime;
 
     public CircuitBreakerState(int requestVolumeThreshold) {
-        this.closedResultsQueue = new LinkedBlockingQueue<>(requestVolumeThreshold);
+        this.closedOutcomes = new AtomicIntegerArray(requestVolumeThreshold);
         for(CircuitState state : CircuitState.values()) {
             this.allStateTimes.put(state, new StateTime(state));
         }
@@ -101,26 +110,27 @@ public class CircuitBreakerState {
      * @param success True for a success, false for a failure
      */
     public void recordClosedOutcome(boolean success) {
-        // If the queue is full, remove the oldest result and add
-        if (!this.closedResultsQueue.offer(success)) {
-            this.closedResultsQueue.poll();
-            this.closedResultsQueue.offer(success);
-        }
+        // If the window is full, this overwrites the oldest result
+        int index = (int) (this.closedOutcomesRecorded.getAndIncrement() % this.closedOutcomes.length());
+        this.closedOutcomes.set(index, success ? SUCCESS : FAILURE);
     }
 
     public boolean isClosedOutcomeSuccessOnly() {
-        for (Boolean outcome : closedResultsQueue) {
-            if (!outcome)
+        for (int i = 0; i < closedOutcomes.length(); i++) {
+            if (closedOutcomes.get(i) == FAILURE)
                 return false;
         }
         return true;
     }
 
     /**
-     * Clears the results queue.
+     * Clears the results window.
      */
     public void resetResults() {
-        this.closedResultsQueue.clear();
+        this.closedOutcomesRecorded.set(0);
+        for (int i = 0; i < closedOutcomes.length(); i++) {
+            this.closedOutcomes.set(i, NO_OUTCOME);
+        }
     }
 
     /**
@@ -154,10 +164,10 @@ public class CircuitBreakerState {
         boolean over = false;
         int failures = 0;
         int failureThreshold = (int) Math.round(requestVolumeThreshold * failureRatio);
-        // Only check if the queue is full
-        if (this.closedResultsQueue.remainingCapacity() == 0) {
-            for (Boolean success : this.closedResultsQueue) {
-                if (!success) {
+        // Only check if the window is full
+        if (this.closedOutcomesRecorded.get() >= this.closedOutcomes.length()) {
+            for (int i = 0; i < closedOutcomes.length(); i++) {
+                if (closedOutcomes.get(i) == FAILURE) {
                     failures++;
 
                     if (failures == failureThreshold) {
@@ -167,7 +177,7 @@ public class CircuitBreakerState {
                 }
             }
         } else {
-            logger.log(Level.FINE, "CircuitBreaker results queue isn't full yet.");
+            logger.log(Level.FINE, "CircuitBreaker results window isn't full yet.");
         }
 
         return over;
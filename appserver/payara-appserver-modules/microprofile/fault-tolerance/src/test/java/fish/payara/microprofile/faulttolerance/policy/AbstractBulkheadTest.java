@@ -57,7 +57,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
@@ -76,6 +75,7 @@ import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext;
 import fish.payara.microprofile.faulttolerance.service.FaultToleranceMethodContextStub;
 import fish.payara.microprofile.faulttolerance.service.FaultToleranceServiceStub;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.test.TestUtils;
 
 abstract class AbstractBulkheadTest {
@@ -94,7 +94,7 @@ abstract class AbstractBulkheadTest {
         }
 
     };
-    final AtomicReference<BlockingQueue<Thread>> concurrentExecutions = service.getConcurrentExecutionsReference();
+    final AtomicReference<BulkheadSemaphore> concurrentExecutions = service.getConcurrentExecutionsReference();
     final AtomicInteger waitingQueuePopulation = service.getWaitingQueuePopulationReference();
     protected final CompletableFuture<Void> commonWaiter = new CompletableFuture<>();
 
@@ -438,8 +438,8 @@ abstract class AbstractBulkheadTest {
 
     void waitUntilPermitsAquired(int concurrentExecutions, int waitingQueuePopulation) {
         waitSomeUntil(() -> {
-            BlockingQueue<Thread> queue = this.concurrentExecutions.get();
-            int actualConcurrentExecutions = queue == null ? 0 : queue.size();
+            BulkheadSemaphore semaphore = this.concurrentExecutions.get();
+            int actualConcurrentExecutions = semaphore == null ? 0 : semaphore.acquiredPermits();
             return concurrentExecutions == actualConcurrentExecutions
                     && waitingQueuePopulation == this.waitingQueuePopulation.get() - actualConcurrentExecutions;
         });
@@ -464,7 +464,7 @@ abstract class AbstractBulkheadTest {
     }
 
     void assertPermitsAquired(int concurrentExecutions, int waitingQueuePopulation) {
-        int actualConcurrentExecutions = this.concurrentExecutions.get().size();
+        int actualConcurrentExecutions = this.concurrentExecutions.get().acquiredPermits();
         assertEquals(concurrentExecutions, actualConcurrentExecutions);
         int actualQueueLength = this.waitingQueuePopulation.get();
         assertEquals(waitingQueuePopulation, actualQueueLength - actualConcurrentExecutions);
@@ -41,8 +41,6 @@ package fish.payara.microprofile.faulttolerance.service;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
@@ -58,17 +56,18 @@ import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceDefiniti
 import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext;
 import fish.payara.microprofile.faulttolerance.FaultToleranceMetrics;
 import fish.payara.microprofile.faulttolerance.policy.AsynchronousPolicy;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 
 public class FaultToleranceMethodContextStub implements FaultToleranceMethodContext {
 
     private final InvocationContext context;
     private final AtomicReference<CircuitBreakerState> state;
-    private final AtomicReference<BlockingQueue<Thread>> concurrentExecutions;
+    private final AtomicReference<BulkheadSemaphore> concurrentExecutions;
     private final AtomicInteger queuingOrRunningPopulation;
 
     public FaultToleranceMethodContextStub(InvocationContext context, AtomicReference<CircuitBreakerState> state,
-            AtomicReference<BlockingQueue<Thread>> concurrentExecutions,
+            AtomicReference<BulkheadSemaphore> concurrentExecutions,
             AtomicInteger queuingOrRunningPopulation) {
         this.context = context;
         this.state = state;
@@ -98,14 +97,14 @@ public class FaultToleranceMethodContextStub implements FaultToleranceMethodCont
     }
 
     @Override
-    public BlockingQueue<Thread> getConcurrentExecutions(int maxConcurrentThreads) {
+    public BulkheadSemaphore getConcurrentExecutions(int maxConcurrentThreads) {
         if (concurrentExecutions == null) {
             throw new UnsupportedOperationException();
         }
         return maxConcurrentThreads < 0 
                 ? concurrentExecutions.get()
                 : concurrentExecutions.updateAndGet(
-                    value -> value != null ? value : new ArrayBlockingQueue<>(maxConcurrentThreads));
+                    value -> value != null ? value : new BulkheadSemaphore(maxConcurrentThreads));
     }
 
     @Override
@@ -39,7 +39,6 @@
  */
 package fish.payara.microprofile.faulttolerance.service;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,6 +52,7 @@ import fish.payara.microprofile.faulttolerance.FaultToleranceMethodContext;
 import fish.payara.microprofile.faulttolerance.FaultToleranceService;
 import fish.payara.microprofile.faulttolerance.policy.FaultTolerancePolicy;
 import fish.payara.microprofile.faulttolerance.service.Stereotypes;
+import fish.payara.microprofile.faulttolerance.state.BulkheadSemaphore;
 import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 
 /**
@@ -69,7 +69,7 @@ import fish.payara.microprofile.faulttolerance.state.CircuitBreakerState;
 public class FaultToleranceServiceStub implements FaultToleranceService {
 
     protected final AtomicReference<CircuitBreakerState> state = new AtomicReference<>();
-    protected final AtomicReference<BlockingQueue<Thread>> concurrentExecutions = new AtomicReference<>();
+    protected final AtomicReference<BulkheadSemaphore> concurrentExecutions = new AtomicReference<>();
     protected final AtomicInteger waitingQueuePopulation = new AtomicInteger();
 
     @Override
@@ -87,7 +87,7 @@ public class FaultToleranceServiceStub implements FaultToleranceService {
         return state;
     }
 
-    public AtomicReference<BlockingQueue<Thread>> getConcurrentExecutionsReference() {
+    public AtomicReference<BulkheadSemaphore> getConcurrentExecutionsReference() {
         return concurrentExecutions;
     }
 
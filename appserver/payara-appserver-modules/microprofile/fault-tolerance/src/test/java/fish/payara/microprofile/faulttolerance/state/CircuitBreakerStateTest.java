@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- *    Copyright (c) [2018] Payara Foundation and/or its affiliates. All rights reserved.
+ *    Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
  *
  *     The contents of this file are subject to the terms of either the GNU
  *     General Public License Version 2 only ("GPL") or the Common Development
@@ -74,4 +74,40 @@ public class CircuitBreakerStateTest {
         assertEquals("Unexpected nanos for unused state.", 0, state.updateAndGet(CircuitBreakerState.CircuitState.HALF_OPEN));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testFailureThresholdOnlyCheckedWhenWindowIsFull() {
+        CircuitBreakerState state = new CircuitBreakerState(4);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        assertFalse("Window not full yet.", state.isOverFailureThreshold(4, 0.5));
+        state.recordClosedOutcome(true);
+        assertTrue("Window full with 3 failures.", state.isOverFailureThreshold(4, 0.5));
+    }
+
+    @Test
+    public void testWindowOverwritesOldestOutcome() {
+        CircuitBreakerState state = new CircuitBreakerState(3);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(true);
+        assertTrue(state.isOverFailureThreshold(3, 0.6));
+        assertFalse(state.isClosedOutcomeSuccessOnly());
+        state.recordClosedOutcome(true);
+        assertFalse("Oldest failure should be out of the window.", state.isOverFailureThreshold(3, 0.6));
+        state.recordClosedOutcome(true);
+        assertTrue("All failures should be out of the window.", state.isClosedOutcomeSuccessOnly());
+    }
+
+    @Test
+    public void testResetResultsEmptiesWindow() {
+        CircuitBreakerState state = new CircuitBreakerState(2);
+        state.recordClosedOutcome(false);
+        state.recordClosedOutcome(false);
+        assertTrue(state.isOverFailureThreshold(2, 1.0));
+        state.resetResults();
+        assertTrue(state.isClosedOutcomeSuccessOnly());
+        assertFalse(state.isOverFailureThreshold(2, 1.0));
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import static java.lang.Thread.currentThread;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY;
+import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY_LOCATION;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.enterprise.inject.spi.DeploymentException;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * Resolves the {@link PublicKey} used to verify signed JWT tokens.
+ * <p>
+ * The raw key material (PEM or JWKS) is read from the first of the default
+ * <code>/publicKey.pem</code> resource, the MP-JWT embedded key or the MP-JWT
+ * key location that is present, and is kept for the configured time to live.
+ * Keys parsed from it are cached by key ID. A key ID that the cached JWKS does
+ * not contain causes the key material to be read again, so keys rotated in by
+ * the issuer are picked up before the time to live is over. Keys parsed from
+ * key material that is read again unchanged are kept.
+ *
+ * @author Payara Foundation
+ */
+public class JwtPublicKeyStore {
+
+    private static final String RSA_ALGORITHM = "RSA";
+
+    private static final String DEFAULT_PUBLIC_KEY_LOCATION = "/publicKey.pem";
+
+    /**
+     * Minimum time between two reads of the key material caused by an unknown
+     * key ID, so tokens with made up key IDs cannot make every request fetch
+     * the JWKS again.
+     */
+    private static final long KEY_ID_REFRESH_INTERVAL = SECONDS.toMillis(10);
+
+    private final Config config;
+    private final long timeToLive;
+    private final long keyIDRefreshInterval;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile KeySource keySource;
+
+    /**
+     * @param config the MicroProfile config to read the MP-JWT key properties from
+     * @param timeToLive milliseconds to keep the key material before reading it
+     * again, 0 to read it for every token
+     */
+    public JwtPublicKeyStore(Config config, long timeToLive) {
+        this(config, timeToLive, KEY_ID_REFRESH_INTERVAL);
+    }
+
+    /**
+     * @param keyIDRefreshInterval minimum milliseconds between two reads of the
+     * key material caused by an unknown key ID
+     */
+    JwtPublicKeyStore(Config config, long timeToLive, long keyIDRefreshInterval) {
+        this.config = config;
+        this.timeToLive = MILLISECONDS.toNanos(timeToLive);
+        this.keyIDRefreshInterval = MILLISECONDS.toNanos(keyIDRefreshInterval);
+    }
+
+    /**
+     * @param keyID the key ID from the JWT header, may be null
+     * @return the public key to verify a token signed with the given key ID
+     * @throws Exception if no key is configured or the key could not be read
+     */
+    public PublicKey getPublicKey(String keyID) throws Exception {
+        KeySource source = getKeySource(null);
+        PublicKey publicKey = source.getCachedKey(keyID);
+        if (publicKey != null) {
+            hits.increment();
+            return publicKey;
+        }
+        misses.increment();
+        try {
+            return source.getKey(keyID);
+        } catch (UnknownKeyIDException ex) {
+            KeySource refreshed = getKeySource(source);
+            if (refreshed == source) {
+                throw ex;
+            }
+            return refreshed.getKey(keyID);
+        }
+    }
+
+    /**
+     * @param publicKey a key returned by {@link #getPublicKey(String)}
+     * @return true if the current key material still contains the key, false if
+     * it was rotated out or the key material cannot be read
+     */
+    public boolean isCurrentKey(PublicKey publicKey) {
+        try {
+            return getKeySource(null).contains(publicKey);
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of keys found in the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of keys that had to be read and parsed
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the current key material, reading it again when it has expired
+     * or when <code>stale</code> is the current key material and was read
+     * longer than the key ID refresh interval ago.
+     */
+    private KeySource getKeySource(KeySource stale) throws Exception {
+        KeySource source = keySource;
+        if (source != null && !source.isExpired() && (stale == null || source != stale)) {
+            return source;
+        }
+        synchronized (this) {
+            source = keySource;
+            if (source != null && !source.isExpired()) {
+                if (stale == null || source != stale || !source.isRefreshable()) {
+                    return source;
+                }
+            }
+            KeySource read = readKeySource();
+            if (source != null && source.key.equals(read.key)) {
+                read.keepKeys(source);
+            }
+            keySource = read;
+            return read;
+        }
+    }
+
+    private KeySource readKeySource() throws Exception {
+        Optional<String> key = readPublicKeyFromLocation(DEFAULT_PUBLIC_KEY_LOCATION);
+        if (key.isPresent()) {
+            return new KeySource(key.get(), true);
+        }
+        key = config.getOptionalValue(VERIFIER_PUBLIC_KEY, String.class);
+        if (!key.isPresent()) {
+            Optional<String> location = config.getOptionalValue(VERIFIER_PUBLIC_KEY_LOCATION, String.class);
+            if (location.isPresent()) {
+                key = readPublicKeyFromLocation(location.get());
+            }
+        }
+        if (!key.isPresent()) {
+            throw new IllegalStateException("No PublicKey found");
+        }
+        return new KeySource(key.get(), false);
+    }
+
+    private static Optional<String> readPublicKeyFromLocation(String publicKeyLocation) throws IOException {
+        URL publicKeyURL = currentThread().getContextClassLoader().getResource(publicKeyLocation);
+
+        if (publicKeyURL == null) {
+            try {
+                publicKeyURL = new URL(publicKeyLocation);
+            } catch (MalformedURLException ex) {
+                publicKeyURL = null;
+            }
+        }
+        if (publicKeyURL == null) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = publicKeyURL.openStream()) {
+            ByteArrayOutputStream key = new ByteArrayOutputStream();
+            byte[] byteBuffer = new byte[16384];
+            int read;
+            while ((read = inputStream.read(byteBuffer)) != -1) {
+                key.write(byteBuffer, 0, read);
+            }
+            return Optional.of(new String(key.toByteArray(), UTF_8));
+        }
+    }
+
+    private static PublicKey createPublicKey(String key, String keyID) throws Exception {
+        try {
+            return createPublicKeyFromJWKS(key, keyID);
+        } catch (UnknownKeyIDException jwksEx) {
+            throw jwksEx;
+        } catch (Exception jwksEx) {
+            throw new DeploymentException(jwksEx);
+        }
+    }
+
+    private static PublicKey createPublicKeyFromPem(String key) throws Exception {
+        key = key.replaceAll("-----BEGIN (.*)-----", "")
+                .replaceAll("-----END (.*)----", "")
+                .replaceAll("\r\n", "")
+                .replaceAll("\n", "")
+                .trim();
+
+        byte[] keyBytes = Base64.getDecoder().decode(key);
+        X509EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(keyBytes);
+        return KeyFactory.getInstance(RSA_ALGORITHM)
+                .generatePublic(publicKeySpec);
+    }
+
+    private static PublicKey createPublicKeyFromJWKS(String jwksValue, String keyID) throws Exception {
+        JsonObject jwks = parseJwks(jwksValue);
+        JsonArray keys = jwks.getJsonArray("keys");
+        JsonObject jwk = keys != null ? findJwk(keys, keyID) : jwks;
+
+        // the public exponent
+        byte[] exponentBytes = Base64.getUrlDecoder().decode(jwk.getString("e"));
+        BigInteger exponent = new BigInteger(1, exponentBytes);
+
+        // the modulus
+        byte[] modulusBytes = Base64.getUrlDecoder().decode(jwk.getString("n"));
+        BigInteger modulus = new BigInteger(1, modulusBytes);
+
+        RSAPublicKeySpec publicKeySpec = new RSAPublicKeySpec(modulus, exponent);
+        return KeyFactory.getInstance(RSA_ALGORITHM)
+                .generatePublic(publicKeySpec);
+    }
+
+    private static JsonObject parseJwks(String jwksValue) throws Exception {
+        JsonObject jwks;
+        try (JsonReader reader = Json.createReader(new StringReader(jwksValue))) {
+            jwks = reader.readObject();
+        } catch (Exception ex) {
+            // if jwks is encoded
+            byte[] jwksDecodedValue = Base64.getDecoder().decode(jwksValue);
+            try (InputStream jwksStream = new ByteArrayInputStream(jwksDecodedValue);
+                    JsonReader reader = Json.createReader(jwksStream)) {
+                jwks = reader.readObject();
+            }
+        }
+        return jwks;
+    }
+
+    private static JsonObject findJwk(JsonArray keys, String keyID) {
+        if (Objects.isNull(keyID) && keys.size() > 0) {
+            return keys.getJsonObject(0);
+        }
+
+        for (JsonValue value : keys) {
+            JsonObject jwk = value.asJsonObject();
+            if (Objects.equals(keyID, jwk.getString("kid"))) {
+                return jwk;
+            }
+        }
+
+        throw new UnknownKeyIDException();
+    }
+
+    /**
+     * Key material read from one location together with the keys parsed from it.
+     */
+    private final class KeySource {
+
+        private final String key;
+        private final boolean ignoreKeyID;
+        private final long readAt = System.nanoTime();
+        private final ConcurrentMap<String, PublicKey> keysByID = new ConcurrentHashMap<>();
+        private volatile PublicKey defaultKey;
+
+        KeySource(String key, boolean ignoreKeyID) {
+            this.key = key;
+            PublicKey pemKey = null;
+            try {
+                pemKey = createPublicKeyFromPem(key);
+            } catch (Exception pemEx) {
+                // not PEM, keys are read from the JWKS when requested
+            }
+            // a PEM key is used whatever key ID the token has
+            this.defaultKey = pemKey;
+            this.ignoreKeyID = ignoreKeyID || pemKey != null;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - readAt >= timeToLive;
+        }
+
+        boolean isRefreshable() {
+            return !ignoreKeyID && System.nanoTime() - readAt >= keyIDRefreshInterval;
+        }
+
+        boolean contains(PublicKey publicKey) {
+            return publicKey.equals(defaultKey) || keysByID.containsValue(publicKey);
+        }
+
+        /**
+         * Takes over the keys parsed from the same key material read before.
+         */
+        void keepKeys(KeySource previous) {
+            if (defaultKey == null) {
+                defaultKey = previous.defaultKey;
+            }
+            keysByID.putAll(previous.keysByID);
+        }
+
+        PublicKey getCachedKey(String keyID) {
+            return ignoreKeyID || keyID == null ? defaultKey : keysByID.get(keyID);
+        }
+
+        PublicKey getKey(String keyID) throws Exception {
+            if (ignoreKeyID || keyID == null) {
+                PublicKey publicKey = defaultKey;
+                if (publicKey == null) {
+                    publicKey = createPublicKey(key, null);
+                    defaultKey = publicKey;
+                }
+                return publicKey;
+            }
+            PublicKey publicKey = keysByID.get(keyID);
+            if (publicKey == null) {
+                publicKey = createPublicKey(key, keyID);
+                keysByID.putIfAbsent(keyID, publicKey);
+            }
+            return publicKey;
+        }
+    }
+
+    /**
+     * Thrown when a JWKS does not contain a key with the requested key ID.
+     */
+    private static final class UnknownKeyIDException extends IllegalStateException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnknownKeyIDException() {
+            super("No matching JWK for KeyID.");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.security.enterprise.identitystore.CredentialValidationResult;
+
+/**
+ * Bounded cache of the validation results of signed JWT tokens that passed
+ * verification, so a client presenting the same token again does not have its
+ * token parsed and its signature verified again.
+ * <p>
+ * Results are keyed by the SHA-256 hash of the token and kept until the token
+ * expires or the key it was verified with is no longer current, for instance
+ * because the issuer rotated it out of its JWKS. When the cache is full
+ * expired results are purged first, and if that does not free any space an
+ * arbitrary result is dropped.
+ *
+ * @author Payara Foundation
+ */
+public class JwtTokenCache {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final int maxSize;
+    private final Predicate<PublicKey> currentKey;
+    private final ConcurrentMap<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of results to keep, 0 to disable the cache
+     * @param currentKey tests whether a key tokens were verified with is still current
+     */
+    public JwtTokenCache(int maxSize, Predicate<PublicKey> currentKey) {
+        this.maxSize = maxSize;
+        this.currentKey = currentKey;
+    }
+
+    /**
+     * @param token the signed JWT token as presented by the client
+     * @return the result of the earlier validation of the token, or null if the
+     * token has to be validated
+     */
+    public CredentialValidationResult get(String token) {
+        return get(token, System.currentTimeMillis());
+    }
+
+    CredentialValidationResult get(String token, long now) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String hash = hash(token);
+        CachedResult cached = results.get(hash);
+        if (cached != null) {
+            if (cached.isExpired(now) || !currentKey.test(cached.publicKey)) {
+                results.remove(hash, cached);
+            } else if (cached.token.equals(token)) {
+                hits.increment();
+                return cached.result;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @param token the signed JWT token as presented by the client
+     * @param result the result of validating the token
+     * @param expirationTime the <code>exp</code> claim of the token in seconds since the epoch
+     * @param publicKey the key the token was verified with
+     */
+    public void put(String token, CredentialValidationResult result, long expirationTime, PublicKey publicKey) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long expiresAt = SECONDS.toMillis(expirationTime);
+        if (results.size() >= maxSize) {
+            evict();
+        }
+        results.put(hash(token), new CachedResult(token, result, expiresAt, publicKey));
+    }
+
+    /**
+     * @return the number of tokens whose validation result was found in the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of tokens that had to be parsed and verified
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of validation results currently cached
+     */
+    public int getSize() {
+        return results.size();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        results.values().removeIf(cached -> cached.isExpired(now));
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (results.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(token.getBytes(UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class CachedResult {
+
+        final String token;
+        final CredentialValidationResult result;
+        final long expiresAt;
+        final PublicKey publicKey;
+
+        CachedResult(String token, CredentialValidationResult result, long expiresAt, PublicKey publicKey) {
+            this.token = token;
+            this.result = result;
+            this.expiresAt = expiresAt;
+            this.publicKey = publicKey;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
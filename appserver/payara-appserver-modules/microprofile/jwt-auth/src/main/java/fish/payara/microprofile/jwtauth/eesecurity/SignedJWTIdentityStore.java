@@ -43,35 +43,17 @@ import static java.lang.Thread.currentThread;
 import static java.util.logging.Level.INFO;
 import static javax.security.enterprise.identitystore.CredentialValidationResult.INVALID_RESULT;
 import static org.eclipse.microprofile.jwt.config.Names.ISSUER;
-import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY;
-import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY_LOCATION;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.StringReader;
-import java.math.BigInteger;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.RSAPublicKeySpec;
-import java.security.spec.X509EncodedKeySpec;
-import java.util.Base64;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Logger;
 
-import javax.enterprise.inject.spi.DeploymentException;
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
-import javax.json.JsonValue;
 import javax.security.enterprise.identitystore.CredentialValidationResult;
 import javax.security.enterprise.identitystore.IdentityStore;
 
@@ -91,7 +73,9 @@ public class SignedJWTIdentityStore implements IdentityStore {
 
     private static final Logger LOGGER = Logger.getLogger(SignedJWTIdentityStore.class.getName());
 
-    private static final String RSA_ALGORITHM = "RSA";
+    private static final String DEFAULT_PUBLIC_KEY_CACHE_TTL = "300000";
+
+    private static final String DEFAULT_TOKEN_CACHE_SIZE = "1000";
 
     private final String acceptedIssuer;
     private final Optional<Boolean> enabledNamespace;
@@ -99,6 +83,9 @@ public class SignedJWTIdentityStore implements IdentityStore {
 
     private final Config config;
 
+    private final JwtPublicKeyStore publicKeyStore;
+    private final JwtTokenCache tokenCache;
+
     public SignedJWTIdentityStore() {
         config = ConfigProvider.getConfig();
 
@@ -109,27 +96,25 @@ public class SignedJWTIdentityStore implements IdentityStore {
 
         enabledNamespace = readEnabledNamespace(properties);
         customNamespace = readCustomNamespace(properties);
+
+        publicKeyStore = new JwtPublicKeyStore(config, readPublicKeyCacheTTL(properties));
+        tokenCache = new JwtTokenCache(readTokenCacheSize(properties), publicKeyStore::isCurrentKey);
     }
 
     public CredentialValidationResult validate(SignedJWTCredential signedJWTCredential) {
+        String signedJWT = signedJWTCredential.getSignedJWT();
+        CredentialValidationResult cachedResult = tokenCache.get(signedJWT);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         final JwtTokenParser jwtTokenParser = new JwtTokenParser(enabledNamespace, customNamespace);
         try {
-            jwtTokenParser.parse(signedJWTCredential.getSignedJWT());
+            jwtTokenParser.parse(signedJWT);
             String keyID = jwtTokenParser.getKeyID();
+            PublicKey publicKey = publicKeyStore.getPublicKey(keyID);
 
-            Optional<PublicKey> publicKey = readDefaultPublicKey();
-            if (!publicKey.isPresent()) {
-                publicKey = readMPEmbeddedPublicKey(keyID);
-            }
-            if (!publicKey.isPresent()) {
-                publicKey = readMPPublicKeyFromLocation(keyID);
-            }
-            if (!publicKey.isPresent()) {
-                throw new IllegalStateException("No PublicKey found");
-            }
-
-            JsonWebTokenImpl jsonWebToken
-                    = jwtTokenParser.verify(acceptedIssuer, publicKey.get());
+            JsonWebTokenImpl jsonWebToken = jwtTokenParser.verify(acceptedIssuer, publicKey);
 
             Set<String> groups = new HashSet<>();
             Collection<String> groupClaims = jsonWebToken.getClaim("groups");
@@ -137,7 +122,9 @@ public class SignedJWTIdentityStore implements IdentityStore {
                 groups.addAll(groupClaims);
             }
 
-            return new CredentialValidationResult(jsonWebToken, groups);
+            CredentialValidationResult result = new CredentialValidationResult(jsonWebToken, groups);
+            tokenCache.put(signedJWT, result, jsonWebToken.getExpirationTime(), publicKey);
+            return result;
 
         } catch (Exception e) {
             LOGGER.log(INFO, "Exception trying to parse JWT token.", e);
@@ -146,6 +133,20 @@ public class SignedJWTIdentityStore implements IdentityStore {
         return INVALID_RESULT;
     }
 
+    /**
+     * @return the store resolving the keys tokens are verified with
+     */
+    public JwtPublicKeyStore getPublicKeyStore() {
+        return publicKeyStore;
+    }
+
+    /**
+     * @return the cache of verified tokens
+     */
+    public JwtTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
     private Optional<Properties> readVendorProperties() {
         URL mpJwtResource = currentThread().getContextClassLoader().getResource("/payara-mp-jwt.properties");
         Properties properties = null;
@@ -172,124 +173,16 @@ public class SignedJWTIdentityStore implements IdentityStore {
         return properties.isPresent() ? Optional.ofNullable(properties.get().getProperty("custom.namespace", null)) : Optional.empty();
     }
 
-    private Optional<PublicKey> readDefaultPublicKey() throws Exception {
-        return readPublicKeyFromLocation("/publicKey.pem", null);
-    }
-
-    private Optional<PublicKey> readMPEmbeddedPublicKey(String keyID) throws Exception {
-        Optional<String> key = config.getOptionalValue(VERIFIER_PUBLIC_KEY, String.class);
-        if (!key.isPresent()) {
-            return Optional.empty();
-        }
-        return createPublicKey(key.get(), keyID);
-    }
-
-    private Optional<PublicKey> readMPPublicKeyFromLocation(String keyID) throws Exception {
-        Optional<String> locationOpt = config.getOptionalValue(VERIFIER_PUBLIC_KEY_LOCATION, String.class);
-
-        if (!locationOpt.isPresent()) {
-            return Optional.empty();
-        }
-
-        String publicKeyLocation = locationOpt.get();
-
-        return readPublicKeyFromLocation(publicKeyLocation, keyID);
-    }
-
-    private Optional<PublicKey> readPublicKeyFromLocation(String publicKeyLocation, String keyID) throws Exception {
-
-        URL publicKeyURL = currentThread().getContextClassLoader().getResource(publicKeyLocation);
-
-        if (publicKeyURL == null) {
-            try {
-                publicKeyURL = new URL(publicKeyLocation);
-            } catch (MalformedURLException ex) {
-                publicKeyURL = null;
-            }
-        }
-        if (publicKeyURL == null) {
-            return Optional.empty();
-        }
-
-        byte[] byteBuffer = new byte[16384];
-        try (InputStream inputStream = publicKeyURL.openStream()) {
-            String key = new String(byteBuffer, 0, inputStream.read(byteBuffer));
-            return createPublicKey(key, keyID);
-        }
-    }
-
-    private Optional<PublicKey> createPublicKey(String key, String keyID) throws Exception {
-        try {
-            return Optional.of(createPublicKeyFromPem(key));
-        } catch (Exception pemEx) {
-            try {
-                return Optional.of(createPublicKeyFromJWKS(key, keyID));
-            } catch (Exception jwksEx) {
-                throw new DeploymentException(jwksEx);
-            }
-        }
-    }
-
-    private PublicKey createPublicKeyFromPem(String key) throws Exception {
-        key = key.replaceAll("-----BEGIN (.*)-----", "")
-                .replaceAll("-----END (.*)----", "")
-                .replaceAll("\r\n", "")
-                .replaceAll("\n", "")
-                .trim();
-
-        byte[] keyBytes = Base64.getDecoder().decode(key);
-        X509EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(keyBytes);
-        return KeyFactory.getInstance(RSA_ALGORITHM)
-                .generatePublic(publicKeySpec);
-
-    }
-
-    private PublicKey createPublicKeyFromJWKS(String jwksValue, String keyID) throws Exception {
-        JsonObject jwks = parseJwks(jwksValue);
-        JsonArray keys = jwks.getJsonArray("keys");
-        JsonObject jwk = keys != null ? findJwk(keys, keyID) : jwks;
-
-        // the public exponent
-        byte[] exponentBytes = Base64.getUrlDecoder().decode(jwk.getString("e"));
-        BigInteger exponent = new BigInteger(1, exponentBytes);
-
-        // the modulus
-        byte[] modulusBytes = Base64.getUrlDecoder().decode(jwk.getString("n"));
-        BigInteger modulus = new BigInteger(1, modulusBytes);
-
-        RSAPublicKeySpec publicKeySpec = new RSAPublicKeySpec(modulus, exponent);
-        return KeyFactory.getInstance(RSA_ALGORITHM)
-                .generatePublic(publicKeySpec);
-    }
-
-    private JsonObject parseJwks(String jwksValue) throws Exception {
-        JsonObject jwks;
-        try (JsonReader reader = Json.createReader(new StringReader(jwksValue))) {
-            jwks = reader.readObject();
-        } catch (Exception ex) {
-            // if jwks is encoded
-            byte[] jwksDecodedValue = Base64.getDecoder().decode(jwksValue);
-            try (InputStream jwksStream = new ByteArrayInputStream(jwksDecodedValue);
-                    JsonReader reader = Json.createReader(jwksStream)) {
-                jwks = reader.readObject();
-            }
-        }
-        return jwks;
+    private long readPublicKeyCacheTTL(Optional<Properties> properties) {
+        return Long.parseLong(properties.isPresent()
+                ? properties.get().getProperty("publicKey.cache.ttl", DEFAULT_PUBLIC_KEY_CACHE_TTL)
+                : DEFAULT_PUBLIC_KEY_CACHE_TTL);
     }
 
-    private JsonObject findJwk(JsonArray keys, String keyID) {
-        if (Objects.isNull(keyID) && keys.size() > 0) {
-            return keys.getJsonObject(0);
-        }
-
-        for (JsonValue value : keys) {
-            JsonObject jwk = value.asJsonObject();
-            if (Objects.equals(keyID, jwk.getString("kid"))) {
-                return jwk;
-            }
-        }
-
-        throw new IllegalStateException("No matching JWK for KeyID.");
+    private int readTokenCacheSize(Optional<Properties> properties) {
+        return Integer.parseInt(properties.isPresent()
+                ? properties.get().getProperty("token.cache.size", DEFAULT_TOKEN_CACHE_SIZE)
+                : DEFAULT_TOKEN_CACHE_SIZE);
     }
 
 }
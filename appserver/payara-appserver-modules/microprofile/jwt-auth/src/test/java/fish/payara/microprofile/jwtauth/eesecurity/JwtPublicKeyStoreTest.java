@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eclipse.microprofile.jwt.config.Names.VERIFIER_PUBLIC_KEY_LOCATION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.security.enterprise.identitystore.CredentialValidationResult;
+
+import org.eclipse.microprofile.config.Config;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests when {@link JwtPublicKeyStore} reads the JWKS it resolves keys from again.
+ */
+public class JwtPublicKeyStoreTest {
+
+    private static final long TTL = 60_000;
+
+    private static RSAPublicKey key1;
+    private static RSAPublicKey key2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File jwks;
+    private Config config;
+
+    @BeforeClass
+    public static void createKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        key1 = (RSAPublicKey) generator.generateKeyPair().getPublic();
+        key2 = (RSAPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        jwks = folder.newFile("jwks.json");
+        String location = jwks.toURI().toURL().toString();
+        config = (Config) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Config.class },
+                (proxy, method, args) -> "getOptionalValue".equals(method.getName())
+                        && VERIFIER_PUBLIC_KEY_LOCATION.equals(args[0]) ? Optional.of(location) : Optional.empty());
+    }
+
+    @Test
+    public void knownKeyIsNotReadAgain() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, TTL, 0);
+        PublicKey publicKey = store.getPublicKey("k1");
+        assertEquals(key1, publicKey);
+
+        writeJwks(jwk("k1", key2));
+
+        assertSame(publicKey, store.getPublicKey("k1"));
+        assertEquals(1, store.getHitCount());
+        assertEquals(1, store.getMissCount());
+    }
+
+    @Test
+    public void unknownKeyIDReadsKeysAgain() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, TTL, 0);
+        store.getPublicKey("k1");
+
+        writeJwks(jwk("k1", key1), jwk("k2", key2));
+
+        assertEquals(key2, store.getPublicKey("k2"));
+        assertEquals(key1, store.getPublicKey("k1"));
+    }
+
+    @Test
+    public void unknownKeyIDDoesNotReadKeysAgainWithinRefreshInterval() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, TTL);
+        store.getPublicKey("k1");
+
+        writeJwks(jwk("k1", key1), jwk("k2", key2));
+
+        try {
+            store.getPublicKey("k2");
+            fail("the keys were read again");
+        } catch (IllegalStateException expected) {
+            // no matching JWK
+        }
+    }
+
+    @Test
+    public void keyReadAgainUnchangedStaysCurrent() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, 0, 0);
+        PublicKey publicKey = store.getPublicKey("k1");
+
+        assertTrue(store.isCurrentKey(publicKey));
+        assertSame(publicKey, store.getPublicKey("k1"));
+    }
+
+    @Test
+    public void removedKeyIsNoLongerCurrent() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, 0, 0);
+        PublicKey publicKey = store.getPublicKey("k1");
+
+        writeJwks(jwk("k2", key2));
+
+        assertFalse(store.isCurrentKey(publicKey));
+    }
+
+    @Test
+    public void rotatedKeyIsNoLongerCurrent() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, 0, 0);
+        PublicKey publicKey = store.getPublicKey("k1");
+
+        writeJwks(jwk("k1", key2));
+
+        assertFalse(store.isCurrentKey(publicKey));
+        assertEquals(key2, store.getPublicKey("k1"));
+    }
+
+    @Test
+    public void verifiedTokenIsNotServedOnceKeyIsRotatedOut() throws Exception {
+        writeJwks(jwk("k1", key1));
+        JwtPublicKeyStore store = new JwtPublicKeyStore(config, 0, 0);
+        JwtTokenCache cache = new JwtTokenCache(10, store::isCurrentKey);
+        long unexpired = System.currentTimeMillis() / 1000 + 3600;
+        cache.put("token", new CredentialValidationResult("alice"),
+                unexpired, store.getPublicKey("k1"));
+
+        assertEquals("alice", cache.get("token").getCallerPrincipal().getName());
+
+        writeJwks(jwk("k2", key2));
+
+        assertNull(cache.get("token"));
+    }
+
+    private void writeJwks(String... jwkValues) throws Exception {
+        Files.write(jwks.toPath(), ("{\"keys\":[" + String.join(",", jwkValues) + "]}").getBytes(UTF_8));
+    }
+
+    private static String jwk(String keyID, RSAPublicKey key) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return "{\"kty\":\"RSA\",\"kid\":\"" + keyID + "\""
+                + ",\"e\":\"" + encoder.encodeToString(key.getPublicExponent().toByteArray()) + "\""
+                + ",\"n\":\"" + encoder.encodeToString(key.getModulus().toByteArray()) + "\"}";
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.jwtauth.eesecurity;
+
+import static java.util.Collections.emptySet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.security.enterprise.identitystore.CredentialValidationResult;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests when {@link JwtTokenCache} serves and drops the results of verified tokens.
+ */
+public class JwtTokenCacheTest {
+
+    private static final long EXPIRATION_TIME = 1_600_000_000L;
+    private static final long EXPIRES_AT = EXPIRATION_TIME * 1000;
+
+    private static PublicKey key;
+
+    private final Set<PublicKey> currentKeys = new HashSet<>();
+
+    @BeforeClass
+    public static void createKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        key = generator.generateKeyPair().getPublic();
+    }
+
+    @Test
+    public void resultIsServedUntilTokenExpires() {
+        JwtTokenCache cache = new JwtTokenCache(10, currentKeys::contains);
+        currentKeys.add(key);
+        CredentialValidationResult result = result("alice");
+        cache.put("token", result, EXPIRATION_TIME, key);
+
+        assertSame(result, cache.get("token", EXPIRES_AT - 1));
+        assertEquals(1, cache.getHitCount());
+        assertNull(cache.get("token", EXPIRES_AT));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void unknownTokenIsNotServed() {
+        JwtTokenCache cache = new JwtTokenCache(10, currentKeys::contains);
+        currentKeys.add(key);
+        cache.put("token", result("alice"), EXPIRATION_TIME, key);
+
+        assertNull(cache.get("other token", EXPIRES_AT - 1));
+    }
+
+    @Test
+    public void resultIsNotServedOnceKeyIsNoLongerCurrent() {
+        JwtTokenCache cache = new JwtTokenCache(10, currentKeys::contains);
+        currentKeys.add(key);
+        cache.put("token", result("alice"), EXPIRATION_TIME, key);
+
+        currentKeys.remove(key);
+
+        assertNull(cache.get("token", EXPIRES_AT - 1));
+        assertEquals(0, cache.getSize());
+        currentKeys.add(key);
+        assertNull("the dropped result is verified again", cache.get("token", EXPIRES_AT - 1));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        JwtTokenCache cache = new JwtTokenCache(3, currentKeys::contains);
+        currentKeys.add(key);
+        long unexpired = System.currentTimeMillis() / 1000 + 3600;
+        for (int i = 0; i < 10; i++) {
+            cache.put("token" + i, result("user" + i), unexpired, key);
+            assertTrue(cache.getSize() <= 3);
+        }
+        assertEquals("user9", cache.get("token9").getCallerPrincipal().getName());
+    }
+
+    @Test
+    public void expiredResultsAreEvictedFirst() {
+        JwtTokenCache cache = new JwtTokenCache(3, currentKeys::contains);
+        currentKeys.add(key);
+        long unexpired = System.currentTimeMillis() / 1000 + 3600;
+        cache.put("expired1", result("expired1"), 1, key);
+        cache.put("expired2", result("expired2"), 1, key);
+        cache.put("token1", result("user1"), unexpired, key);
+
+        cache.put("token2", result("user2"), unexpired, key);
+
+        assertEquals(2, cache.getSize());
+        assertEquals("user1", cache.get("token1").getCallerPrincipal().getName());
+        assertEquals("user2", cache.get("token2").getCallerPrincipal().getName());
+    }
+
+    @Test
+    public void nothingIsCachedWithoutSize() {
+        JwtTokenCache cache = new JwtTokenCache(0, currentKeys::contains);
+        currentKeys.add(key);
+        cache.put("token", result("alice"), EXPIRATION_TIME, key);
+
+        assertNull(cache.get("token", EXPIRES_AT - 1));
+        assertEquals(0, cache.getSize());
+    }
+
+    private static CredentialValidationResult result(String caller) {
+        return new CredentialValidationResult(caller, emptySet());
+    }
+}
@@ -39,6 +39,7 @@
  */
 package fish.payara.microprofile.metrics;
 
+import static fish.payara.microprofile.metrics.admin.MetricsServiceConfiguration.LOG_LINEAR_RESERVOIR;
 import static org.eclipse.microprofile.metrics.MetricRegistry.Type.BASE;
 import static org.eclipse.microprofile.metrics.MetricRegistry.Type.VENDOR;
 
@@ -57,6 +58,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
@@ -87,8 +89,12 @@ import org.jvnet.hk2.config.UnprocessedChangeEvents;
 
 import fish.payara.microprofile.metrics.admin.MetricsServiceConfiguration;
 import fish.payara.microprofile.metrics.exception.NoSuchRegistryException;
+import fish.payara.microprofile.metrics.impl.Clock;
+import fish.payara.microprofile.metrics.impl.ExponentiallyDecayingReservoir;
+import fish.payara.microprofile.metrics.impl.LogLinearReservoir;
 import fish.payara.microprofile.metrics.impl.MetricRegistrationListener;
 import fish.payara.microprofile.metrics.impl.MetricRegistryImpl;
+import fish.payara.microprofile.metrics.impl.Reservoir;
 import fish.payara.microprofile.metrics.jmx.MBeanMetadata;
 import fish.payara.microprofile.metrics.jmx.MBeanMetadataConfig;
 import fish.payara.microprofile.metrics.jmx.MBeanMetadataHelper;
@@ -131,11 +137,12 @@ public class MetricsService implements ConfigListener, MonitoringDataSource {
     private static final class MetricRegistryState implements MetricRegistrationListener {
 
         final String registryName;
-        final MetricRegistryImpl registry = new MetricRegistryImpl();
+        final MetricRegistryImpl registry;
         final Queue<MetricID> registeredNotAnnotated = new ConcurrentLinkedQueue<>();
 
-        public MetricRegistryState(String registryName) {
+        public MetricRegistryState(String registryName, Supplier<Reservoir> reservoirFactory) {
             this.registryName = registryName;
+            this.registry = new MetricRegistryImpl(Clock.defaultClock(), reservoirFactory);
             registry.addListener(this);
         }
 
@@ -442,7 +449,19 @@ public class MetricsService implements ConfigListener, MonitoringDataSource {
     }
 
     private MetricRegistryImpl getOrAddRegistryInternal(String registryName) {
-        return registriesByName.computeIfAbsent(registryName.toLowerCase(), key -> new MetricRegistryState(registryName)).registry;
+        return registriesByName.computeIfAbsent(registryName.toLowerCase(), key -> new MetricRegistryState(registryName, this::createReservoir)).registry;
+    }
+
+    /**
+     * Creates the {@link Reservoir} of a new histogram or timer as configured, changes only affect metrics created
+     * afterwards.
+     */
+    private Reservoir createReservoir() {
+        if (metricsServiceConfiguration != null
+                && LOG_LINEAR_RESERVOIR.equals(metricsServiceConfiguration.getReservoir())) {
+            return new LogLinearReservoir();
+        }
+        return new ExponentiallyDecayingReservoir();
     }
 
     public MetricRegistry getApplicationRegistry() {
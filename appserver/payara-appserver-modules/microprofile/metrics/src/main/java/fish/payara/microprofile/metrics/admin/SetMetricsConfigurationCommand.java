@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2018-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2018-2020] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -108,6 +108,10 @@ public class SetMetricsConfigurationCommand extends SetSecureMicroprofileConfigu
     @Param(name = "virtualServers", optional = true)
     private String virtualServers;
 
+    @Param(name = "reservoir", optional = true, acceptableValues = MetricsServiceConfiguration.EXPONENTIALLY_DECAYING_RESERVOIR
+            + "," + MetricsServiceConfiguration.LOG_LINEAR_RESERVOIR)
+    private String reservoir;
+
     @Inject
     private Domain domain;
 
@@ -163,6 +167,9 @@ public class SetMetricsConfigurationCommand extends SetSecureMicroprofileConfigu
                 if (virtualServers != null) {
                     configProxy.setVirtualServers(virtualServers);
                 }
+                if (reservoir != null) {
+                    configProxy.setReservoir(reservoir);
+                }
                 if (securityEnabled != null) {
                     configProxy.setSecurityEnabled(securityEnabled.toString());
                 }
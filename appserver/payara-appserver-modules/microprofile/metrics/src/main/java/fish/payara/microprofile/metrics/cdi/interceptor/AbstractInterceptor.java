@@ -42,6 +42,7 @@ package fish.payara.microprofile.metrics.cdi.interceptor;
 
 import fish.payara.microprofile.metrics.MetricsService;
 import fish.payara.microprofile.metrics.cdi.AnnotationReader;
+import fish.payara.microprofile.metrics.impl.MetricRegistryImpl;
 
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Member;
@@ -59,7 +60,7 @@ import org.eclipse.microprofile.metrics.Metric;
 import org.eclipse.microprofile.metrics.MetricID;
 import org.glassfish.internal.api.Globals;
 
-/* package-private */ abstract class AbstractInterceptor {
+/* package-private */ abstract class AbstractInterceptor implements MetricBindings.RegistrySource {
 
     @Inject
     @Intercepted
@@ -83,6 +84,20 @@ import org.glassfish.internal.api.Globals;
         return metricsService.getApplicationMetric(metricID, metricType);
     }
 
+    @Override
+    public MetricRegistryImpl getApplicationRegistry() {
+        initService();
+        return (MetricRegistryImpl) metricsService.getApplicationRegistry();
+    }
+
+    /**
+     * @return the metric bound to the intercepted element of this interceptor's bean
+     */
+    protected final <E extends Member & AnnotatedElement, M extends Metric> M getBoundMetric(MetricBindings<M> bindings,
+            E element) {
+        return bindings.get(element, bean.getBeanClass(), this);
+    }
+
     @AroundConstruct
     private Object constructorInvocation(InvocationContext context) throws Exception {
         return preInterceptor(context, context.getConstructor());
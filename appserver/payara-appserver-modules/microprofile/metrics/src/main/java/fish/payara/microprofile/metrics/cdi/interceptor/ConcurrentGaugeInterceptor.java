@@ -58,10 +58,13 @@ import fish.payara.microprofile.metrics.cdi.AnnotationReader;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 1)
 public class ConcurrentGaugeInterceptor extends AbstractInterceptor {
 
+    private static final MetricBindings<org.eclipse.microprofile.metrics.ConcurrentGauge> BINDINGS = new MetricBindings<>(
+            AnnotationReader.CONCURRENT_GAUGE, org.eclipse.microprofile.metrics.ConcurrentGauge.class);
+
     @Override
     protected <E extends Member & AnnotatedElement> Object applyInterceptor(InvocationContext context, E element)
             throws Exception {
-        return proceedProbed(context, element, bean.getBeanClass(), this::getMetric);
+        return proceedProbed(context, getBoundMetric(BINDINGS, element));
     }
 
     /**
@@ -71,8 +74,12 @@ public class ConcurrentGaugeInterceptor extends AbstractInterceptor {
             Class<?> bean,
             BiFunction<MetricID, Class<org.eclipse.microprofile.metrics.ConcurrentGauge>, org.eclipse.microprofile.metrics.ConcurrentGauge> loader)
             throws Exception {
-        org.eclipse.microprofile.metrics.ConcurrentGauge gauge = apply(element, bean, AnnotationReader.CONCURRENT_GAUGE,
-                org.eclipse.microprofile.metrics.ConcurrentGauge.class, loader);
+        return proceedProbed(context, apply(element, bean, AnnotationReader.CONCURRENT_GAUGE,
+                org.eclipse.microprofile.metrics.ConcurrentGauge.class, loader));
+    }
+
+    private static Object proceedProbed(InvocationContext context,
+            org.eclipse.microprofile.metrics.ConcurrentGauge gauge) throws Exception {
         gauge.inc();
         try {
             return context.proceed();
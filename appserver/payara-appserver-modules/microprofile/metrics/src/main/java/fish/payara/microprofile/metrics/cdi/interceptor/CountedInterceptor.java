@@ -59,10 +59,12 @@ import fish.payara.microprofile.metrics.cdi.AnnotationReader;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 1)
 public class CountedInterceptor extends AbstractInterceptor {
 
+    private static final MetricBindings<Counter> BINDINGS = new MetricBindings<>(AnnotationReader.COUNTED, Counter.class);
+
     @Override
     protected <E extends Member & AnnotatedElement> Object applyInterceptor(InvocationContext context, E element)
             throws Exception {
-        return proceedCounted(context, element, bean.getBeanClass(), this::getMetric);
+        return proceedCounted(context, getBoundMetric(BINDINGS, element));
     }
 
     /**
@@ -70,7 +72,10 @@ public class CountedInterceptor extends AbstractInterceptor {
      */
     static <E extends Member & AnnotatedElement> Object proceedCounted(InvocationContext context, E element,
             Class<?> bean, BiFunction<MetricID, Class<Counter>, Counter> loader) throws Exception {
-        Counter counter = apply(element, bean, AnnotationReader.COUNTED, Counter.class, loader);
+        return proceedCounted(context, apply(element, bean, AnnotationReader.COUNTED, Counter.class, loader));
+    }
+
+    private static Object proceedCounted(InvocationContext context, Counter counter) throws Exception {
         counter.inc();
         return context.proceed();
     }
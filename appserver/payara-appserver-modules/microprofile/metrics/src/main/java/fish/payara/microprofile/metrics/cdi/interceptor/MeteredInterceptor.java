@@ -58,10 +58,12 @@ import fish.payara.microprofile.metrics.cdi.AnnotationReader;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 1)
 public class MeteredInterceptor extends AbstractInterceptor {
 
+    private static final MetricBindings<Meter> BINDINGS = new MetricBindings<>(AnnotationReader.METERED, Meter.class);
+
     @Override
     protected <E extends Member & AnnotatedElement> Object applyInterceptor(InvocationContext context, E element)
             throws Exception {
-        return proceedMetered(context, element, bean.getBeanClass(), this::getMetric);
+        return proceedMetered(context, getBoundMetric(BINDINGS, element));
     }
 
     /**
@@ -69,7 +71,10 @@ public class MeteredInterceptor extends AbstractInterceptor {
      */
     static <E extends Member & AnnotatedElement> Object proceedMetered(InvocationContext context, E element,
             Class<?> bean, BiFunction<MetricID, Class<Meter>, Meter> loader) throws Exception {
-        Meter meter = apply(element, bean, AnnotationReader.METERED, Meter.class, loader);
+        return proceedMetered(context, apply(element, bean, AnnotationReader.METERED, Meter.class, loader));
+    }
+
+    private static Object proceedMetered(InvocationContext context, Meter meter) throws Exception {
         try {
             return context.proceed();
         } finally {
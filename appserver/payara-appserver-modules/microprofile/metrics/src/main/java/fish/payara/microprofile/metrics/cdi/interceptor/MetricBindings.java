@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *    Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ *
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ *
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ *
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.cdi.interceptor;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.microprofile.metrics.Metric;
+
+import fish.payara.microprofile.metrics.cdi.AnnotationReader;
+import fish.payara.microprofile.metrics.impl.MetricRegistryImpl;
+
+/**
+ * A table of the {@link Metric}s an interceptor updates per bean class and intercepted method or constructor.
+ *
+ * Resolving the {@link org.eclipse.microprofile.metrics.MetricID} from the annotations and looking up the metric in
+ * the application registry is done once for each bean class and element. Later invocations reuse the bound metric
+ * for as long as the current application registry is still the one it was resolved from and no metric got removed
+ * from that registry.
+ *
+ * Bindings are kept per bean {@link Class} so they go away together with the application's class loader.
+ *
+ * @param <M> type of the metric bound
+ */
+/* package-private */ final class MetricBindings<M extends Metric> {
+
+    private static final class Binding<M extends Metric> {
+
+        final M metric;
+        final MetricRegistryImpl registry;
+        final long removalCount;
+
+        Binding(M metric, MetricRegistryImpl registry, long removalCount) {
+            this.metric = metric;
+            this.registry = registry;
+            this.removalCount = removalCount;
+        }
+
+        boolean isValid(MetricRegistryImpl applicationRegistry) {
+            return registry == applicationRegistry && registry.getRemovalCount() == removalCount;
+        }
+    }
+
+    private final AnnotationReader<?> reader;
+    private final Class<M> metricType;
+    private final ClassValue<ConcurrentMap<Member, Binding<M>>> bindingsByBean = new ClassValue<ConcurrentMap<Member, Binding<M>>>() {
+
+        @Override
+        protected ConcurrentMap<Member, Binding<M>> computeValue(Class<?> bean) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    MetricBindings(AnnotationReader<?> reader, Class<M> metricType) {
+        this.reader = reader;
+        this.metricType = metricType;
+    }
+
+    /**
+     * @param element the intercepted method or constructor
+     * @param bean the intercepted bean class
+     * @param registry the registry of the current application
+     * @return the metric to update for the element, never null
+     * @throws IllegalStateException in case no metric is registered for the element
+     */
+    <E extends Member & AnnotatedElement> M get(E element, Class<?> bean, RegistrySource registry) {
+        ConcurrentMap<Member, Binding<M>> bindings = bindingsByBean.get(bean);
+        Binding<M> binding = bindings.get(element);
+        MetricRegistryImpl applicationRegistry = registry.getApplicationRegistry();
+        if (binding != null && binding.isValid(applicationRegistry)) {
+            return binding.metric;
+        }
+        long removalCount = applicationRegistry.getRemovalCount();
+        M metric = AbstractInterceptor.apply(element, bean, reader, metricType, applicationRegistry::getMetric);
+        bindings.put(element, new Binding<>(metric, applicationRegistry, removalCount));
+        return metric;
+    }
+
+    @FunctionalInterface
+    interface RegistrySource {
+
+        MetricRegistryImpl getApplicationRegistry();
+    }
+}
@@ -58,10 +58,13 @@ import fish.payara.microprofile.metrics.cdi.AnnotationReader;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 1)
 public class SimplyTimedInterceptor extends AbstractInterceptor {
 
+    private static final MetricBindings<SimpleTimer> BINDINGS = new MetricBindings<>(AnnotationReader.SIMPLY_TIMED,
+            SimpleTimer.class);
+
     @Override
     protected <E extends Member & AnnotatedElement> Object applyInterceptor(InvocationContext context, E element)
             throws Exception {
-        return proceedTimed(context, element, bean.getBeanClass(), this::getMetric);
+        return proceedTimed(context, getBoundMetric(BINDINGS, element));
     }
 
     /**
@@ -69,6 +72,10 @@ public class SimplyTimedInterceptor extends AbstractInterceptor {
      */
     static <E extends Member & AnnotatedElement> Object proceedTimed(InvocationContext context, E element,
             Class<?> bean, BiFunction<MetricID, Class<SimpleTimer>, SimpleTimer> loader) throws Exception {
-        return apply(element, bean, AnnotationReader.SIMPLY_TIMED, SimpleTimer.class, loader).time(context::proceed);
+        return proceedTimed(context, apply(element, bean, AnnotationReader.SIMPLY_TIMED, SimpleTimer.class, loader));
+    }
+
+    private static Object proceedTimed(InvocationContext context, SimpleTimer timer) throws Exception {
+        return timer.time(context::proceed);
     }
 }
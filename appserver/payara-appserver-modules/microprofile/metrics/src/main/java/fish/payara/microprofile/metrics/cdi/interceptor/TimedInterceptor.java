@@ -58,10 +58,12 @@ import fish.payara.microprofile.metrics.cdi.AnnotationReader;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 1)
 public class TimedInterceptor extends AbstractInterceptor {
 
+    private static final MetricBindings<Timer> BINDINGS = new MetricBindings<>(AnnotationReader.TIMED, Timer.class);
+
     @Override
     protected <E extends Member & AnnotatedElement> Object applyInterceptor(InvocationContext context, E element)
             throws Exception {
-        return proceedTimed(context, element, bean.getBeanClass(), this::getMetric);
+        return proceedTimed(context, getBoundMetric(BINDINGS, element));
     }
 
     /**
@@ -69,7 +71,11 @@ public class TimedInterceptor extends AbstractInterceptor {
      */
     static <E extends Member & AnnotatedElement> Object proceedTimed(InvocationContext context, E element,
             Class<?> bean, BiFunction<MetricID, Class<Timer>, Timer> loader) throws Exception {
-        return apply(element, bean, AnnotationReader.TIMED, Timer.class, loader).time(context::proceed);
+        return proceedTimed(context, apply(element, bean, AnnotationReader.TIMED, Timer.class, loader));
+    }
+
+    private static Object proceedTimed(InvocationContext context, Timer timer) throws Exception {
+        return timer.time(context::proceed);
     }
 
 }
@@ -0,0 +1,245 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *    Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *     The contents of this file are subject to the terms of either the GNU
+ *     General Public License Version 2 only ("GPL") or the Common Development
+ *     and Distribution License("CDDL") (collectively, the "License").  You
+ *     may not use this file except in compliance with the License.  You can
+ *     obtain a copy of the License at
+ *     https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *     See the License for the specific
+ *     language governing permissions and limitations under the License.
+ *
+ *     When distributing the software, include this License Header Notice in each
+ *     file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *     GPL Classpath Exception:
+ *     The Payara Foundation designates this particular file as subject to the "Classpath"
+ *     exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *     file that accompanied this code.
+ *
+ *     Modifications:
+ *     If applicable, add the following below the License Header, with the fields
+ *     enclosed by brackets [] replaced by your own identifying information:
+ *     "Portions Copyright [year] [name of copyright owner]"
+ *
+ *     Contributor(s):
+ *     If you wish your version of this file to be governed by only the CDDL or
+ *     only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *     elects to include this software in this distribution under the [CDDL or GPL
+ *     Version 2] license."  If you don't indicate a single choice of license, a
+ *     recipient has the option to distribute your version of this file under
+ *     either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *     its licensees as provided above.  However, if you add GPL Version 2 code
+ *     and therefore, elected the GPL Version 2 license, then the option applies
+ *     only if the new code is made subject to such option by the copyright
+ *     holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import fish.payara.microprofile.metrics.impl.WeightedSnapshot.WeightedSample;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.eclipse.microprofile.metrics.Snapshot;
+
+/**
+ * A {@link Reservoir} that counts values in log-linear buckets instead of keeping samples.
+ *
+ * Values below 64 are counted exactly, larger values fall into buckets which are at most 1/32 of their lower bound
+ * wide, so the values reported in a snapshot are within about 1.6% of the recorded ones. Values above
+ * {@link #MAX_TRACKABLE_VALUE}, about 4.9 hours in nanoseconds, are counted in the highest bucket. The reservoir is
+ * meant for non-negative values like durations; negative values are counted as zero.
+ *
+ * Counts are recorded into {@link AtomicLongArray} stripes picked by thread, so {@link #update(long)} neither locks
+ * nor allocates. An interval starts with a single stripe and only adds stripes, up to the number of processors but
+ * at most {@value #MAX_STRIPES}, when concurrent updates of the same count collide. Snapshots cover the current and
+ * the previous interval, by default these are one minute long. The two intervals are reused, starting a new
+ * interval resets the counts of the older one.
+ */
+public class LogLinearReservoir implements Reservoir {
+
+    static final long MAX_TRACKABLE_VALUE = (1L << 44) - 1;
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_VALUE) + 1;
+    private static final int MAX_STRIPES = 4;
+    private static final long DEFAULT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final Clock clock;
+    private final long intervalLength;
+    private final int maxStripes;
+    private volatile Interval current;
+    private volatile Interval previous;
+
+    /**
+     * The counts recorded since the start of an interval.
+     */
+    private static final class Interval {
+
+        volatile long start;
+        volatile AtomicLongArray[] stripes;
+
+        Interval(long start) {
+            this.start = start;
+            this.stripes = new AtomicLongArray[] { new AtomicLongArray(BUCKET_COUNT) };
+        }
+
+        void increment(int index, int maxStripes) {
+            AtomicLongArray[] stripes = this.stripes;
+            AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+            long count = stripe.get(index);
+            if (!stripe.compareAndSet(index, count, count + 1)) {
+                stripe.incrementAndGet(index);
+                if (stripes.length < maxStripes) {
+                    addStripes(stripes);
+                }
+            }
+        }
+
+        private synchronized void addStripes(AtomicLongArray[] contended) {
+            if (stripes != contended) {
+                return;
+            }
+            AtomicLongArray[] added = Arrays.copyOf(contended, contended.length * 2);
+            for (int i = contended.length; i < added.length; i++) {
+                added[i] = new AtomicLongArray(BUCKET_COUNT);
+            }
+            stripes = added;
+        }
+
+        void reset(long start) {
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    stripe.set(i, 0);
+                }
+            }
+            this.start = start;
+        }
+
+        void addTo(long[] counts) {
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts[i] += stripe.get(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link LogLinearReservoir} with one minute intervals.
+     */
+    public LogLinearReservoir() {
+        this(DEFAULT_INTERVAL, TimeUnit.NANOSECONDS, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link LogLinearReservoir}.
+     *
+     * @param interval the length of an interval, snapshots cover between one and two intervals
+     * @param unit the unit of {@code interval}
+     * @param clock the clock used to start new intervals
+     */
+    public LogLinearReservoir(long interval, TimeUnit unit, Clock clock) {
+        this.clock = clock;
+        this.intervalLength = unit.toNanos(interval);
+        this.maxStripes = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+        this.current = new Interval(clock.getTick());
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (long count : getCounts()) {
+            size += count;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @Override
+    public void update(long value) {
+        currentInterval().increment(indexOf(value), maxStripes);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        long[] counts = getCounts();
+        List<WeightedSample> samples = new ArrayList<>();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] > 0) {
+                samples.add(new WeightedSample(valueOf(i), counts[i]));
+            }
+        }
+        return new WeightedSnapshot(samples);
+    }
+
+    private Interval currentInterval() {
+        Interval interval = current;
+        long now = clock.getTick();
+        if (now - interval.start < intervalLength) {
+            return interval;
+        }
+        return nextInterval(now);
+    }
+
+    private synchronized Interval nextInterval(long now) {
+        Interval interval = current;
+        if (now - interval.start < intervalLength) {
+            return interval;
+        }
+        Interval next = previous;
+        if (next == null) {
+            next = new Interval(now);
+        } else {
+            // expire the interval first, so that snapshots skip it while its counts are reset
+            next.start = now - 2 * intervalLength;
+            next.reset(now);
+        }
+        previous = interval;
+        current = next;
+        return next;
+    }
+
+    private long[] getCounts() {
+        long now = clock.getTick();
+        long[] counts = new long[BUCKET_COUNT];
+        Interval interval = current;
+        if (now - interval.start < 2 * intervalLength) {
+            interval.addTo(counts);
+        }
+        interval = previous;
+        if (interval != null && now - interval.start < 2 * intervalLength) {
+            interval.addTo(counts);
+        }
+        return counts;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value <= 0 ? 0 : (int) value;
+        }
+        if (value > MAX_TRACKABLE_VALUE) {
+            value = MAX_TRACKABLE_VALUE;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return exponent * SUB_BUCKET_HALF + (int) (value >>> exponent);
+    }
+
+    /**
+     * @return the value in the middle of the bucket with the given index
+     */
+    static long valueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF - 1;
+        long lowerBound = (long) (index - exponent * SUB_BUCKET_HALF) << exponent;
+        return lowerBound + ((1L << exponent) - 1) / 2;
+    }
+}
@@ -52,6 +52,8 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -112,14 +114,26 @@ public class MetricRegistryImpl extends MetricRegistry {
 
     private final ConcurrentMap<String, MetricFamily<?>> metricsFamiliesByName = new ConcurrentHashMap<>();
     private final Clock clock;
+    private final Supplier<Reservoir> reservoirFactory;
     private final List<MetricRegistrationListener> listeners = new ArrayList<>();
+    private final AtomicLong removalCount = new AtomicLong();
 
     public MetricRegistryImpl() {
         this(Clock.defaultClock());
     }
 
     public MetricRegistryImpl(Clock clock) {
+        this(clock, ExponentiallyDecayingReservoir::new);
+    }
+
+    /**
+     * @param clock the clock used by metrics created by this registry
+     * @param reservoirFactory creates the {@link Reservoir} of each {@link Histogram} and {@link Timer} created by this
+     *                         registry
+     */
+    public MetricRegistryImpl(Clock clock, Supplier<Reservoir> reservoirFactory) {
         this.clock = clock;
+        this.reservoirFactory = reservoirFactory;
     }
 
     public MetricRegistryImpl addListener(MetricRegistrationListener listener) {
@@ -344,7 +358,11 @@ public class MetricRegistryImpl extends MetricRegistry {
 
     @Override
     public boolean remove(String name) {
-        return metricsFamiliesByName.remove(name) != null;
+        if (metricsFamiliesByName.remove(name) != null) {
+            removalCount.incrementAndGet();
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -356,6 +374,9 @@ public class MetricRegistryImpl extends MetricRegistry {
             }
             return family.metrics.isEmpty() ? null : family;
         });
+        if (removed.get()) {
+            removalCount.incrementAndGet();
+        }
         return removed.get();
     }
 
@@ -363,6 +384,7 @@ public class MetricRegistryImpl extends MetricRegistry {
     public void removeMatching(MetricFilter filter) {
         if (filter == MetricFilter.ALL) {
             metricsFamiliesByName.clear();
+            removalCount.incrementAndGet();
         }
         Iterator<MetricFamily<?>> familyIter = metricsFamiliesByName.values().iterator();
         while (familyIter.hasNext()) {
@@ -553,9 +575,9 @@ public class MetricRegistryImpl extends MetricRegistry {
         case METERED:
             return new MeterImpl();
         case HISTOGRAM:
-            return new HistogramImpl();
+            return new HistogramImpl(reservoirFactory.get());
         case TIMER:
-            return new TimerImpl(clock);
+            return new TimerImpl(reservoirFactory.get(), clock);
         case SIMPLE_TIMER:
             return new SimpleTimerImpl(clock);
         case INVALID:
@@ -581,6 +603,14 @@ public class MetricRegistryImpl extends MetricRegistry {
         return (T) metric;
     }
 
+    /**
+     * @return the number of times metrics have been removed from this registry, any change of this value means a
+     *         {@link Metric} obtained earlier might no longer be registered
+     */
+    public long getRemovalCount() {
+        return removalCount.get();
+    }
+
     public Set<MetricID> getMetricsIDs(String name) {
         MetricFamily<?> family = metricsFamiliesByName.get(name);
         return family == null ? emptySet() : unmodifiableSet(family.metrics.keySet());
@@ -48,14 +48,21 @@ import fish.payara.microprofile.metrics.writer.JsonExporter.Mode;
 import fish.payara.microprofile.metrics.writer.MetricsWriter;
 import fish.payara.microprofile.metrics.writer.MetricsWriterImpl;
 import fish.payara.microprofile.metrics.writer.OpenMetricsExporter;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import static fish.payara.microprofile.AcceptEncoding.GZIP;
+import static fish.payara.microprofile.AcceptEncoding.acceptsGzip;
 import static fish.payara.microprofile.Constants.EMPTY_STRING;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import javax.servlet.ServletException;
@@ -69,6 +76,9 @@ import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.ws.rs.HttpMethod.GET;
 import static javax.ws.rs.HttpMethod.OPTIONS;
 import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import javax.ws.rs.core.MediaType;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
@@ -80,6 +90,7 @@ public class MetricsResource extends HttpServlet {
     private static final Logger LOG = Logger.getLogger(MetricsResource.class.getName());
     private static final String APPLICATION_WILDCARD = "application/*";
     private static final Pattern PATTERN_Q_PART = Pattern.compile("\\s*q\\s*=\\s*(.+)");
+    private static final int BUFFER_SIZE = 8192;
 
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>OPTIONS</code>
@@ -105,41 +116,88 @@ public class MetricsResource extends HttpServlet {
         String registryName = pathInfos.length > 0 ? pathInfos[0] : null;
         String metricName = pathInfos.length > 1 ? pathInfos[1] : null;
 
-        try {
-            String contentType = getContentType(request, response);
-            if (contentType != null) {
-                response.setContentType(contentType);
-                response.setCharacterEncoding(UTF_8.name());
-                MetricsWriter outputWriter = getOutputWriter(request, response, metricsService, contentType);
-                if (outputWriter != null) {
-                    if (registryName != null && !registryName.isEmpty()) {
-                        Type scope;
-                        try {
-                            scope = Type.valueOf(registryName.toUpperCase());
-                        } catch (RuntimeException ex) {
-                            throw new NoSuchRegistryException(registryName);
-                        }
-                        if (metricName != null && !metricName.isEmpty()) {
-                            outputWriter.write(scope, metricName);
-                        } else {
-                            outputWriter.write(scope);
-                        }
+        String contentType = getContentType(request, response);
+        if (contentType == null) {
+            return;
+        }
+        response.setContentType(contentType);
+        response.setCharacterEncoding(UTF_8.name());
+        // closing the writer before an error is sent only completes the gzip stream in the uncommitted buffer
+        try (Writer writer = getWriter(request, response)) {
+            MetricsWriter outputWriter = getOutputWriter(request, writer, metricsService, contentType);
+            if (outputWriter != null) {
+                if (registryName != null && !registryName.isEmpty()) {
+                    Type scope;
+                    try {
+                        scope = Type.valueOf(registryName.toUpperCase());
+                    } catch (RuntimeException ex) {
+                        throw new NoSuchRegistryException(registryName);
+                    }
+                    if (metricName != null && !metricName.isEmpty()) {
+                        outputWriter.write(scope, metricName);
                     } else {
-                        outputWriter.write();
+                        outputWriter.write(scope);
                     }
+                } else {
+                    outputWriter.write();
                 }
             }
         } catch (NoSuchRegistryException ex) {
+            resetOutput(response);
             response.sendError(SC_NOT_FOUND, String.format("[%s] registry not found", registryName));
         } catch (NoSuchMetricException ex) {
+            resetOutput(response);
             response.sendError(SC_NOT_FOUND, String.format("[%s] metric not found", metricName));
         }
     }
 
+    /**
+     * Writes the output straight to the response stream through a single buffer, compressed if the client accepts
+     * gzip encoding. Closing the writer leaves the response stream open for the container to complete the response.
+     */
     @SuppressWarnings("resource")
+    static Writer getWriter(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OutputStream out = new ResponseOutputStream(response.getOutputStream());
+        response.addHeader(VARY, ACCEPT_ENCODING);
+        if (acceptsGzip(request.getHeader(ACCEPT_ENCODING))) {
+            response.setHeader(CONTENT_ENCODING, GZIP);
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * The response stream as seen by the writer, which the container completes once the request is processed.
+     */
+    private static final class ResponseOutputStream extends FilterOutputStream {
+
+        ResponseOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            // left open so that an error can still be sent
+        }
+    }
+
+    /**
+     * Drops any output and headers set for it so an error can be sent instead. Nothing was committed yet as registries
+     * are resolved before their metrics are written.
+     */
+    private static void resetOutput(HttpServletResponse response) {
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+    }
+
     private static MetricsWriter getOutputWriter(HttpServletRequest request,
-            HttpServletResponse response, MetricsService service, String contentType) throws IOException {
-        Writer writer = response.getWriter();
+            Writer writer, MetricsService service, String contentType) {
         String method = request.getMethod();
         if (GET.equalsIgnoreCase(method)) {
             if (APPLICATION_JSON.equals(contentType)) {
@@ -54,6 +54,7 @@ import javax.json.Json;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObjectBuilder;
 import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
 import javax.json.stream.JsonGenerator;
 
 import org.eclipse.microprofile.metrics.ConcurrentGauge;
@@ -85,6 +86,11 @@ public class JsonExporter implements MetricExporter {
 
     public enum Mode { GET, OPTIONS }
 
+    private static final JsonWriterFactory PRETTY_WRITER_FACTORY = Json.createWriterFactory(
+            singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+    private static final JsonWriterFactory COMPACT_WRITER_FACTORY = Json.createWriterFactory(
+            singletonMap(JsonGenerator.PRETTY_PRINTING, false));
+
     private final MetricRegistry.Type scope;
     private final JsonWriter out;
     private final Mode mode;
@@ -100,7 +106,7 @@ public class JsonExporter implements MetricExporter {
     }
 
     private static JsonWriter writer(Writer out, boolean prettyPrint) {
-        return Json.createWriterFactory(singletonMap(JsonGenerator.PRETTY_PRINTING, prettyPrint)).createWriter(out);
+        return (prettyPrint ? PRETTY_WRITER_FACTORY : COMPACT_WRITER_FACTORY).createWriter(out);
     }
 
     private JsonExporter(MetricRegistry.Type scope, JsonWriter out, Mode mode, JsonObjectBuilder documentObj,
@@ -45,10 +45,13 @@ import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.LongSupplier;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 
 import org.eclipse.microprofile.metrics.ConcurrentGauge;
 import org.eclipse.microprofile.metrics.Counter;
@@ -85,6 +88,15 @@ public class OpenMetricsExporter implements MetricExporter {
         counter, gauge, summary
     }
 
+    private static final Pattern INVALID_NAME_CHARS = Pattern.compile("[^a-zA-Z0-9_]+");
+    private static final Pattern COLON_UNDERSCORE = Pattern.compile(":_");
+
+    /**
+     * Sanitized names by their original, shared by all exports as the same names are written on every scrape.
+     */
+    private static final Map<String, String> SANITIZED_NAMES = new ConcurrentHashMap<>();
+    private static final int MAX_SANITIZED_NAMES = 16384;
+
     protected final Type scope;
     protected final PrintWriter out;
     protected final Set<String> typeWrittenByGlobalName;
@@ -287,19 +299,19 @@ public class OpenMetricsExporter implements MetricExporter {
         if (tags.length == 0) {
             return "";
         }
-        String result = "";
-        result += "{";
+        StringBuilder result = new StringBuilder();
+        result.append('{');
         for (int i = 0; i < tags.length; i++) {
             if (i > 0) {
-                result += ",";
+                result.append(',');
             }
-            result += sanitizeMetricName(tags[i].getTagName())
-                    + "=\""
-                    + escapeTagValue(tags[i].getTagValue())
-                    + '"';
+            result.append(sanitizeMetricName(tags[i].getTagName()))
+                    .append("=\"")
+                    .append(escapeTagValue(tags[i].getTagValue()))
+                    .append('"');
         }
-        result += "}";
-        return result;
+        result.append('}');
+        return result.toString();
     }
 
     private String globalName(MetricID metricID, Metadata unit) {
@@ -375,12 +387,19 @@ public class OpenMetricsExporter implements MetricExporter {
     }
 
     public static String sanitizeMetricName(String name) {
-        //Translation rules :
-        //All characters not in the range a-z A-Z or 0-9 are translated to underscore (_)
-        //Double underscore is translated to single underscore
-        String out = name.replaceAll("[^a-zA-Z0-9_]+", "_");
-        //Colon-underscore (:_) is translated to single colon
-        return out.replaceAll(":_", ":");
+        String sanitized = SANITIZED_NAMES.get(name);
+        if (sanitized == null) {
+            //Translation rules :
+            //All characters not in the range a-z A-Z or 0-9 are translated to underscore (_)
+            //Double underscore is translated to single underscore
+            String out = INVALID_NAME_CHARS.matcher(name).replaceAll("_");
+            //Colon-underscore (:_) is translated to single colon
+            sanitized = COLON_UNDERSCORE.matcher(out).replaceAll(":");
+            if (SANITIZED_NAMES.size() < MAX_SANITIZED_NAMES) {
+                SANITIZED_NAMES.put(name, sanitized);
+            }
+        }
+        return sanitized;
     }
 
     private static Tag[] tags(String name, String value, Tag[] rest) {
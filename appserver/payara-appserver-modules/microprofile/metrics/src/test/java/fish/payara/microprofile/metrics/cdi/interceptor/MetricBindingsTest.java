@@ -0,0 +1,140 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ *
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ *
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package fish.payara.microprofile.metrics.cdi.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metric;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.annotation.Counted;
+import org.junit.Test;
+
+import fish.payara.microprofile.metrics.cdi.AnnotationReader;
+import fish.payara.microprofile.metrics.cdi.MetricUtils;
+import fish.payara.microprofile.metrics.impl.MetricRegistryImpl;
+
+/**
+ * Tests that {@link MetricBindings} resolves the metric of an intercepted element only once per application registry.
+ *
+ * @since 5.202
+ */
+public class MetricBindingsTest {
+
+    private final MetricRegistryImpl registry = new CountingMetricRegistry();
+    private final MetricBindings<Counter> bindings = new MetricBindings<>(AnnotationReader.COUNTED, Counter.class);
+    private int lookups;
+
+    private final class CountingMetricRegistry extends MetricRegistryImpl {
+
+        @Override
+        public <T extends Metric> T getMetric(MetricID metricID, Class<T> metricType) {
+            lookups++;
+            return super.getMetric(metricID, metricType);
+        }
+    }
+
+    private MetricRegistryImpl lookupRegistry() {
+        return registry;
+    }
+
+    @Test
+    @Counted
+    public void metricIsResolvedOnce() throws Exception {
+        Method element = getClass().getMethod("metricIsResolvedOnce");
+        Counter counter = register(element);
+        for (int i = 0; i < 3; i++) {
+            assertSame(counter, bindings.get(element, getClass(), this::lookupRegistry));
+        }
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    @Counted
+    public void metricIsResolvedAgainAfterRemoval() throws Exception {
+        Method element = getClass().getMethod("metricIsResolvedAgainAfterRemoval");
+        Counter counter = register(element);
+        assertSame(counter, bindings.get(element, getClass(), this::lookupRegistry));
+        MetricID metricID = AnnotationReader.COUNTED.metricID(getClass(), element);
+        registry.remove(metricID);
+        try {
+            bindings.get(element, getClass(), this::lookupRegistry);
+            fail("Expected a IllegalStateException because the metric does not exist");
+        } catch (IllegalStateException ex) {
+            assertEquals("No Counter with ID [" + metricID + "] found in application registry", ex.getMessage());
+        }
+        Counter replacement = register(element);
+        assertNotSame(counter, replacement);
+        assertSame(replacement, bindings.get(element, getClass(), this::lookupRegistry));
+        assertEquals(3, lookups);
+    }
+
+    @Test
+    @Counted
+    public void metricIsResolvedAgainForOtherRegistry() throws Exception {
+        Method element = getClass().getMethod("metricIsResolvedAgainForOtherRegistry");
+        Counter counter = register(element);
+        assertSame(counter, bindings.get(element, getClass(), this::lookupRegistry));
+        MetricRegistryImpl otherRegistry = new CountingMetricRegistry();
+        Counter otherCounter = register(otherRegistry, element);
+        assertNotSame(counter, otherCounter);
+        assertSame(otherCounter, bindings.get(element, getClass(), () -> otherRegistry));
+        assertSame(counter, bindings.get(element, getClass(), this::lookupRegistry));
+        assertEquals(3, lookups);
+    }
+
+    private Counter register(Method element) {
+        return register(registry, element);
+    }
+
+    private Counter register(MetricRegistryImpl registry, Method element) {
+        AnnotationReader<Counted> reader = AnnotationReader.COUNTED;
+        return MetricUtils.getOrRegisterByMetadataAndTags(registry, Counter.class,
+                reader.metadata(getClass(), element), reader.tags(reader.annotation(getClass(), element)));
+    }
+}
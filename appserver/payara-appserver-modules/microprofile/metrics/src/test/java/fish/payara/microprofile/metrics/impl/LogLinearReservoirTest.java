@@ -0,0 +1,163 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright (c) [2020] Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ *  The contents of this file are subject to the terms of either the GNU
+ *  General Public License Version 2 only ("GPL") or the Common Development
+ *  and Distribution License("CDDL") (collectively, the "License").  You
+ *  may not use this file except in compliance with the License.  You can
+ *  obtain a copy of the License at
+ *  https://github.com/payara/Payara/blob/master/LICENSE.txt
+ *  See the License for the specific
+ *  language governing permissions and limitations under the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License.
+ *
+ *  When distributing the software, include this License Header Notice in each
+ *  file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ *  GPL Classpath Exception:
+ *  The Payara Foundation designates this particular file as subject to the "Classpath"
+ *  exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ *  file that accompanied this code.
+ *
+ *  Modifications:
+ *  If applicable, add the following below the License Header, with the fields
+ *  enclosed by brackets [] replaced by your own identifying information:
+ *  "Portions Copyright [year] [name of copyright owner]"
+ *
+ *  Contributor(s):
+ *  If you wish your version of this file to be governed by only the CDDL or
+ *  only the GPL Version 2, indicate your decision by adding "[Contributor]
+ *  elects to include this software in this distribution under the [CDDL or GPL
+ *  Version 2] license."  If you don't indicate a single choice of license, a
+ *  recipient has the option to distribute your version of this file under
+ *  either the CDDL, the GPL Version 2 or to extend the choice of license to
+ *  its licensees as provided above.  However, if you add GPL Version 2 code
+ *  and therefore, elected the GPL Version 2 license, then the option applies
+ *  only if the new code is made subject to such option by the copyright
+ *  holder.
+ */
+package fish.payara.microprofile.metrics.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Test;
+
+/**
+ * Tests the {@link LogLinearReservoir}.
+ *
+ * @since 5.202
+ */
+public class LogLinearReservoirTest {
+
+    private final AtomicLong tick = new AtomicLong();
+    private final LogLinearReservoir reservoir = new LogLinearReservoir(1, TimeUnit.MINUTES, tick::get);
+
+    @Test
+    public void smallValuesAreExact() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LogLinearReservoir.valueOf(LogLinearReservoir.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void largeValuesAreWithinBucketPrecision() {
+        long[] values = { 64, 65, 100, 127, 128, 1000, 12345, 1_000_000, 123_456_789_000L,
+                LogLinearReservoir.MAX_TRACKABLE_VALUE };
+        int lastIndex = -1;
+        for (long value : values) {
+            int index = LogLinearReservoir.indexOf(value);
+            assertTrue(index >= lastIndex);
+            lastIndex = index;
+            long bucketValue = LogLinearReservoir.valueOf(index);
+            assertTrue(value + " reported as " + bucketValue, Math.abs(bucketValue - value) <= value / 32);
+        }
+    }
+
+    @Test
+    public void valuesAboveMaxTrackableValueAreCountedInHighestBucket() {
+        int highest = LogLinearReservoir.indexOf(LogLinearReservoir.MAX_TRACKABLE_VALUE);
+        assertEquals(highest, LogLinearReservoir.indexOf(LogLinearReservoir.MAX_TRACKABLE_VALUE + 1));
+        assertEquals(highest, LogLinearReservoir.indexOf(Long.MAX_VALUE));
+        reservoir.update(Long.MAX_VALUE);
+        assertWithinPrecision(LogLinearReservoir.MAX_TRACKABLE_VALUE, reservoir.getSnapshot().getMax());
+    }
+
+    @Test
+    public void negativeValuesAreCountedAsZero() {
+        reservoir.update(-5);
+        assertEquals(0, reservoir.getSnapshot().getMin());
+        assertEquals(1, reservoir.size());
+    }
+
+    @Test
+    public void snapshotReflectsRecordedValues() {
+        for (int i = 1; i <= 100; i++) {
+            reservoir.update(i * 1000L);
+        }
+        assertEquals(100, reservoir.size());
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertWithinPrecision(1000, snapshot.getMin());
+        assertWithinPrecision(100_000, snapshot.getMax());
+        assertWithinPrecision(50_000, (long) snapshot.getMedian());
+        assertWithinPrecision(99_000, (long) snapshot.get99thPercentile());
+        assertWithinPrecision(50_500, (long) snapshot.getMean());
+    }
+
+    @Test
+    public void snapshotCoversCurrentAndPreviousInterval() {
+        reservoir.update(10);
+        tick.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        reservoir.update(20);
+        assertEquals(2, reservoir.size());
+        tick.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        reservoir.update(30);
+        assertEquals(2, reservoir.size());
+        assertEquals(20, reservoir.getSnapshot().getMin());
+        tick.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        assertEquals(0, reservoir.size());
+    }
+
+    @Test
+    public void reusedIntervalsStartEmpty() {
+        for (int i = 1; i <= 10; i++) {
+            reservoir.update(i);
+            reservoir.update(i);
+            tick.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        }
+        reservoir.update(100);
+        assertEquals(3, reservoir.size());
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(10, snapshot.getMin());
+        assertEquals(100, snapshot.getMax());
+    }
+
+    @Test
+    public void concurrentUpdatesAreAllCounted() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    reservoir.update(42);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, reservoir.size());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(expected + " reported as " + actual, Math.abs(expected - actual) <= expected / 32);
+    }
+}
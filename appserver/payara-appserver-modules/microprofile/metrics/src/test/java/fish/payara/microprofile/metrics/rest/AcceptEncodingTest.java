@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package fish.payara.microprofile.metrics.rest;
+
+import static fish.payara.microprofile.AcceptEncoding.GZIP;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link MetricsResource} compresses its output according to the <code>Accept-Encoding</code> header.
+ * The header negotiation itself is tested by {@code fish.payara.microprofile.AcceptEncodingTest}.
+ */
+public class AcceptEncodingTest {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @Test
+    public void outputIsCompressedWhenGzipIsAccepted() throws IOException {
+        write("deflate, gzip;q=0.5");
+        verify(response).setHeader(CONTENT_ENCODING, GZIP);
+        verify(response).addHeader(VARY, ACCEPT_ENCODING);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertEquals("# metrics", readFully(in));
+        }
+    }
+
+    @Test
+    public void outputIsNotCompressedWhenGzipIsRefused() throws IOException {
+        write("gzip;q=0");
+        verify(response, never()).setHeader(eq(CONTENT_ENCODING), anyString());
+        verify(response).addHeader(VARY, ACCEPT_ENCODING);
+        assertEquals("# metrics", new String(body.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void outputIsNotCompressedWithoutHeader() throws IOException {
+        write(null);
+        verify(response, never()).setHeader(eq(CONTENT_ENCODING), anyString());
+        assertEquals("# metrics", new String(body.toByteArray(), UTF_8));
+    }
+
+    private void write(String acceptEncoding) throws IOException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // not asynchronous
+            }
+        });
+        try (Writer writer = MetricsResource.getWriter(request, response)) {
+            writer.write("# metrics");
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile;
+
+/**
+ * Content coding negotiation of the MicroProfile endpoints that can respond compressed.
+ *
+ * @since 5.2020.7
+ */
+public final class AcceptEncoding {
+
+    public static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String ANY_ENCODING = "*";
+
+    private AcceptEncoding() {
+        // utility class
+    }
+
+    /**
+     * @param acceptEncoding the value of the <code>Accept-Encoding</code> request header, may be null
+     * @return true if the header accepts gzip with a non-zero q value, either by name or through the
+     * <code>*</code> wildcard
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double qGzip = -1;
+        double qWildcard = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || X_GZIP.equalsIgnoreCase(name)) {
+                qGzip = Math.max(qGzip, qValue(parts));
+            } else if (ANY_ENCODING.equals(name)) {
+                qWildcard = qValue(parts);
+            }
+        }
+        return qGzip >= 0 ? qGzip > 0 : qWildcard > 0;
+    }
+
+    private static double qValue(String[] codingParts) {
+        for (int i = 1; i < codingParts.length; i++) {
+            String[] parameter = codingParts[i].split("=", 2);
+            if (parameter.length == 2 && "q".equalsIgnoreCase(parameter[0].trim())) {
+                try {
+                    return Double.parseDouble(parameter[1].trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile;
+
+import static fish.payara.microprofile.AcceptEncoding.acceptsGzip;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the <code>Accept-Encoding</code> negotiation of {@link AcceptEncoding}.
+ */
+public class AcceptEncodingTest {
+
+    @Test
+    public void gzipNotAcceptedWithoutHeader() {
+        assertFalse(acceptsGzip(null));
+        assertFalse(acceptsGzip(""));
+    }
+
+    @Test
+    public void gzipAccepted() {
+        assertTrue(acceptsGzip("gzip"));
+        assertTrue(acceptsGzip("deflate, gzip;q=1.0, *;q=0.5"));
+        assertTrue(acceptsGzip("GZIP; q=0.5"));
+        assertTrue(acceptsGzip("gzip;q=.5"));
+        assertTrue(acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    public void gzipRefusedWithZeroQuality() {
+        assertFalse(acceptsGzip("gzip;q=0"));
+        assertFalse(acceptsGzip("identity, gzip; q=0.0"));
+        assertFalse(acceptsGzip("gzip;Q = 0"));
+    }
+
+    @Test
+    public void gzipRefusedWithMalformedQuality() {
+        assertFalse(acceptsGzip("gzip;q=high"));
+    }
+
+    @Test
+    public void highestQualityOfGzipAliasesWins() {
+        assertTrue(acceptsGzip("gzip;q=0, x-gzip;q=0.3"));
+    }
+
+    @Test
+    public void gzipAcceptedThroughWildcard() {
+        assertTrue(acceptsGzip("*"));
+        assertTrue(acceptsGzip("deflate, *;q=0.1"));
+        assertFalse(acceptsGzip("*;q=0"));
+    }
+
+    @Test
+    public void namedGzipTakesPrecedenceOverWildcard() {
+        assertFalse(acceptsGzip("gzip;q=0, *"));
+        assertTrue(acceptsGzip("gzip, *;q=0"));
+    }
+
+    @Test
+    public void gzipNotAcceptedForOtherEncodings() {
+        assertFalse(acceptsGzip("deflate, br"));
+        assertFalse(acceptsGzip("gzipped"));
+    }
+}
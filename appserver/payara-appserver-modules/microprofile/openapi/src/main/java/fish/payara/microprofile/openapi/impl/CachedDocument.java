@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+
+import fish.payara.microprofile.openapi.impl.rest.app.provider.ObjectMapperFactory;
+
+/**
+ * An OpenAPI document together with its JSON and YAML renderings, so that
+ * requests for the document can be answered without serializing the model.
+ */
+public final class CachedDocument {
+
+    private static final ObjectMapper JSON_MAPPER = ObjectMapperFactory.createJson();
+    private static final ObjectMapper YAML_MAPPER = ObjectMapperFactory.createYaml();
+
+    private final OpenAPI model;
+    private final Representation json;
+    private final Representation yaml;
+
+    /**
+     * Renders the given document.
+     *
+     * @param model the OpenAPI document, not modified after this call
+     * @throws IOException if the document could not be serialized
+     */
+    public CachedDocument(OpenAPI model) throws IOException {
+        this.model = model;
+        byte[] jsonContent = JSON_MAPPER.writeValueAsBytes(model);
+        String version = hash(jsonContent);
+        this.json = new Representation(jsonContent, version + "-json");
+        this.yaml = new Representation(YAML_MAPPER.writeValueAsBytes(model), version + "-yaml");
+    }
+
+    public OpenAPI getModel() {
+        return model;
+    }
+
+    public Representation getJson() {
+        return json;
+    }
+
+    public Representation getYaml() {
+        return yaml;
+    }
+
+    /**
+     * The document rendered in one format, both as is and gzip compressed.
+     */
+    public static final class Representation {
+
+        private final byte[] content;
+        private final byte[] gzipContent;
+        private final String entityTag;
+
+        Representation(byte[] content, String entityTag) throws IOException {
+            this.content = content;
+            this.gzipContent = gzip(content);
+            this.entityTag = entityTag;
+        }
+
+        /**
+         * @param gzip whether the gzip compressed content is wanted
+         * @return the rendered document, must not be modified
+         */
+        public byte[] getContent(boolean gzip) {
+            return gzip ? gzipContent : content;
+        }
+
+        /**
+         * @param gzip whether the tag of the gzip compressed content is wanted
+         * @return a tag that changes whenever the rendered document changes
+         */
+        public String getEntityTag(boolean gzip) {
+            return gzip ? entityTag + "-gzip" : entityTag;
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            StringBuilder hash = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -39,10 +39,13 @@
  */
 package fish.payara.microprofile.openapi.impl;
 
+import static java.util.logging.Level.WARNING;
+
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
@@ -62,11 +65,13 @@ import fish.payara.microprofile.openapi.impl.model.OpenAPIImpl;
 @Singleton
 public class OpenApiService {
 
+    private static final Logger LOGGER = Logger.getLogger(OpenApiService.class.getName());
+
     private boolean enabled;
     private boolean securityEnabled;
     private boolean withCorsHeaders;
 
-    private volatile OpenAPI cachedResult;
+    private volatile CachedDocument cachedResult;
 
     private Map<String, OpenAPISupplier> documents;
 
@@ -106,28 +111,28 @@ public class OpenApiService {
         this.withCorsHeaders = withCorsHeaders;
     }
 
-	public void registerApp(String applicationId, DeploymentContext ctx) {
+	public synchronized void registerApp(String applicationId, DeploymentContext ctx) {
         final WebBundleDescriptorImpl descriptor = ctx.getModuleMetaData(WebBundleDescriptorImpl.class);
         final String contextRoot = descriptor.getContextRoot();
         final ReadableArchive archive = ctx.getSource();
         final ClassLoader classLoader = ctx.getClassLoader();
         documents.put(applicationId, new OpenAPISupplier(applicationId, contextRoot, archive, classLoader));
-        cachedResult = null;
+        refreshDocument();
 	}
 
-	public void deregisterApp(String applicationId) {
+	public synchronized void deregisterApp(String applicationId) {
         documents.remove(applicationId);
-        cachedResult = null;
+        refreshDocument();
 	}
 
-	public void resumeApp(String applicationId) {
+	public synchronized void resumeApp(String applicationId) {
         documents.get(applicationId).setEnabled(true);
-        cachedResult = null;
+        refreshDocument();
 	}
 
-	public void suspendApp(String applicationId) {
+	public synchronized void suspendApp(String applicationId) {
         documents.get(applicationId).setEnabled(false);
-        cachedResult = null;
+        refreshDocument();
 	}
 
     /**
@@ -136,13 +141,49 @@ public class OpenApiService {
      * @throws OpenAPIBuildException if creating the document failed.
      * @throws java.io.IOException if source archive not accessible
      */
-    public synchronized OpenAPI getDocument() throws OpenAPIBuildException, IOException {
-        if (documents.isEmpty()) {
-            return null;
+    public OpenAPI getDocument() throws OpenAPIBuildException, IOException {
+        CachedDocument document = getCachedDocument();
+        return document == null ? null : document.getModel();
+    }
+
+    /**
+     * @return the document as returned by {@link #getDocument()} together with
+     * its serialized forms. The document is created when an application is
+     * deployed or undeployed, so this only has to create it if that failed or
+     * the service was disabled at the time.
+     * @throws OpenAPIBuildException if creating the document failed.
+     * @throws java.io.IOException if source archive not accessible
+     */
+    public CachedDocument getCachedDocument() throws OpenAPIBuildException, IOException {
+        CachedDocument result = cachedResult;
+        if (result != null) {
+            return result;
         }
-        if (cachedResult != null) {
+        synchronized (this) {
+            if (cachedResult == null && !documents.isEmpty()) {
+                cachedResult = buildDocument();
+            }
             return cachedResult;
         }
+    }
+
+    /**
+     * Drops the current document and creates the new one straight away, so
+     * the next request for it doesn't have to wait.
+     */
+    private void refreshDocument() {
+        cachedResult = null;
+        if (!enabled || documents.isEmpty()) {
+            return;
+        }
+        try {
+            cachedResult = buildDocument();
+        } catch (Exception ex) {
+            LOGGER.log(WARNING, "OpenAPI document creation failed.", ex);
+        }
+    }
+
+    private CachedDocument buildDocument() throws IOException {
         OpenAPI result = null;
         Iterator<OpenAPISupplier> iterator = documents.values().iterator();
         do {
@@ -154,8 +195,7 @@ public class OpenApiService {
             }
         } while (iterator.hasNext());
 
-        this.cachedResult = result;
-        return result;
+        return result == null ? null : new CachedDocument(result);
     }
 
     public static final OpenApiService getInstance() {
@@ -39,7 +39,11 @@
  */
 package fish.payara.microprofile.openapi.impl.rest.app.service;
 
+import static fish.payara.microprofile.AcceptEncoding.GZIP;
+import static fish.payara.microprofile.AcceptEncoding.acceptsGzip;
 import fish.payara.microprofile.openapi.api.OpenAPIBuildException;
+import fish.payara.microprofile.openapi.impl.CachedDocument;
+import fish.payara.microprofile.openapi.impl.CachedDocument.Representation;
 import fish.payara.microprofile.openapi.impl.OpenApiService;
 import fish.payara.microprofile.openapi.impl.model.OpenAPIImpl;
 import fish.payara.microprofile.openapi.impl.processor.BaseProcessor;
@@ -49,6 +53,7 @@ import java.io.IOException;
 import static java.util.logging.Level.WARNING;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -56,10 +61,20 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import javax.ws.rs.core.Variant;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
 
 @Path("/")
@@ -67,9 +82,16 @@ public class OpenApiResource {
 
     private static final Logger LOGGER = Logger.getLogger(OpenApiResource.class.getName());
 
+    /**
+     * The formats the document is available in, in order of preference.
+     */
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.valueOf(APPLICATION_YAML), APPLICATION_JSON_TYPE).build();
+
     @GET
     @Produces({ APPLICATION_YAML, APPLICATION_JSON })
-    public Response getResponse(@Context HttpServletRequest request, @Context HttpServletResponse response) throws IOException {
+    public Response getResponse(@Context HttpServletRequest request, @Context HttpServletResponse response,
+            @Context Request jaxrsRequest) throws IOException {
         OpenApiService openApiService = OpenApiService.getInstance();
 
         // If the server is disabled, throw an error
@@ -79,9 +101,9 @@ public class OpenApiResource {
         }
 
         // Get the OpenAPI document
-        OpenAPI document = null;
+        CachedDocument document = null;
         try {
-            document = openApiService.getDocument();
+            document = openApiService.getCachedDocument();
         } catch (OpenAPIBuildException | IOException ex) {
             LOGGER.log(WARNING, "OpenAPI document creation failed.", ex);
         }
@@ -93,7 +115,32 @@ public class OpenApiResource {
             return Response.status(Status.NOT_FOUND).entity(result).build();
         }
 
-        // Return the document
-        return Response.ok(document).build();
+        // Return the document as already rendered in the requested format
+        Variant variant = jaxrsRequest.selectVariant(VARIANTS);
+        MediaType mediaType = variant == null ? VARIANTS.get(0).getMediaType() : variant.getMediaType();
+        Representation representation = APPLICATION_JSON_TYPE.isCompatible(mediaType)
+                ? document.getJson()
+                : document.getYaml();
+        return respond(representation, mediaType, request.getHeader(ACCEPT_ENCODING), jaxrsRequest);
+    }
+
+    /**
+     * @return the response with the representation, compressed if the <code>Accept-Encoding</code> header value
+     * accepts gzip, or the response to a satisfied conditional request
+     */
+    static Response respond(Representation representation, MediaType mediaType, String acceptEncoding,
+            Request jaxrsRequest) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        EntityTag entityTag = new EntityTag(representation.getEntityTag(gzip));
+        ResponseBuilder builder = jaxrsRequest.evaluatePreconditions(entityTag);
+        if (builder == null) {
+            builder = Response.ok(representation.getContent(gzip), mediaType);
+            if (gzip) {
+                builder.header(CONTENT_ENCODING, GZIP);
+            }
+        }
+        return builder.tag(entityTag)
+                .header(VARY, ACCEPT + ", " + ACCEPT_ENCODING)
+                .build();
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eclipse.microprofile.openapi.OASFactory.createObject;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.eclipse.microprofile.openapi.models.info.Info;
+import org.junit.Test;
+
+/**
+ * Tests the renderings held by {@link CachedDocument}.
+ */
+public class CachedDocumentTest {
+
+    @Test
+    public void jsonRenderingContainsDocument() throws IOException {
+        CachedDocument document = new CachedDocument(createDocument("title"));
+        String json = new String(document.getJson().getContent(false), UTF_8);
+        assertTrue(json.startsWith("{"));
+        assertTrue(json.contains("\"title\":\"title\""));
+    }
+
+    @Test
+    public void gzipRenderingDecompressesToPlainRendering() throws IOException {
+        CachedDocument document = new CachedDocument(createDocument("title"));
+        for (CachedDocument.Representation representation : new CachedDocument.Representation[] {
+                document.getJson(), document.getYaml() }) {
+            assertArrayEquals(representation.getContent(false), gunzip(representation.getContent(true)));
+        }
+    }
+
+    @Test
+    public void entityTagsDifferPerRepresentation() throws IOException {
+        CachedDocument document = new CachedDocument(createDocument("title"));
+        assertNotEquals(document.getJson().getEntityTag(false), document.getYaml().getEntityTag(false));
+        assertNotEquals(document.getJson().getEntityTag(false), document.getJson().getEntityTag(true));
+        assertNotEquals(document.getYaml().getEntityTag(false), document.getYaml().getEntityTag(true));
+    }
+
+    @Test
+    public void entityTagsFollowContent() throws IOException {
+        OpenAPI model = createDocument("title");
+        CachedDocument document = new CachedDocument(model);
+        assertSame(model, document.getModel());
+        assertEquals(document.getJson().getEntityTag(false),
+                new CachedDocument(createDocument("title")).getJson().getEntityTag(false));
+        assertNotEquals(document.getJson().getEntityTag(false),
+                new CachedDocument(createDocument("other")).getJson().getEntityTag(false));
+    }
+
+    private static OpenAPI createDocument(String title) {
+        OpenAPI document = createObject(OpenAPI.class);
+        Info info = createObject(Info.class);
+        info.setTitle(title);
+        info.setVersion("version");
+        document.setInfo(info);
+        document.setOpenapi("3.0.0");
+        return document;
+    }
+
+    private static byte[] gunzip(byte[] content) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.microprofile.openapi.impl.rest.app.service;
+
+import static fish.payara.microprofile.AcceptEncoding.GZIP;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.eclipse.microprofile.openapi.OASFactory.createObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Variant;
+
+import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.junit.Test;
+
+import fish.payara.microprofile.openapi.impl.CachedDocument;
+import fish.payara.microprofile.openapi.impl.CachedDocument.Representation;
+
+/**
+ * Tests that the {@link OpenApiResource} responds with the representation matching the <code>Accept-Encoding</code>
+ * header. The header negotiation itself is tested by {@code fish.payara.microprofile.AcceptEncodingTest}.
+ */
+public class OpenApiResourceTest {
+
+    @Test
+    public void compressedRepresentationWhenGzipIsAccepted() throws IOException {
+        Representation json = createRepresentation();
+        Response response = OpenApiResource.respond(json, APPLICATION_JSON_TYPE, "deflate, gzip;q=0.5",
+                new UnconditionalRequest());
+        assertEquals(GZIP, response.getHeaderString(CONTENT_ENCODING));
+        assertSame(json.getContent(true), response.getEntity());
+        assertEquals(new EntityTag(json.getEntityTag(true)), response.getEntityTag());
+    }
+
+    @Test
+    public void plainRepresentationWhenGzipIsRefused() throws IOException {
+        Representation json = createRepresentation();
+        Response response = OpenApiResource.respond(json, APPLICATION_JSON_TYPE, "gzip;q=0",
+                new UnconditionalRequest());
+        assertNull(response.getHeaderString(CONTENT_ENCODING));
+        assertSame(json.getContent(false), response.getEntity());
+        assertEquals(new EntityTag(json.getEntityTag(false)), response.getEntityTag());
+    }
+
+    @Test
+    public void plainRepresentationWithoutHeader() throws IOException {
+        Representation json = createRepresentation();
+        Response response = OpenApiResource.respond(json, APPLICATION_JSON_TYPE, null, new UnconditionalRequest());
+        assertNull(response.getHeaderString(CONTENT_ENCODING));
+        assertSame(json.getContent(false), response.getEntity());
+    }
+
+    private static Representation createRepresentation() throws IOException {
+        OpenAPI document = createObject(OpenAPI.class);
+        document.setOpenapi("3.0.0");
+        return new CachedDocument(document).getJson();
+    }
+
+    /**
+     * A request without preconditions.
+     */
+    private static final class UnconditionalRequest implements Request {
+
+        @Override
+        public String getMethod() {
+            return "GET";
+        }
+
+        @Override
+        public Variant selectVariant(List<Variant> variants) {
+            return variants.get(0);
+        }
+
+        @Override
+        public ResponseBuilder evaluatePreconditions(EntityTag eTag) {
+            return null;
+        }
+
+        @Override
+        public ResponseBuilder evaluatePreconditions(Date lastModified) {
+            return null;
+        }
+
+        @Override
+        public ResponseBuilder evaluatePreconditions(Date lastModified, EntityTag eTag) {
+            return null;
+        }
+
+        @Override
+        public ResponseBuilder evaluatePreconditions() {
+            return null;
+        }
+    }
+}
@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -17,7 +17,13 @@
  */
 package fish.payara.cdi.jsr107;
 
+import fish.payara.cdi.jsr107.implementation.PayaraCacheKeyInvocationContext;
+import fish.payara.cdi.jsr107.implementation.PayaraCacheMethodDetails;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
 import fish.payara.nucleus.hazelcast.HazelcastCore;
+import java.lang.annotation.Annotation;
+import javax.inject.Inject;
+import javax.interceptor.InvocationContext;
 
 /**
  *
@@ -27,6 +33,9 @@ public class AbstractJSR107Interceptor {
     
     HazelcastCore hzCore;
 
+    @Inject
+    PayaraHazelcastCDIExtension extension;
+
     public AbstractJSR107Interceptor() {
         hzCore = HazelcastCore.getCore();
     }
@@ -34,6 +43,21 @@ public class AbstractJSR107Interceptor {
     protected boolean isEnabled() {
         return hzCore.isEnabled();
     }
+
+    protected <A extends Annotation> PayaraCacheKeyInvocationContext<A> createContext(InvocationContext ctx, Class<A> annotationType) {
+        Class<?> targetClass = ctx.getTarget().getClass();
+        PayaraCacheMethodDetails<A> details = extension == null
+                ? new PayaraCacheMethodDetails<>(targetClass, ctx.getMethod(), ctx.getMethod().getAnnotation(annotationType))
+                : extension.getMethodDetails(targetClass, ctx.getMethod(), annotationType);
+        return new PayaraCacheKeyInvocationContext<>(ctx, details);
+    }
+
+    /**
+     * @return the near cache in front of the named cache, or null if it has none
+     */
+    protected PayaraNearCache getNearCache(String cacheName) {
+        return extension == null ? null : extension.getNearCache(cacheName);
+    }
     
     protected boolean shouldIEvict (Class<? extends Throwable>[] evictFor, Class<? extends Throwable>[] noEvictFor, Throwable exception) {
         return shouldICache(evictFor, noEvictFor, exception, false);
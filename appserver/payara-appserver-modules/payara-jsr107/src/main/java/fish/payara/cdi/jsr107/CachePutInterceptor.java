@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016-2017 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -18,12 +18,10 @@
 package fish.payara.cdi.jsr107;
 
 import fish.payara.cdi.jsr107.implementation.PayaraCacheKeyInvocationContext;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
 import javax.annotation.Priority;
 import javax.cache.Cache;
-import javax.cache.annotation.CacheKeyGenerator;
 import javax.cache.annotation.CachePut;
-import javax.cache.annotation.CacheResolver;
-import javax.cache.annotation.CacheResolverFactory;
 import javax.cache.annotation.GeneratedCacheKey;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
@@ -45,8 +43,8 @@ public class CachePutInterceptor extends AbstractJSR107Interceptor {
             return ctx.proceed();
         }
 
-        CachePut annotation = ctx.getMethod().getAnnotation(CachePut.class);
-        PayaraCacheKeyInvocationContext<CachePut> pctx = new PayaraCacheKeyInvocationContext<>(ctx, annotation);
+        PayaraCacheKeyInvocationContext<CachePut> pctx = createContext(ctx, CachePut.class);
+        CachePut annotation = pctx.getCacheAnnotation();
         if (!annotation.afterInvocation()) {
             doPut(pctx);
         }
@@ -72,13 +70,14 @@ public class CachePutInterceptor extends AbstractJSR107Interceptor {
 
     @SuppressWarnings("unchecked")
     private void doPut(PayaraCacheKeyInvocationContext<CachePut> pctx) throws Throwable{
-        CacheKeyGenerator generator = pctx.getGenerator();
-        CacheResolverFactory resolverF = pctx.getFactory();
-        CacheResolver cacheResolver = resolverF.getCacheResolver(pctx);
-        Cache cache = cacheResolver.resolveCache(pctx);
-        GeneratedCacheKey key = generator.generateCacheKey(pctx);
+        Cache cache = pctx.getDetails().resolveCache(pctx);
+        GeneratedCacheKey key = pctx.getGenerator().generateCacheKey(pctx);
         Object value = pctx.getValueParameter().getValue();
         cache.put(key, value);
+        PayaraNearCache nearCache = getNearCache(pctx.getCacheName());
+        if (nearCache != null) {
+            nearCache.remove(key);
+        }
     }
 
 }
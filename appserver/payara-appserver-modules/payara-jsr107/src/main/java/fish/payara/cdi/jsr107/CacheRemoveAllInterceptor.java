@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016-2017 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -18,11 +18,10 @@
 package fish.payara.cdi.jsr107;
 
 import fish.payara.cdi.jsr107.implementation.PayaraCacheKeyInvocationContext;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
 import javax.annotation.Priority;
 import javax.cache.Cache;
 import javax.cache.annotation.CacheRemoveAll;
-import javax.cache.annotation.CacheResolver;
-import javax.cache.annotation.CacheResolverFactory;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
@@ -43,8 +42,8 @@ public class CacheRemoveAllInterceptor extends AbstractJSR107Interceptor {
             return ctx.proceed();
         }
         
-        CacheRemoveAll annotation = ctx.getMethod().getAnnotation(CacheRemoveAll.class);
-        PayaraCacheKeyInvocationContext<CacheRemoveAll> pctx = new PayaraCacheKeyInvocationContext<>(ctx, annotation);
+        PayaraCacheKeyInvocationContext<CacheRemoveAll> pctx = createContext(ctx, CacheRemoveAll.class);
+        CacheRemoveAll annotation = pctx.getCacheAnnotation();
 
         if (!annotation.afterInvocation()) {
             doRemoveAll(pctx);
@@ -70,10 +69,12 @@ public class CacheRemoveAllInterceptor extends AbstractJSR107Interceptor {
     }
 
     private void doRemoveAll(PayaraCacheKeyInvocationContext<CacheRemoveAll> pctx) {
-        CacheResolverFactory resolverF = pctx.getFactory();
-        CacheResolver cacheResolver = resolverF.getCacheResolver(pctx);
-        Cache cache = cacheResolver.resolveCache(pctx);
+        Cache cache = pctx.getDetails().resolveCache(pctx);
         cache.removeAll();
+        PayaraNearCache nearCache = getNearCache(pctx.getCacheName());
+        if (nearCache != null) {
+            nearCache.clear();
+        }
     }
 }
 
@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016-2017 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -18,12 +18,10 @@
 package fish.payara.cdi.jsr107;
 
 import fish.payara.cdi.jsr107.implementation.PayaraCacheKeyInvocationContext;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
 import javax.annotation.Priority;
 import javax.cache.Cache;
-import javax.cache.annotation.CacheKeyGenerator;
 import javax.cache.annotation.CacheRemove;
-import javax.cache.annotation.CacheResolver;
-import javax.cache.annotation.CacheResolverFactory;
 import javax.cache.annotation.GeneratedCacheKey;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
@@ -46,8 +44,8 @@ public class CacheRemoveInterceptor extends AbstractJSR107Interceptor {
         }
         
         
-        CacheRemove annotation = ctx.getMethod().getAnnotation(CacheRemove.class);
-        PayaraCacheKeyInvocationContext<CacheRemove> pctx = new PayaraCacheKeyInvocationContext<>(ctx, annotation);
+        PayaraCacheKeyInvocationContext<CacheRemove> pctx = createContext(ctx, CacheRemove.class);
+        CacheRemove annotation = pctx.getCacheAnnotation();
 
         if (!annotation.afterInvocation()) {
             doRemove(pctx);
@@ -73,11 +71,12 @@ public class CacheRemoveInterceptor extends AbstractJSR107Interceptor {
     }
 
     private void doRemove(PayaraCacheKeyInvocationContext<CacheRemove> pctx) {
-        CacheKeyGenerator generator = pctx.getGenerator();
-        CacheResolverFactory resolverF = pctx.getFactory();
-        CacheResolver cacheResolver = resolverF.getCacheResolver(pctx);
-        Cache cache = cacheResolver.resolveCache(pctx);
-        GeneratedCacheKey key = generator.generateCacheKey(pctx);
+        Cache cache = pctx.getDetails().resolveCache(pctx);
+        GeneratedCacheKey key = pctx.getGenerator().generateCacheKey(pctx);
         cache.remove(key);
+        PayaraNearCache nearCache = getNearCache(pctx.getCacheName());
+        if (nearCache != null) {
+            nearCache.remove(key);
+        }
     }
 }
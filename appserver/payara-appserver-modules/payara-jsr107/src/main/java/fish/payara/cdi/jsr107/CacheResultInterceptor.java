@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016-2017 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -18,11 +18,10 @@
 package fish.payara.cdi.jsr107;
 
 import fish.payara.cdi.jsr107.implementation.PayaraCacheKeyInvocationContext;
+import fish.payara.cdi.jsr107.implementation.PayaraCacheMethodDetails;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
 import javax.annotation.Priority;
 import javax.cache.Cache;
-import javax.cache.annotation.CacheKeyGenerator;
-import javax.cache.annotation.CacheResolver;
-import javax.cache.annotation.CacheResolverFactory;
 import javax.cache.annotation.CacheResult;
 import javax.cache.annotation.GeneratedCacheKey;
 import javax.interceptor.AroundInvoke;
@@ -46,24 +45,31 @@ public class CacheResultInterceptor extends AbstractJSR107Interceptor {
             return ctx.proceed();
         }
         
-        // get my annotation
-        CacheResult annotation = ctx.getMethod().getAnnotation(CacheResult.class);
-        PayaraCacheKeyInvocationContext<CacheResult> pctx = new PayaraCacheKeyInvocationContext<>(ctx, annotation);
-        CacheResolverFactory resolverF = pctx.getFactory();
-        CacheResolver cacheResolver = resolverF.getCacheResolver(pctx);
-        Cache cache = cacheResolver.resolveCache(pctx);
+        PayaraCacheKeyInvocationContext<CacheResult> pctx = createContext(ctx, CacheResult.class);
+        PayaraCacheMethodDetails<CacheResult> details = pctx.getDetails();
+        CacheResult annotation = details.getCacheAnnotation();
         boolean cacheExceptions = (annotation.exceptionCacheName() != null && annotation.exceptionCacheName().length() > 0);
-        
-        CacheKeyGenerator generator = pctx.getGenerator();
-        GeneratedCacheKey key = generator.generateCacheKey(pctx);
+        PayaraNearCache nearCache = details.getNearCache();
+
+        GeneratedCacheKey key = details.getGenerator().generateCacheKey(pctx);
+        if (!annotation.skipGet() && nearCache != null) {
+            Object cacheResult = nearCache.get(key);
+            if (cacheResult != null) {
+                return cacheResult;
+            }
+        }
+        Cache cache = details.resolveCache(pctx);
         if (!annotation.skipGet()) {
             Object cacheResult = cache.get(key);
             if (cacheResult != null) {
+                if (nearCache != null) {
+                    nearCache.put(key, cacheResult);
+                }
                 return cacheResult;
             } else {
                 // check exception cache
                 if (cacheExceptions) {
-                    Cache exceptionCache = resolverF.getExceptionCacheResolver(pctx).resolveCache(pctx);
+                    Cache exceptionCache = details.resolveExceptionCache(pctx);
                     Throwable e = (Throwable) exceptionCache.get(key);
                     if (e != null) {
                         throw e;
@@ -77,9 +83,12 @@ public class CacheResultInterceptor extends AbstractJSR107Interceptor {
         try {
             result = ctx.proceed();
             cache.put(key, result);
+            if (nearCache != null) {
+                nearCache.put(key, result);
+            }
         } catch (Throwable e) {
             if (cacheExceptions) {
-                Cache exceptionCache = resolverF.getExceptionCacheResolver(pctx).resolveCache(pctx);
+                Cache exceptionCache = details.resolveExceptionCache(pctx);
                 if (shouldICache(annotation.cachedExceptions(), annotation.nonCachedExceptions(), e, true)) {
                     exceptionCache.put(key, e);
                 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2016-2017] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2016-2020] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -39,6 +39,13 @@
  */
 package fish.payara.cdi.jsr107;
 
+import fish.payara.cdi.jsr107.impl.NearCache;
+import fish.payara.cdi.jsr107.implementation.PayaraCacheMethodDetails;
+import fish.payara.cdi.jsr107.implementation.PayaraNearCache;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.cache.annotation.CachePut;
 import javax.cache.annotation.CacheRemove;
 import javax.cache.annotation.CacheRemoveAll;
@@ -55,8 +62,10 @@ import javax.enterprise.inject.spi.Extension;
  * @author steve
  */
 public class PayaraHazelcastCDIExtension  implements Extension {
-    
-    
+
+    private final ConcurrentMap<MethodKey, PayaraCacheMethodDetails<?>> methodDetails = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PayaraNearCache> nearCaches = new ConcurrentHashMap<>();
+
     void beforeBeanDiscovery(@Observes BeforeBeanDiscovery bbd, BeanManager bm) {
         AnnotatedType<JSR107Producer> at = bm.createAnnotatedType(JSR107Producer.class);
         bbd.addAnnotatedType(at, JSR107Producer.class.getName());
@@ -76,5 +85,71 @@ public class PayaraHazelcastCDIExtension  implements Extension {
         bbd.addAnnotatedType(crmaat, CacheRemoveAllInterceptor.class.getName());
     }
 
+    /**
+     * Returns the details of an annotated method of the application, working
+     * them out on the first call of the method.
+     */
+    @SuppressWarnings("unchecked")
+    <A extends Annotation> PayaraCacheMethodDetails<A> getMethodDetails(Class<?> targetClass, Method method, Class<A> annotationType) {
+        MethodKey key = new MethodKey(targetClass, method, annotationType);
+        PayaraCacheMethodDetails<A> details = (PayaraCacheMethodDetails<A>) methodDetails.get(key);
+        if (details == null) {
+            details = new PayaraCacheMethodDetails<>(targetClass, method, method.getAnnotation(annotationType));
+            if (annotationType == CacheResult.class) {
+                NearCache nearCache = method.getAnnotation(NearCache.class);
+                if (nearCache == null) {
+                    nearCache = PayaraCacheMethodDetails.findAnnotation(targetClass, NearCache.class);
+                }
+                if (nearCache != null) {
+                    NearCache config = nearCache;
+                    details.setNearCache(nearCaches.computeIfAbsent(details.getCacheName(), name -> new PayaraNearCache(config)));
+                }
+            }
+            PayaraCacheMethodDetails<A> existing = (PayaraCacheMethodDetails<A>) methodDetails.putIfAbsent(key, details);
+            if (existing != null) {
+                details = existing;
+            }
+        }
+        return details;
+    }
+
+    /**
+     * @return the near cache of the cache with the given name, or null if no
+     * {@link CacheResult} method of the application uses one
+     */
+    PayaraNearCache getNearCache(String cacheName) {
+        return nearCaches.get(cacheName);
+    }
+
+    private static final class MethodKey {
+
+        private final Class<?> targetClass;
+        private final Method method;
+        private final Class<?> annotationType;
+
+        MethodKey(Class<?> targetClass, Method method, Class<?> annotationType) {
+            this.targetClass = targetClass;
+            this.method = method;
+            this.annotationType = annotationType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return targetClass == other.targetClass && method.equals(other.method) && annotationType == other.annotationType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * targetClass.hashCode() + method.hashCode()) + annotationType.hashCode();
+        }
+    }
+
     
 }
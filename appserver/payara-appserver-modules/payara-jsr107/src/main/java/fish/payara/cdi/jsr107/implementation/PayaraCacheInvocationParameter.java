@@ -2,7 +2,7 @@
 
  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 
- Copyright (c) 2016-2017 Payara Foundation. All rights reserved.
+ Copyright (c) 2016-2020 Payara Foundation. All rights reserved.
 
  The contents of this file are subject to the terms of the Common Development
  and Distribution License("CDDL") (collectively, the "License").  You
@@ -19,6 +19,7 @@ package fish.payara.cdi.jsr107.implementation;
 
 import java.lang.annotation.Annotation;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import javax.cache.annotation.CacheInvocationParameter;
@@ -30,11 +31,15 @@ import javax.cache.annotation.CacheInvocationParameter;
 public class PayaraCacheInvocationParameter implements CacheInvocationParameter {
     
     private final Class clazz;
-    private final Annotation annotations[];
+    private final Set<Annotation> annotations;
     private final Object value;
     private final int position;
 
     public PayaraCacheInvocationParameter(Class clazz, Annotation annotations[], Object value, int position) {
+        this(clazz, Collections.unmodifiableSet(new HashSet<>(Arrays.asList(annotations))), value, position);
+    }
+
+    PayaraCacheInvocationParameter(Class clazz, Set<Annotation> annotations, Object value, int position) {
         this.clazz = clazz;
         this.annotations = annotations;
         this.value = value;
@@ -53,8 +58,7 @@ public class PayaraCacheInvocationParameter implements CacheInvocationParameter
 
     @Override
     public Set<Annotation> getAnnotations() {
-        HashSet<Annotation> result = new HashSet<>(Arrays.asList(annotations));
-        return result;
+        return annotations;
     }
 
     @Override
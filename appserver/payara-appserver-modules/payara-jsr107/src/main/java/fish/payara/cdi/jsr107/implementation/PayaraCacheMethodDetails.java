@@ -0,0 +1,319 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.cdi.jsr107.implementation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.cache.Cache;
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CacheInvocationContext;
+import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CacheKeyGenerator;
+import javax.cache.annotation.CacheMethodDetails;
+import javax.cache.annotation.CachePut;
+import javax.cache.annotation.CacheRemove;
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheResolver;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.CacheValue;
+
+/**
+ * Everything about an annotated method that does not depend on the arguments
+ * of a call, worked out once on the first call of the method.
+ */
+public class PayaraCacheMethodDetails<A extends Annotation> implements CacheMethodDetails<A> {
+
+    private static final Logger logger = Logger.getLogger(PayaraCacheMethodDetails.class.getName());
+
+    private final Method method;
+    private final A annotation;
+    private final CacheDefaults defaults;
+    private final Set<Annotation> annotations;
+    private final String cacheName;
+    private final CacheResolverFactory factory;
+    private final CacheKeyGenerator generator;
+    private final Class<?>[] parameterTypes;
+    private final List<Set<Annotation>> parameterAnnotations;
+    private final int[] keyParameterIndices;
+    private final int valueParameterIndex;
+    private volatile CacheResolver cacheResolver;
+    private volatile CacheResolver exceptionCacheResolver;
+    private PayaraNearCache nearCache;
+
+    public PayaraCacheMethodDetails(Class<?> targetClass, Method method, A annotation) {
+        this.method = method;
+        this.annotation = annotation;
+        this.defaults = findAnnotation(targetClass, CacheDefaults.class);
+        this.annotations = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(method.getAnnotations())));
+        this.cacheName = findCacheName();
+        this.factory = createFactory();
+        this.generator = annotation instanceof CacheRemoveAll ? null : createGenerator();
+
+        parameterTypes = method.getParameterTypes();
+        Annotation[][] declaredAnnotations = method.getParameterAnnotations();
+        parameterAnnotations = new ArrayList<>(parameterTypes.length);
+        List<Integer> keyParameters = new ArrayList<>();
+        List<Integer> nonValueParameters = new ArrayList<>();
+        int valueParameter = -1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterAnnotations.add(Collections.unmodifiableSet(new HashSet<>(Arrays.asList(declaredAnnotations[i]))));
+            boolean value = false;
+            for (Annotation parameterAnnotation : declaredAnnotations[i]) {
+                if (parameterAnnotation.annotationType().equals(CacheKey.class)) {
+                    keyParameters.add(i);
+                } else if (parameterAnnotation.annotationType().equals(CacheValue.class)) {
+                    valueParameter = i;
+                    value = true;
+                }
+            }
+            if (!value) {
+                nonValueParameters.add(i);
+            }
+        }
+        // without CacheKey parameters all parameters except the CacheValue one make the key
+        keyParameterIndices = toArray(keyParameters.isEmpty() ? nonValueParameters : keyParameters);
+        valueParameterIndex = valueParameter;
+    }
+
+    /**
+     * Finds an annotation on a class or its superclasses
+     */
+    public static <T extends Annotation> T findAnnotation(Class<?> clazz, Class<T> annotationType) {
+        T result = null;
+        while (result == null && clazz != null) {
+            result = clazz.getAnnotation(annotationType);
+            clazz = clazz.getSuperclass();
+        }
+        return result;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Set<Annotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Override
+    public A getCacheAnnotation() {
+        return annotation;
+    }
+
+    @Override
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public CacheResolverFactory getFactory() {
+        return factory;
+    }
+
+    public CacheKeyGenerator getGenerator() {
+        return generator;
+    }
+
+    Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    Set<Annotation> getParameterAnnotations(int position) {
+        return parameterAnnotations.get(position);
+    }
+
+    int[] getKeyParameterIndices() {
+        return keyParameterIndices;
+    }
+
+    int getValueParameterIndex() {
+        return valueParameterIndex;
+    }
+
+    /**
+     * @return the near cache of a {@link CacheResult} method, or null if it has none
+     */
+    public PayaraNearCache getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(PayaraNearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * Resolves the cache of the method. The cache resolver is only asked for
+     * again once the cache it returned has been closed.
+     */
+    public <K, V> Cache<K, V> resolveCache(CacheInvocationContext<A> context) {
+        CacheResolver resolver = cacheResolver;
+        Cache<K, V> cache = resolver == null ? null : resolver.<K, V>resolveCache(context);
+        if (cache == null || cache.isClosed()) {
+            resolver = factory.getCacheResolver(this);
+            cacheResolver = resolver;
+            cache = resolver.resolveCache(context);
+        }
+        return cache;
+    }
+
+    /**
+     * Resolves the exception cache of a {@link CacheResult} method
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> resolveExceptionCache(CacheInvocationContext<A> context) {
+        CacheResolver resolver = exceptionCacheResolver;
+        Cache<K, V> cache = resolver == null ? null : resolver.<K, V>resolveCache(context);
+        if (cache == null || cache.isClosed()) {
+            resolver = factory.getExceptionCacheResolver((CacheMethodDetails<CacheResult>) this);
+            exceptionCacheResolver = resolver;
+            cache = resolver.resolveCache(context);
+        }
+        return cache;
+    }
+
+    private String findCacheName() {
+        String result = null;
+
+        if (annotation instanceof CachePut) {
+            result = ((CachePut) annotation).cacheName();
+        } else if (annotation instanceof CacheRemove) {
+            result = ((CacheRemove) annotation).cacheName();
+        } else if (annotation instanceof CacheRemoveAll) {
+            result = ((CacheRemoveAll) annotation).cacheName();
+        } else if (annotation instanceof CacheResult) {
+            result = ((CacheResult) annotation).cacheName();
+        }
+
+        if ((result == null || result.isEmpty()) && (defaults != null)) {
+            result = defaults.cacheName();
+        }
+
+        if ((result == null) || (result.isEmpty())) {
+            // the class declaring the method, not the target, which may be a container generated subclass
+            StringBuilder name = new StringBuilder(method.getDeclaringClass().getName());
+            name.append('.').append(method.getName()).append('(');
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                if (i > 0) {
+                    name.append(',');
+                }
+                name.append(types[i].getName());
+            }
+            name.append(')');
+            result = name.toString();
+        }
+        return result;
+    }
+
+    private CacheResolverFactory createFactory() {
+        CacheResolverFactory result = null;
+        Class<?> defaultClazz = CacheResolverFactory.class;
+        Class<?> suggestedClazz = null;
+        if (annotation instanceof CachePut) {
+            suggestedClazz = ((CachePut) annotation).cacheResolverFactory();
+        } else if (annotation instanceof CacheRemove) {
+            suggestedClazz = ((CacheRemove) annotation).cacheResolverFactory();
+        } else if (annotation instanceof CacheResult) {
+            suggestedClazz = ((CacheResult) annotation).cacheResolverFactory();
+        } else if (annotation instanceof CacheRemoveAll) {
+            suggestedClazz = ((CacheRemoveAll) annotation).cacheResolverFactory();
+        }
+
+        if (suggestedClazz == defaultClazz && defaults != null) {
+            suggestedClazz = defaults.cacheResolverFactory();
+        }
+
+        if (defaultClazz != suggestedClazz && suggestedClazz != null) {
+            try {
+                result = (CacheResolverFactory) suggestedClazz.newInstance();
+            } catch (InstantiationException | IllegalAccessException ex) {
+                logger.log(Level.SEVERE, null, ex);
+            }
+        }
+        if (result == null) {
+            result = new PayaraCacheResolverFactory();
+        }
+        return result;
+    }
+
+    private CacheKeyGenerator createGenerator() {
+        CacheKeyGenerator result = new PayaraCacheKeyGenerator();
+        Class<?> defaultClazz = CacheKeyGenerator.class;
+        Class<?> suggestedClazz = null;
+        if (annotation instanceof CachePut) {
+            suggestedClazz = ((CachePut) annotation).cacheKeyGenerator();
+        } else if (annotation instanceof CacheRemove) {
+            suggestedClazz = ((CacheRemove) annotation).cacheKeyGenerator();
+        } else if (annotation instanceof CacheResult) {
+            suggestedClazz = ((CacheResult) annotation).cacheKeyGenerator();
+        }
+
+        if (suggestedClazz == defaultClazz && defaults != null) {
+            suggestedClazz = defaults.cacheKeyGenerator();
+        }
+
+        if (defaultClazz != suggestedClazz && suggestedClazz != null) {
+            try {
+                result = (CacheKeyGenerator) suggestedClazz.newInstance();
+            } catch (InstantiationException | IllegalAccessException ex) {
+                logger.log(Level.SEVERE, null, ex);
+            }
+        }
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
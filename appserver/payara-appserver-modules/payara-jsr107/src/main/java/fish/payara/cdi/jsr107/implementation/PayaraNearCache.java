@@ -0,0 +1,151 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.cdi.jsr107.implementation;
+
+import fish.payara.cdi.jsr107.impl.NearCache;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local copy of the results read from or written to a clustered cache by
+ * {@link javax.cache.annotation.CacheResult} methods, see {@link NearCache}.
+ * <p>
+ * Values are kept by reference, every caller gets the same instance. Once full,
+ * each new key evicts an expired entry, or else the oldest, of a small sample
+ * of entries.
+ */
+public class PayaraNearCache {
+
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final long timeToLive;
+    private final int maxEntries;
+
+    public PayaraNearCache(NearCache config) {
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(config.timeToLiveMillis());
+        this.maxEntries = config.maxEntries();
+    }
+
+    /**
+     * @return the value cached for the key, or null if there is none or it expired
+     */
+    public Object get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(Object key, Object value) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        long now = System.nanoTime();
+        while (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            if (!evict(now)) {
+                break;
+            }
+        }
+        entries.put(key, new Entry(value, now + timeToLive));
+    }
+
+    public void remove(Object key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes the first expired entry, or else the one expiring first, out of a
+     * sample of entries.
+     *
+     * @return false if the cache was found empty
+     */
+    private boolean evict(long now) {
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        Map.Entry<Object, Entry> candidate = null;
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            Map.Entry<Object, Entry> sampled = iterator.next();
+            if (sampled.getValue().isExpired(now)) {
+                candidate = sampled;
+                break;
+            }
+            if (candidate == null || sampled.getValue().expires - candidate.getValue().expires < 0) {
+                candidate = sampled;
+            }
+        }
+        if (candidate == null) {
+            return false;
+        }
+        entries.remove(candidate.getKey(), candidate.getValue());
+        return true;
+    }
+
+    private static final class Entry {
+
+        final Object value;
+        final long expires;
+
+        Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        boolean isExpired(long now) {
+            return now - expires >= 0;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package fish.payara.cdi.jsr107.implementation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import javax.cache.annotation.CacheDefaults;
+import javax.cache.annotation.CacheMethodDetails;
+import javax.cache.annotation.CacheResolver;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PayaraCacheMethodDetailsTest {
+
+    public static class NoCacheResolverFactory implements CacheResolverFactory {
+
+        @Override
+        public CacheResolver getCacheResolver(CacheMethodDetails<? extends Annotation> cacheMethodDetails) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CacheResolver getExceptionCacheResolver(CacheMethodDetails<CacheResult> cacheMethodDetails) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @CacheDefaults(cacheResolverFactory = NoCacheResolverFactory.class)
+    public static class Service {
+
+        @CacheResult
+        public String find(String name, int version, List<String> tags) {
+            return name;
+        }
+
+        @CacheResult(cacheName = "named")
+        public String findNamed(String name) {
+            return name;
+        }
+    }
+
+    /**
+     * Stands for the subclass a CDI container generates to intercept the bean
+     */
+    public static class Service$Subclass extends Service {
+    }
+
+    @CacheDefaults(cacheName = "defaults", cacheResolverFactory = NoCacheResolverFactory.class)
+    public static class DefaultsService {
+
+        @CacheResult
+        public String find(String name) {
+            return name;
+        }
+    }
+
+    private static PayaraCacheMethodDetails<CacheResult> details(Class<?> targetClass, Method method) {
+        return new PayaraCacheMethodDetails<>(targetClass, method, method.getAnnotation(CacheResult.class));
+    }
+
+    @Test
+    public void defaultCacheNameUsesDeclaringClassAndParameterTypes() throws NoSuchMethodException {
+        Method method = Service.class.getMethod("find", String.class, int.class, List.class);
+
+        assertEquals(Service.class.getName() + ".find(java.lang.String,int,java.util.List)",
+                details(Service.class, method).getCacheName());
+    }
+
+    @Test
+    public void defaultCacheNameIgnoresGeneratedSubclass() throws NoSuchMethodException {
+        Method method = Service.class.getMethod("find", String.class, int.class, List.class);
+
+        assertEquals(details(Service.class, method).getCacheName(),
+                details(Service$Subclass.class, method).getCacheName());
+    }
+
+    @Test
+    public void annotationCacheNameIsUsed() throws NoSuchMethodException {
+        Method method = Service.class.getMethod("findNamed", String.class);
+
+        assertEquals("named", details(Service$Subclass.class, method).getCacheName());
+    }
+
+    @Test
+    public void cacheDefaultsCacheNameIsUsed() throws NoSuchMethodException {
+        Method method = DefaultsService.class.getMethod("find", String.class);
+
+        assertEquals("defaults", details(DefaultsService.class, method).getCacheName());
+    }
+
+    @Test
+    public void cacheDefaultsOfSuperclassApply() throws NoSuchMethodException {
+        Method method = Service.class.getMethod("find", String.class, int.class, List.class);
+        PayaraCacheMethodDetails<CacheResult> details = details(Service$Subclass.class, method);
+
+        assertEquals(NoCacheResolverFactory.class, details.getFactory().getClass());
+        assertSame(method, details.getMethod());
+    }
+
+    @Test
+    public void allParametersMakeTheKeyWithoutCacheKeyAnnotations() throws NoSuchMethodException {
+        Method method = Service.class.getMethod("find", String.class, int.class, List.class);
+
+        assertArrayEquals(new int[]{0, 1, 2}, details(Service.class, method).getKeyParameterIndices());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package fish.payara.cdi.jsr107.implementation;
+
+import fish.payara.cdi.jsr107.impl.NearCache;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PayaraNearCacheTest {
+
+    @NearCache(timeToLiveMillis = 60000, maxEntries = 3)
+    private static class Small {
+    }
+
+    @NearCache(timeToLiveMillis = 0)
+    private static class Expiring {
+    }
+
+    private static PayaraNearCache nearCache(Class<?> annotated) {
+        return new PayaraNearCache(annotated.getAnnotation(NearCache.class));
+    }
+
+    @Test
+    public void putValueIsReturnedByReference() {
+        PayaraNearCache cache = nearCache(Small.class);
+        Object value = new Object();
+        cache.put("a", value);
+
+        assertSame(value, cache.get("a"));
+    }
+
+    @Test
+    public void putNullRemovesKey() {
+        PayaraNearCache cache = nearCache(Small.class);
+        cache.put("a", "value");
+        cache.put("a", null);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiredEntryIsNotReturned() {
+        PayaraNearCache cache = nearCache(Expiring.class);
+        cache.put("a", "value");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void newKeyEvictsOldestEntryWhenFull() throws InterruptedException {
+        PayaraNearCache cache = nearCache(Small.class);
+        cache.put("a", "1");
+        Thread.sleep(2);
+        cache.put("b", "2");
+        Thread.sleep(2);
+        cache.put("c", "3");
+        cache.put("d", "4");
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+    }
+
+    @Test
+    public void replacingKeyDoesNotEvictWhenFull() {
+        PayaraNearCache cache = nearCache(Small.class);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.put("a", "4");
+
+        assertEquals(3, cache.size());
+        assertEquals("4", cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void sizeStaysWithinMaxEntries() {
+        PayaraNearCache cache = nearCache(Expiring.class);
+        for (int i = 0; i < 20000; i++) {
+            cache.put(i, "value");
+        }
+
+        assertEquals(10000, cache.size());
+    }
+}
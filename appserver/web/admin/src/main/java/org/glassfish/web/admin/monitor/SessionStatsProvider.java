@@ -38,7 +38,7 @@
  * holder.
  */
 
-// Portions Copyright [2016] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.admin.monitor;
 
@@ -82,6 +82,10 @@ public class SessionStatsProvider{
         "Total number of sessions ever passivated";
     private static final String ACTIVATED_SESSIONS_DESCRIPTION =
         "Total number of sessions ever activated";
+    private static final String REPLICATED_BYTES_DESCRIPTION =
+        "Number of bytes of session state replicated per request";
+    private static final String REPLICATED_BYTES_TOTAL_DESCRIPTION =
+        "Total number of bytes of session state ever replicated";
 
     private String moduleName;
     private String vsName;
@@ -93,6 +97,8 @@ public class SessionStatsProvider{
     private CountStatisticImpl persistedSessionsTotal;
     private CountStatisticImpl passivatedSessionsTotal;
     private CountStatisticImpl activatedSessionsTotal;
+    private RangeStatisticImpl replicatedBytes;
+    private CountStatisticImpl replicatedBytesTotal;
     private ThreadLocal<String> sessionIdThreadLocal;
         
     public SessionStatsProvider(String moduleName, String vsName) {      
@@ -120,6 +126,12 @@ public class SessionStatsProvider{
         activatedSessionsTotal = new CountStatisticImpl(
                 "ActivatedSessionsTotal", StatisticImpl.UNIT_COUNT,
                 ACTIVATED_SESSIONS_DESCRIPTION);
+        replicatedBytes = new RangeStatisticImpl(
+                0L, 0L, 0L, "ReplicatedBytes", "bytes",
+                REPLICATED_BYTES_DESCRIPTION, curTime, curTime);
+        replicatedBytesTotal = new CountStatisticImpl(
+                "ReplicatedBytesTotal", "bytes",
+                REPLICATED_BYTES_TOTAL_DESCRIPTION);
     }
     
     @ManagedAttribute(id="activesessionscurrent")
@@ -164,6 +176,18 @@ public class SessionStatsProvider{
         return activatedSessionsTotal;
     }
    
+    @ManagedAttribute(id="replicatedbytes")
+    @Description(REPLICATED_BYTES_DESCRIPTION)
+    public RangeStatistic getReplicatedBytes() {
+        return replicatedBytes;
+    }
+
+    @ManagedAttribute(id="replicatedbytestotal")
+    @Description(REPLICATED_BYTES_TOTAL_DESCRIPTION)
+    public CountStatistic getReplicatedBytesTotal() {
+        return replicatedBytesTotal;
+    }
+
     @ProbeListener("glassfish:web:session:sessionCreatedEvent")
     public void sessionCreatedEvent(
             @ProbeParam("sessionId") String sessionId,
@@ -263,6 +287,24 @@ public class SessionStatsProvider{
         }
     }
 
+    @ProbeListener("glassfish:web:session:sessionReplicatedEvent")
+    public void sessionReplicatedEvent(
+            @ProbeParam("sessionId") String sessionId,
+            @ProbeParam("bytes") long bytes,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("hostName") String hostName){
+
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.finest("[TM]sessionReplicatedEvent received - session = " + 
+                          sessionId + ": bytes = " + bytes + 
+                          ": appname = " + appName + ": hostName = " + hostName);
+        }
+        if (isValidEvent(appName, hostName)) {
+            replicatedBytes.setCurrent(bytes);
+            replicatedBytesTotal.increment(bytes);
+        }
+    }
+
     @ProbeListener("glassfish:web:session:sessionActivatedStartEvent")
     public void sessionActivatedStartEvent(
             @ProbeParam("sessionId") String sessionId,
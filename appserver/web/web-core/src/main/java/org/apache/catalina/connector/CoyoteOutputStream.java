@@ -55,7 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package org.apache.catalina.connector;
 
@@ -64,6 +64,7 @@ import org.apache.catalina.LogFacade;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ResourceBundle;
 
 /**
@@ -158,6 +159,24 @@ public class CoyoteOutputStream
         ob.write(b, off, len);
     }
 
+    /**
+     * Writes the remaining bytes of the given buffer without first copying
+     * them into a byte array. The buffer's position is left untouched, so a
+     * shared read-only buffer may be passed in directly.
+     *
+     * @param buffer the buffer holding the bytes to be written
+     * @throws IOException if an input/output error occurs
+     */
+    public void write(ByteBuffer buffer)
+        throws IOException {
+        // Disallow operation if the object has gone out of scope
+        if (ob == null) {
+            throw new IllegalStateException(rb.getString(LogFacade.OBJECT_INVALID_SCOPE_EXCEPTION));
+        }
+
+        ob.write(buffer.duplicate());
+    }
+
 
     /**
      * Will send the buffer to the client.
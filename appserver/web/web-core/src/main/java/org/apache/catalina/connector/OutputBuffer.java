@@ -55,12 +55,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package org.apache.catalina.connector;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.channels.InterruptedByTimeoutException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -327,6 +328,27 @@ public class OutputBuffer extends Writer
     }
 
 
+    /**
+     * Hands the remaining bytes of the given buffer to the grizzly output
+     * buffer without copying them into the intermediate byte chunk.
+     */
+    public void write(ByteBuffer buffer) throws IOException {
+
+        if (suspended)
+            return;
+
+        if (grizzlyOutputBuffer.isClosed())
+            return;
+        if (log.isLoggable(Level.FINE))
+            log.log(Level.FINE, "write(ByteBuffer)");
+
+        int len = buffer.remaining();
+        grizzlyOutputBuffer.writeByteBuffer(buffer);
+        bytesWritten += len;
+
+    }
+
+
     private void writeBytes(byte b[], int off, int len) 
         throws IOException {
 
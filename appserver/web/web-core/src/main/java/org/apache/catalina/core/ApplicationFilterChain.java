@@ -55,7 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package org.apache.catalina.core;
 
@@ -338,18 +338,17 @@ final class ApplicationFilterChain implements FilterChain {
 
 
     /**
-     * Add a filter to the set of filters that will be executed in this chain.
+     * Set the filters that will be executed in this chain, reusing the
+     * array of this chain whenever it is large enough.
      *
-     * @param filterConfig The FilterConfig for the servlet to be executed
+     * @param filterConfigs The FilterConfigs of the filters to be executed
      */
-    void addFilter(ApplicationFilterConfig filterConfig) {
-        if (n == filters.length) {
-            ApplicationFilterConfig[] newFilters =
-                new ApplicationFilterConfig[n + INCREMENT];
-            System.arraycopy(filters, 0, newFilters, 0, n);
-            filters = newFilters;
+    void setFilters(ApplicationFilterConfig[] filterConfigs) {
+        if (filters.length < filterConfigs.length) {
+            filters = new ApplicationFilterConfig[filterConfigs.length + INCREMENT];
         }
-        filters[n++] = filterConfig;
+        System.arraycopy(filterConfigs, 0, filters, 0, filterConfigs.length);
+        n = filterConfigs.length;
     }
 
 
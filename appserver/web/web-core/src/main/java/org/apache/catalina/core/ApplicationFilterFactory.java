@@ -55,7 +55,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package org.apache.catalina.core;
 
@@ -67,6 +67,7 @@ import org.apache.catalina.deploy.FilterMap;
 import javax.servlet.DispatcherType;
 import javax.servlet.Servlet;
 import javax.servlet.ServletRequest;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -148,6 +149,9 @@ public final class ApplicationFilterFactory {
 
         // Acquire the filter mappings for this Context
         StandardContext context = (StandardContext) wrapper.getParent();
+        // the generation is read first, so that mappings changed meanwhile are not cached under it
+        FilterChainCache cache = context.getFilterChainCache();
+        int generation = cache.getGeneration();
         List<FilterMap> filterMaps = context.findFilterMaps();
 
         // If there are no filter mappings, we are done
@@ -157,17 +161,51 @@ public final class ApplicationFilterFactory {
 
         // get the dispatcher type
         DispatcherType dispatcher = request.getDispatcherType();
-        String requestPath = null;
         Object attribute = request.getAttribute(
             Globals.DISPATCHER_REQUEST_PATH_ATTR);
-        if (attribute != null){
-            requestPath = attribute.toString();
-        }
+        String requestPath = attribute != null ? attribute.toString() : null;
 
         // Acquire the information we will need to match filter mappings
         String servletName = wrapper.getName();
 
-        int n = 0;
+        // Reuse the filters resolved by an earlier request if possible
+        FilterChainCache.Key key = cache.keyOf(servletName, dispatcher,
+                requestPath, filterMaps, generation,
+                filterMap -> matchFiltersURL(filterMap, requestPath,
+                                             context.isCaseSensitiveMapping()));
+        ApplicationFilterConfig[] filters = cache.get(key);
+        if (filters == null) {
+            filters = resolveFilters(context, filterMaps, dispatcher,
+                                     requestPath, servletName);
+            cache.put(key, filters, generation);
+        }
+
+        // START IASRI 4665318
+        // Create a filter chain only when there are filters to add
+        if (filters.length > 0) {
+            filterChain = internalCreateFilterChain(request, wrapper, servlet);
+            filterChain.setFilters(filters);
+        }
+        // END IASRI 4665318
+
+        // Return the completed filter chain
+        return (filterChain);
+
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    /**
+     * Return the filters to execute for the given request, path-mapped
+     * filters first, followed by filters mapped by servlet name.
+     */
+    private ApplicationFilterConfig[] resolveFilters(StandardContext context,
+            List<FilterMap> filterMaps, DispatcherType dispatcher,
+            String requestPath, String servletName) {
+
+        List<ApplicationFilterConfig> filters = new ArrayList<>();
 
         // Add the relevant path-mapped filters to this filter chain
         Iterator<FilterMap> i = filterMaps.iterator(); 
@@ -191,14 +229,7 @@ public final class ApplicationFilterFactory {
                 // FIXME - log configuration problem
                 continue;
             }
-            // START IASRI 4665318
-            // Create a filter chain only when there are filters to add
-            if (filterChain == null)
-                filterChain = internalCreateFilterChain(request, wrapper,
-                                                        servlet);
-            // END IASRI 4665318
-            filterChain.addFilter(filterConfig);
-            n++;
+            filters.add(filterConfig);
         }
 
         // Add filters that match on servlet name second
@@ -216,25 +247,14 @@ public final class ApplicationFilterFactory {
                 // FIXME - log configuration problem
                 continue;
             }
-            // START IASRI 4665318
-            // Create a filter chain only when there are filters to add
-            if (filterChain == null)
-                filterChain = internalCreateFilterChain(request, wrapper,
-                                                        servlet);
-            // END IASRI 4665318
-            filterChain.addFilter(filterConfig);
-            n++;
+            filters.add(filterConfig);
         }
 
-        // Return the completed filter chain
-        return (filterChain);
+        return filters.toArray(new ApplicationFilterConfig[filters.size()]);
 
     }
 
 
-    // -------------------------------------------------------- Private Methods
-
-
     /**
      * Return <code>true</code> if the context-relative request path
      * matches the requirements of the specified filter mapping;
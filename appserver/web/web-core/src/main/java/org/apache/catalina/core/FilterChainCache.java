@@ -0,0 +1,216 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.apache.catalina.core;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.servlet.DispatcherType;
+import org.apache.catalina.deploy.FilterMap;
+
+/**
+ * Remembers the filters {@link ApplicationFilterFactory} resolved for a servlet, dispatcher type and request path,
+ * so that the filters of a {@link StandardContext} are only looked up once per distinct combination.
+ * <p>
+ * The request path only enters the key through the set of URL mapped filters it matches, so all paths matching the
+ * same patterns share an entry. When all URL mapped filters use the pattern {@code /*} that set is the same for
+ * every path and the patterns are not matched at all. Once {@link #MAX_ENTRIES} is reached, arbitrary entries are
+ * evicted to make room for new ones.
+ * <p>
+ * The owning context calls {@link #clear()} whenever its filter definitions, mappings or configurations change.
+ */
+final class FilterChainCache {
+
+    static final int MAX_ENTRIES = 4096;
+
+    private static final BitSet NO_URL_MATCHES = new BitSet();
+
+    private final ConcurrentHashMap<Key, ApplicationFilterConfig[]> chains = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile PathSensitivity pathSensitivity;
+
+    /**
+     * @return the current generation, to be passed to {@link #put} once a chain was resolved
+     */
+    int getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @param filterMaps the filter mappings, obtained after the generation
+     * @param currentGeneration the generation obtained before the filter mappings
+     * @param urlMatcher tests whether the URL pattern of a filter mapping matches the request path
+     * @return the key for the given request, made up of the URL mapped filters that match its path
+     */
+    Key keyOf(String servletName, DispatcherType dispatcher, String requestPath, List<FilterMap> filterMaps,
+            int currentGeneration, Predicate<FilterMap> urlMatcher) {
+        if (requestPath == null) {
+            return new Key(servletName, dispatcher, NO_URL_MATCHES);
+        }
+        PathSensitivity sensitivity = getPathSensitivity(filterMaps, currentGeneration);
+        if (!sensitivity.sensitive) {
+            return new Key(servletName, dispatcher, sensitivity.anyPathMatches);
+        }
+        BitSet urlMatches = new BitSet(filterMaps.size());
+        for (int i = 0; i < filterMaps.size(); i++) {
+            FilterMap filterMap = filterMaps.get(i);
+            if (filterMap.getURLPattern() != null && urlMatcher.test(filterMap)) {
+                urlMatches.set(i);
+            }
+        }
+        return new Key(servletName, dispatcher, urlMatches);
+    }
+
+    ApplicationFilterConfig[] get(Key key) {
+        return chains.get(key);
+    }
+
+    /**
+     * Caches the resolved filters unless the mappings changed since the given generation was obtained.
+     */
+    void put(Key key, ApplicationFilterConfig[] filters, int resolvedGeneration) {
+        if (resolvedGeneration != generation.get()) {
+            return;
+        }
+        if (chains.size() >= MAX_ENTRIES) {
+            evict();
+        }
+        chains.put(key, filters);
+        if (resolvedGeneration != generation.get()) {
+            // cleared concurrently, the entry might already be stale
+            chains.remove(key);
+        }
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        chains.clear();
+    }
+
+    int size() {
+        return chains.size();
+    }
+
+    private void evict() {
+        Iterator<Key> keys = chains.keySet().iterator();
+        while (chains.size() >= MAX_ENTRIES && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private PathSensitivity getPathSensitivity(List<FilterMap> filterMaps, int currentGeneration) {
+        PathSensitivity sensitivity = pathSensitivity;
+        if (sensitivity != null && sensitivity.generation == currentGeneration) {
+            return sensitivity;
+        }
+        boolean sensitive = false;
+        BitSet anyPathMatches = new BitSet(filterMaps.size());
+        for (int i = 0; i < filterMaps.size(); i++) {
+            String urlPattern = filterMaps.get(i).getURLPattern();
+            if ("/*".equals(urlPattern)) {
+                anyPathMatches.set(i);
+            } else if (urlPattern != null) {
+                sensitive = true;
+            }
+        }
+        sensitivity = new PathSensitivity(currentGeneration, sensitive, anyPathMatches);
+        pathSensitivity = sensitivity;
+        return sensitivity;
+    }
+
+    /**
+     * Whether the mappings of a generation depend on the request path, and if not the mappings every path matches.
+     */
+    private static final class PathSensitivity {
+
+        final int generation;
+        final boolean sensitive;
+        final BitSet anyPathMatches;
+
+        PathSensitivity(int generation, boolean sensitive, BitSet anyPathMatches) {
+            this.generation = generation;
+            this.sensitive = sensitive;
+            this.anyPathMatches = anyPathMatches;
+        }
+    }
+
+    static final class Key {
+
+        private final String servletName;
+        private final DispatcherType dispatcher;
+        /**
+         * Indexes of the filter mappings whose URL pattern matches the request path, never modified
+         */
+        private final BitSet urlMatches;
+        private final int hash;
+
+        Key(String servletName, DispatcherType dispatcher, BitSet urlMatches) {
+            this.servletName = servletName;
+            this.dispatcher = dispatcher;
+            this.urlMatches = urlMatches;
+            this.hash = 31 * (31 * Objects.hashCode(servletName) + Objects.hashCode(dispatcher)) + urlMatches.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash
+                    && dispatcher == other.dispatcher
+                    && Objects.equals(servletName, other.servletName)
+                    && urlMatches.equals(other.urlMatches);
+        }
+    }
+}
@@ -454,6 +454,12 @@ public class StandardContext
      */
     private final List<FilterMap> filterMaps = new ArrayList<>();
 
+    /**
+     * The filters resolved for recent requests, cleared whenever the filter
+     * definitions, mappings or configurations change.
+     */
+    private final FilterChainCache filterChainCache = new FilterChainCache();
+
     /**
      * The list of classnames of InstanceListeners that will be added
      * to each newly created Wrapper by <code>createWrapper()</code>.
@@ -898,6 +904,7 @@ public class StandardContext
      */
     public void setCaseSensitiveMapping(boolean caseSensitiveMap) {
         caseSensitiveMapping = caseSensitiveMap;
+        filterChainCache.clear();
     }
 
     /**
@@ -2530,6 +2537,7 @@ public class StandardContext
         synchronized (filterDefs) {
             filterDefs.put(filterDef.getFilterName(), filterDef);
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("addFilterDef", filterDef);
@@ -2623,6 +2631,7 @@ public class StandardContext
         } else {
             filterMaps.add(0, filterMap);
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("addFilterMap", filterMap);
@@ -4736,6 +4745,7 @@ public class StandardContext
         synchronized (filterDefs) {
             filterDefs.remove(filterDef.getFilterName());
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("removeFilterDef", filterDef);
@@ -4755,6 +4765,7 @@ public class StandardContext
             }
         }
         filterMaps.clear();
+        filterChainCache.clear();
     }
 
     /**
@@ -5118,6 +5129,7 @@ public class StandardContext
                 }
             }
         }
+        filterChainCache.clear();
 
         return (ok);
 
@@ -5146,6 +5158,7 @@ public class StandardContext
             }
             filterConfigs.clear();
         }
+        filterChainCache.clear();
         return (true);
     }
 
@@ -5159,6 +5172,14 @@ public class StandardContext
         return filterConfigs.get(name);
     }
 
+    /**
+     * Gets the cache of filters resolved by {@link ApplicationFilterFactory}
+     * for this context.
+     */
+    FilterChainCache getFilterChainCache() {
+        return filterChainCache;
+    }
+
     /**
      * Notifies all ServletContextListeners at their contextInitialized
      * method.
@@ -7885,6 +7906,16 @@ public class StandardContext
         // Deliberate noop
     }
 
+    /**
+     * Trigger for monitoring
+     * @see org.glassfish.web.admin.monitor.SessionStatsProvider#sessionReplicatedEvent
+     * @param session
+     * @param bytes the number of bytes sent to the replication store
+     */
+    public void sessionReplicatedEvent(HttpSession session, long bytes) {
+        // Deliberate noop
+    }
+
     /**
      * Trigger for monitoring
      * @see org.glassfish.web.admin.monitor.SessionStatsProvider#sessionActivatedStartEvent
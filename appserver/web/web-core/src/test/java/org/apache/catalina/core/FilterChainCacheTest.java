@@ -0,0 +1,179 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.apache.catalina.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.DispatcherType;
+import org.apache.catalina.deploy.FilterMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FilterChainCacheTest {
+
+    private static final ApplicationFilterConfig[] NO_FILTERS = new ApplicationFilterConfig[0];
+
+    private FilterChainCache cache;
+    private List<FilterMap> filterMaps;
+
+    @Before
+    public void setUp() {
+        cache = new FilterChainCache();
+        filterMaps = new ArrayList<>();
+        filterMaps.add(filterMap("/*"));
+    }
+
+    private static FilterMap filterMap(String urlPattern) {
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName("filter");
+        filterMap.setURLPattern(urlPattern);
+        return filterMap;
+    }
+
+    private FilterChainCache.Key keyOf(String path) {
+        return keyOf("servlet", path, cache.getGeneration());
+    }
+
+    private FilterChainCache.Key keyOf(String servletName, String path, int generation) {
+        return cache.keyOf(servletName, DispatcherType.REQUEST, path, filterMaps, generation,
+                filterMap -> matches(filterMap.getURLPattern(), path));
+    }
+
+    /**
+     * Simplified matching of exact and prefix patterns for the paths used in the tests.
+     */
+    private static boolean matches(String urlPattern, String path) {
+        if (urlPattern.endsWith("/*")) {
+            String prefix = urlPattern.substring(0, urlPattern.length() - 2);
+            return path.equals(prefix) || path.startsWith(prefix + "/");
+        }
+        return urlPattern.equals(path);
+    }
+
+    @Test
+    public void pathIsIgnoredWhenAllFiltersMatchAnyPath() {
+        assertEquals(keyOf("/a"), keyOf("/b"));
+    }
+
+    @Test
+    public void pathWithoutMatchesDiffersFromAnyPath() {
+        assertNotEquals(keyOf(null), keyOf("/a"));
+    }
+
+    @Test
+    public void pathsMatchingTheSamePatternsShareKey() {
+        filterMaps.add(filterMap("/a/*"));
+        filterMaps.add(filterMap("/b/*"));
+        cache.clear();
+        assertEquals(keyOf("/a/1"), keyOf("/a/2"));
+        assertEquals(keyOf("/c"), keyOf("/d"));
+        assertNotEquals(keyOf("/a/1"), keyOf("/b/1"));
+        assertNotEquals(keyOf("/a/1"), keyOf("/c"));
+    }
+
+    @Test
+    public void distinctPathsDoNotGrowTheCache() {
+        filterMaps.add(filterMap("/a/*"));
+        cache.clear();
+        for (int i = 0; i < 100; i++) {
+            cache.put(keyOf("/a/" + i), NO_FILTERS, cache.getGeneration());
+            cache.put(keyOf("/b/" + i), NO_FILTERS, cache.getGeneration());
+        }
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void pathSensitivityIsRecomputedAfterClear() {
+        assertEquals(keyOf("/a"), keyOf("/b"));
+        filterMaps.add(filterMap("/a/*"));
+        cache.clear();
+        assertNotEquals(keyOf("/a"), keyOf("/b"));
+        filterMaps.remove(1);
+        cache.clear();
+        assertEquals(keyOf("/a"), keyOf("/b"));
+    }
+
+    @Test
+    public void pathSensitivityOfAnOlderGenerationIsNotReused() {
+        int oldGeneration = cache.getGeneration();
+        filterMaps.add(filterMap("/a/*"));
+        cache.clear();
+        assertNotEquals(keyOf("/a"), keyOf("/b"));
+        filterMaps.remove(1);
+        // a request that read the old generation must not reset the current one
+        keyOf("servlet", "/a", oldGeneration);
+        filterMaps.add(filterMap("/a/*"));
+        assertNotEquals(keyOf("/a"), keyOf("/b"));
+    }
+
+    @Test
+    public void chainResolvedBeforeClearIsNotCached() {
+        int generation = cache.getGeneration();
+        FilterChainCache.Key key = keyOf("/a");
+        cache.clear();
+        cache.put(key, NO_FILTERS, generation);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void chainIsCached() {
+        FilterChainCache.Key key = keyOf("/a");
+        cache.put(key, NO_FILTERS, cache.getGeneration());
+        assertSame(NO_FILTERS, cache.get(key));
+    }
+
+    @Test
+    public void entriesAreEvictedWhenFull() {
+        for (int i = 0; i < FilterChainCache.MAX_ENTRIES + 100; i++) {
+            cache.put(keyOf("servlet" + i, "/a", cache.getGeneration()), NO_FILTERS, cache.getGeneration());
+        }
+        assertTrue(cache.size() <= FilterChainCache.MAX_ENTRIES);
+        FilterChainCache.Key last = keyOf("servlet" + (FilterChainCache.MAX_ENTRIES + 99), "/a",
+                cache.getGeneration());
+        assertNotNull(cache.get(last));
+    }
+}
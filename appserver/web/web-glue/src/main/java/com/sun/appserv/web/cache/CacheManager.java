@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.appserv.web.cache;
 
@@ -78,6 +79,11 @@ public class CacheManager {
     
     boolean enabled = false;
 
+    // maximum number of response bytes kept off heap, disabled when not set
+    long offHeapMaxSize = 0;
+    int offHeapMinEntrySize = OffHeapStore.DEFAULT_MIN_ENTRY_SIZE;
+    OffHeapStore offHeapStore;
+
     // application servlet context
     ServletContext context;
 
@@ -149,6 +155,10 @@ public class CacheManager {
     public void addProperty(String name, String value) {
         if (name.equalsIgnoreCase("cacheClassName")) {
            cacheClassName = value; 
+        } else if (name.equalsIgnoreCase("offHeapMaxSize")) {
+            offHeapMaxSize = Long.parseLong(value.trim());
+        } else if (name.equalsIgnoreCase("offHeapMinEntrySize")) {
+            offHeapMinEntrySize = Integer.parseInt(value.trim());
         } else {
             if (cacheProps == null) {
                 cacheProps = new Properties();
@@ -212,6 +222,11 @@ public class CacheManager {
         // create the default cache
         try {
             defaultCache = createCache(maxEntries, cacheClassName);
+            if (offHeapMaxSize > 0) {
+                offHeapStore = new OffHeapStore(offHeapMaxSize, offHeapMinEntrySize);
+                offHeapStore.setCache(defaultCache);
+                defaultCache.addCacheListener(offHeapStore);
+            }
         } catch (Exception e) {
             _logger.log(Level.WARNING, LogFacade.CACHE_MANAGER_EXCEPTION_CREATING_CACHE, e);
             throw new LifecycleException(_rb.getString(LogFacade.CACHE_MANAGER_EXCEPTION_CREATING_CACHE), e);
@@ -311,6 +326,14 @@ public class CacheManager {
         return defaultCache;
     }
 
+    /**
+     * get the store keeping response bodies of the default cache off heap
+     * @return the off heap store, or null if entries are kept on the heap
+     */
+    public OffHeapStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
     /**
      * add cache mapping
      * @param name unique name of the mapping
@@ -415,6 +438,9 @@ public class CacheManager {
         } 
         cacheHelpers.clear();
         cacheMappings.clear();
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
         cacheHelpersByFilterName.clear();
         listeners.clear();
     }
@@ -0,0 +1,291 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.appserv.web.cache;
+
+import com.sun.appserv.util.cache.Cache;
+import com.sun.appserv.util.cache.CacheListener;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Memory bounded store of direct buffers holding cached response bodies
+ * outside of the java heap.
+ *
+ * Each buffer is accounted against the owning cache key; the total size of
+ * all accounted buffers never exceeds the configured maximum. When a new
+ * buffer does not fit, the oldest buffers are evicted together with their
+ * cache entries. Buffers are never reused, a buffer that was evicted while a
+ * response is still being written from it is reclaimed by the garbage
+ * collector once that response completes.
+ */
+public class OffHeapStore implements CacheListener {
+
+    public static final int DEFAULT_MIN_ENTRY_SIZE = 2048;
+
+    private final long maxSize;
+    private final int minEntrySize;
+
+    // the cache holding the entries backed by this store
+    private Cache cache;
+
+    // accounted blocks in allocation order, guarded by itself
+    private final LinkedHashMap<Object, Block> blocks = new LinkedHashMap<>();
+
+    private volatile long size;
+    private volatile long storedCount;
+    private volatile long rejectedCount;
+    private volatile long evictedCount;
+    private volatile long releasedCount;
+
+    /**
+     * create a new store
+     * @param maxSize maximum number of bytes held by this store
+     * @param minEntrySize bodies smaller than this stay on the heap
+     */
+    public OffHeapStore(long maxSize, int minEntrySize) {
+        this.maxSize = maxSize;
+        this.minEntrySize = minEntrySize;
+    }
+
+    /**
+     * set the cache whose entries are evicted when this store is full
+     * @param cache the cache holding the entries backed by this store
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * allocate a direct buffer for the body of a new cache entry. Any buffer
+     * accounted to the same key is released since the new entry replaces it.
+     * @param key cache key the entry is stored under
+     * @param owner the entry the buffer belongs to
+     * @param length the number of bytes to store
+     * @return a buffer of the given capacity, or null if the body should
+     *         be kept on the heap
+     */
+    public ByteBuffer allocate(Object key, Object owner, int length) {
+        if (length < minEntrySize || length > maxSize) {
+            return null;
+        }
+
+        Block block = new Block(key, owner, length);
+        List<Block> victims = null;
+        synchronized (blocks) {
+            Block previous = blocks.remove(key);
+            if (previous != null) {
+                free(previous);
+                releasedCount++;
+            }
+
+            Iterator<Block> iter = blocks.values().iterator();
+            while (size + length > maxSize && iter.hasNext()) {
+                Block victim = iter.next();
+                iter.remove();
+                free(victim);
+                evictedCount++;
+                if (victims == null) {
+                    victims = new ArrayList<>();
+                }
+                victims.add(victim);
+            }
+
+            blocks.put(key, block);
+            size += length;
+        }
+
+        // cache buckets are locked while listeners are notified, so the
+        // victims are removed only after the store lock has been released
+        if (victims != null) {
+            for (Block victim : victims) {
+                if (cache != null) {
+                    cache.remove(victim.key, victim.owner);
+                }
+            }
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+            synchronized (blocks) {
+                storedCount++;
+            }
+            return buffer;
+        } catch (OutOfMemoryError e) {
+            // direct memory of the JVM is exhausted, keep this one on the heap
+            synchronized (blocks) {
+                if (blocks.remove(key, block)) {
+                    free(block);
+                }
+                rejectedCount++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * release the buffer of the given entry if it is accounted to the key
+     * @param key cache key the entry was stored under
+     * @param owner the entry which no longer is in the cache
+     */
+    public void release(Object key, Object owner) {
+        if (key == null || owner == null) {
+            return;
+        }
+
+        synchronized (blocks) {
+            Block block = blocks.get(key);
+            if (block != null && block.owner == owner) {
+                blocks.remove(key);
+                free(block);
+                releasedCount++;
+            }
+        }
+    }
+
+    /**
+     * CacheListener method; entries trimmed from the cache give up their
+     * buffers
+     */
+    @Override
+    public void trimEvent(Object key, Object value) {
+        release(key, value);
+    }
+
+    /**
+     * release all buffers
+     */
+    public void clear() {
+        synchronized (blocks) {
+            blocks.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Caller must hold the lock on blocks
+     */
+    private void free(Block block) {
+        size -= block.length;
+    }
+
+    /**
+     * @return the number of bytes currently accounted
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the maximum number of bytes held by this store
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the smallest body stored off heap
+     */
+    public int getMinEntrySize() {
+        return minEntrySize;
+    }
+
+    /**
+     * @return the number of entries currently accounted
+     */
+    public int getEntryCount() {
+        synchronized (blocks) {
+            return blocks.size();
+        }
+    }
+
+    /**
+     * @return the number of bodies stored off heap
+     */
+    public long getStoredCount() {
+        return storedCount;
+    }
+
+    /**
+     * @return the number of bodies kept on the heap because no direct memory
+     *         could be allocated
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return the number of entries evicted to make room for new ones
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * @return the number of entries released after being replaced, removed or
+     *         trimmed from the cache
+     */
+    public long getReleasedCount() {
+        return releasedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStore[size=" + size + ", maxSize=" + maxSize
+                + ", stored=" + storedCount + ", rejected=" + rejectedCount
+                + ", evicted=" + evictedCount + ", released=" + releasedCount + "]";
+    }
+
+    private static final class Block {
+        final Object key;
+        final Object owner;
+        final int length;
+
+        Block(Object key, Object owner, int length) {
+            this.key = key;
+            this.owner = owner;
+            this.length = length;
+        }
+    }
+}
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.appserv.web.cache.filter;
 
@@ -45,11 +46,16 @@ import com.sun.appserv.web.cache.CacheHelper;
 import com.sun.appserv.web.cache.CacheManager;
 import com.sun.appserv.web.cache.CacheManagerListener;
 import com.sun.appserv.web.cache.DefaultCacheHelper;
+import com.sun.appserv.web.cache.OffHeapStore;
+
+import org.apache.catalina.connector.CoyoteOutputStream;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -72,6 +78,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
     CacheManager manager;
     CacheHelper helper;
     Cache cache;
+    OffHeapStore offHeapStore;
 
     boolean isEnabled = false;
 
@@ -97,6 +104,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
 
         if (manager != null && manager.isEnabled()) {
             this.cache = manager.getDefaultCache();
+            this.offHeapStore = manager.getOffHeapStore();
             this.helper = manager.getCacheHelperByFilterName(filterName);
 
             // add filter as a listener so caching can be disabled at runtime.
@@ -217,7 +225,7 @@ public class CachingFilter implements Filter, CacheManagerListener {
                         int timeout = helper.getTimeout(request);
 
                         // previous entry gets replaced
-                        entry = wrapper.cacheResponse();
+                        entry = wrapper.cacheResponse(offHeapStore, key);
 
                         if (timeout == CacheHelper.TIMEOUT_VALUE_NOT_SET) {
                             // extracts this from the Expires: date header
@@ -236,7 +244,10 @@ public class CachingFilter implements Filter, CacheManagerListener {
                             entry.computeExpireTime(timeout);
                         }
 
-                        cache.put(key, entry, entry.getSize());
+                        Object oldEntry = cache.put(key, entry, entry.getSize());
+                        if (offHeapStore != null) {
+                            offHeapStore.release(key, oldEntry);
+                        }
 
                         cache.notifyRefresh(index);
                         needNotify = false;
@@ -248,7 +259,10 @@ public class CachingFilter implements Filter, CacheManagerListener {
                          *  resource is not cacheable anymore; so, remove the
                          *  old entry from the cache.
                          */
-                        cache.remove(key);
+                        Object oldEntry = cache.remove(key);
+                        if (offHeapStore != null) {
+                            offHeapStore.release(key, oldEntry);
+                        }
                     }
                 } finally {
                     // IT 12891
@@ -352,7 +366,16 @@ public class CachingFilter implements Filter, CacheManagerListener {
                            HttpServletResponse response)
                            throws IOException {
         ServletOutputStream out = response.getOutputStream();
-        out.write(entry.bytes);
+        ByteBuffer buffer = entry.buffer;
+        if (buffer == null) {
+            out.write(entry.bytes);
+        } else if (out instanceof CoyoteOutputStream) {
+            // hand the off heap body straight to the connector
+            ((CoyoteOutputStream) out).write(buffer);
+        } else {
+            // response was wrapped by the application
+            Channels.newChannel(out).write(buffer.duplicate());
+        }
     }
 
     /**
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.appserv.web.cache.filter;
 
@@ -44,16 +45,17 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * an output stream wrapper to cache response bytes
  */
 public class CachingOutputStreamWrapper extends ServletOutputStream {
 
-    ByteArrayOutputStream baos;
+    CachingByteArrayOutputStream baos;
 
     public CachingOutputStreamWrapper() {
-        this.baos = new ByteArrayOutputStream(4096);
+        this.baos = new CachingByteArrayOutputStream(4096);
     }
 
     /**
@@ -134,4 +136,34 @@ public class CachingOutputStreamWrapper extends ServletOutputStream {
     public byte[] getBytes() {
         return baos.toByteArray();
     }
+
+    /**
+     * return the number of cached bytes
+     */
+    public int getSize() {
+        return baos.size();
+    }
+
+    /**
+     * copy the cached bytes into the given buffer
+     * @param buffer buffer with at least <code>getSize()</code> bytes remaining
+     */
+    public void copyTo(ByteBuffer buffer) {
+        baos.copyTo(buffer);
+    }
+
+    /**
+     * gives access to the internal array so the cached bytes can be moved
+     * off heap without an intermediate copy
+     */
+    static class CachingByteArrayOutputStream extends ByteArrayOutputStream {
+
+        CachingByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        synchronized void copyTo(ByteBuffer buffer) {
+            buffer.put(buf, 0, count);
+        }
+    }
 }
@@ -37,9 +37,12 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.appserv.web.cache.filter;
 
+import com.sun.appserv.web.cache.OffHeapStore;
+
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
@@ -47,6 +50,7 @@ import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
@@ -370,6 +374,17 @@ public class CachingResponseWrapper extends HttpServletResponseWrapper {
      * @return the entry with cached response headers and body.
      */
     public HttpCacheEntry cacheResponse() throws IOException {
+        return cacheResponse(null, null);
+    }
+
+    /**
+     * called by doFilter to cache the response that was just sent out
+     * @param offHeapStore store to keep the response body off heap, or null
+     * @param key the cache key the entry is going to be stored under
+     * @return the entry with cached response headers and body.
+     */
+    public HttpCacheEntry cacheResponse(OffHeapStore offHeapStore, Object key)
+            throws IOException {
         // create a new entry
         HttpCacheEntry entry = new HttpCacheEntry();
         entry.responseHeaders = headers;
@@ -389,7 +404,22 @@ public class CachingResponseWrapper extends HttpServletResponseWrapper {
 
 
         // IT 12891
-        entry.bytes = ((cosw != null)? cosw.getBytes() : EMPTY_BYTE_ARRAY);
+        if (cosw == null) {
+            entry.bytes = EMPTY_BYTE_ARRAY;
+        } else {
+            ByteBuffer buffer = null;
+            if (offHeapStore != null) {
+                buffer = offHeapStore.allocate(key, entry, cosw.getSize());
+            }
+
+            if (buffer != null) {
+                cosw.copyTo(buffer);
+                buffer.flip();
+                entry.buffer = buffer.asReadOnlyBuffer();
+            } else {
+                entry.bytes = cosw.getBytes();
+            }
+        }
 
         return entry;
     }
@@ -37,9 +37,11 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 
 package com.sun.appserv.web.cache.filter;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
@@ -70,6 +72,9 @@ public class HttpCacheEntry {
     // XXX: other cacheable response info 
     byte[] bytes; 
 
+    // read-only direct buffer holding the body when it is kept off heap
+    ByteBuffer buffer;
+
     volatile long expireTime = 0;
 
     /**
@@ -104,6 +109,7 @@ public class HttpCacheEntry {
      */
     public void clear() {
         bytes = null;
+        buffer = null;
         responseHeaders = null;
         cookies = null;
     }
@@ -117,6 +123,8 @@ public class HttpCacheEntry {
         int size = 0;
         if (bytes != null) {
             size = bytes.length;
+        } else if (buffer != null) {
+            size = buffer.capacity();
         }
 
         // size of response bytes plus headers (each approx 20 chars or 40 bytes)
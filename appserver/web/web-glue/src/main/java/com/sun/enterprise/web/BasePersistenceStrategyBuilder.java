@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.web;
 
@@ -92,6 +92,13 @@ public abstract class BasePersistenceStrategyBuilder
     protected int sessionMaxInactiveInterval = DEFAULT_SESSION_TIMEOUT;
     protected String persistentCookieName = "GLASSFISHCOOKIE";
     protected boolean relaxCacheVersionSemantics = true;
+    protected boolean nearCacheEnabled = false;
+    protected static final int DEFAULT_NEAR_CACHE_MAX_SIZE = 10000;
+    protected int nearCacheMaxSize = DEFAULT_NEAR_CACHE_MAX_SIZE;
+    protected static final int DEFAULT_WRITE_BEHIND_DELAY = 0;   // write-through
+    protected int writeBehindDelay = DEFAULT_WRITE_BEHIND_DELAY;
+    protected static final int DEFAULT_WRITE_BEHIND_QUEUE_SIZE = 10000;
+    protected int writeBehindQueueSize = DEFAULT_WRITE_BEHIND_QUEUE_SIZE;
 
     // Special constant for Java Server Faces
     protected static final String JSF_HA_ENABLED = "com.sun.appserver.enableHighAvailability";
@@ -366,6 +373,26 @@ public abstract class BasePersistenceStrategyBuilder
                         _persistenceScope = value;
                     } else if (name.equalsIgnoreCase("cookieName")) {
                         persistentCookieName = value;                     
+                    } else if (name.equalsIgnoreCase("nearCacheEnabled")) {
+                        nearCacheEnabled = Boolean.parseBoolean(value);
+                    } else if (name.equalsIgnoreCase("nearCacheMaxSize")) {
+                        try {
+                            nearCacheMaxSize = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            // XXX need error message
+                        }
+                    } else if (name.equalsIgnoreCase("writeBehindDelayMillis")) {
+                        try {
+                            writeBehindDelay = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            // XXX need error message
+                        }
+                    } else if (name.equalsIgnoreCase("writeBehindQueueSize")) {
+                        try {
+                            writeBehindQueueSize = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            // XXX need error message
+                        }
                     } else {
                         if (_logger.isLoggable(Level.INFO)) {
                             Object[] params = { name };
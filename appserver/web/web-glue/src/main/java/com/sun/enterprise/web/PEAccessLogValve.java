@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.web;
 
@@ -63,10 +63,16 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.text.FieldPosition;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.internal.api.LogManager;
@@ -81,6 +87,10 @@ import org.glassfish.internal.api.LogManager;
  * </p>This class uses a direct <code>ByteBuffer</code> to store and write
  * logs.
  *
+ * </p>With batched writes enabled each request thread formats and encodes its
+ * own entry, and the background writer thread writes the queued entries with
+ * a single gathering write, so request threads do not contend on the lock.
+ *
  * @author Jean-Francois Arcand
  * @author Charlie J. Hunt
  */
@@ -121,6 +131,29 @@ public final class PEAccessLogValve
      */
     private final static int DEFAULT_FILE_SIZE_ROTATION_LIMIT = 0;
 
+    /**
+     * The initial size of the per-thread buffer entries are formatted into
+     * when batched writes are enabled.
+     */
+    private final static int THREAD_BUFFER_SIZE = 2048;
+
+    /**
+     * The number of entries waiting for the writer thread above which request
+     * threads write the queued entries themselves.
+     */
+    private final static int MAX_PENDING_SEGMENTS = 8192;
+
+    /**
+     * The maximum number of entries written with one gathering write.
+     */
+    private final static int MAX_BATCH_SEGMENTS = 512;
+
+    /**
+     * The time the writer thread waits for new entries when batched writes
+     * are enabled.
+     */
+    private final static long BATCH_IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private static final String LOG_ROTATION_TIME_FORMAT
             = "'T'HH-mm-ss";
 
@@ -230,7 +263,7 @@ public final class PEAccessLogValve
     /**
      * The background writerThread completion semaphore.
      */
-    private boolean threadDone = false;
+    private volatile boolean threadDone = false;
 
     /**
      * The <code>CharBuffer</code> used to store the logs.
@@ -293,6 +326,34 @@ public final class PEAccessLogValve
      */
     private Object lock = new Object();
 
+    /**
+     * Should entries be queued by request threads and written in batches by
+     * the writer thread?
+     */
+    private boolean batchedWrites;
+
+    /**
+     * The encoded entries waiting to be written when batched writes are
+     * enabled.
+     */
+    private final Queue<ByteBuffer> pendingSegments = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of entries in <code>pendingSegments</code>.
+     */
+    private final AtomicInteger pendingSegmentCount = new AtomicInteger();
+
+    /**
+     * The entries of the gathering write in progress, guarded by
+     * <code>lock</code>.
+     */
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_SEGMENTS];
+
+    /**
+     * The per-thread buffer and encoder used when batched writes are enabled.
+     */
+    private ThreadLocal<EntryEncoder> entryEncoders;
+
     /**
      * Return writerThread interval (seconds)
      */
@@ -351,6 +412,22 @@ public final class PEAccessLogValve
         return bufferSize;
     }
 
+    /**
+     * Set if request threads should queue their entries to be written in
+     * batches by the writer thread
+     * @param batchedWrites
+     */
+    public void setBatchedWrites(boolean batchedWrites) {
+        this.batchedWrites = batchedWrites;
+    }
+
+    /**
+     * Return true if entries are written in batches by the writer thread
+     */
+    public boolean isBatchedWrites() {
+        return batchedWrites;
+    }
+
     // ------------------------------------------------------------- Properties
     /**
      * Are we supposed to add datestamp to first access log file we create,
@@ -571,6 +648,11 @@ public final class PEAccessLogValve
             return;
         }
 
+        if (batchedWrites) {
+            queueEntry(request, response);
+            return;
+        }
+
         synchronized (lock){
             // Reset properly the buffer in case of an unexpected
             // exception.
@@ -608,6 +690,87 @@ public final class PEAccessLogValve
         }
     }
 
+    /**
+     * Format and encode the entry of the given request on the current thread
+     * and queue it for the writer thread.
+     */
+    private void queueEntry(Request request, Response response)
+            throws IOException {
+
+        if (formatter == null) {
+            return;
+        }
+        EntryEncoder entryEncoder = entryEncoders.get();
+        CharBuffer chars = entryEncoder.chars;
+        while (true) {
+            chars.clear();
+            try {
+                formatter.appendLogEntry(request, response, chars);
+                chars.put("\n");
+                break;
+            } catch (BufferOverflowException ex) {
+                if (chars.capacity() >= bufferSize) {
+                    _logger.log(
+                            Level.SEVERE,
+                            LogFacade.ACCESS_LOG_UNABLE_TO_WRITE,
+                        new Object[] {ex});
+                    return;
+                }
+                chars = CharBuffer.allocate(Math.min(chars.capacity() * 2, bufferSize));
+                entryEncoder.chars = chars;
+            }
+        }
+        chars.flip();
+        ByteBuffer segment = entryEncoder.encoder.encode(chars);
+
+        int pending = pendingSegmentCount.incrementAndGet();
+        pendingSegments.offer(segment);
+        if (pending == 1) {
+            LockSupport.unpark(writerThread);
+        } else if (pending > MAX_PENDING_SEGMENTS) {
+            // The writer thread is falling behind, help it out
+            log();
+        }
+    }
+
+    /**
+     * Write the entries queued so far with gathering writes. Must be called
+     * while holding <code>lock</code>.
+     */
+    private void writePendingSegments() {
+        int count;
+        for (int budget = pendingSegmentCount.get(); budget > 0; budget -= count) {
+            count = 0;
+            ByteBuffer segment;
+            while (count < Math.min(batch.length, budget)
+                    && (segment = pendingSegments.poll()) != null) {
+                batch[count++] = segment;
+            }
+            if (count == 0) {
+                return;
+            }
+            pendingSegmentCount.addAndGet(-count);
+            try {
+                long remaining = 0;
+                for (int i = 0; i < count; i++) {
+                    if (accessLogToConsole) {
+                        logManager.getOutStream().print("AccessLog: " + new String(batch[i].array(),
+                                batch[i].arrayOffset() + batch[i].position(), batch[i].remaining(),
+                                Charset.defaultCharset()));
+                    }
+                    remaining += batch[i].remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= fileChannel.write(batch, 0, count);
+                }
+            } catch (IOException ex) {
+                ;
+            } finally {
+                Arrays.fill(batch, 0, count, null);
+            }
+        }
+    }
+
     /**
      * Log the specified message to the log file, switching files if the date
      * has changed since the previous log call.
@@ -622,22 +785,26 @@ public final class PEAccessLogValve
         }
 
         synchronized(lock){
-            try{
-                charBuffer.flip();
-                String bufString = charBuffer.toString();
-                if (accessLogToConsole && !bufString.isEmpty()) {
-                    logManager.getOutStream().print(bufString.replaceAll("(?m)^", "AccessLog: "));
-                }
-                ByteBuffer byteBuffer =
-                    ByteBuffer.wrap(bufString.getBytes(Charset.defaultCharset()));
+            if (batchedWrites) {
+                writePendingSegments();
+            } else {
+                try{
+                    charBuffer.flip();
+                    String bufString = charBuffer.toString();
+                    if (accessLogToConsole && !bufString.isEmpty()) {
+                        logManager.getOutStream().print(bufString.replaceAll("(?m)^", "AccessLog: "));
+                    }
+                    ByteBuffer byteBuffer =
+                        ByteBuffer.wrap(bufString.getBytes(Charset.defaultCharset()));
 
-                while (byteBuffer.hasRemaining()){
-                    fileChannel.write(byteBuffer);
+                    while (byteBuffer.hasRemaining()){
+                        fileChannel.write(byteBuffer);
+                    }
+                } catch (IOException ex){
+                    ;
+                } finally {
+                    charBuffer.clear();
                 }
-            } catch (IOException ex){
-                ;
-            } finally {
-                charBuffer.clear();
             }
         }
 
@@ -768,6 +935,9 @@ public final class PEAccessLogValve
             }
         }
         
+        setBatchedWrites(Boolean.parseBoolean(vsBean.getPropertyValue(
+                Constants.ACCESS_LOG_BATCHED_WRITES_PROPERTY)));
+
         String acFilePrefix = vsBean.getPropertyValue(Constants.ACCESS_LOG_PREFIX);
         if(acFilePrefix != null && !acFilePrefix.trim().isEmpty() && !"null".equals(acFilePrefix) && !"null".equals(accessLogPrefix)) {
             setPrefix(acFilePrefix + ".");
@@ -1203,6 +1373,7 @@ public final class PEAccessLogValve
         }
 
         charBuffer = CharBuffer.allocate(bufferSize);
+        entryEncoders = ThreadLocal.withInitial(EntryEncoder::new);
 
         // Initialize the timeZone, Date formatters, and currentDate
         final TimeZone tz = TimeZone.getDefault();
@@ -1227,7 +1398,7 @@ public final class PEAccessLogValve
 
         lastAccessLogCreationTime = systime;
 
-        if (!flushRealTime){
+        if (!flushRealTime || batchedWrites){
             // Start the background writer writerThread
             threadStart();
         }
@@ -1254,7 +1425,7 @@ public final class PEAccessLogValve
         lifecycle.fireLifecycleEvent(STOP_EVENT, null);
         started = false;
 
-        if (!flushRealTime){
+        if (!flushRealTime || batchedWrites){
             // Stop the background writer thread
             threadStop();
         }
@@ -1270,7 +1441,14 @@ public final class PEAccessLogValve
 
         // Loop until the termination semaphore is set
         while (!threadDone) {
-            threadSleep();
+            if (batchedWrites) {
+                if (pendingSegmentCount.get() == 0) {
+                    LockSupport.parkNanos(BATCH_IDLE_WAIT_NANOS);
+                    continue;
+                }
+            } else {
+                threadSleep();
+            }
             try {
                 log();
             } catch (IOException ioe) {
@@ -1302,7 +1480,7 @@ public final class PEAccessLogValve
      */
     private void threadStart() {
 
-        if (writerThread != null || writeInterval == 0)
+        if (writerThread != null || (writeInterval == 0 && !batchedWrites))
             return;
 
         threadDone = false;
@@ -1318,11 +1496,17 @@ public final class PEAccessLogValve
      */
     private void threadStop() {
 
-        if (writerThread == null || writeInterval == 0)
+        if (writerThread == null || (writeInterval == 0 && !batchedWrites))
             return;
 
         threadDone = true;
-        writerThread.interrupt();
+        if (batchedWrites) {
+            // an interrupt would close the file channel while a batch is
+            // being written, losing it and the entries still pending
+            LockSupport.unpark(writerThread);
+        } else {
+            writerThread.interrupt();
+        }
         try {
             writerThread.join();
         } catch (InterruptedException e) {
@@ -1332,4 +1516,17 @@ public final class PEAccessLogValve
         writerThread = null;
 
     }
-}
\ No newline at end of file
+
+    /**
+     * The buffer and encoder a request thread uses to format its entries when
+     * batched writes are enabled.
+     */
+    private static final class EntryEncoder {
+
+        private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private CharBuffer chars = CharBuffer.allocate(THREAD_BUFFER_SIZE);
+    }
+}
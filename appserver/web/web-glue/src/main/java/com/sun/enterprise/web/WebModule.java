@@ -2208,6 +2208,12 @@ public class WebModule extends PwcWebModule implements Context {
             monitoringNodeName, vsId);
     }
 
+    @Override
+    public void sessionReplicatedEvent(HttpSession session, long bytes) {
+        sessionProbeProvider.sessionReplicatedEvent(session.getId(), bytes,
+            monitoringNodeName, vsId);
+    }
+
     @Override
     public void sessionActivatedStartEvent(HttpSession session) {
         sessionProbeProvider.sessionActivatedStartEvent(session.getId(),
@@ -0,0 +1,184 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.appserv.web.cache;
+
+import com.sun.appserv.util.cache.BaseCache;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapStoreTest {
+  private static final int MAX_SIZE = 10000;
+  private static final int MIN_ENTRY_SIZE = 1000;
+
+  private BaseCache cache;
+  private OffHeapStore store;
+
+  @Before
+  public void setUp() {
+    cache = new BaseCache();
+    cache.init(100, 0.75f, null);
+    store = new OffHeapStore(MAX_SIZE, MIN_ENTRY_SIZE);
+    store.setCache(cache);
+    cache.addCacheListener(store);
+  }
+
+  @Test
+  public void allocatedBufferIsAccounted() {
+    ByteBuffer buffer = put("k1", "v1", 3000);
+
+    assertNotNull(buffer);
+    assertTrue(buffer.isDirect());
+    assertEquals(3000, buffer.capacity());
+    assertEquals(3000, store.getSize());
+    assertEquals(1, store.getEntryCount());
+    assertEquals(1, store.getStoredCount());
+  }
+
+  @Test
+  public void smallAndOversizedBodiesStayOnHeap() {
+    assertNull(store.allocate("k1", "v1", MIN_ENTRY_SIZE - 1));
+    assertNull(store.allocate("k2", "v2", MAX_SIZE + 1));
+
+    assertEquals(0, store.getSize());
+    assertEquals(0, store.getEntryCount());
+    assertEquals(0, store.getStoredCount());
+  }
+
+  @Test
+  public void overwriteReleasesPreviousBuffer() {
+    put("k1", "v1", 3000);
+    put("k1", "v2", 2000);
+
+    assertEquals(2000, store.getSize());
+    assertEquals(1, store.getEntryCount());
+    assertEquals(1, store.getReleasedCount());
+    assertEquals(0, store.getEvictedCount());
+  }
+
+  @Test
+  public void removeReleasesBuffer() {
+    put("k1", "v1", 3000);
+    put("k2", "v2", 2000);
+
+    store.release("k1", "v1");
+
+    assertEquals(2000, store.getSize());
+    assertEquals(1, store.getEntryCount());
+    assertEquals(1, store.getReleasedCount());
+  }
+
+  @Test
+  public void releaseOfReplacedEntryKeepsNewBuffer() {
+    put("k1", "v1", 3000);
+    put("k1", "v2", 2000);
+
+    store.release("k1", "v1");
+
+    assertEquals(2000, store.getSize());
+    assertEquals(1, store.getEntryCount());
+  }
+
+  @Test
+  public void trimmedEntryReleasesBuffer() {
+    put("k1", "v1", 3000);
+
+    store.trimEvent("k1", "v1");
+
+    assertEquals(0, store.getSize());
+    assertEquals(0, store.getEntryCount());
+  }
+
+  @Test
+  public void evictionUnderPressureFreesOldestBuffers() {
+    put("k1", "v1", 4000);
+    put("k2", "v2", 4000);
+    put("k3", "v3", 4000);
+
+    assertEquals(8000, store.getSize());
+    assertEquals(2, store.getEntryCount());
+    assertEquals(1, store.getEvictedCount());
+    assertNull("the evicted entry is removed from the cache", cache.get("k1"));
+    assertSame("v2", cache.get("k2"));
+
+    put("k4", "v4", 9000);
+
+    assertEquals(9000, store.getSize());
+    assertEquals(1, store.getEntryCount());
+    assertEquals(3, store.getEvictedCount());
+    assertNull(cache.get("k2"));
+    assertNull(cache.get("k3"));
+    assertSame("v4", cache.get("k4"));
+  }
+
+  @Test
+  public void releaseOfEvictedEntryDoesNotFreeTwice() {
+    put("k1", "v1", 6000);
+    put("k2", "v2", 6000);
+
+    store.release("k1", "v1");
+
+    assertEquals(6000, store.getSize());
+    assertEquals(0, store.getReleasedCount());
+  }
+
+  @Test
+  public void clearReleasesAllBuffers() {
+    put("k1", "v1", 3000);
+    put("k2", "v2", 3000);
+
+    store.clear();
+
+    assertEquals(0, store.getSize());
+    assertEquals(0, store.getEntryCount());
+  }
+
+  private ByteBuffer put(String key, String value, int length) {
+    ByteBuffer buffer = store.allocate(key, value, length);
+    cache.put(key, value);
+    return buffer;
+  }
+}
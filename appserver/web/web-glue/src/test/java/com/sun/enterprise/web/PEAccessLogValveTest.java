@@ -0,0 +1,247 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.catalina.HttpResponse;
+import org.apache.catalina.Request;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.api.ServiceLocatorFactory;
+import org.glassfish.internal.api.Globals;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the batched writes of {@link PEAccessLogValve}, where request threads queue their entries
+ * for the writer thread.
+ */
+public class PEAccessLogValveTest {
+  private static final Pattern REQUEST_URI = Pattern.compile("\"GET /(\\d+)/(\\d+) HTTP/1.1\"");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ServiceLocator previousHabitat;
+  private ServiceLocator habitat;
+  private PEAccessLogValve valve;
+
+  @Before
+  public void setUp() {
+    previousHabitat = Globals.getDefaultHabitat();
+    habitat = ServiceLocatorFactory.getInstance().create(getClass().getName());
+    Globals.setDefaultHabitat(habitat);
+
+    valve = new PEAccessLogValve();
+    valve.setDirectory(folder.getRoot().getAbsolutePath());
+    valve.setPrefix("access_log.");
+    valve.setSuffix(".txt");
+    valve.setPattern("common");
+    valve.setBatchedWrites(true);
+  }
+
+  @After
+  public void tearDown() {
+    Globals.setDefaultHabitat(previousHabitat);
+    ServiceLocatorFactory.getInstance().destroy(habitat);
+  }
+
+  @Test
+  public void entriesOfEachThreadAreWrittenInOrder() throws Exception {
+    valve.start();
+    logConcurrently(4, 500, 0);
+    valve.stop();
+
+    assertEntries(readEntries(), 4, 500);
+  }
+
+  @Test
+  public void pendingEntriesAreWrittenOnStop() throws Exception {
+    valve.start();
+    for (int i = 0; i < 1000; i++) {
+      valve.postInvoke(request(0, i), response());
+    }
+    valve.stop();
+
+    assertEntries(readEntries(), 1, 1000);
+  }
+
+  @Test
+  public void noEntryIsLostWhenRotatingWithEntriesPending() throws Exception {
+    valve.setRotatable(true);
+    valve.setRotationInterval(0);
+    valve.setFileDateFormat("yyyyMMdd-HHmmss");
+    valve.start();
+    // the date stamp changes every second, logging for longer rotates the log while entries are queued
+    logConcurrently(4, 250, 15);
+    valve.stop();
+
+    assertTrue("the log was rotated", folder.getRoot().listFiles().length > 1);
+    assertEntries(readEntries(), 4, 250);
+  }
+
+  /**
+   * Logs the given number of entries from each of the given number of threads, all started at once,
+   * pausing after every other entry if a pause is given.
+   */
+  private void logConcurrently(int threadCount, int entryCount, long pauseMillis) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < entryCount; i++) {
+            valve.postInvoke(request(thread, i), response());
+            if (pauseMillis > 0 && i % 2 == 0) {
+              Thread.sleep(pauseMillis);
+            }
+          }
+        } catch (Exception | AssertionError ex) {
+          synchronized (failures) {
+            failures.add(ex);
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.MINUTES.toMillis(1));
+    }
+    assertEquals(new ArrayList<>(), failures);
+  }
+
+  /**
+   * Reads the entries of all log files, each file in the order its entries were written.
+   */
+  private List<List<int[]>> readEntries() throws IOException {
+    List<List<int[]>> entries = new ArrayList<>();
+    for (File file : folder.getRoot().listFiles()) {
+      List<int[]> fileEntries = new ArrayList<>();
+      for (String line : Files.readAllLines(file.toPath(), Charset.defaultCharset())) {
+        Matcher matcher = REQUEST_URI.matcher(line);
+        assertTrue(line, matcher.find());
+        fileEntries.add(new int[] { Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) });
+      }
+      entries.add(fileEntries);
+    }
+    return entries;
+  }
+
+  /**
+   * Asserts that every entry was written once, and that the entries of each thread were written in order.
+   */
+  private static void assertEntries(List<List<int[]>> entries, int threadCount, int entryCount) {
+    Set<String> written = new HashSet<>();
+    int[] lastInFile = new int[threadCount];
+    for (List<int[]> fileEntries : entries) {
+      Arrays.fill(lastInFile, -1);
+      for (int[] entry : fileEntries) {
+        assertTrue("entry " + entry[0] + "/" + entry[1] + " written once", written.add(entry[0] + "/" + entry[1]));
+        assertTrue("entries of thread " + entry[0] + " in order", entry[1] > lastInFile[entry[0]]);
+        lastInFile[entry[0]] = entry[1];
+      }
+    }
+    assertEquals(threadCount * entryCount, written.size());
+  }
+
+  private static Request request(int thread, int entry) {
+    HttpServletRequest servletRequest = proxy(HttpServletRequest.class, (method, args) -> {
+      switch (method) {
+        case "getMethod":
+          return "GET";
+        case "getRequestURI":
+          return "/" + thread + "/" + entry;
+        case "getProtocol":
+          return "HTTP/1.1";
+        case "getRemoteHost":
+          return "localhost";
+        default:
+          return null;
+      }
+    });
+    return proxy(Request.class, (method, args) -> "getRequest".equals(method) ? servletRequest : null);
+  }
+
+  private static HttpResponse response() {
+    return proxy(HttpResponse.class, (method, args) -> {
+      switch (method) {
+        case "getStatus":
+          return 200;
+        case "getContentCount":
+          return 0;
+        default:
+          return null;
+      }
+    });
+  }
+
+  private interface Answer {
+    Object answer(String method, Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Answer answer) {
+    return type.cast(Proxy.newProxyInstance(PEAccessLogValveTest.class.getClassLoader(), new Class<?>[] { type },
+        (proxy, method, args) -> answer.answer(method.getName(), args)));
+  }
+}
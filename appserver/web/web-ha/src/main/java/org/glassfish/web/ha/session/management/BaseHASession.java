@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 /*
  * BaseHASession.java
@@ -146,6 +146,32 @@ public abstract class BaseHASession extends StandardSession
         this.setDirty(true);
     }
 
+    /**
+     * Overriding the setMaxInactiveInterval of StandardSession so that
+     * the new interval is replicated
+     *
+     * @param interval The new maximum interval
+     */
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        boolean changed = interval != getMaxInactiveInterval();
+        super.setMaxInactiveInterval(interval);
+        if (changed) {
+            this.setDirty(true);
+        }
+    }
+
+    /**
+     * Restores the last access time replicated along with the session, if it
+     * is more recent than the one the session was serialized with
+     *
+     * @param time the replicated last access time
+     */
+    void restoreLastAccessedTime(long time) {
+        lastAccessedTime = Math.max(lastAccessedTime, time);
+        thisAccessedTime = Math.max(thisAccessedTime, time);
+    }
+
     public boolean isPersistentFlag() {
         return persistentFlag;
     }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.ha.session.management;
 
@@ -71,7 +72,13 @@ public final class CompositeMetadata implements Storeable {
 
     private Map<String, SessionAttributeMetadata> attributesMap = new HashMap<String, SessionAttributeMetadata>();
 
-    private transient Collection<SessionAttributeMetadata> entries;
+    private Collection<SessionAttributeMetadata> entries;
+
+    /**
+     * The version of the save that last changed each attribute, including the
+     * removed ones, so that deltas are merged per attribute
+     */
+    private Map<String, Long> attributeVersions = new HashMap<String, Long>();
 
     private transient Set<String> _dirtyAttributeNames = new HashSet<String>();
 
@@ -155,10 +162,80 @@ public final class CompositeMetadata implements Storeable {
         return attributesMap.values();
     }
 
+    /**
+     * Applies the attribute operations, trunk state and timestamps carried by a
+     * delta created on save to this metadata, so that it keeps holding the full
+     * set of session attributes. The trunk state and timestamps of a delta older
+     * than this metadata are ignored, as are its attributes that a newer delta
+     * already changed.
+     *
+     * @param delta the metadata created when the session was saved
+     * @return true if anything of the delta was applied, false if it was stale
+     */
+    public boolean applyDelta(CompositeMetadata delta) {
+        boolean applied = false;
+        if (delta.version >= version) {
+            version = delta.version;
+            lastAccessTime = delta.lastAccessTime;
+            maxInactiveInterval = delta.maxInactiveInterval;
+            if (delta.state != null) {
+                state = delta.state;
+            }
+            if (delta.stringExtraParam != null) {
+                stringExtraParam = delta.stringExtraParam;
+            }
+            applied = true;
+        }
+        if (delta.entries != null) {
+            for (SessionAttributeMetadata attr : delta.entries) {
+                String attributeName = attr.getAttributeName();
+                Long attributeVersion = attributeVersions.get(attributeName);
+                if (attributeVersion != null && attributeVersion > delta.version) {
+                    continue;
+                }
+                attributeVersions.put(attributeName, delta.version);
+                if (attr.getOperation() == SessionAttributeMetadata.Operation.DELETE || attr.getState() == null) {
+                    attributesMap.remove(attributeName);
+                } else {
+                    attributesMap.put(attributeName, attr);
+                }
+                applied = true;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the number of bytes of trunk and attribute state this metadata
+     * carries as a delta
+     */
+    long getDeltaStateSize() {
+        long size = state == null ? 0 : state.length;
+        if (entries != null) {
+            for (SessionAttributeMetadata attr : entries) {
+                if (attr.getState() != null) {
+                    size += attr.getState().length;
+                }
+            }
+        }
+        return size;
+    }
+
     public long getVersion() {
         return version;
     }
 
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Returns the maximum inactive interval of the session in milliseconds
+     */
+    public long getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
     @Override
     public long _storeable_getVersion() {
         return version;
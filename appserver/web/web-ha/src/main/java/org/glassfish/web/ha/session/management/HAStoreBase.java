@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 /*
  * HAStoreBase.java
@@ -52,6 +52,8 @@ import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
 import org.apache.catalina.Container;
 import org.apache.catalina.Manager;
 import org.apache.catalina.Session;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.session.StandardSession;
 import org.apache.catalina.session.StoreBase;
 import org.glassfish.web.ha.LogFacade;
 
@@ -169,6 +171,20 @@ public abstract class HAStoreBase extends StoreBase {
         return clusterId;
     }
 
+    /**
+    * Reports the number of bytes sent to the backing store when saving
+    * <code>session</code> to the web container monitoring.
+    *
+    * @param session the session that was saved
+    * @param bytes the size of the replicated state
+    */
+    protected void sessionReplicated(Session session, long bytes) {
+        Container container = manager.getContainer();
+        if (container instanceof StandardContext && session instanceof StandardSession) {
+            ((StandardContext) container).sessionReplicatedEvent((StandardSession) session, bytes);
+        }
+    }
+
     //possible generic methods begin
 
     /**
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2017] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package org.glassfish.web.ha.session.management;
 
@@ -50,8 +50,12 @@ import org.apache.catalina.session.*;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 /**
@@ -150,14 +154,17 @@ public class ReplicationAttributeStore extends ReplicationStore {
         String userName = "";
         if(session.getPrincipal() !=null){
             userName = session.getPrincipal().getName();
-            ((BaseHASession)session).setUserName(userName);
         }
+        //the trunk state carries the user name, so it is resent on login and logout
+        boolean includeTrunk = !modAttrSession.isPersistent()
+                || !userName.equals(modAttrSession.getUserName());
+        modAttrSession.setUserName(userName);
         BackingStore<String, CompositeMetadata> replicator = getCompositeMetadataBackingStore();
         if(_logger.isLoggable(Level.FINE)) {
             _logger.fine("ReplicationAttributeStore>>save: replicator: " + replicator);                    
         }         
         CompositeMetadata compositeMetadata
-            = createCompositeMetadata(modAttrSession);
+            = createCompositeMetadata(modAttrSession, includeTrunk, false);
                 
         try {
             if (_logger.isLoggable(Level.FINE)) {
@@ -167,7 +174,11 @@ public class ReplicationAttributeStore extends ReplicationStore {
                     compositeMetadata, !((HASession) session).isPersistent());
             modAttrSession.resetAttributeState();
             postSaveUpdate(modAttrSession);
+            sessionReplicated(session, compositeMetadata.getDeltaStateSize());
         } catch (BackingStoreException ex) {
+            if (compositeMetadata.getState() == null) {
+                saveFullSession(modAttrSession, replicator, ex);
+            }
             //FIXME
         }
     }
@@ -201,7 +212,7 @@ public class ReplicationAttributeStore extends ReplicationStore {
             _logger.fine("ReplicationAttributeStore>>doSave: replicator: " + replicator);                    
         }         
         CompositeMetadata compositeMetadata 
-            = createCompositeMetadata(modAttrSession);
+            = createCompositeMetadata(modAttrSession, !modAttrSession.isPersistent(), false);
                 
         try {
             if (_logger.isLoggable(Level.FINE)) {
@@ -212,6 +223,30 @@ public class ReplicationAttributeStore extends ReplicationStore {
                     compositeMetadata, !((HASession) session).isPersistent());
             modAttrSession.resetAttributeState();
             postSaveUpdate(modAttrSession);
+            sessionReplicated(session, compositeMetadata.getDeltaStateSize());
+        } catch (BackingStoreException ex) {
+            if (compositeMetadata.getState() == null) {
+                saveFullSession(modAttrSession, replicator, ex);
+            }
+            //FIXME
+        }
+    }
+
+    /**
+     * Sends the trunk and all attributes of a session whose changed attributes
+     * could not be saved, e.g. because the store no longer holds the session
+     */
+    private void saveFullSession(ModifiedAttributeHASession modAttrSession,
+            BackingStore<String, CompositeMetadata> replicator, BackingStoreException cause) throws IOException {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "ReplicationAttributeStore>>saveFullSession id=" + modAttrSession.getIdInternal(), cause);
+        }
+        CompositeMetadata compositeMetadata = createCompositeMetadata(modAttrSession, true, true);
+        try {
+            replicator.save(modAttrSession.getIdInternal(), compositeMetadata, true);
+            modAttrSession.resetAttributeState();
+            postSaveUpdate(modAttrSession);
+            sessionReplicated(modAttrSession, compositeMetadata.getDeltaStateSize());
         } catch (BackingStoreException ex) {
             //FIXME
         }
@@ -364,16 +399,30 @@ public class ReplicationAttributeStore extends ReplicationStore {
             associate(ssoId, _session);
 */
         ((HASession)_session).setVersion(version);
+        //the trunk is only resent when needed, so the timestamps stored with the
+        //metadata are more recent than the ones it holds
+        ((BaseHASession)_session).restoreLastAccessedTime(metadata.getLastAccessTime());
+        if (metadata.getMaxInactiveInterval() != 0L) {
+            _session.setMaxInactiveInterval((int) (metadata.getMaxInactiveInterval() / 1000L));
+        }
         ((HASession)_session).setDirty(false);
         
-        //now load entries from deserialized entries collection
-        ((ModifiedAttributeHASession)_session).clearAttributeStates();
-        byte[] entriesState = metadata.getState();
-        Collection entries = null;
-        if(entriesState != null) {
-            entries = this.deserializeStatesCollection(entriesState);
-            loadAttributes((ModifiedAttributeHASession)_session, entries);
+        //the trunk state is only resent when needed, so it may still hold
+        //attributes that were removed since; the entries are authoritative
+        Set<String> storedAttributeNames = new HashSet<String>();
+        for (SessionAttributeMetadata attr : metadata.getEntries()) {
+            storedAttributeNames.add(attr.getAttributeName());
         }
+        Enumeration<String> attributeNames = ((ModifiedAttributeHASession)_session).privateGetAttributeList();
+        while (attributeNames.hasMoreElements()) {
+            String attributeName = attributeNames.nextElement();
+            if (!storedAttributeNames.contains(attributeName)) {
+                ((StandardSession)_session).removeAttribute(attributeName, false, false);
+            }
+        }
+
+        //now load entries from the attribute metadata
+        ((ModifiedAttributeHASession)_session).clearAttributeStates();
         loadAttributes((ModifiedAttributeHASession)_session, metadata.getEntries());
         return _session;
     }
@@ -405,10 +454,11 @@ public class ReplicationAttributeStore extends ReplicationStore {
         }
     }
     
-    private CompositeMetadata createCompositeMetadata(ModifiedAttributeHASession modAttrSession) throws IOException {
+    private CompositeMetadata createCompositeMetadata(ModifiedAttributeHASession modAttrSession,
+            boolean includeTrunk, boolean includeAllAttributes) throws IOException {
         
         byte[] trunkState = null;
-        if (!modAttrSession.isNew()) {
+        if (includeTrunk) {
             try {
                 trunkState = this.getByteArray(modAttrSession);
             } catch(IOException ex) {
@@ -429,12 +479,18 @@ public class ReplicationAttributeStore extends ReplicationStore {
         printAttrList("MODIFIED", modifiedAttrs);
         printAttrList("DELETED", deletedAttrs);
         
-        addToEntries(modAttrSession, entries, 
-                SessionAttributeMetadata.Operation.ADD, addedAttrs);
-        addToEntries(modAttrSession, entries, 
-                SessionAttributeMetadata.Operation.UPDATE, modifiedAttrs);
-        addToEntries(modAttrSession, entries,
-                SessionAttributeMetadata.Operation.DELETE, deletedAttrs);
+        if (includeAllAttributes) {
+            addToEntries(modAttrSession, entries,
+                    SessionAttributeMetadata.Operation.ADD,
+                    Collections.list(modAttrSession.privateGetAttributeList()));
+        } else {
+            addToEntries(modAttrSession, entries,
+                    SessionAttributeMetadata.Operation.ADD, addedAttrs);
+            addToEntries(modAttrSession, entries,
+                    SessionAttributeMetadata.Operation.UPDATE, modifiedAttrs);
+            addToEntries(modAttrSession, entries,
+                    SessionAttributeMetadata.Operation.DELETE, deletedAttrs);
+        }
 
         CompositeMetadata result 
             = new CompositeMetadata(modAttrSession.getVersion(),
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2017] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 /*
  * ReplicationStore.java
@@ -114,8 +114,6 @@ public class ReplicationStore extends HAStoreBase {
             haSess.setPersistent(true);
         }
         haSess.setDirty(false);
-
-        this.doValveSave(session);
     }
 
     /**
@@ -174,6 +172,7 @@ public class ReplicationStore extends HAStoreBase {
             HASession haSess = (HASession)session;
             replicator.save(session.getIdInternal(), //id
                     simpleMetadata, haSess.isPersistent());
+            sessionReplicated(session, sessionState.length);
 
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.fine("Save succeeded.");
@@ -266,6 +265,7 @@ public class ReplicationStore extends HAStoreBase {
             }
             backingStore.save(session.getIdInternal(), //id
                     simpleMetadata, !((HASession)session).isPersistent());  //TODO: Revist the last param
+            sessionReplicated(session, sessionState.length);
         } catch (BackingStoreException ex) {
             throw new IOException("Error during save: " + ex.getMessage(), ex);
         }
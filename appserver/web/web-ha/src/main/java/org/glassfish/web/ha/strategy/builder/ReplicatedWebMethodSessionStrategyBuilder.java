@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2018] Payara Foundation and/or affiliates
+// Portions Copyright [2018-2020] Payara Foundation and/or affiliates
 
 package org.glassfish.web.ha.strategy.builder;
 
@@ -119,6 +119,10 @@ public class ReplicatedWebMethodSessionStrategyBuilder extends BasePersistenceSt
         vendorMap.put("async.replication", asyncReplicationValue);
         vendorMap.put("broadcast.remove.expired", false);
         vendorMap.put("value.class.is.thread.safe", true);
+        vendorMap.put("near.cache.enabled", nearCacheEnabled);
+        vendorMap.put("near.cache.max.size", nearCacheMaxSize);
+        vendorMap.put("write.behind.delay.millis", writeBehindDelay);
+        vendorMap.put("write.behind.queue.size", writeBehindQueueSize);
         ReplicationWebEventPersistentManager<T> rwepMgr = getReplicationWebEventPersistentManager();
         rwepMgr.setSessionFactory(sessionFactory);
         rwepMgr.createBackingStore(this.getPassedInPersistenceType(), ctx.getPath(), metadataClass, vendorMap);
@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.web.ha.session.management;
+
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.ADD;
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.DELETE;
+import static org.glassfish.web.ha.session.management.SessionAttributeMetadata.Operation.UPDATE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Tests how {@link CompositeMetadata#applyDelta(CompositeMetadata)} merges the deltas of a session.
+ */
+public class CompositeMetadataTest {
+
+    private static final byte[] TRUNK = { 1, 2, 3 };
+
+    @Test
+    public void deltasAppliedInOrderKeepAllAttributes() {
+        CompositeMetadata stored = new CompositeMetadata();
+        assertTrue(stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1"))));
+        assertTrue(stored.applyDelta(delta(2, null, attribute("b", ADD, "b2"))));
+        assertTrue(stored.applyDelta(delta(3, null, attribute("a", UPDATE, "a3"))));
+
+        assertEquals(3, stored.getVersion());
+        assertArrayEquals(TRUNK, stored.getState());
+        assertEquals(2, stored.getEntries().size());
+        assertEquals("a3", valueOf(stored, "a"));
+        assertEquals("b2", valueOf(stored, "b"));
+    }
+
+    @Test
+    public void outOfOrderDeltaOnlyAppliesAttributesNotChangedSince() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+        stored.applyDelta(delta(3, null, attribute("a", UPDATE, "a3")));
+
+        assertTrue(stored.applyDelta(delta(2, new byte[] { 9 }, attribute("a", UPDATE, "a2"), attribute("b", ADD, "b2"))));
+
+        assertEquals(3, stored.getVersion());
+        assertArrayEquals("the trunk of an older delta is ignored", TRUNK, stored.getState());
+        assertEquals("a3", valueOf(stored, "a"));
+        assertEquals("b2", valueOf(stored, "b"));
+    }
+
+    @Test
+    public void deleteRemovesAttribute() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1"), attribute("b", ADD, "b1")));
+
+        assertTrue(stored.applyDelta(delta(2, null, attribute("a", DELETE, null))));
+
+        assertNull(valueOf(stored, "a"));
+        assertEquals("b1", valueOf(stored, "b"));
+        assertEquals(1, stored.getEntries().size());
+    }
+
+    @Test
+    public void lateDeleteDoesNotRemoveNewerAttribute() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+        stored.applyDelta(delta(3, null, attribute("a", UPDATE, "a3")));
+
+        assertFalse(stored.applyDelta(delta(2, null, attribute("a", DELETE, null))));
+
+        assertEquals("a3", valueOf(stored, "a"));
+    }
+
+    @Test
+    public void lateUpdateDoesNotRecreateDeletedAttribute() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+        stored.applyDelta(delta(3, null, attribute("a", DELETE, null)));
+
+        assertFalse(stored.applyDelta(delta(2, null, attribute("a", UPDATE, "a2"))));
+
+        assertNull(valueOf(stored, "a"));
+        assertTrue(stored.getEntries().isEmpty());
+    }
+
+    @Test
+    public void deltaAfterNewerSaveOfSameAttributeIsStale() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+        stored.applyDelta(delta(5, null, attribute("a", UPDATE, "a5")));
+
+        assertFalse(stored.applyDelta(delta(4, null, attribute("a", UPDATE, "a4"))));
+
+        assertEquals(5, stored.getVersion());
+        assertEquals("a5", valueOf(stored, "a"));
+    }
+
+    @Test
+    public void deltaOfSameVersionIsApplied() {
+        CompositeMetadata stored = new CompositeMetadata();
+        stored.applyDelta(delta(1, TRUNK, attribute("a", ADD, "a1")));
+
+        assertTrue(stored.applyDelta(delta(1, null, attribute("a", UPDATE, "a1'"))));
+
+        assertEquals("a1'", valueOf(stored, "a"));
+    }
+
+    private static CompositeMetadata delta(long version, byte[] trunk, SessionAttributeMetadata... attributes) {
+        return new CompositeMetadata(version, version * 1000, 1800000, Arrays.asList(attributes), trunk, null);
+    }
+
+    private static SessionAttributeMetadata attribute(String name, SessionAttributeMetadata.Operation operation, String value) {
+        return new SessionAttributeMetadata(name, operation, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String valueOf(CompositeMetadata metadata, String attributeName) {
+        for (SessionAttributeMetadata attribute : metadata.getEntries()) {
+            if (attribute.getAttributeName().equals(attributeName)) {
+                return new String(attribute.getState(), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
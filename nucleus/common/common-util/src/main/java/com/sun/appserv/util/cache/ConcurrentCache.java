@@ -0,0 +1,779 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.appserv.util.cache;
+
+import com.sun.enterprise.util.CULoggerInfo;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentCache
+ * in-memory bounded cache for highly concurrent access, a drop-in
+ * alternative to {@link LruCache}.
+ *
+ * The entries are spread over a number of segments. Each segment keeps its
+ * entries in a {@link ConcurrentHashMap}, so lookups never block, and its own
+ * LRU list from which entries are trimmed once the segment is full. A lookup
+ * only moves the entry to the head of the LRU list if the segment lock is
+ * free, which makes the LRU order approximate under contention. Statistics
+ * are kept in {@link LongAdder}s instead of lock protected counters.
+ */
+public class ConcurrentCache implements Cache {
+
+    // the item never expires
+    public static final long NO_TIMEOUT = -1;
+
+    // a segment holds at least this many entries, unless the cache is smaller
+    static final int MIN_SEGMENT_CAPACITY = 32;
+    static final int MAX_SEGMENTS = 64;
+
+    // number of locks used for waitRefresh/notifyRefresh
+    static final int REFRESH_STRIPES = 256;
+
+    protected int maxEntries;
+    protected int threshold;
+    protected long timeout = NO_TIMEOUT;
+
+    private Segment[] segments;
+    private int segmentShift;
+
+    private Object[] refreshLocks;
+    private boolean[] refreshFlags;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder removalCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder addCount = new LongAdder();
+    private final LongAdder trimCount = new LongAdder();
+
+    protected List<CacheListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, Properties props) throws Exception {
+        init(maxEntries, BaseCache.DEFAULT_LOAD_FACTOR, props);
+    }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param loadFactor the load factor
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, float loadFactor, Properties props) {
+        if (maxEntries <= 0) {
+            String msg = CULoggerInfo.getString(CULoggerInfo.illegalMaxEntries);
+            throw new IllegalArgumentException(MessageFormat.format(msg, maxEntries));
+        }
+        if (maxEntries > BaseCache.MAX_ENTRIES) {
+            maxEntries = BaseCache.MAX_ENTRIES;
+        }
+        if (loadFactor < 0) {
+            loadFactor = 0;
+        }
+        this.maxEntries = maxEntries;
+        this.threshold = (int) (maxEntries * loadFactor) + 1;
+
+        int segmentCount = 1;
+        int cores = Runtime.getRuntime().availableProcessors();
+        while (segmentCount < cores * 2 && segmentCount < MAX_SEGMENTS
+                && threshold / (segmentCount * 2) >= MIN_SEGMENT_CAPACITY) {
+            segmentCount <<= 1;
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        // spread the remainder so that the capacities add up to the threshold exactly
+        int segmentCapacity = threshold / segmentCount;
+        int remainder = threshold % segmentCount;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+        }
+
+        refreshLocks = new Object[REFRESH_STRIPES];
+        refreshFlags = new boolean[REFRESH_STRIPES];
+        for (int i = 0; i < REFRESH_STRIPES; i++) {
+            refreshLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * sets the timeout value
+     * @param timeout to be used to trim the expired entries
+     */
+    public void setTimeout(long timeout) {
+        // accept a positive timeout
+        if (timeout > 0) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * add the cache module listener
+     * @param listener <code>CacheListener</code> implementation
+     */
+    @Override
+    public void addCacheListener(CacheListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns a well spread hash code for non-null Object x.
+     */
+    protected int hash(Object x) {
+        int h = x.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int hashCode) {
+        return segmentShift == 32 ? segments[0] : segments[hashCode >>> segmentShift];
+    }
+
+    /**
+     * get the index of the item given a key
+     * @param key of the entry
+     * @return the index to be used in the cache
+     */
+    @Override
+    public int getIndex(Object key) {
+        return hash(key) & (REFRESH_STRIPES - 1);
+    }
+
+    /**
+     * get the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object get(Object key) {
+        int hashCode = hash(key);
+        Segment segment = segmentFor(hashCode);
+        Item item = segment.items.get(key);
+        if (item == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        segment.recordAccess(item);
+        return item.value;
+    }
+
+    /**
+     * get all the items stored at the key.
+     * @param key lookup key
+     * @returns an Iterator over the items with the given key.
+     */
+    @Override
+    public Iterator getAll(Object key) {
+        List<Object> valueList = new ArrayList<>();
+        for (Item item = segmentFor(hash(key)).items.get(key); item != null; item = item.sibling) {
+            hitCount.increment();
+            valueList.add(item.value);
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * check if the cache contains the item at the key
+     * @param key lookup key
+     * @returns true if there is an item stored at the key; false if not.
+     */
+    @Override
+    public boolean contains(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * get an Iterator for the keys stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator keys() {
+        return collectKeys().iterator();
+    }
+
+    /**
+     * get an Enumeration for the keys stored in the cache
+     * @returns an Enumeration
+     */
+    @Override
+    public Enumeration elements() {
+        return Collections.enumeration(collectKeys());
+    }
+
+    private List<Object> collectKeys() {
+        List<Object> keyList = new ArrayList<>();
+        for (Segment segment : segments) {
+            for (Item first : segment.items.values()) {
+                for (Item item = first; item != null; item = item.sibling) {
+                    keyList.add(item.key);
+                }
+            }
+        }
+        return keyList;
+    }
+
+    /**
+     * get an Iterator for the values stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator values() {
+        List<Object> valueList = new ArrayList<>();
+        for (Segment segment : segments) {
+            for (Item first : segment.items.values()) {
+                for (Item item = first; item != null; item = item.sibling) {
+                    valueList.add(item.value);
+                }
+            }
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value) {
+        return put(key, value, -1);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being cached
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value, int size) {
+        return _put(key, value, size, false);
+    }
+
+    /**
+     * add the given value to the cache at the specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     */
+    @Override
+    public void add(Object key, Object value) {
+        add(key, value, -1);
+    }
+
+    /**
+     * add the given value with specified size to the cache at specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being added
+     */
+    @Override
+    public void add(Object key, Object value, int size) {
+        _put(key, value, size, true);
+    }
+
+    private Object _put(Object key, Object value, int size, boolean addValue) {
+        Segment segment = segmentFor(hash(key));
+        List<Item> trimmed = null;
+        Object oldValue = null;
+        boolean added;
+
+        segment.lock();
+        try {
+            Item first = segment.items.get(key);
+            added = addValue || first == null;
+            if (added) {
+                // like BaseCache, the value added last is the first one found
+                Item item = new Item(key, value, size);
+                item.sibling = first;
+                segment.items.put(key, item);
+                segment.link(item);
+                trimmed = segment.trimOverflow();
+            } else {
+                oldValue = first.value;
+                first.value = value;
+                first.size = size;
+                first.lastAccessed = System.currentTimeMillis();
+                segment.moveToHead(first);
+            }
+        } finally {
+            segment.unlock();
+        }
+
+        if (added) {
+            addCount.increment();
+            notifyTrimmed(trimmed);
+        } else {
+            refreshCount.increment();
+        }
+        return oldValue;
+    }
+
+    /**
+     * remove the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key) {
+        return remove(key, null);
+    }
+
+    /**
+     * remove the given value stored at the key; value-specific removals.
+     * @param key lookup key
+     * @param value to match (for a multi-valued keys); null matches any value
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key, Object value) {
+        Segment segment = segmentFor(hash(key));
+        Item removed = null;
+
+        segment.lock();
+        try {
+            for (Item item = segment.items.get(key); item != null; item = item.sibling) {
+                if (value == null || value == item.value || value.equals(item.value)) {
+                    segment.remove(item);
+                    removed = item;
+                    break;
+                }
+            }
+        } finally {
+            segment.unlock();
+        }
+
+        if (removed == null) {
+            missCount.increment();
+            return null;
+        }
+        removalCount.increment();
+        hitCount.increment();
+        return removed.value;
+    }
+
+    /**
+     * remove all the item with the given key.
+     * @param key lookup key
+     */
+    @Override
+    public void removeAll(Object key) {
+        Segment segment = segmentFor(hash(key));
+        int count = 0;
+
+        segment.lock();
+        try {
+            Item item = segment.items.get(key);
+            while (item != null) {
+                Item next = item.sibling;
+                segment.remove(item);
+                count++;
+                item = next;
+            }
+        } finally {
+            segment.unlock();
+        }
+        removalCount.add(count);
+    }
+
+    private void notifyTrimmed(List<Item> trimmed) {
+        if (trimmed == null) {
+            return;
+        }
+        trimCount.add(trimmed.size());
+        for (Item item : trimmed) {
+            for (CacheListener listener : listeners) {
+                listener.trimEvent(item.key, item.value);
+            }
+        }
+    }
+
+    /**
+     * wait for a refresh on the object associated with the key
+     * @param index index of the entry
+     * @returns true on successful notification, or false if there is
+     *  no thread refreshing this entry.
+     */
+    @Override
+    public boolean waitRefresh(int index) {
+        synchronized (refreshLocks[index]) {
+            if (!refreshFlags[index]) {
+                refreshFlags[index] = true;
+                return false;
+            }
+
+            // wait till refresh is finished
+            try {
+                while (refreshFlags[index]) {
+                    refreshLocks[index].wait();
+                }
+            } catch (InterruptedException ie) {
+                //refresh is finished
+            }
+        }
+        return true;
+    }
+
+    /**
+     * notify threads waiting for a refresh on the object associated with the key
+     * @param index index of the entry
+     */
+    @Override
+    public void notifyRefresh(int index) {
+        synchronized (refreshLocks[index]) {
+            refreshFlags[index] = false;
+            refreshLocks[index].notifyAll();
+        }
+    }
+
+    /**
+     * clear all the entries from the cache.
+     * @returns the number of entries cleared from the cache
+     */
+    @Override
+    public int clear() {
+        int count = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                count += segment.count;
+                segment.items.clear();
+                segment.head = segment.tail = null;
+                segment.count = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * trim the expired entries from the cache.
+     * @param maxCount maximum number of invalid entries to trim
+     *        specify Integer.MAX_VALUE to trim all timedout entries
+     *
+     * This call is to be scheduled by a thread managed by the container.
+     */
+    @Override
+    public void trimExpiredEntries(int maxCount) {
+        if (timeout == NO_TIMEOUT) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - timeout;
+        List<Item> trimmed = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                // the LRU order is approximate, so only trim up to the first valid item
+                while (trimmed.size() < maxCount && segment.tail != null
+                        && segment.tail.lastAccessed <= expiredBefore) {
+                    Item item = segment.tail;
+                    segment.remove(item);
+                    trimmed.add(item);
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+        notifyTrimmed(trimmed);
+    }
+
+    /**
+     * is this cache empty?
+     * @returns true if the cache is empty; false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (!segment.items.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * get the number of entries in the cache
+     * @return the number of entries the cache currently holds
+     */
+    @Override
+    public int getEntryCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.count;
+        }
+        return count;
+    }
+
+    /**
+     * get the desired statistic counter
+     * @param key to corresponding stat
+     * @return an Object corresponding to the stat
+     * See also: Constant.java for the key
+     */
+    @Override
+    public Object getStatByName(String key) {
+        if (key == null) {
+            return null;
+        }
+        return getStats().get(key);
+    }
+
+    /**
+     * get the stats snapshot
+     * @return a Map of stats
+     * See also: Constant.java for the keys
+     */
+    @Override
+    public Map getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int entryCount = getEntryCount();
+
+        stats.put(Constants.STAT_BASECACHE_MAX_ENTRIES, maxEntries);
+        stats.put(Constants.STAT_BASECACHE_THRESHOLD, threshold);
+        stats.put(Constants.STAT_BASECACHE_TABLE_SIZE, segments.length);
+        stats.put(Constants.STAT_BASECACHE_ENTRY_COUNT, entryCount);
+        stats.put(Constants.STAT_BASECACHE_HIT_COUNT, hitCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_MISS_COUNT, missCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_REMOVAL_COUNT, removalCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_REFRESH_COUNT, refreshCount.intValue());
+        stats.put(Constants.STAT_BASECACHE_OVERFLOW_COUNT, 0);
+        stats.put(Constants.STAT_BASECACHE_ADD_COUNT, addCount.intValue());
+        stats.put(Constants.STAT_LRUCACHE_LIST_LENGTH, entryCount);
+        stats.put(Constants.STAT_LRUCACHE_TRIM_COUNT, trimCount.intValue());
+        stats.put(Constants.STAT_CONCURRENTCACHE_SEGMENT_COUNT, segments.length);
+
+        return stats;
+    }
+
+    /**
+     * clear the stats
+     */
+    @Override
+    public void clearStats() {
+        hitCount.reset();
+        missCount.reset();
+        removalCount.reset();
+        refreshCount.reset();
+        addCount.reset();
+        trimCount.reset();
+    }
+
+    /**
+     * Clears the cache and its listeners. This method should be called
+     * at the end of this object's life cycle.
+     */
+    @Override
+    public void destroy() {
+        if (segments != null) {
+            clear();
+        }
+        listeners.clear();
+    }
+
+    /**
+     * A cached value. Further values added for the same key are chained
+     * through <code>sibling</code>; every value has its own place in the
+     * LRU list of its segment.
+     */
+    static final class Item {
+        final Object key;
+        volatile Object value;
+        volatile int size;
+        volatile long lastAccessed;
+        volatile Item sibling;
+
+        // LRU list, guarded by the segment lock
+        Item lPrev;
+        Item lNext;
+        boolean linked;
+
+        Item(Object key, Object value, int size) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+            this.lastAccessed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * A part of the cache with its own lock, LRU list and capacity. Lookups
+     * read the map without locking; all modifications hold the lock.
+     */
+    static final class Segment extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        final ConcurrentHashMap<Object, Item> items = new ConcurrentHashMap<>();
+        final int capacity;
+
+        // guarded by the lock
+        Item head;
+        Item tail;
+        // written under the lock, read without it by getEntryCount()
+        volatile int count;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void recordAccess(Item item) {
+            long now = System.currentTimeMillis();
+            if (item.lastAccessed != now) {
+                item.lastAccessed = now;
+            }
+            if (item != head && tryLock()) {
+                try {
+                    moveToHead(item);
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        void link(Item item) {
+            attach(item);
+            count++;
+        }
+
+        void unlink(Item item) {
+            if (!item.linked) {
+                return;
+            }
+            detach(item);
+            count--;
+        }
+
+        void moveToHead(Item item) {
+            if (item.linked && item != head) {
+                detach(item);
+                attach(item);
+            }
+        }
+
+        private void attach(Item item) {
+            item.lPrev = null;
+            item.lNext = head;
+            if (head != null) {
+                head.lPrev = item;
+            } else {
+                tail = item;
+            }
+            head = item;
+            item.linked = true;
+        }
+
+        private void detach(Item item) {
+            Item prev = item.lPrev;
+            Item next = item.lNext;
+            if (prev != null) {
+                prev.lNext = next;
+            } else {
+                head = next;
+            }
+            if (next != null) {
+                next.lPrev = prev;
+            } else {
+                tail = prev;
+            }
+            item.lPrev = item.lNext = null;
+            item.linked = false;
+        }
+
+        /**
+         * Removes the item from the LRU list and from the values of its key.
+         */
+        void remove(Item item) {
+            unlink(item);
+            Item first = items.get(item.key);
+            if (first == item) {
+                if (item.sibling == null) {
+                    items.remove(item.key);
+                } else {
+                    items.put(item.key, item.sibling);
+                }
+                return;
+            }
+            for (Item prev = first; prev != null; prev = prev.sibling) {
+                if (prev.sibling == item) {
+                    prev.sibling = item.sibling;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes the least recently used items while the segment holds more
+         * than its capacity.
+         */
+        List<Item> trimOverflow() {
+            List<Item> trimmed = null;
+            while (count > capacity && tail != null) {
+                Item item = tail;
+                remove(item);
+                if (trimmed == null) {
+                    trimmed = new ArrayList<>(1);
+                }
+                trimmed.add(item);
+            }
+            return trimmed;
+        }
+    }
+}
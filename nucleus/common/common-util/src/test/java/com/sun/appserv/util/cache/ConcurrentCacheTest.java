@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.appserv.util.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentCacheTest {
+
+    private ConcurrentCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ConcurrentCache();
+        // small enough to be kept in a single segment with an exact LRU order
+        cache.init(40, 1.0f, new Properties());
+    }
+
+    @Test
+    public void putReplacesValue() {
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.get("a"));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getStatByName(Constants.STAT_BASECACHE_REFRESH_COUNT));
+    }
+
+    @Test
+    public void addKeepsAllValuesOfKey() {
+        cache.add("a", "1");
+        cache.add("a", "2");
+        assertEquals("2", cache.get("a"));
+        List<Object> values = new ArrayList<>();
+        cache.getAll("a").forEachRemaining(values::add);
+        assertEquals(2, values.size());
+        assertEquals("1", cache.remove("a", "1"));
+        assertEquals("2", cache.get("a"));
+        cache.removeAll("a");
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreTrimmed() {
+        List<Object> trimmed = new ArrayList<>();
+        cache.addCacheListener((key, value) -> trimmed.add(key));
+        // like LruCache the cache holds up to maxEntries * loadFactor + 1 entries
+        for (int i = 0; i < 42; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(1, trimmed.size());
+        assertEquals(0, trimmed.get(0));
+        assertNull(cache.get(0));
+        assertEquals(41, cache.getEntryCount());
+    }
+
+    @Test
+    public void accessedEntryIsNotTrimmedFirst() {
+        for (int i = 0; i < 41; i++) {
+            cache.put(i, i);
+        }
+        cache.get(0);
+        cache.put(41, 41);
+        assertEquals(0, cache.get(0));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void statsCountHitsAndMisses() {
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(1, cache.getStatByName(Constants.STAT_BASECACHE_HIT_COUNT));
+        assertEquals(1, cache.getStatByName(Constants.STAT_BASECACHE_MISS_COUNT));
+        cache.clearStats();
+        assertEquals(0, cache.getStatByName(Constants.STAT_BASECACHE_HIT_COUNT));
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals(2, cache.clear());
+        assertTrue(cache.isEmpty());
+        Iterator keys = cache.keys();
+        assertFalse(keys.hasNext());
+    }
+
+    @Test
+    public void expiredEntriesAreTrimmed() throws Exception {
+        cache.setTimeout(1);
+        cache.put("a", "1");
+        Thread.sleep(10);
+        cache.trimExpiredEntries(Integer.MAX_VALUE);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void concurrentUpdatesKeepCacheBounded() throws Exception {
+        ConcurrentCache bounded = new ConcurrentCache();
+        bounded.init(1000, 1.0f, new Properties());
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        Integer key = (i * threads + offset) % 5000;
+                        if (bounded.get(key) == null) {
+                            bounded.put(key, key);
+                        }
+                        if (i % 7 == 0) {
+                            bounded.remove(key);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        int entries = bounded.getEntryCount();
+        assertTrue(entries <= 1001);
+        int counted = 0;
+        for (Iterator it = bounded.keys(); it.hasNext(); it.next()) {
+            counted++;
+        }
+        assertEquals(entries, counted);
+    }
+}
@@ -52,7 +52,11 @@ import com.sun.enterprise.util.io.FileUtils;
 import com.sun.enterprise.v3.logging.AgentFormatterDelegate;
 import fish.payara.enterprise.server.logging.JSONLogFormatter;
 import fish.payara.enterprise.server.logging.PayaraNotificationLogRotationTimer;;
+import fish.payara.monitoring.collect.MonitoringData;
+import fish.payara.monitoring.collect.MonitoringDataCollector;
+import fish.payara.monitoring.collect.MonitoringDataSource;
 import java.io.*;
+import java.nio.charset.Charset;
 import java.security.PrivilegedAction;
 import java.text.FieldPosition;
 import java.text.ParseException;
@@ -60,7 +64,12 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.ErrorManager;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -93,10 +102,10 @@ import static java.security.AccessController.doPrivileged;
 @Singleton
 @ContractsProvided(
     {GFFileHandler.class, java.util.logging.Handler.class,
-        LogEventBroadcaster.class, LoggingRuntime.class}
+        LogEventBroadcaster.class, LoggingRuntime.class, MonitoringDataSource.class}
 )
 public class GFFileHandler extends StreamHandler implements
-    PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
+    PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime, MonitoringDataSource {
 
     private static final int DEFAULT_ROTATION_LIMIT_BYTES = 2000000;
     public static final int DISABLE_LOG_FILE_ROTATION_VALUE = 0;
@@ -122,6 +131,9 @@ public class GFFileHandler extends StreamHandler implements
     // written out to the stream
     private MeteredStream meter;
 
+    // The underlying file stream, written to directly by the batched writer
+    private FileOutputStream fileOutput;
+
     protected static final String LOGS_DIR = "logs";
     private static final String LOG_FILE_NAME = "server.log";
     private static final String GZIP_EXTENSION = ".gz";
@@ -149,7 +161,29 @@ public class GFFileHandler extends StreamHandler implements
     /** Initially the LogRotation will be off until the domain.xml value is read. */
     private int limitForFileRotation = 0;
 
-    private BlockingQueue<LogRecord> pendingRecords = new ArrayBlockingQueue<>(10000);
+    private static final int MAX_PENDING_RECORDS = 10000;
+    private static final int MIN_BATCH_SIZE = 512;
+    private static final long BATCH_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private BlockingQueue<LogRecord> pendingRecords = new ArrayBlockingQueue<>(MAX_PENDING_RECORDS);
+
+    /** Queued to wake the pump thread up from waiting on {@link #pendingRecords}, never written */
+    private static final LogRecord PUMP_WAKE_UP = new LogRecord(Level.OFF, "");
+
+    /** How long {@link #preDestroy()} waits for the pump thread to finish the records it is writing */
+    private static final long PUMP_STOP_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * When enabled records are queued on a lock-free queue without ever blocking the logging thread, and the pump
+     * thread formats and writes them to the file channel in batches. Records are dropped when the queue is full.
+     */
+    private volatile boolean batchedWrites;
+    private final Queue<LogRecord> batchedRecords = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger batchedRecordCount = new AtomicInteger();
+    private LogRecordBatchWriter batchWriter;
+
+    private final LongAdder droppedRecords = new LongAdder();
+    private volatile long lastFlushLatencyNanos;
 
     /**Rotation can be done in 3 ways: <ol>
      * <li> Based on the Size: Rotate when some Threshold number of bytes are
@@ -243,7 +277,12 @@ public class GFFileHandler extends StreamHandler implements
             currentFileHandlerFormatter = "fish.payara.enterprise.server.logging.JSONLogFormatter";
         }
 
-        String propertyValue = manager.getProperty(className + ".logtoFile");
+        String propertyValue = manager.getProperty(className + ".batchedWrites");
+        if (propertyValue != null) {
+            batchedWrites = Boolean.parseBoolean(propertyValue);
+        }
+
+        propertyValue = manager.getProperty(className + ".logtoFile");
         boolean logToFile = true;
         if (propertyValue != null) {
             logToFile = Boolean.parseBoolean(propertyValue);
@@ -619,12 +658,22 @@ public class GFFileHandler extends StreamHandler implements
         }
 
         done.tryReleaseShared(1);
-        if (pump != null) {
-            pump.interrupt();
+        if (pump != null && pump != Thread.currentThread()) {
+            // wake the pump up rather than interrupting it, an interrupt while it writes a batch would close the
+            // file channel; it may be writing records it already took off a queue, those have to be in the file
+            // before the remaining ones
+            pendingRecords.offer(PUMP_WAKE_UP);
+            LockSupport.unpark(pump);
+            try {
+                pump.join(PUMP_STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         // drain and return all
         drainAllPendingRecords();
+        drainBatchedRecords(0);
         flush();
     }
 
@@ -648,7 +697,9 @@ public class GFFileHandler extends StreamHandler implements
                 pendingRecords.drainTo(records);
             }
             for (LogRecord record : records) {
-                super.publish(record);
+                if (record != PUMP_WAKE_UP) {
+                    super.publish(record);
+                }
             }
         }
     }
@@ -786,6 +837,7 @@ public class GFFileHandler extends StreamHandler implements
         BufferedOutputStream bout = new BufferedOutputStream(fout);
         meter = new MeteredStream(bout, file.length());
         setOutputStream(meter);
+        fileOutput = fout;
     }
 
     /**
@@ -945,12 +997,27 @@ public class GFFileHandler extends StreamHandler implements
      */
     public void log() {
 
-        if (logToFile) {
+        if (logToFile && batchedWrites) {
+            if (!pendingRecords.isEmpty()) {
+                // records queued before batched writes got enabled
+                drainAllPendingRecords();
+                flush();
+            }
+            logBatch();
+        } else if (logToFile) {
             LogRecord record;
 
+            if (!batchedRecords.isEmpty()) {
+                // records queued before batched writes got disabled
+                drainBatchedRecords(0);
+            }
+
             // take is blocking so we take one record off the queue
             try {
                 record = pendingRecords.take();
+                if (record == PUMP_WAKE_UP) {
+                    return;
+                }
                 super.publish(record);
             } catch (InterruptedException e) {
                 return;
@@ -961,18 +1028,85 @@ public class GFFileHandler extends StreamHandler implements
                 drainPendingRecords(flushFrequency - 1);
             }
 
+            long flushStart = System.nanoTime();
             flush();
-            if ((rotationRequested.get())
-                    || ((limitForFileRotation > 0)
-                    && (meter.written >= limitForFileRotation))) {
-                // If we have written more than the limit set for the
-                // file, or rotation requested from the Timer Task or LogMBean
-                // start fresh with a new file after renaming the old file.
-                synchronized (rotationLock) {
-                    rotate();
-                    rotationRequested.set(false);
+            lastFlushLatencyNanos = System.nanoTime() - flushStart;
+            rotateIfRequired();
+        }
+    }
+
+    /**
+     * Takes the queued records off the lock-free queue, or parks the pump thread until a record is published, and
+     * writes them to the file as a single batch.
+     */
+    private void logBatch() {
+        if (batchedRecords.isEmpty()) {
+            LockSupport.parkNanos(this, BATCH_IDLE_PARK_NANOS);
+            return;
+        }
+        drainBatchedRecords(Math.max(flushFrequency, MIN_BATCH_SIZE));
+        rotateIfRequired();
+    }
+
+    /**
+     * Formats up to the given amount of queued records and group commits them to the log file. If passed in the
+     * amount <= 0 all of the records get drained.
+     * @param batchSize maximum number of records to write
+     */
+    private void drainBatchedRecords(int batchSize) {
+        long flushStart = System.nanoTime();
+        // records are taken off the queue under the same lock they are written under, so that two threads
+        // draining at the same time, such as the pump and preDestroy(), can not write them out of order
+        synchronized (rotationLock) {
+            List<String> formattedBatch = new ArrayList<>();
+            LogRecord record;
+            while ((batchSize <= 0 || formattedBatch.size() < batchSize) && (record = batchedRecords.poll()) != null) {
+                batchedRecordCount.decrementAndGet();
+                if (!isLoggable(record)) {
+                    continue;
+                }
+                try {
+                    formattedBatch.add(getFormatter().format(record));
+                } catch (Exception e) {
+                    reportError(null, e, ErrorManager.FORMAT_FAILURE);
                 }
             }
+            if (formattedBatch.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                try {
+                    // anything written through the stream handler must be in the file before the batch
+                    super.flush();
+                    meter.written += getBatchWriter().write(formattedBatch, fileOutput.getChannel());
+                } catch (Exception e) {
+                    reportError(null, e, ErrorManager.WRITE_FAILURE);
+                }
+            }
+        }
+        lastFlushLatencyNanos = System.nanoTime() - flushStart;
+    }
+
+    private LogRecordBatchWriter getBatchWriter() throws UnsupportedEncodingException {
+        String encoding = getEncoding();
+        Charset charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        if (batchWriter == null || !batchWriter.getCharset().equals(charset)) {
+            batchWriter = new LogRecordBatchWriter(charset, LogRecordBatchWriter.DEFAULT_BUFFER_CAPACITY);
+        }
+        return batchWriter;
+    }
+
+    private void rotateIfRequired() {
+        if ((rotationRequested.get())
+                || ((limitForFileRotation > 0)
+                && (meter.written >= limitForFileRotation))) {
+            // If we have written more than the limit set for the
+            // file, or rotation requested from the Timer Task or LogMBean
+            // start fresh with a new file after renaming the old file.
+            synchronized (rotationLock) {
+                rotate();
+                rotationRequested.set(false);
+            }
         }
     }
 
@@ -1009,7 +1143,19 @@ public class GFFileHandler extends StreamHandler implements
             recordWrapper.setThreadName(Thread.currentThread().getName());
         }
 
-        if (logToFile) {
+        if (logToFile && batchedWrites) {
+            int pending = batchedRecordCount.getAndIncrement();
+            if (pending >= MAX_PENDING_RECORDS) {
+                // never block the logging thread, the record is lost instead
+                batchedRecordCount.decrementAndGet();
+                droppedRecords.increment();
+            } else {
+                batchedRecords.offer(recordWrapper);
+                if (pending == 0) {
+                    LockSupport.unpark(pump);
+                }
+            }
+        } else if (logToFile) {
             try {
                 pendingRecords.add(recordWrapper);
             } catch (IllegalStateException e) {
@@ -1019,6 +1165,7 @@ public class GFFileHandler extends StreamHandler implements
                     pendingRecords.put(recordWrapper);
                 } catch (InterruptedException e1) {
                     // too bad, record is lost...
+                    droppedRecords.increment();
                     new ErrorManager().error("GFFileHandler: Waiting was interrupted. Log record lost.", e1, ErrorManager.GENERIC_FAILURE);
                 }
             }
@@ -1162,6 +1309,56 @@ public class GFFileHandler extends StreamHandler implements
         this.flushFrequency = flushFrequency;
     }
 
+    public boolean isBatchedWrites() {
+        return batchedWrites;
+    }
+
+    /**
+     * Switches between batched and blocking writes. Records already queued are written by the pump thread before
+     * any record queued after the switch.
+     */
+    public synchronized void setBatchedWrites(boolean batchedWrites) {
+        if (this.batchedWrites == batchedWrites) {
+            return;
+        }
+        this.batchedWrites = batchedWrites;
+        if (batchedWrites) {
+            // the pump thread may be waiting for a record on the blocking queue
+            pendingRecords.offer(PUMP_WAKE_UP);
+        } else {
+            LockSupport.unpark(pump);
+        }
+    }
+
+    /**
+     * @return the number of records waiting to be written to the log file
+     */
+    public int getPendingRecordCount() {
+        return batchedRecordCount.get() + pendingRecords.size();
+    }
+
+    /**
+     * @return the number of records lost because they could not be queued
+     */
+    public long getDroppedRecordCount() {
+        return droppedRecords.sum();
+    }
+
+    /**
+     * @return the time in nanoseconds it took to write and flush the most recent batch of records
+     */
+    public long getLastFlushLatencyNanos() {
+        return lastFlushLatencyNanos;
+    }
+
+    @Override
+    @MonitoringData(ns = "logging")
+    public void collect(MonitoringDataCollector collector) {
+        collector.collect("PendingRecords", getPendingRecordCount())
+            .collect("DroppedRecords", getDroppedRecordCount())
+            .collect("FlushLatency", TimeUnit.NANOSECONDS.toMicros(lastFlushLatencyNanos));
+    }
+
     public synchronized void setCompressionOnRotation(boolean compressionOnRotation) {
         this.compressionOnRotation = compressionOnRotation;
     }
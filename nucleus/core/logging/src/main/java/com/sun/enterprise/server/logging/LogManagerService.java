@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.server.logging;
 
@@ -148,6 +148,7 @@ public class LogManagerService implements PostConstruct, PreDestroy, org.glassfi
     String gffileHandlerFormatterDetail = "";
     String rotationOnTimeLimitInMinutesDetail = "";
     String flushFrequencyDetail = "";
+    String batchedWritesDetail = "";
     String filterHandlerDetails = "";
     String logToFileDetail = "";
     String logToConsoleDetail = "";
@@ -183,6 +184,7 @@ public class LogManagerService implements PostConstruct, PreDestroy, org.glassfi
     private static final String GFFILEHANDLER_FORMATTER_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.formatter";
     private static final String ROTATIONTIMELIMITINMINUTES_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.rotationTimelimitInMinutes";
     private static final String FLUSHFREQUENCY_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.flushFrequency";
+    private static final String BATCHEDWRITES_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.batchedWrites";
     private static final String FILEHANDLER_LIMIT_PROPERTY = "java.util.logging.FileHandler.limit";
     private static final String LOGTOFILE_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.logtoFile";
     private static final String LOGTOCONSOLE_PROPERTY = "com.sun.enterprise.server.logging.GFFileHandler.logtoConsole";
@@ -617,6 +619,18 @@ public class LogManagerService implements PostConstruct, PreDestroy, org.glassfi
                                             }
                                         }
                                     }
+                                } else if (a.equals(BATCHEDWRITES_PROPERTY)) {
+                                    if (!val.equals(batchedWritesDetail)) {
+                                        batchedWritesDetail = val;
+                                        for (Handler handler : logMgr.getLogger("").getHandlers()) {
+                                            // only get the GFFileHandler
+                                            if (handler.getClass().equals(GFFileHandler.class)) {
+                                                gfFileHandler = (GFFileHandler) handler;
+                                                gfFileHandler.setBatchedWrites(Boolean.parseBoolean(batchedWritesDetail));
+                                                break;
+                                            }
+                                        }
+                                    }
                                 } else if (a.equals(FILEHANDLER_LIMIT_PROPERTY)) {
                                     if (!val.equals(filterHandlerDetails)) {
                                         generateAttributeChangeEvent(FILEHANDLER_LIMIT_PROPERTY, filterHandlerDetails, props);
@@ -984,6 +998,7 @@ public class LogManagerService implements PostConstruct, PreDestroy, org.glassfi
         gffileHandlerFormatterDetail = props.get(GFFILEHANDLER_FORMATTER_PROPERTY);
         rotationOnTimeLimitInMinutesDetail = props.get(ROTATIONTIMELIMITINMINUTES_PROPERTY);
         flushFrequencyDetail = props.get(FLUSHFREQUENCY_PROPERTY);
+        batchedWritesDetail = props.get(BATCHEDWRITES_PROPERTY);
         filterHandlerDetails = props.get(FILEHANDLER_LIMIT_PROPERTY);
         logToFileDetail = props.get(LOGTOFILE_PROPERTY);
         logToConsoleDetail = props.get(LOGTOCONSOLE_PROPERTY);
@@ -0,0 +1,121 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+/**
+ * Encodes a batch of formatted log records into a single reusable direct {@link ByteBuffer} and writes it to a
+ * channel, so that a batch costs one encoder pass and as few channel writes as the buffer capacity allows.
+ * <p>
+ * Instances are not thread safe; {@link GFFileHandler} only uses its writer from the log pump thread.
+ *
+ * @author Payara Foundation
+ */
+final class LogRecordBatchWriter {
+
+    static final int DEFAULT_BUFFER_CAPACITY = 64 * 1024;
+
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+
+    LogRecordBatchWriter(Charset charset, int bufferCapacity) {
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferCapacity, 1024));
+    }
+
+    Charset getCharset() {
+        return encoder.charset();
+    }
+
+    /**
+     * Encodes the given records and writes them to the channel in order.
+     *
+     * @param records the formatted log records
+     * @param channel the channel to write to
+     * @return the number of bytes written
+     * @throws IOException if writing to the channel fails
+     */
+    long write(List<String> records, WritableByteChannel channel) throws IOException {
+        long written = 0;
+        buffer.clear();
+        for (String record : records) {
+            CharBuffer chars = CharBuffer.wrap(record);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    written += drain(channel);
+                } else if (result.isError()) {
+                    result.throwException();
+                }
+            } while (!result.isUnderflow());
+            do {
+                result = encoder.flush(buffer);
+                if (result.isOverflow()) {
+                    written += drain(channel);
+                }
+            } while (!result.isUnderflow());
+        }
+        written += drain(channel);
+        return written;
+    }
+
+    private long drain(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 package com.sun.enterprise.server.logging.commands;
 
 import com.sun.common.util.logging.LoggingConfigFactory;
@@ -121,6 +121,7 @@ public class SetLogAttributes implements AdminCommand {
         "com.sun.enterprise.server.logging.GFFileHandler.file",
         "com.sun.enterprise.server.logging.GFFileHandler.rotationTimelimitInMinutes",
         "com.sun.enterprise.server.logging.GFFileHandler.flushFrequency",
+        "com.sun.enterprise.server.logging.GFFileHandler.batchedWrites",
         "java.util.logging.FileHandler.formatter",
         "com.sun.enterprise.server.logging.GFFileHandler.formatter",
         "java.util.logging.FileHandler.limit",
@@ -37,21 +37,18 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2016-2018] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2016-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.server.logging.logviewer.backend;
 
 import com.sun.enterprise.server.logging.LogFacade;
-import com.sun.enterprise.server.logging.LogFormatHelper;
 import com.sun.enterprise.server.logging.parser.LogParser;
-import com.sun.enterprise.server.logging.parser.LogParserFactory;
 import com.sun.enterprise.server.logging.parser.LogParserListener;
 import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
 
 import java.io.*;
 import java.util.*;
 import java.util.logging.Level;
-import java.util.zip.GZIPInputStream;
 
 
 /**
@@ -72,14 +69,13 @@ public class LogFile implements java.io.Serializable {
 
     private final long _indexSize = 10;
     private final String _logFileName;
-    private final List<Long> _recordIdx = new ArrayList<>();
+    private transient LogFileIndex _index;
 
     /**
      * Constructor
      */
     public LogFile(String name) {
         _logFileName = name;
-        _recordIdx.add(0L);
     }
 
     /**
@@ -104,14 +100,17 @@ public class LogFile implements java.io.Serializable {
             return null;
         }
 
-        // Open the file at the desired starting Record
-        final long recordsToIgnore = (startingRecord % getIndexSize());
-        return getFilePosition(startingRecord - recordsToIgnore).map(
+        // Open the file at the start of the index block holding the desired starting Record
+        final long recordsToIgnore = (startingRecord % LogFileIndex.BLOCK_SIZE);
+        return getLogFileReader(startingRecord, maxRecords).map(
             rdr -> {
                 try (BufferedReader reader = rdr) {
                     List<LogEntry> results = new ArrayList<>();
-                    File logFile = new File(getLogFileName());
-                    LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile );
+                    LogParser logParser = getIndex().getParser();
+                    if (logParser == null) {
+                        // the file was rotated while the reader was opened
+                        return results;
+                    }
                     logParser.parseLog(reader, new LogParserListener() {
 
                         long counter = 0;
@@ -154,102 +153,47 @@ public class LogFile implements java.io.Serializable {
         ).orElse(Collections.emptyList());
     }
 
-
     /**
-     * This method builds the file index in the beginning.  The index is for
-     * the beginning of every record after the size specified by '_indexSize'
-     * variable.
+     * Returns the number of the first record from the starting record onwards
+     * that may have been logged between the given times with at least the
+     * given level. Records the index shows cannot match are skipped without
+     * being read.
+     *
+     * @param    startingRecord    The starting point to search from
+     * @param    fromMillis    The earliest time of a matching record
+     * @param    toMillis    The latest time of a matching record
+     * @param    minimumLevel    The lowest level value of a matching record
+     * @return The record number, or the number of records if none can match
      */
-    private synchronized void buildLogFileIndex() {
-        // Open the file and skip to the where we left off
-        final long startPos = _recordIdx.get(_recordIdx.size() - 1);
-        final long localIndexSize = getIndexSize();
-        getLogFileReader(startPos).ifPresent(
-            rdr -> {
-                try (BufferedReader reader  = rdr) {
-                    File logFile = new File(getLogFileName());
-                    LogParser logParser = LogParserFactory.getInstance().createLogParser(logFile);
-                    if (logParser != null) {
-                        logParser.parseLog(reader, new LogParserListener() {
-
-                            long recordNumber = (_recordIdx.size() - 1) * localIndexSize;
-
-                            @Override
-                            public void outputSummary(BufferedWriter writer, Object... objects)
-                                    throws IOException {
-                            }
-
-                            @Override
-                            public void foundLogRecord(long position, ParsedLogRecord object) {
-                                long modIndex = recordNumber % localIndexSize;
-                                if (modIndex == 0) {
-                                    _recordIdx.add((startPos+position));
-                                }
-                                recordNumber++;
-                            }
-
-                            @Override
-                            public void close() throws IOException {
-                            }
-                        });
-                    }
-                } catch (Exception ex) {
-                    throw new RuntimeException(ex);
-                }
+    public long getNextCandidateRecord(long startingRecord, long fromMillis, long toMillis, int minimumLevel) {
+        try {
+            return getIndex().getNextCandidateRecord(startingRecord, fromMillis, toMillis, minimumLevel);
+        } catch (IOException ex) {
+            if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error indexing file: " + getLogFileName(), ex);
             }
-        );
+            return startingRecord;
+        }
     }
 
-    /**
-     * This method returns the file position given the record number.
-     *
-     * @return The file position.
-     * @param    recordNumber    The Record Number
-     */
-    private Optional<BufferedReader> getFilePosition(long recordNumber) {
-        // The index is stored from the second slot. i.e., if there
-        // are 100 records and the index will be on 20, 40, 60, 80, 100
-        // if the _indexSize is 20. We don't store '0' hence we subtract
-        // from 1 to get the right index
-        int index = (int) (recordNumber / getIndexSize());
-        if (index > _recordIdx.size()-1) {
-            return Optional.empty();
+    private synchronized LogFileIndex getIndex() {
+        if (_index == null) {
+            _index = new LogFileIndex(new File(getLogFileName()));
         }
-        Long filePosition = _recordIdx.get(index);
-        return getLogFileReader(filePosition);
+        return _index;
     }
 
     /**
-     * This method opens the server.log file and moves the stream to
-     * the specified filePosition.
+     * This method brings the file index up-to-date and opens a reader over
+     * the part of the log file holding the requested records.
      */
-    private Optional<BufferedReader> getLogFileReader(long fromFilePosition) {
-        InputStream file = null;
+    private Optional<BufferedReader> getLogFileReader(long startingRecord, long maxRecords) {
         try {
-            if (LogFormatHelper.isCompressedFile(getLogFileName())) {
-                file = new GZIPInputStream(new FileInputStream(getLogFileName()));
-            } else {
-                file = new FileInputStream(getLogFileName());
-            }
-            long bytesToSkip = fromFilePosition-1;
-            if (bytesToSkip > 0) {
-                long bytesSkipped = file.skip(bytesToSkip);
-                if (bytesSkipped != fromFilePosition) {
-                    if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
-                        LogFacade.LOGGING_LOGGER.log(Level.FINE, "Did not skip exact bytes while positioning reader in " + getLogFileName());
-                    }
-                }
-            }
-            return Optional.of(new BufferedReader(new InputStreamReader(file)));
+            return Optional.ofNullable(getIndex().openReader(startingRecord, maxRecords));
         } catch (Exception ex) {
             if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
                 LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error reading from file: " + getLogFileName(), ex);
             }
-            if (file != null) try { file.close(); } catch (Exception ex2) {
-                if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
-                    LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error closing file: " + getLogFileName(), ex2);
-                }
-            }
         }
         return Optional.empty();
     }
@@ -266,8 +210,15 @@ public class LogFile implements java.io.Serializable {
      * will ensure that the indexes are up-to-date.
      */
     public long getLastIndexNumber() {
-        buildLogFileIndex();
-        return _recordIdx.size() - 1;
+        long recordCount = 0;
+        try {
+            recordCount = getIndex().getRecordCount();
+        } catch (IOException ex) {
+            if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
+                LogFacade.LOGGING_LOGGER.log(Level.FINE, "Error indexing file: " + getLogFileName(), ex);
+            }
+        }
+        return (recordCount + getIndexSize() - 1) / getIndexSize();
     }
 
     /**
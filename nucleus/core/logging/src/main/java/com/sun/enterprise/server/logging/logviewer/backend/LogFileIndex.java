@@ -0,0 +1,355 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging.logviewer.backend;
+
+import com.sun.enterprise.server.logging.LogFormatHelper;
+import com.sun.enterprise.server.logging.parser.LogParser;
+import com.sun.enterprise.server.logging.parser.LogParserException;
+import com.sun.enterprise.server.logging.parser.LogParserFactory;
+import com.sun.enterprise.server.logging.parser.LogParserListener;
+import com.sun.enterprise.server.logging.parser.ParsedLogRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Index over the records of a log file. The file is scanned once, incrementally from the last indexed block as it
+ * grows, and every {@link #BLOCK_SIZE} records the byte offset of the block is stored together with the time range
+ * and highest level of the records in the block. Reading records then only decodes the blocks that contain them,
+ * using a memory mapped region of the file, and queries can skip blocks which cannot contain a match.
+ *
+ * @author Payara Foundation
+ */
+final class LogFileIndex {
+
+    static final int BLOCK_SIZE = 64;
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final File file;
+    private final boolean compressed;
+    private final Charset charset = Charset.defaultCharset();
+
+    private LogParser parser;
+    private Object fileKey;
+    private long indexedFileLength;
+    private long indexedDataLength;
+    private long recordCount;
+    private int blockCount;
+    private long[] blockOffsets = new long[16];
+    private long[] blockMinTimes = new long[16];
+    private long[] blockMaxTimes = new long[16];
+    private int[] blockMaxLevels = new int[16];
+
+    LogFileIndex(File file) {
+        this.file = file;
+        this.compressed = LogFormatHelper.isCompressedFile(file.getName());
+    }
+
+    /**
+     * @return the number of records in the file
+     */
+    synchronized long getRecordCount() throws IOException {
+        refresh();
+        return recordCount;
+    }
+
+    /**
+     * @return the parser for the format of the indexed file, or null if the file is empty
+     */
+    synchronized LogParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Opens a reader positioned at the start of the block containing the starting record. The caller has to skip
+     * {@code startingRecord % BLOCK_SIZE} records to get to the starting record.
+     *
+     * @param startingRecord the first record to read
+     * @param maxRecords the maximum number of records that will be read
+     * @return a reader for the records, or null if there are no records from the starting record onwards
+     */
+    synchronized BufferedReader openReader(long startingRecord, long maxRecords) throws IOException {
+        refresh();
+        if (startingRecord >= recordCount || maxRecords <= 0) {
+            return null;
+        }
+        int firstBlock = (int) (startingRecord / BLOCK_SIZE);
+        int lastBlock = (int) ((Math.min(startingRecord + maxRecords, recordCount) - 1) / BLOCK_SIZE);
+        long from = blockOffsets[firstBlock];
+        long to = lastBlock + 1 < blockCount ? blockOffsets[lastBlock + 1] : indexedDataLength;
+        return new BufferedReader(new StringReader(read(from, to)));
+    }
+
+    /**
+     * Finds the first record at or after the starting record that is in a block that may contain a record logged
+     * within the given time range with at least the given level.
+     *
+     * @return the record number, or the number of records if no block can contain a match
+     */
+    synchronized long getNextCandidateRecord(long startingRecord, long fromMillis, long toMillis, int minimumLevel)
+            throws IOException {
+        refresh();
+        for (int block = (int) (Math.max(startingRecord, 0) / BLOCK_SIZE); block < blockCount; block++) {
+            if (blockMaxLevels[block] >= minimumLevel
+                    && blockMaxTimes[block] >= fromMillis && blockMinTimes[block] <= toMillis) {
+                return Math.max(startingRecord, (long) block * BLOCK_SIZE);
+            }
+        }
+        return recordCount;
+    }
+
+    private void refresh() throws IOException {
+        long length = file.length();
+        Object key = getFileKey();
+        if (length < indexedFileLength || !Objects.equals(key, fileKey)) {
+            // the file was rotated or truncated
+            reset();
+        }
+        fileKey = key;
+        if (length == indexedFileLength) {
+            return;
+        }
+        if (parser == null) {
+            try {
+                parser = LogParserFactory.getInstance().createLogParser(file);
+            } catch (LogParserException e) {
+                throw new IOException(e);
+            }
+        }
+        if (compressed) {
+            reset();
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+                indexedDataLength = scan(in, 0, Long.MAX_VALUE);
+            }
+        } else {
+            long start = 0;
+            if (blockCount > 0) {
+                // the last block may have grown, so it is always scanned again
+                blockCount--;
+                recordCount = (long) blockCount * BLOCK_SIZE;
+                start = blockOffsets[blockCount];
+            }
+            try (FileInputStream in = new FileInputStream(file)) {
+                in.getChannel().position(start);
+                indexedDataLength = scan(in, start, length);
+            }
+        }
+        indexedFileLength = length;
+    }
+
+    private void reset() {
+        parser = null;
+        indexedFileLength = 0;
+        indexedDataLength = 0;
+        recordCount = 0;
+        blockCount = 0;
+    }
+
+    private Object getFileKey() {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits the data into lines, tracking the byte offset each line starts at, and groups the lines into records
+     * the same way the parser does.
+     *
+     * @return the offset the scan ended at
+     */
+    private long scan(InputStream in, long start, long end) throws IOException {
+        RecordCollector records = new RecordCollector(start);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[8192];
+        long position = start;
+        long lineStart = start;
+        int read;
+        while (position < end && (read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position))) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    records.addLine(decode(line), lineStart);
+                    line.reset();
+                    lineStart = position + i + 1;
+                } else {
+                    line.write(buffer[i]);
+                }
+            }
+            position += read;
+        }
+        if (line.size() > 0) {
+            records.addLine(decode(line), lineStart);
+        }
+        records.finishRecord();
+        return position;
+    }
+
+    private String decode(ByteArrayOutputStream line) {
+        String text = new String(line.toByteArray(), charset);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private String read(long from, long to) throws IOException {
+        if (compressed) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+                long skipped = 0;
+                while (skipped < from) {
+                    long n = in.skip(from - skipped);
+                    if (n <= 0) {
+                        break;
+                    }
+                    skipped += n;
+                }
+                byte[] data = new byte[(int) (to - from)];
+                int offset = 0;
+                int n;
+                while (offset < data.length && (n = in.read(data, offset, data.length - offset)) > 0) {
+                    offset += n;
+                }
+                return new String(data, 0, offset, charset);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return charset.decode(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from)).toString();
+        }
+    }
+
+    private void addRecord(long offset, long timeMillis, int level) {
+        if (recordCount % BLOCK_SIZE == 0) {
+            if (blockCount == blockOffsets.length) {
+                int capacity = blockCount * 2;
+                blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+                blockMinTimes = Arrays.copyOf(blockMinTimes, capacity);
+                blockMaxTimes = Arrays.copyOf(blockMaxTimes, capacity);
+                blockMaxLevels = Arrays.copyOf(blockMaxLevels, capacity);
+            }
+            blockOffsets[blockCount] = offset;
+            blockMinTimes[blockCount] = timeMillis;
+            blockMaxTimes[blockCount] = timeMillis;
+            blockMaxLevels[blockCount] = level;
+            blockCount++;
+        } else {
+            int block = blockCount - 1;
+            blockMinTimes[block] = Math.min(blockMinTimes[block], timeMillis);
+            blockMaxTimes[block] = Math.max(blockMaxTimes[block], timeMillis);
+            blockMaxLevels[block] = Math.max(blockMaxLevels[block], level);
+        }
+        recordCount++;
+    }
+
+    private static int levelValue(String level) {
+        if (level != null) {
+            try {
+                return Level.parse(level).intValue();
+            } catch (IllegalArgumentException e) {
+                // not a known level, so it must never be skipped
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Collects the lines of a record and adds it to the index once the next record starts.
+     */
+    private final class RecordCollector implements LogParserListener {
+
+        private final StringBuilder record = new StringBuilder();
+        private long recordOffset;
+        private ParsedLogRecord parsedRecord;
+
+        RecordCollector(long start) {
+            recordOffset = start;
+        }
+
+        void addLine(String line, long offset) throws IOException {
+            if (parser.isLogRecordStart(line)) {
+                finishRecord();
+                recordOffset = offset;
+            }
+            record.append(line).append(NEWLINE);
+        }
+
+        void finishRecord() throws IOException {
+            if (record.length() == 0) {
+                return;
+            }
+            parsedRecord = null;
+            try {
+                parser.parseLog(new BufferedReader(new StringReader(record.toString())), this);
+            } catch (LogParserException e) {
+                throw new IOException(e);
+            }
+            record.setLength(0);
+            if (parsedRecord != null) {
+                addRecord(recordOffset, parsedRecord.getTimeMillis(), levelValue(parsedRecord.getLevel()));
+            }
+        }
+
+        @Override
+        public void foundLogRecord(long position, ParsedLogRecord logRecord) {
+            parsedRecord = logRecord;
+        }
+
+        @Override
+        public void outputSummary(BufferedWriter writer, Object... objects) throws IOException {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2017-2019] [Payara Foundation and/or its affiliates]
+// Portions Copyright [2017-2020] [Payara Foundation and/or its affiliates]
 
 package com.sun.enterprise.server.logging.logviewer.backend;
 
@@ -201,10 +201,8 @@ public class LogFilter {
             }
         }
 
-        // TO DO: If the fromRecord count is zero and the fromDate entry is
-        // non-null, then the system should take advantage of file Indexing.
-        // It should move the file position to the marker where the DateTime
-        // query matches.
+        // When searching forward the LogFile index is used to skip the
+        // records that cannot match the DateTime and Level query.
         try {
             return fetchRecordsUsingQuery(logFile, startingRecord, nxt, forwd,
                     reqCount, fromDate, toDate, logLevel,
@@ -452,10 +450,8 @@ public class LogFilter {
             }
         }
 
-        // TO DO: If the fromRecord count is zero and the fromDate entry is
-        // non-null, then the system should take advantage of file Indexing.
-        // It should move the file position to the marker where the DateTime
-        // query matches.
+        // When searching forward the LogFile index is used to skip the
+        // records that cannot match the DateTime and Level query.
         try {
             return fetchRecordsUsingQuery(logFile, startingRecord, nxt, forwd,
                     reqCount, fromDate, toDate, logLevel,
@@ -505,11 +501,26 @@ public class LogFilter {
         // Make sure the module names are correct
         //updateModuleList(listOfModules);
 
+        // Work out which records the file index can skip
+        long fromMillis = Long.MIN_VALUE;
+        long toMillis = Long.MAX_VALUE;
+        if ((fromDate != null) && (toDate != null)) {
+            fromMillis = fromDate.getTime();
+            toMillis = toDate.getTime();
+        }
+        int minimumLevel = minimumLevelValue(logLevel, onlyLevel);
+        boolean skipRecords = forward
+                && (fromMillis != Long.MIN_VALUE || minimumLevel != Integer.MIN_VALUE);
+
         // Keep pulling records to search through until we get enough matches
         List results = new ArrayList();
         List records = null;
         LogFile.LogEntry entry = null;
         while (results.size() < requestedCount) {
+            if (skipRecords) {
+                startingRecord = logFile.getNextCandidateRecord(
+                        startingRecord, fromMillis, toMillis, minimumLevel);
+            }
             // The following will always return unfiltered forward records
             records = logFile.getLogEntries(
                     startingRecord, searchChunkIncrement);
@@ -725,6 +736,21 @@ public class LogFilter {
     }
 
 
+    /**
+     * Returns the lowest level value a record can have and still pass the
+     * levelCheck, or Integer.MIN_VALUE if any record can pass.
+     */
+    private static int minimumLevelValue(String queryLevel, boolean isOnlyLevelFlag) {
+        if (queryLevel == null) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return Level.parse(isOnlyLevelFlag ? queryLevel.trim() : queryLevel).intValue();
+        } catch (IllegalArgumentException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
     protected boolean levelCheck(
             final String loggedLevel,
             final String queryLevelIn,
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 package com.sun.enterprise.server.logging.parser;
 
 import java.io.BufferedReader;
@@ -55,5 +56,11 @@ public interface LogParser {
      */
     public void parseLog(BufferedReader reader, 
             LogParserListener listener) throws LogParserException;
-    
+
+    /**
+     * @param line a line of the log file, without line terminator
+     * @return true if the line begins a new log record
+     */
+    public boolean isLogRecordStart(String line);
+
 }
@@ -37,6 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 package com.sun.enterprise.server.logging.parser;
 
 import java.io.BufferedReader;
@@ -83,4 +84,9 @@ public class RawLogParser implements LogParser {
 
     }
 
+    @Override
+    public boolean isLogRecordStart(String line) {
+        return true;
+    }
+
 }
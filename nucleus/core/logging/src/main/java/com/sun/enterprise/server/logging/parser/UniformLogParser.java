@@ -37,7 +37,7 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
-// Portions Copyright [2019] Payara Foundation and/or affiliates
+// Portions Copyright [2019-2020] Payara Foundation and/or affiliates
 
 package com.sun.enterprise.server.logging.parser;
 
@@ -123,6 +123,11 @@ final class UniformLogParser implements LogParser {
         }
     }
 
+    @Override
+    public boolean isLogRecordStart(String line) {
+        return line.startsWith(LOG_RECORD_BEGIN_MARKER);
+    }
+
     private void parseLogRecord(long position, String logRecord, LogParserListener listener) {
         ParsedLogRecord parsedLogRecord = new ParsedLogRecord();
         if (initializeUniformFormatLogRecord(parsedLogRecord, logRecord)) {
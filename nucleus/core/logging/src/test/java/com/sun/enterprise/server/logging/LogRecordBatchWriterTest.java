@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.enterprise.server.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogRecordBatchWriterTest {
+
+    @Test
+    public void writesRecordsInOrder() throws IOException {
+        List<String> records = Arrays.asList("[#|first|#]\n", "[#|second|#]\n", "[#|third|#]\n");
+        assertWritten(StandardCharsets.UTF_8, records, LogRecordBatchWriter.DEFAULT_BUFFER_CAPACITY);
+    }
+
+    @Test
+    public void writesBatchLargerThanBuffer() throws IOException {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add("record " + i + " with some text to fill the buffer repeatedly\n");
+        }
+        assertWritten(StandardCharsets.UTF_8, records, 1024);
+    }
+
+    @Test
+    public void writesRecordLargerThanBuffer() throws IOException {
+        char[] chars = new char[5000];
+        Arrays.fill(chars, 'é');
+        assertWritten(StandardCharsets.UTF_8, Collections.singletonList(new String(chars)), 1024);
+    }
+
+    @Test
+    public void replacesUnmappableCharacters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogRecordBatchWriter writer = new LogRecordBatchWriter(StandardCharsets.US_ASCII, 1024);
+        long written = writer.write(Collections.singletonList("café"), Channels.newChannel(out));
+        assertEquals(4, written);
+        assertEquals("caf?", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    private static void assertWritten(Charset charset, List<String> records, int capacity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        LogRecordBatchWriter writer = new LogRecordBatchWriter(charset, capacity);
+        long written = writer.write(records, channel);
+        // the writer is reused for every batch
+        written += writer.write(records, channel);
+        String expected = String.join("", records) + String.join("", records);
+        assertEquals(expected, new String(out.toByteArray(), charset));
+        assertEquals(expected.getBytes(charset).length, written);
+    }
+}
@@ -37,15 +37,26 @@
  * only if the new code is made subject to such option by the copyright
  * holder.
  */
+// Portions Copyright [2020] Payara Foundation and/or its affiliates
 package com.sun.enterprise.server.logging.logviewer.backend;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.logging.Level;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.sun.enterprise.server.logging.logviewer.backend.LogFile.LogEntry;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * 
  * @author sanshriv
@@ -53,6 +64,11 @@ import com.sun.enterprise.server.logging.logviewer.backend.LogFile.LogEntry;
  */
 public class LogFileTest {
 
+    private static final long START_MILLIS = 1352400146763L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testLogEntryDeserialization() throws IOException, ClassNotFoundException {   
         ObjectInputStream objectInput = new ObjectInputStream(
@@ -72,4 +88,61 @@ public class LogFileTest {
         objectInput.close();
     }
 
+    @Test
+    public void testLogEntriesAreReadFromTheIndexedPosition() throws IOException {
+        File file = folder.newFile("server.log");
+        appendRecords(file, 0, 200, -1);
+        LogFile logFile = new LogFile(file.getAbsolutePath());
+
+        assertEquals(20, logFile.getLastIndexNumber());
+        List<LogEntry> entries = logFile.getLogEntries(130, 10);
+        assertEquals(10, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(130 + i, entries.get(i).getRecordNumber());
+            assertEquals("message " + (130 + i), entries.get(i).getLoggedMessage());
+        }
+        assertEquals(5, logFile.getLogEntries(195, 10).size());
+        assertTrue(logFile.getLogEntries(200, 10).isEmpty());
+    }
+
+    @Test
+    public void testAppendedRecordsAreIndexed() throws IOException {
+        File file = folder.newFile("server.log");
+        appendRecords(file, 0, 100, -1);
+        LogFile logFile = new LogFile(file.getAbsolutePath());
+        assertEquals(5, logFile.getLogEntries(95, 10).size());
+
+        appendRecords(file, 100, 50, -1);
+        List<LogEntry> entries = logFile.getLogEntries(95, 50);
+        assertEquals(50, entries.size());
+        assertEquals("message 144", entries.get(49).getLoggedMessage());
+        assertEquals(15, logFile.getLastIndexNumber());
+    }
+
+    @Test
+    public void testIndexSkipsRecordsThatCannotMatch() throws IOException {
+        File file = folder.newFile("server.log");
+        appendRecords(file, 0, 300, 150);
+        LogFile logFile = new LogFile(file.getAbsolutePath());
+
+        int severe = Level.SEVERE.intValue();
+        assertEquals(128, logFile.getNextCandidateRecord(0, Long.MIN_VALUE, Long.MAX_VALUE, severe));
+        assertEquals(300, logFile.getNextCandidateRecord(192, Long.MIN_VALUE, Long.MAX_VALUE, severe));
+        assertEquals(256, logFile.getNextCandidateRecord(0, START_MILLIS + 260_000, START_MILLIS + 270_000,
+                Level.INFO.intValue()));
+        assertEquals(10, logFile.getNextCandidateRecord(10, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE));
+    }
+
+    private static void appendRecords(File file, int first, int count, int severeRecord) throws IOException {
+        try (Writer writer = new FileWriter(file, true)) {
+            for (int i = first; i < first + count; i++) {
+                String level = i == severeRecord ? "SEVERE" : "INFO";
+                int levelValue = i == severeRecord ? 1000 : 800;
+                writer.write("[#|2012-11-08T13:42:26.763-0500|" + level + "|44.0|javax.enterprise.logging|_ThreadID=1;"
+                        + "_ThreadName=main;_TimeMillis=" + (START_MILLIS + i * 1000L) + ";_LevelValue=" + levelValue
+                        + ";|message " + i + "|#]\n\n");
+            }
+        }
+    }
+
 }
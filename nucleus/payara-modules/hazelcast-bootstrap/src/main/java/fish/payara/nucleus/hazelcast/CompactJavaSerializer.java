@@ -0,0 +1,200 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.hazelcast;
+
+import com.hazelcast.nio.ClassLoaderUtil;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Java serialization with a class-descriptor dictionary.
+ * <p>
+ * Plain {@link ObjectOutputStream} writes the full descriptor (name, serialVersionUID, flags and every field
+ * signature) of each class in the object graph, including all of its superclasses, once per value. For the
+ * well-known JDK types listed in {@link #DICTIONARY} - boxed primitives, collections, dates and arrays - those
+ * descriptors are replaced by a single byte, and the receiving side uses its local descriptor instead.
+ * Application classes are still written with their full descriptor, as the reader needs the writer's field
+ * layout to handle compatible class evolution.
+ *
+ * @since 5.2020.7
+ */
+public class CompactJavaSerializer implements StreamSerializer<Object> {
+
+    /**
+     * Classes whose descriptors are replaced by their index in this array, plus one. Their serialized form is
+     * fixed by the JDK, so the local descriptor always matches the writer's. Entries may only be appended.
+     */
+    private static final Class<?>[] DICTIONARY = {
+        Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class,
+        Double.class, Number.class, BigInteger.class, BigDecimal.class, Enum.class, Date.class, UUID.class,
+        Locale.class, ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+        HashSet.class, LinkedHashSet.class, TreeSet.class, ConcurrentHashMap.class, Object[].class,
+        String[].class, byte[].class, char[].class, int[].class, long[].class
+    };
+
+    private static final int FULL_DESCRIPTOR = 0;
+
+    private static final Map<Class<?>, Integer> DICTIONARY_IDS = new IdentityHashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            DICTIONARY_IDS.put(DICTIONARY[i], i + 1);
+        }
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, Object object) throws IOException {
+        ObjectOutputStream objectOut = new DictionaryObjectOutputStream((OutputStream) out);
+        objectOut.writeObject(object);
+        objectOut.flush();
+    }
+
+    @Override
+    public Object read(ObjectDataInput in) throws IOException {
+        ObjectInputStream objectIn = new DictionaryObjectInputStream(in.getClassLoader(), (InputStream) in);
+        try {
+            return objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new HazelcastSerializationException(e);
+        }
+    }
+
+    @Override
+    public int getTypeId() {
+        return 2;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private static final class DictionaryObjectOutputStream extends ObjectOutputStream {
+
+        DictionaryObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            Integer id = DICTIONARY_IDS.get(desc.forClass());
+            if (id != null) {
+                write(id);
+            } else {
+                write(FULL_DESCRIPTOR);
+                super.writeClassDescriptor(desc);
+            }
+        }
+    }
+
+    private static final class DictionaryObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        DictionaryObjectInputStream(ClassLoader classLoader, InputStream in) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            int id = readUnsignedByte();
+            if (id == FULL_DESCRIPTOR) {
+                return super.readClassDescriptor();
+            }
+            if (id > DICTIONARY.length) {
+                throw new StreamCorruptedException("Unknown class descriptor id " + id);
+            }
+            return ObjectStreamClass.lookup(DICTIONARY[id - 1]);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+            return ClassLoaderUtil.loadClass(classLoader, desc.getName());
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws ClassNotFoundException {
+            ClassLoader loader = classLoader != null ? classLoader : Thread.currentThread().getContextClassLoader();
+            ClassLoader nonPublicLoader = null;
+            Class<?>[] classes = new Class<?>[interfaces.length];
+            for (int i = 0; i < interfaces.length; i++) {
+                classes[i] = ClassLoaderUtil.loadClass(loader, interfaces[i]);
+                if (!Modifier.isPublic(classes[i].getModifiers())) {
+                    if (nonPublicLoader != null && nonPublicLoader != classes[i].getClassLoader()) {
+                        throw new IllegalAccessError("conflicting non-public interface class loaders");
+                    }
+                    nonPublicLoader = classes[i].getClassLoader();
+                }
+            }
+            try {
+                return Proxy.getProxyClass(nonPublicLoader != null ? nonPublicLoader : loader, classes);
+            } catch (IllegalArgumentException e) {
+                throw new ClassNotFoundException(null, e);
+            }
+        }
+    }
+}
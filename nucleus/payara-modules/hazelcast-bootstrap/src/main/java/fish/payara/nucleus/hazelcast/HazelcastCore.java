@@ -53,6 +53,7 @@ import com.hazelcast.config.NetworkConfig;
 import com.hazelcast.config.PartitionGroupConfig;
 import com.hazelcast.config.ScheduledExecutorConfig;
 import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
 import com.hazelcast.config.TcpIpConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
@@ -68,6 +69,7 @@ import org.glassfish.api.admin.ServerEnvironment.Status;
 import org.glassfish.api.event.EventListener;
 import org.glassfish.api.event.EventTypes;
 import org.glassfish.api.event.Events;
+import org.glassfish.hk2.api.IterableProvider;
 import org.glassfish.hk2.runlevel.RunLevel;
 import org.glassfish.internal.api.ClassLoaderHierarchy;
 import org.glassfish.internal.api.JavaEEContextUtil;
@@ -143,6 +145,9 @@ public class HazelcastCore implements EventListener, ConfigListener {
     @Inject @Optional
     private JavaEEContextUtil ctxUtil;
 
+    @Inject
+    private IterableProvider<PayaraCompactSerializer<?>> compactSerializers;
+
     // Provides ability to register a configuration listener
     @Inject
     Transactions transactions;
@@ -319,16 +324,17 @@ public class HazelcastCore implements EventListener, ConfigListener {
                     SerializationConfig serConfig = config.getSerializationConfig();
                     if (serConfig == null) {
                         serConfig = new SerializationConfig();
-                        setPayaraSerializerConfig(serConfig);
+                        setPayaraSerializerConfig(serConfig, isCompactSerialization(config));
                         config.setSerializationConfig(serConfig);
                     } else {
                         if(serConfig.getGlobalSerializerConfig() == null) {
-                            setPayaraSerializerConfig(serConfig);
+                            setPayaraSerializerConfig(serConfig, isCompactSerialization(config));
                         } else {
                             Serializer ser = serConfig.getGlobalSerializerConfig().getImplementation();
                             if (ser instanceof StreamSerializer) {
                                 config.getSerializationConfig().getGlobalSerializerConfig().setImplementation(
-                                        new PayaraHazelcastSerializer(ctxUtil, (StreamSerializer<?>) ser));
+                                        new PayaraHazelcastSerializer(ctxUtil, (StreamSerializer<?>) ser,
+                                                isCompactSerialization(config)));
                             } else {
                                 Logger.getLogger(HazelcastCore.class.getName()).log(Level.WARNING, "Global serializer is not StreamSerializer: {0}", ser.getClass().getName());
                             }
@@ -339,7 +345,7 @@ public class HazelcastCore implements EventListener, ConfigListener {
                 config.setClassLoader(clh.getCommonClassLoader());
                 if(ctxUtil != null) {
                     SerializationConfig serializationConfig = new SerializationConfig();
-                    setPayaraSerializerConfig(serializationConfig);
+                    setPayaraSerializerConfig(serializationConfig, isCompactSerialization(config));
                     config.setSerializationConfig(serializationConfig);
                 }
 
@@ -379,18 +385,58 @@ public class HazelcastCore implements EventListener, ConfigListener {
         } catch (IOException ex) {
             Logger.getLogger(HazelcastCore.class.getName()).log(Level.WARNING, "Hazelcast Core could not load configuration file " + hazelcastFilePath + " using default configuration", ex);
         }
+        if (isCompactSerialization(config)) {
+            addCompactSerializers(config);
+        }
         return config;
     }
 
-    private void setPayaraSerializerConfig(SerializationConfig serConfig) {
+    /**
+     * Registers Payara's type specific serializers, unless the Hazelcast configuration file already
+     * maps their type. They change the wire format of their types, so only compact serialization uses them.
+     */
+    private void addCompactSerializers(Config config) {
+        SerializationConfig serConfig = config.getSerializationConfig();
+        if (serConfig == null || compactSerializers == null) {
+            return;
+        }
+        for (PayaraCompactSerializer<?> serializer : compactSerializers) {
+            Class<?> type = serializer.getTypeClass();
+            boolean configured = false;
+            for (SerializerConfig existing : serConfig.getSerializerConfigs()) {
+                configured |= type == existing.getTypeClass() || type.getName().equals(existing.getTypeClassName());
+            }
+            if (configured) {
+                Logger.getLogger(HazelcastCore.class.getName()).log(Level.WARNING,
+                        "A serializer for {0} is already configured, ignoring {1}",
+                        new Object[]{type.getName(), serializer.getClass().getName()});
+            } else {
+                serConfig.addSerializerConfig(new SerializerConfig().setTypeClass(type).setImplementation(serializer));
+            }
+        }
+    }
+
+    private void setPayaraSerializerConfig(SerializationConfig serConfig, boolean compact) {
         if(serConfig == null || ctxUtil == null) {
             throw new IllegalStateException("either serialization config or ctxUtil is null");
         }
         serConfig.setGlobalSerializerConfig(new GlobalSerializerConfig().setImplementation(
-                new PayaraHazelcastSerializer(ctxUtil, null))
+                new PayaraHazelcastSerializer(ctxUtil, null, compact))
                 .setOverrideJavaSerialization(true));
     }
 
+    /**
+     * Compact serialization changes the wire format, so it is only used when the Hazelcast configuration,
+     * or a system property of the same name, opts in.
+     */
+    private static boolean isCompactSerialization(Config config) {
+        String compact = config.getProperty(PayaraHazelcastSerializer.COMPACT_SERIALIZATION_PROPERTY);
+        if (compact == null) {
+            compact = System.getProperty(PayaraHazelcastSerializer.COMPACT_SERIALIZATION_PROPERTY);
+        }
+        return Boolean.parseBoolean(compact);
+    }
+
     private void buildNetworkConfiguration(Config config) throws NumberFormatException {
         NetworkConfig nConfig = config.getNetworkConfig();
         if (nodeConfig.getPublicAddress() != null && !nodeConfig.getPublicAddress().isEmpty()) {
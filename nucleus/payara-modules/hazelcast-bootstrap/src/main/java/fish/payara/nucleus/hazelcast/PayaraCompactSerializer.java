@@ -0,0 +1,67 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.hazelcast;
+
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.jvnet.hk2.annotations.Contract;
+
+/**
+ * Serializer for a type Payara stores in Hazelcast that has a more compact form than Java serialization.
+ * Implementations found in the service locator are registered as type specific serializers by
+ * {@link HazelcastCore}, but only when compact serialization is enabled with
+ * {@link PayaraHazelcastSerializer#COMPACT_SERIALIZATION_PROPERTY}; otherwise their types keep the
+ * Java serialized format so that members of different versions can share a cluster.
+ * <p>
+ * Type ids must be unique across the cluster and stable between releases; Payara modules use ids
+ * starting at {@link #PAYARA_TYPE_ID_BASE}.
+ *
+ * @param <T> the type this serializer writes
+ * @since 5.2020.7
+ */
+@Contract
+public interface PayaraCompactSerializer<T> extends StreamSerializer<T> {
+
+    int PAYARA_TYPE_ID_BASE = 1000;
+
+    /**
+     * @return the exact class this serializer is registered for
+     */
+    Class<T> getTypeClass();
+}
@@ -48,28 +48,57 @@ import java.io.IOException;
 import org.glassfish.internal.api.JavaEEContextUtil.Context;
 
 /**
+ * Global serializer that carries the invocation's component id along with each value, so that the value can
+ * be read back using the application's class loader. Values are serialized by the configured delegate or,
+ * when there is none, by Hazelcast's Java serializer.
+ * <p>
+ * In compact mode, enabled by the {@value #COMPACT_SERIALIZATION_PROPERTY} Hazelcast configuration property,
+ * the component id is written as a plain string and values default to {@link CompactJavaSerializer}. The two
+ * modes have different wire formats, so every member of the cluster must use the same one.
  *
  * @author lprimak
  * @since 4.1.2.173
  */
 public class PayaraHazelcastSerializer implements StreamSerializer<Object> {
-    @SuppressWarnings("unchecked")
+    /**
+     * Hazelcast configuration property enabling compact mode
+     */
+    public static final String COMPACT_SERIALIZATION_PROPERTY = "fish.payara.hazelcast.compact-serialization";
+
     public PayaraHazelcastSerializer(JavaEEContextUtil ctxUtil, StreamSerializer<?> delegate) {
+        this(ctxUtil, delegate, false);
+    }
+
+    /**
+     * @since 5.2020.7
+     */
+    @SuppressWarnings("unchecked")
+    public PayaraHazelcastSerializer(JavaEEContextUtil ctxUtil, StreamSerializer<?> delegate, boolean compact) {
         this.ctxUtil = ctxUtil;
-        this.delegate = delegate != null ? (StreamSerializer<Object>) delegate : new JavaDefaultSerializers.JavaSerializer(
-                true, false, null);
+        this.compact = compact;
+        if (delegate != null) {
+            this.delegate = (StreamSerializer<Object>) delegate;
+        } else if (compact) {
+            this.delegate = new CompactJavaSerializer();
+        } else {
+            this.delegate = new JavaDefaultSerializers.JavaSerializer(true, false, null);
+        }
     }
 
 
     @Override
     public void write(ObjectDataOutput out, Object object) throws IOException {
-        delegate.write(out, ctxUtil.getInvocationComponentId());
+        if (compact) {
+            out.writeUTF(ctxUtil.getInvocationComponentId());
+        } else {
+            delegate.write(out, ctxUtil.getInvocationComponentId());
+        }
         delegate.write(out, object);
     }
 
     @Override
     public Object read(ObjectDataInput in) throws IOException {
-        String componentId = (String)delegate.read(in);
+        String componentId = compact ? in.readUTF() : (String) delegate.read(in);
         ctxUtil.setInstanceComponentId(componentId);
         try (Context ctx = ctxUtil.setApplicationClassLoader()) {
             return delegate.read(in);
@@ -88,4 +117,5 @@ public class PayaraHazelcastSerializer implements StreamSerializer<Object> {
 
     private final JavaEEContextUtil ctxUtil;
     private final StreamSerializer<Object> delegate;
+    private final boolean compact;
 }
@@ -43,6 +43,7 @@ import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.listener.MapListener;
 import com.hazelcast.monitor.LocalMapStats;
 import fish.payara.monitoring.collect.MonitoringDataCollector;
 import fish.payara.monitoring.collect.MonitoringDataSource;
@@ -139,6 +140,55 @@ public class ClusteredStore implements EventListener, MonitoringDataSource {
         return result;
     }
     
+    /**
+     * Updates a value in Hazelcast in place on the member owning the key,
+     * without sending the whole value across the cluster.
+     * The store will be created if it does not already exist.
+     * @param storeName The name of the store holding the value
+     * @param key The key of the value to update
+     * @param updater Computes the new value from the stored one
+     * @return true if the value was changed, false otherwise
+     */
+    public boolean update(String storeName, Serializable key, ClusteredStoreEntryUpdater<?> updater) {
+        boolean result = false;
+        if (isEnabled()) {
+            updater.setEncrypted(hzCore.isDatagridEncryptionEnabled());
+            IMap<Serializable, Serializable> map = hzCore.getInstance().getMap(storeName);
+            result = Boolean.TRUE.equals(map.executeOnKey(key, updater));
+        }
+        return result;
+    }
+
+    /**
+     * Registers a listener for changes made to a Hazelcast store by any member.
+     * Values are not sent to the listener, only keys.
+     * The store will be created if it does not already exist.
+     * @param storeName The name of the store to listen to
+     * @param listener The listener to register
+     * @return the registration id of the listener, or null if Hazelcast is not enabled
+     */
+    public String addEntryListener(String storeName, MapListener listener) {
+        String result = null;
+        if (isEnabled()) {
+            result = hzCore.getInstance().getMap(storeName).addEntryListener(listener, false);
+        }
+        return result;
+    }
+
+    /**
+     * Removes a listener registered with {@link #addEntryListener(String, MapListener)}.
+     * @param storeName The name of the store the listener was registered with
+     * @param registrationId The registration id of the listener
+     * @return true if the listener was removed, false otherwise
+     */
+    public boolean removeEntryListener(String storeName, String registrationId) {
+        boolean result = false;
+        if (isEnabled()) {
+            result = hzCore.getInstance().getMap(storeName).removeEntryListener(registrationId);
+        }
+        return result;
+    }
+
     /**
      * Removes a key/value pair of a Hazelcast store.
      * The store will be created if it does not already exist.
@@ -0,0 +1,95 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.store;
+
+import com.hazelcast.map.AbstractEntryProcessor;
+import fish.payara.nucleus.hazelcast.encryption.HazelcastSymmetricEncryptor;
+import fish.payara.nucleus.hazelcast.encryption.PayaraHazelcastEncryptedValueHolder;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Updates a value of a {@link ClusteredStore} in place on the member owning its key, so that only the
+ * change rather than the whole value has to be sent across the cluster. The update is applied to the
+ * backup copies as well, so it has to be deterministic.
+ *
+ * @param <V> the type of the stored values
+ * @since 5.2020.7
+ */
+public abstract class ClusteredStoreEntryUpdater<V extends Serializable>
+        extends AbstractEntryProcessor<Serializable, Serializable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean encrypted;
+
+    /**
+     * Computes the new value of the entry.
+     *
+     * @param current the stored value, or null if there is none
+     * @return the value to store, or null to leave the entry unchanged
+     */
+    protected abstract V update(V current);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object process(Map.Entry<Serializable, Serializable> entry) {
+        Serializable value = entry.getValue();
+        if (value instanceof PayaraHazelcastEncryptedValueHolder) {
+            value = (Serializable) HazelcastSymmetricEncryptor.byteArrayToObject(HazelcastSymmetricEncryptor.decode(
+                    ((PayaraHazelcastEncryptedValueHolder) value).getEncryptedObjectBytes()));
+        }
+        V updated = update((V) value);
+        if (updated == null) {
+            return Boolean.FALSE;
+        }
+        if (encrypted) {
+            entry.setValue(new PayaraHazelcastEncryptedValueHolder(HazelcastSymmetricEncryptor.encode(
+                    HazelcastSymmetricEncryptor.objectToByteArray(updated))));
+        } else {
+            entry.setValue(updated);
+        }
+        return Boolean.TRUE;
+    }
+
+    void setEncrypted(boolean encrypted) {
+        this.encrypted = encrypted;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.hazelcast.test;
+
+import com.hazelcast.config.GlobalSerializerConfig;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import fish.payara.nucleus.hazelcast.CompactJavaSerializer;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that values survive a round trip through the {@link CompactJavaSerializer} and are written with
+ * fewer bytes than plain Java serialization.
+ */
+public class CompactJavaSerializerTest {
+
+    private final InternalSerializationService compact = new DefaultSerializationServiceBuilder()
+            .setConfig(new SerializationConfig().setGlobalSerializerConfig(new GlobalSerializerConfig()
+                    .setImplementation(new CompactJavaSerializer()).setOverrideJavaSerialization(true)))
+            .build();
+
+    private final InternalSerializationService plain = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void jdkTypesRoundTripInFewerBytes() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("count", 42L);
+        value.put("amount", new BigDecimal("12.50"));
+        value.put("created", new Date(1000L));
+        value.put("names", new ArrayList<>(Arrays.asList("a", "b")));
+
+        Assert.assertEquals(value, roundTrip(value));
+        Assert.assertTrue(compact.toData(value).totalSize() < plain.toData(value).totalSize());
+    }
+
+    @Test
+    public void applicationTypesRoundTrip() {
+        Holder value = new Holder(7, TimeUnit.SECONDS, new Integer[] { 1, 2, 3 });
+
+        Holder result = roundTrip(value);
+        Assert.assertEquals(7, result.number);
+        Assert.assertEquals(TimeUnit.SECONDS, result.unit);
+        Assert.assertArrayEquals(value.values, result.values);
+        Assert.assertTrue(compact.toData(value).totalSize() < plain.toData(value).totalSize());
+    }
+
+    @Test
+    public void sharedReferencesArePreserved() {
+        Date date = new Date(5000L);
+        Date[] value = { date, date };
+
+        Date[] result = roundTrip(value);
+        Assert.assertArrayEquals(value, result);
+        Assert.assertSame(result[0], result[1]);
+    }
+
+    private <T> T roundTrip(Object value) {
+        Data data = compact.toData(value);
+        return compact.toObject(data);
+    }
+
+    private static class Holder implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int number;
+        private final TimeUnit unit;
+        private final Number[] values;
+
+        Holder(int number, TimeUnit unit, Number[] values) {
+            this.number = number;
+            this.unit = unit;
+            this.values = values;
+        }
+    }
+}
@@ -45,7 +45,6 @@ import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.spi.ConfigSource;
 import org.eclipse.microprofile.config.spi.Converter;
 
-import static fish.payara.nucleus.microprofile.config.spi.ConfigValueResolverImpl.getCacheKey;
 import static fish.payara.nucleus.microprofile.config.spi.ConfigValueResolverImpl.throwWhenNotExists;
 import static java.lang.System.currentTimeMillis;
 
@@ -53,10 +52,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
@@ -74,6 +75,7 @@ public class PayaraConfig implements Config {
     private static final class CacheEntry {
         final Object value;
         final long expires;
+        final AtomicBoolean refreshing = new AtomicBoolean();
 
         CacheEntry(Object value, long expires) {
             this.value = value;
@@ -81,6 +83,48 @@ public class PayaraConfig implements Config {
         }
     }
 
+    /**
+     * Identifies a cached value. The qualifier is either the property type or the cache key given by a
+     * {@link ConfigValueResolver}. Unlike a concatenated {@link String} key it is cheap to create and its hash code is
+     * computed once.
+     */
+    private static final class CacheKey {
+        final String propertyName;
+        final Object qualifier;
+        final String defaultValue;
+        final long ttl;
+        final int hash;
+
+        CacheKey(String propertyName, Object qualifier, String defaultValue, long ttl) {
+            this.propertyName = propertyName;
+            this.qualifier = qualifier;
+            this.defaultValue = defaultValue;
+            this.ttl = ttl;
+            this.hash = 31 * (31 * (31 * Objects.hashCode(propertyName) + qualifier.hashCode())
+                    + Objects.hashCode(defaultValue)) + Long.hashCode(ttl);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return hash == other.hash && ttl == other.ttl
+                    && Objects.equals(propertyName, other.propertyName)
+                    && qualifier.equals(other.qualifier)
+                    && Objects.equals(defaultValue, other.defaultValue);
+        }
+    }
+
     /**
      * Duration a {@link CacheEntry} is valid, when it becomes invalid the entry is updated with value from
      * {@link ConfigSource} on next request.
@@ -90,7 +134,7 @@ public class PayaraConfig implements Config {
     private final List<ConfigSource> sources;
     private final Map<Class<?>, Converter<?>> converters;
     private final long ttl;
-    private final Map<String, CacheEntry> cachedValuesByProperty = new ConcurrentHashMap<>();
+    private final Map<CacheKey, CacheEntry> cachedValuesByProperty = new ConcurrentHashMap<>();
 
     public PayaraConfig(List<ConfigSource> configSources, Map<Class<?>,Converter<?>> converters) {
         this(configSources, converters, TimeUnit.SECONDS.toMillis(DEFAULT_TTL));
@@ -124,8 +168,10 @@ public class PayaraConfig implements Config {
     }
 
     private <T> T getValueInternal(String propertyName, Class<T> propertyType) {
-        return getValue(propertyName, getCacheKey(propertyName, propertyType), ttl, null,
-                () -> getConverter(propertyType));
+        if (ttl <= 0) {
+            return getValueConverted(propertyName, null, getConverter(propertyType));
+        }
+        return getCachedValue(new CacheKey(propertyName, propertyType, null, ttl), () -> getConverter(propertyType));
     }
 
     @Override
@@ -152,14 +198,34 @@ public class PayaraConfig implements Config {
         if (entryTTL <= 0) {
             return getValueConverted(propertyName, defaultValue, converter.get());
         }
-        final String entryKey = cacheKey + (defaultValue != null ? ":" + defaultValue : "")  + ":" + (entryTTL / 1000) + "s";
+        return getCachedValue(new CacheKey(propertyName, cacheKey, defaultValue, entryTTL), converter);
+    }
+
+    /**
+     * Reads a value from the cache without locking. Only a missing entry is computed while holding the map bin. An
+     * expired entry is refreshed by the first thread that notices it; concurrent readers keep using the expired value
+     * until the refreshed one is stored instead of queueing up behind the refresh.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getCachedValue(CacheKey key, Supplier<? extends Converter<T>> converter) {
         final long now = currentTimeMillis();
-        return (T) cachedValuesByProperty.compute(entryKey, (key, entry) -> {
-            if (entry != null && now < entry.expires) {
-                return entry;
-            }
-            return new CacheEntry(getValueConverted(propertyName, defaultValue, converter.get()), now + entryTTL);
-        }).value;
+        CacheEntry entry = cachedValuesByProperty.get(key);
+        if (entry == null) {
+            return (T) cachedValuesByProperty.computeIfAbsent(key, k -> new CacheEntry(
+                    getValueConverted(k.propertyName, k.defaultValue, converter.get()), now + k.ttl)).value;
+        }
+        if (now < entry.expires || !entry.refreshing.compareAndSet(false, true)) {
+            return (T) entry.value;
+        }
+        try {
+            CacheEntry updated = new CacheEntry(getValueConverted(key.propertyName, key.defaultValue, converter.get()),
+                    now + key.ttl);
+            cachedValuesByProperty.put(key, updated);
+            return (T) updated.value;
+        } catch (RuntimeException ex) {
+            entry.refreshing.set(false);
+            throw ex;
+        }
     }
 
     private <T> T getValueConverted(String propertyName, String defaultValue, Converter<T> converter) {
@@ -131,6 +131,14 @@ public class PayaraConfigTest {
         assertEquals("1", config.getValue("int1", String.class));
     }
 
+    @Test
+    public void eachDefaultValueIsCached() {
+        assertEquals("default1",
+                config.getValue("undefined", ConfigValueResolver.class).withDefault("default1").as(String.class).get());
+        assertEquals("default2",
+                config.getValue("undefined", ConfigValueResolver.class).withDefault("default2").as(String.class).get());
+    }
+
     @Test
     public void cacheCanBeBypassedUsingTTLZero() {
         Config config = new PayaraConfig(asList(source1, source2), emptyMap(), 0L);
@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue of completed {@link RequestTrace}s, written by any number of request threads and read
+ * by a single thread processing the traces.
+ * <p>
+ * The slots are allocated up front. Offering a trace claims the next slot with a single CAS and never blocks; when
+ * all slots are in use the trace is rejected instead, so a slow consumer can not slow down requests.
+ */
+class RequestTraceRingBuffer {
+
+    private final AtomicReferenceArray<RequestTrace> slots;
+    private final int mask;
+    /**
+     * Sequence of the next slot to claim by a writer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Sequence of the next slot to read by the reader.
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity the minimum number of traces that can be queued, rounded up to the next power of 2
+     */
+    RequestTraceRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a trace to the queue.
+     *
+     * @param trace the trace to add
+     * @return true if the trace was added, false if the queue is full
+     */
+    boolean offer(RequestTrace trace) {
+        long sequence = tail.get();
+        while (sequence - head < slots.length()) {
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int) sequence & mask, trace);
+                return true;
+            }
+            sequence = tail.get();
+        }
+        return false;
+    }
+
+    /**
+     * Removes the oldest trace from the queue. Must only be called by one thread at a time.
+     *
+     * @return the oldest trace or null if the queue is empty or the oldest trace has not been written yet
+     */
+    RequestTrace poll() {
+        long sequence = head;
+        int index = (int) sequence & mask;
+        RequestTrace trace = slots.get(index);
+        if (trace == null) {
+            return null;
+        }
+        // the slot has to be cleared before it is released to the writers
+        slots.lazySet(index, null);
+        head = sequence + 1;
+        return trace;
+    }
+
+    /**
+     * Returns the oldest trace without removing it. Unlike {@link #poll()} this may be called by any thread.
+     *
+     * @return the oldest trace or null if the queue is empty or the oldest trace has not been written yet
+     */
+    RequestTrace peek() {
+        return slots.get((int) head & mask);
+    }
+}
@@ -49,6 +49,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -128,6 +129,12 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
     private static final int HOUR = 60 * MINUTE;
     private static final int DAY = 24 * HOUR;
 
+    /**
+     * Number of completed traces that can wait for background processing before further traces are dropped.
+     */
+    private static final int COMPLETED_TRACES_CAPACITY =
+            Integer.getInteger("fish.payara.requesttracing.completed-traces-capacity", 1024);
+
     @Inject
     @Named(ServerEnvironment.DEFAULT_INSTANCE_NAME)
     @Optional
@@ -184,6 +191,12 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
     private final ConcurrentLinkedQueue<RequestTrace> uncollectedTraces = new ConcurrentLinkedQueue<>();
     private final Map<String, Integer> activeCollectionGroups = new ConcurrentHashMap<>();
 
+    /**
+     * Completed traces waiting to be processed in the background when asynchronous processing is enabled.
+     */
+    private final RequestTraceRingBuffer completedTraces = new RequestTraceRingBuffer(COMPLETED_TRACES_CAPACITY);
+    private final AtomicBoolean processingCompletedTraces = new AtomicBoolean();
+
     /**
      * The filter which determines whether to sample a given request
      */
@@ -235,6 +248,7 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
             executionOptions.setThresholdUnit(TimeUnit.valueOf(configuration.getThresholdUnit()));
             executionOptions.setThresholdValue(Long.parseLong(configuration.getThresholdValue()));
             executionOptions.setSampleRateFirstEnabled(Boolean.parseBoolean(configuration.getSampleRateFirstEnabled()));
+            executionOptions.setAsyncProcessingEnabled(Boolean.parseBoolean(configuration.getAsyncProcessingEnabled()));
             
             executionOptions.setTraceStoreSize(Integer.parseInt(configuration.getTraceStoreSize()));
             executionOptions.setTraceStoreTimeout(TimeUtil.setStoreTimeLimit(configuration.getTraceStoreTimeout()));
@@ -472,15 +486,66 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
     }
 
     private void processTraceEnd() {
+        RequestTrace requestTrace = requestEventStore.getTrace();
+        if (executionOptions.isAsyncProcessingEnabled()) {
+            // the completed trace is handed over to the background, the thread continues with a new trace
+            requestEventStore.flushStore();
+            if (completedTraces.offer(requestTrace)) {
+                scheduleCompletedTraceProcessing();
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Request trace queue is full, dropping trace {0}", requestTrace.getTraceId());
+            }
+            return;
+        }
+        processCompletedTrace(requestTrace, false);
+        requestEventStore.flushStore();
+    }
+
+    /**
+     * Starts processing the queued completed traces in the background unless this is already in progress.
+     */
+    private void scheduleCompletedTraceProcessing() {
+        if (processingCompletedTraces.compareAndSet(false, true)) {
+            payaraExecutorService.submit(this::processCompletedTraces);
+        }
+    }
+
+    private void processCompletedTraces() {
+        try {
+            RequestTrace requestTrace = completedTraces.poll();
+            while (requestTrace != null) {
+                try {
+                    processCompletedTrace(requestTrace, true);
+                } catch (RuntimeException ex) {
+                    logger.log(Level.WARNING, "Failed to process request trace", ex);
+                }
+                requestTrace = completedTraces.poll();
+            }
+        } finally {
+            processingCompletedTraces.set(false);
+        }
+        // the writer of a trace offered after the last poll may have seen the flag still set and not scheduled
+        // processing; a slot that is claimed but not written yet is scheduled by its writer once written
+        if (completedTraces.peek() != null) {
+            scheduleCompletedTraceProcessing();
+        }
+    }
+
+    /**
+     * Stores the trace and sends notifications for it if it exceeded the threshold and is sampled.
+     *
+     * @param requestTrace the completed trace
+     * @param background true if called on a background thread, false if on the thread that completed the trace
+     */
+    private void processCompletedTrace(RequestTrace requestTrace, boolean background) {
         Long thresholdValueInNanos = getThresholdValueInNanos();
 
-        long elapsedTime = requestEventStore.getElapsedTime();
+        long elapsedTime = requestTrace.getElapsedTime();
         long elapsedTimeInNanos = TimeUnit.NANOSECONDS.convert(elapsedTime, TimeUnit.MILLISECONDS);
         if (elapsedTimeInNanos - thresholdValueInNanos > 0) {
             // Determine whether to sample the request, if sampleRateFirstEnabled is false
             if (!executionOptions.getSampleRateFirstEnabled()) {
                 if (!sampleFilter.sample()) {
-                    requestEventStore.flushStore();
                     return;
                 }
             }
@@ -488,7 +553,6 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
             if (uncollectedTraces.size() >= 50) {
                 uncollectedTraces.poll(); // avoid queue creating a memory leak by accumulating entries in case no consumer polls them
             }
-            RequestTrace requestTrace = requestEventStore.getTrace();
             uncollectedTraces.add(requestTrace);
 
             Runnable addTask = () -> {
@@ -509,7 +573,11 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
                 }
             };
 
-            payaraExecutorService.submit(addTask);
+            if (background) {
+                addTask.run();
+            } else {
+                payaraExecutorService.submit(addTask);
+            }
 
             Collection<String> enabledNotifiers = getExecutionOptions().getEnabledNotifiers();
             PayaraNotification notification = notificationFactory.newBuilder()
@@ -520,7 +588,6 @@ public class RequestTracingService implements EventListener, ConfigListener, Mon
                 .build();
             notificationEventBus.publish(notification);
         }
-        requestEventStore.flushStore();
     }
 
     public void addSpanLog(RequestTraceSpanLog spanLog) {
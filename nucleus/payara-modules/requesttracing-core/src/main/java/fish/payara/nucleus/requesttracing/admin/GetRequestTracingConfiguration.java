@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) [2016-2019] Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) [2016-2020] Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -135,6 +135,7 @@ public class GetRequestTracingConfiguration implements AdminCommand {
             writeVariableToActionReport(mainActionReport, "Threshold Value", configuration.getThresholdValue());
             writeVariableToActionReport(mainActionReport, "Threshold Unit", configuration.getThresholdUnit());
             writeVariableToActionReport(mainActionReport, "Sample Rate First?", configuration.getSampleRateFirstEnabled());
+            writeVariableToActionReport(mainActionReport, "Asynchronous Processing Enabled?", configuration.getAsyncProcessingEnabled());
             
             // Print trace store details
             writeVariableToActionReport(mainActionReport, "Reservoir Sampling Enabled?", configuration.getReservoirSamplingEnabled());
@@ -167,6 +168,7 @@ public class GetRequestTracingConfiguration implements AdminCommand {
         mainExtraPropsMap.put("thresholdValue", configuration.getThresholdValue());
         mainExtraPropsMap.put("thresholdUnit", configuration.getThresholdUnit());
         mainExtraPropsMap.put("sampleRateFirstEnabled", configuration.getSampleRateFirstEnabled());
+        mainExtraPropsMap.put("asyncProcessingEnabled", configuration.getAsyncProcessingEnabled());
         mainExtraPropsMap.put("traceStoreSize", configuration.getTraceStoreSize());
         mainExtraPropsMap.put("traceStoreTimeout", configuration.getTraceStoreTimeout());
         mainExtraPropsMap.put("reservoirSamplingEnabled", configuration.getReservoirSamplingEnabled());
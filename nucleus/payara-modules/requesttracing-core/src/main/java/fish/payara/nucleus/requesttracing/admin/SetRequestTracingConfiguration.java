@@ -156,6 +156,9 @@ public class SetRequestTracingConfiguration implements AdminCommand {
     @Param(name = "sampleRateFirstEnabled", optional = true)
     private Boolean sampleRateFirstEnabled;
 
+    @Param(name = "asyncProcessingEnabled", optional = true)
+    private Boolean asyncProcessingEnabled;
+
     @Param(name = "traceStoreSize", optional = true)
     private Integer traceStoreSize;
 
@@ -235,6 +238,9 @@ public class SetRequestTracingConfiguration implements AdminCommand {
                         if (sampleRateFirstEnabled != null) {
                             proxy.setSampleRateFirstEnabled(sampleRateFirstEnabled.toString());
                         }
+                        if (asyncProcessingEnabled != null) {
+                            proxy.setAsyncProcessingEnabled(asyncProcessingEnabled.toString());
+                        }
                         
                         if (traceStoreSize != null) {
                             warn = !traceStoreSize.toString().equals(proxy.getTraceStoreSize());
@@ -370,6 +376,11 @@ public class SetRequestTracingConfiguration implements AdminCommand {
             actionReport.appendMessage(strings.getLocalString("requesttracing.configure.sampleratefirst.success",
                     "Request Tracing Service Sample Rate First Enabled Value is set to {0}.", sampleRateFirstEnabled) + "\n");
         }
+        if (asyncProcessingEnabled != null) {
+            service.getExecutionOptions().setAsyncProcessingEnabled(asyncProcessingEnabled);
+            actionReport.appendMessage(strings.getLocalString("requesttracing.configure.asyncprocessing.enabled.success",
+                    "Request Tracing Service Asynchronous Processing Enabled Value is set to {0}.", asyncProcessingEnabled) + "\n");
+        }
         
         if (traceStoreSize != null) {
             service.getExecutionOptions().setTraceStoreSize(traceStoreSize);
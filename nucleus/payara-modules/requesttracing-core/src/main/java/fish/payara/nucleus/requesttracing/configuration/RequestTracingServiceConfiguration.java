@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2016-2017 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016-2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -109,6 +109,14 @@ public interface RequestTracingServiceConfiguration extends ConfigExtension {
     String getSampleRateFirstEnabled();
     void setSampleRateFirstEnabled(String value) throws PropertyVetoException;
 
+    /**
+     * Whether completed traces are checked against the threshold, sampled, stored and notified on a background thread
+     * instead of the thread that completed the trace.
+     */
+    @Attribute(defaultValue = "false", dataType = Boolean.class)
+    String getAsyncProcessingEnabled();
+    void setAsyncProcessingEnabled(String value) throws PropertyVetoException;
+
     @Attribute(defaultValue = "20", dataType = Integer.class)
     @Min(value = 0, message = "Trace store size must be greater than or equal to 0")
     String getTraceStoreSize();
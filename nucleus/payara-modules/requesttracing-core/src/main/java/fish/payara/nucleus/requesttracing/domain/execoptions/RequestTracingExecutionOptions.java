@@ -67,6 +67,7 @@ public class RequestTracingExecutionOptions {
     private Long thresholdValue = 30L;
     private TimeUnit thresholdUnit = SECONDS;
     private Boolean sampleRateFirstEnabled = true;
+    private Boolean asyncProcessingEnabled = false;
     
     private Integer traceStoreSize = 20;
     // Default timeout value **NOT** taken from RequestTracingServiceConfiguration, but from TimeUtil.setStoreTimeLimit
@@ -108,6 +109,18 @@ public class RequestTracingExecutionOptions {
         this.sampleRateFirstEnabled = sampleRateFirstEnabled;
     }
 
+    public Boolean isAsyncProcessingEnabled() {
+        if (asyncProcessingEnabled == null) {
+            return false;
+        }
+
+        return asyncProcessingEnabled;
+    }
+
+    public void setAsyncProcessingEnabled(Boolean asyncProcessingEnabled) {
+        this.asyncProcessingEnabled = asyncProcessingEnabled;
+    }
+
     public Boolean getAdaptiveSamplingEnabled() {
         return adaptiveSamplingEnabled;
     }
@@ -277,6 +290,7 @@ public class RequestTracingExecutionOptions {
                 + ", thresholdValue=" + thresholdValue
                 + ", thresholdUnit=" + thresholdUnit
                 + ", sampleRateFirstEnabled=" + sampleRateFirstEnabled
+                + ", asyncProcessingEnabled=" + asyncProcessingEnabled
                 + ", traceStoreSize=" + traceStoreSize
                 + ", traceStoreTimeout=" + traceStoreTimeout
                 + ", reservoirSamplingEnabled=" + reservoirSamplingEnabled
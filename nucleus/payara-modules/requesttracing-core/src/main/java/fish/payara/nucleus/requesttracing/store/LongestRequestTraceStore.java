@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2017-2020 Payara Foundation and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,29 +40,46 @@
 package fish.payara.nucleus.requesttracing.store;
 
 import fish.payara.notification.requesttracing.RequestTrace;
-import fish.payara.nucleus.requesttracing.store.strategy.TraceStorageStrategy;
+import fish.payara.nucleus.requesttracing.store.strategy.LongestTraceStorageStrategy;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 /**
- * A store of {@link RequestTrace} objects.
+ * A store of {@link RequestTrace} objects that keeps the longest traces.
  * Stores the list locally.
+ * <p>
+ * Keeps the same traces as the {@link LongestTraceStorageStrategy} would, but the traces are kept ordered by elapsed
+ * time so the shortest trace is found in O(log n) instead of scanning the store on every added trace. Traces are not
+ * hashed either, which for {@link RequestTrace} means rendering it as JSON.
  */
-public class LocalRequestTraceStore implements RequestTraceStoreInterface {
+public class LongestRequestTraceStore implements RequestTraceStoreInterface {
 
-    private final Set<RequestTrace> store = ConcurrentHashMap.newKeySet();
-    private IntSupplier maxStoreSize;
+    /**
+     * Shortest first, of equally short traces the oldest first.
+     * The trace ID only makes distinct traces with same duration and start distinct elements of the store.
+     */
+    private static final Comparator<RequestTrace> SHORTEST_FIRST = Comparator
+            .comparingLong(RequestTrace::getElapsedTime)
+            .thenComparing(RequestTrace::getStartTime, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()))
+            .thenComparing(RequestTrace::getTraceId, Comparator.nullsFirst(Comparator.<UUID>naturalOrder()));
 
-    private final TraceStorageStrategy strategy;
+    private final ConcurrentSkipListSet<RequestTrace> store = new ConcurrentSkipListSet<>(SHORTEST_FIRST);
+    /**
+     * Size of the {@link #store}, its {@link ConcurrentSkipListSet#size()} is not a constant time operation.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    private IntSupplier maxStoreSize;
 
-    LocalRequestTraceStore(TraceStorageStrategy strategy) {
+    LongestRequestTraceStore() {
         this.maxStoreSize = () -> 0;
-        this.strategy = strategy;
     }
 
     @Override
@@ -72,14 +89,25 @@ public class LocalRequestTraceStore implements RequestTraceStoreInterface {
 
     @Override
     public RequestTrace addTrace(RequestTrace trace, RequestTrace traceToRemove) {
-        store.add(trace);
-        traceToRemove = strategy.getTraceForRemoval(getTraces(), maxStoreSize.getAsInt(), traceToRemove);
-        if (traceToRemove == null) {
+        if (store.add(trace)) {
+            size.incrementAndGet();
+        }
+        if (size.get() <= maxStoreSize.getAsInt()) {
             return null;
         }
-        store.remove(traceToRemove);
+        if (traceToRemove != null && store.remove(traceToRemove)) {
+            size.decrementAndGet();
+            return traceToRemove;
+        }
+        return removeShortest();
+    }
 
-        return traceToRemove;
+    private RequestTrace removeShortest() {
+        RequestTrace removed = store.pollFirst();
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return removed;
     }
 
     @Override
@@ -95,8 +123,8 @@ public class LocalRequestTraceStore implements RequestTraceStoreInterface {
     @Override
     public void setSize(IntSupplier maxSize) {
         int currentMaxSize = maxSize.getAsInt();
-        while (store.size() > currentMaxSize) {
-            store.remove(strategy.getTraceForRemoval(getTraces(), currentMaxSize, null));
+        while (size.get() > currentMaxSize && removeShortest() != null) {
+            // removed the shortest
         }
         this.maxStoreSize = maxSize;
     }
@@ -108,8 +136,12 @@ public class LocalRequestTraceStore implements RequestTraceStoreInterface {
 
     @Override
     public Collection<RequestTrace> emptyStore() {
-        Collection<RequestTrace> traces = new ArrayList<>(store);
-        store.clear();
+        Collection<RequestTrace> traces = new ArrayList<>(size.get());
+        RequestTrace trace = removeShortest();
+        while (trace != null) {
+            traces.add(trace);
+            trace = removeShortest();
+        }
         return traces;
     }
 
@@ -98,8 +98,11 @@ public class RequestTraceStoreFactory {
             return new ClusteredRequestTraceStore(store, strategy);
         }
 
-        // Otherwise get a local store
-        return new LocalRequestTraceStore(strategy);
+        // Otherwise get a local store, ordered or sampled so that adding a trace does not scan the store
+        if (reservoirSamplingEnabled) {
+            return new ReservoirRequestTraceStore();
+        }
+        return new LongestRequestTraceStore();
     }
 
 }
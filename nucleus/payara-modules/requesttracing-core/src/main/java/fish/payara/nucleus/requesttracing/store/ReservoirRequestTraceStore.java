@@ -0,0 +1,193 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing.store;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+import fish.payara.nucleus.requesttracing.store.strategy.ReservoirTraceStorageStrategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntSupplier;
+
+/**
+ * A store of {@link RequestTrace} objects that keeps a random sample of the traces.
+ * Stores the list locally.
+ * <p>
+ * Keeps the same kind of sample as the {@link ReservoirTraceStorageStrategy} would. The traces are kept in a fixed
+ * size array of slots that is filled first. Once full an added trace replaces a random slot, or is dropped itself,
+ * each with equal probability. Adding a trace therefore is a constant time operation that does not lock.
+ * <p>
+ * The slots are replaced with a new array when the maximum size changes. Traces added concurrently to a resize
+ * might not make it into the resized store, which is of no concern for a random sample.
+ */
+public class ReservoirRequestTraceStore implements RequestTraceStoreInterface {
+
+    private final AtomicReference<Reservoir> reservoir = new AtomicReference<>(new Reservoir(0));
+    private IntSupplier maxStoreSize;
+
+    ReservoirRequestTraceStore() {
+        this.maxStoreSize = () -> 0;
+    }
+
+    @Override
+    public RequestTrace addTrace(RequestTrace trace) {
+        return addTrace(trace, null);
+    }
+
+    @Override
+    public RequestTrace addTrace(RequestTrace trace, RequestTrace traceToRemove) {
+        Reservoir current = resize(maxStoreSize.getAsInt());
+        int capacity = current.slots.length();
+        int index = current.count.get();
+        while (index < capacity) {
+            if (current.count.compareAndSet(index, index + 1)) {
+                // a concurrent replacement might have taken the claimed slot already, in that case the trace is dropped
+                return current.slots.compareAndSet(index, null, trace) ? null : trace;
+            }
+            index = current.count.get();
+        }
+        if (traceToRemove != null) {
+            for (int i = 0; i < capacity; i++) {
+                if (current.slots.compareAndSet(i, traceToRemove, trace)) {
+                    return traceToRemove;
+                }
+            }
+        }
+        int victim = ThreadLocalRandom.current().nextInt(capacity + 1);
+        if (victim == capacity) {
+            return trace;
+        }
+        return current.slots.getAndSet(victim, trace);
+    }
+
+    /**
+     * Makes sure the current {@link Reservoir} has the given capacity.
+     *
+     * @return the reservoir with the given capacity
+     */
+    private Reservoir resize(int maxSize) {
+        int capacity = Math.max(0, maxSize);
+        Reservoir current = reservoir.get();
+        while (current.slots.length() != capacity) {
+            List<RequestTrace> traces = current.traces();
+            if (traces.size() > capacity) {
+                Collections.shuffle(traces, ThreadLocalRandom.current());
+                traces = traces.subList(0, capacity);
+            }
+            Reservoir resized = new Reservoir(capacity, traces);
+            if (reservoir.compareAndSet(current, resized)) {
+                return resized;
+            }
+            current = reservoir.get();
+        }
+        return current;
+    }
+
+    @Override
+    public Collection<RequestTrace> getTraces() {
+        return reservoir.get().traces();
+    }
+
+    @Override
+    public Collection<RequestTrace> getTraces(int limit) {
+        List<RequestTrace> traces = reservoir.get().traces();
+        return traces.size() <= limit ? traces : new ArrayList<>(traces.subList(0, limit));
+    }
+
+    @Override
+    public void setSize(IntSupplier maxSize) {
+        resize(maxSize.getAsInt());
+        this.maxStoreSize = maxSize;
+    }
+
+    @Override
+    public int getStoreSize() {
+        return maxStoreSize.getAsInt();
+    }
+
+    @Override
+    public Collection<RequestTrace> emptyStore() {
+        Reservoir current = reservoir.get();
+        while (!reservoir.compareAndSet(current, new Reservoir(current.slots.length()))) {
+            current = reservoir.get();
+        }
+        return current.traces();
+    }
+
+    private static final class Reservoir {
+
+        final AtomicReferenceArray<RequestTrace> slots;
+        /**
+         * Number of claimed slots, once equal to the capacity all slots are claimed.
+         */
+        final AtomicInteger count;
+
+        Reservoir(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.count = new AtomicInteger();
+        }
+
+        Reservoir(int capacity, List<RequestTrace> traces) {
+            this(capacity);
+            for (int i = 0; i < traces.size(); i++) {
+                slots.set(i, traces.get(i));
+            }
+            count.set(traces.size());
+        }
+
+        List<RequestTrace> traces() {
+            int claimed = Math.min(count.get(), slots.length());
+            List<RequestTrace> traces = new ArrayList<>(claimed);
+            for (int i = 0; i < claimed; i++) {
+                RequestTrace trace = slots.get(i);
+                if (trace != null) {
+                    traces.add(trace);
+                }
+            }
+            return traces;
+        }
+    }
+}
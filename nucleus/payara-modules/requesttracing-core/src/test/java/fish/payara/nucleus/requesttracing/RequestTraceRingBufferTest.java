@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+
+/**
+ * Tests correctness of the {@link RequestTraceRingBuffer}.
+ */
+public class RequestTraceRingBufferTest {
+
+    @Test
+    public void tracesArePolledInOfferOrder() {
+        RequestTraceRingBuffer buffer = new RequestTraceRingBuffer(4);
+        assertNull(buffer.peek());
+        RequestTrace first = new RequestTrace();
+        RequestTrace second = new RequestTrace();
+        assertTrue(buffer.offer(first));
+        assertTrue(buffer.offer(second));
+        assertSame(first, buffer.peek());
+        assertSame(first, buffer.poll());
+        assertSame(second, buffer.peek());
+        assertSame(second, buffer.poll());
+        assertNull(buffer.poll());
+        assertNull(buffer.peek());
+    }
+
+    @Test
+    public void offeringToFullBufferIsRejected() {
+        RequestTraceRingBuffer buffer = new RequestTraceRingBuffer(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(new RequestTrace()));
+        }
+        assertFalse(buffer.offer(new RequestTrace()));
+        buffer.poll();
+        assertTrue(buffer.offer(new RequestTrace()));
+    }
+
+    @Test
+    public void concurrentlyOfferedTracesAreAllPolled() throws InterruptedException {
+        RequestTraceRingBuffer buffer = new RequestTraceRingBuffer(1024);
+        int threads = 4;
+        int tracesPerThread = 200;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < tracesPerThread; i++) {
+                    buffer.offer(new RequestTrace());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        Set<RequestTrace> polled = Collections.newSetFromMap(new IdentityHashMap<>());
+        RequestTrace trace = buffer.poll();
+        while (trace != null) {
+            polled.add(trace);
+            trace = buffer.poll();
+        }
+        assertEquals(threads * tracesPerThread, polled.size());
+        assertNull(buffer.peek());
+    }
+}
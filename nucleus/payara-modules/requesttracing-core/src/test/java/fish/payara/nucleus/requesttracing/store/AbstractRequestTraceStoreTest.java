@@ -48,7 +48,8 @@ import fish.payara.notification.requesttracing.RequestTrace;
 import fish.payara.notification.requesttracing.RequestTraceSpan;
 
 /**
- * Common tests for {@link LocalRequestTraceStore} and {@link ClusteredRequestTraceStore}.
+ * Common tests for {@link LongestRequestTraceStore}, {@link ReservoirRequestTraceStore} and
+ * {@link ClusteredRequestTraceStore}.
  *  
  * @author Jan Bernitt
  */
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Payara Foundation and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://github.com/payara/Payara/blob/master/LICENSE.txt
+ * See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at glassfish/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * The Payara Foundation designates this particular file as subject to the "Classpath"
+ * exception as provided by the Payara Foundation in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package fish.payara.nucleus.requesttracing.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fish.payara.notification.requesttracing.RequestTrace;
+
+/**
+ * Tests correctness of the {@link LongestRequestTraceStore}.
+ */
+public class LongestRequestTraceStoreTest extends AbstractRequestTraceStoreTest {
+
+    public LongestRequestTraceStoreTest() {
+        super(new LongestRequestTraceStore());
+    }
+
+    @Test
+    public void addingTraceExceedingMaxSizeRemovesShortestTrace() {
+        store.setSize(() -> 3);
+        RequestTrace medium = createTrace(20_000_000L);
+        RequestTrace shortest = createTrace(10_000_000L);
+        RequestTrace longest = createTrace(40_000_000L);
+        assertNull(store.addTrace(medium));
+        assertNull(store.addTrace(shortest));
+        assertNull(store.addTrace(longest));
+        assertSame(shortest, store.addTrace(createTrace(30_000_000L)));
+        assertEquals(3, store.getTraces().size());
+        assertFalse(store.getTraces().contains(shortest));
+        assertTrue(store.getTraces().contains(longest));
+    }
+
+    @Test
+    public void addingTraceExceedingMaxSizeRemovesGivenTraceIfPresent() {
+        store.setSize(() -> 2);
+        RequestTrace shortest = createTrace(10_000_000L);
+        RequestTrace longest = createTrace(40_000_000L);
+        store.addTrace(shortest);
+        store.addTrace(longest);
+        assertSame(longest, store.addTrace(createTrace(20_000_000L), longest));
+        assertTrue(store.getTraces().contains(shortest));
+    }
+
+    @Test
+    public void addingShortestTraceToFullStoreRemovesTheAddedTrace() {
+        store.setSize(() -> 1);
+        store.addTrace(createTrace(20_000_000L));
+        RequestTrace shortest = createTrace(10_000_000L);
+        assertSame(shortest, store.addTrace(shortest));
+        assertEquals(1, store.getTraces().size());
+    }
+}